@@ -0,0 +1,490 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.cache;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Content addressable cache for the archives written by ojdeploy. Entries are addressed by a key derived from the
+ * {@link InputFingerprint} of a profile, the mappings of ojdeploy arguments and the version of ojdeploy. Each entry is a
+ * directory containing the archives and a manifest mapping them to their paths relative to the workspace.
+ * <p>
+ * The cache directory may be shared by many builds, JVMs and hosts at once, e.g. on a volume mounted by all CI agents. Entries
+ * are published by writing them to a temporary directory first and renaming it afterwards while holding an exclusive
+ * {@link FileLock} on the cache's lock file. Reading does not require any lock. Instead, the checksum of every restored archive
+ * is verified against the manifest, so entries evicted or damaged while being read are treated as a miss.
+ * <p>
+ * The total size of the cache is limited. If it grows beyond the limit, the least recently used entries are evicted by the
+ * build holding the lock.
+ * 
+ * @author bernd
+ *
+ */
+public class BuildCache {
+
+    private static final Logger              LOG             = Logger.getLogger(BuildCache.class);
+
+    private static final String              MANIFEST        = "manifest.properties";
+    private static final String              OUTPUT_PREFIX   = "output.";
+    private static final String              CHECKSUM_PREFIX = "checksum.";
+    private static final String              LOCK_FILE       = "cache.lock";
+    private static final String              TMP_DIR         = "tmp";
+    private static final long                STALE_TMP_AGE   = 24 * 60 * 60 * 1000L;
+
+    /** File locks are held by the whole JVM, so threads publishing to the same directory are serialized by these monitors. */
+    private static final Map<String, Object> MONITORS        = new HashMap<String, Object>();
+
+    private File                             directory       = null;
+    private long                             maxSize         = 0;
+
+    /**
+     * @param directory The root directory of the cache.
+     * @param maxSize The maximum size of all entries in bytes.
+     */
+    public BuildCache(File directory, long maxSize) {
+
+        super();
+        setDirectory(directory);
+        setMaxSize(maxSize);
+    }
+
+    /**
+     * Create the key of a cache entry.
+     * 
+     * @param fingerprint The fingerprint of the profile's inputs.
+     * @param mappings The mappings between Mojo parameters and ojdeploy arguments.
+     * @param ojdeployVersion Identifies the version of ojdeploy.
+     * @return The key.
+     */
+    public String createKey(InputFingerprint fingerprint, Properties mappings, String ojdeployVersion) {
+
+        MessageDigest digest = null;
+
+        digest = Digests.newDigest();
+        Digests.update(digest, "profile=" + fingerprint.getProfile() + "\n");
+        Digests.update(digest, "fingerprint=" + fingerprint.getDigest() + "\n");
+        Digests.update(digest, "ojdeploy=" + ojdeployVersion + "\n");
+
+        for (String currKey : new TreeSet<String>(mappings.stringPropertyNames()))
+            Digests.update(digest, currKey + "=" + mappings.getProperty(currKey) + "\n");
+
+        return Digests.toHex(digest.digest());
+    }
+
+    /**
+     * Restore the archives of the given fingerprint from the cache.
+     * 
+     * @param key The key of the entry.
+     * @param fingerprint The fingerprint naming the archives to be restored.
+     * @return true, if all archives have been restored. If false is returned, ojdeploy must be run.
+     */
+    public boolean restore(String key, InputFingerprint fingerprint) {
+
+        File entry = null;
+        Properties manifest = null;
+        List<File> tmpOutputs = null;
+        String currIndex = null;
+        File currOutput = null;
+
+        entry = getEntryDirectory(key);
+
+        if (fingerprint.getOutputFiles().isEmpty() || !entry.isDirectory()) {
+
+            LOG.info("Build cache miss for profile " + fingerprint.getProfile() + " with key " + key + ".");
+            return false;
+        }
+
+        tmpOutputs = new ArrayList<File>();
+
+        try {
+
+            manifest = loadManifest(entry);
+
+            for (File currFile : fingerprint.getOutputFiles()) {
+
+                currIndex = findIndex(manifest, Fingerprinter.relativize(fingerprint.getBaseDirectory(), currFile));
+
+                if (currIndex == null) {
+
+                    LOG.info("Build cache entry " + key + " does not contain " + currFile.getName() + ".");
+                    return false;
+                }
+
+                tmpOutputs.add(copyVerified(new File(entry, currIndex), currFile,
+                        manifest.getProperty(CHECKSUM_PREFIX + currIndex)));
+            }
+
+            for (int i = 0; i < tmpOutputs.size(); i++) {
+
+                currOutput = fingerprint.getOutputFiles().get(i);
+
+                if (!tmpOutputs.get(i).renameTo(currOutput)) {
+
+                    FileUtils.deleteQuietly(currOutput);
+
+                    if (!tmpOutputs.get(i).renameTo(currOutput))
+                        throw new IOException("Could not rename " + tmpOutputs.get(i) + " to " + currOutput);
+                }
+            }
+
+            entry.setLastModified(System.currentTimeMillis());
+            LOG.info("Restored " + fingerprint.getOutputFiles() + " of profile " + fingerprint.getProfile()
+                    + " from build cache entry " + key + ".");
+            return true;
+
+        } catch (IOException e) {
+
+            LOG.warn("Could not restore build cache entry " + key + ". Running ojdeploy instead.", e);
+            return false;
+
+        } finally {
+
+            for (File currTmp : tmpOutputs)
+                FileUtils.deleteQuietly(currTmp);
+        }
+    }
+
+    /**
+     * Publish the archives of the given fingerprint to the cache. Archives which do not exist are not published at all.
+     * 
+     * @param key The key of the entry.
+     * @param fingerprint The fingerprint naming the archives to be stored.
+     */
+    public void store(String key, InputFingerprint fingerprint) {
+
+        File entry = null;
+        File tmpEntry = null;
+        Properties manifest = null;
+        File currOutput = null;
+
+        entry = getEntryDirectory(key);
+
+        if (entry.isDirectory() || fingerprint.getOutputFiles().isEmpty())
+            return;
+
+        tmpEntry = new File(new File(getDirectory(), TMP_DIR), key + "-" + UUID.randomUUID());
+
+        try {
+
+            manifest = new Properties();
+
+            for (int i = 0; i < fingerprint.getOutputFiles().size(); i++) {
+
+                currOutput = fingerprint.getOutputFiles().get(i);
+
+                if (!currOutput.isFile()) {
+
+                    LOG.info("Archive " + currOutput + " does not exist. Not publishing profile " + fingerprint.getProfile()
+                            + " to build cache.");
+                    return;
+                }
+
+                FileUtils.copyFile(currOutput, new File(tmpEntry, String.valueOf(i)));
+                manifest.setProperty(OUTPUT_PREFIX + i, Fingerprinter.relativize(fingerprint.getBaseDirectory(), currOutput));
+                manifest.setProperty(CHECKSUM_PREFIX + i, Digests.digest(new File(tmpEntry, String.valueOf(i))));
+            }
+
+            storeManifest(tmpEntry, manifest);
+            publishLocked(tmpEntry, entry);
+
+        } catch (IOException e) {
+
+            LOG.warn("Could not publish profile " + fingerprint.getProfile() + " to build cache.", e);
+
+        } finally {
+
+            FileUtils.deleteQuietly(tmpEntry);
+        }
+    }
+
+    /**
+     * Publish the given entry and evict old entries while holding the cache's lock.
+     * 
+     * @param tmpEntry The temporary directory containing the entry.
+     * @param entry The final directory of the entry.
+     * @throws IOException if the entry could not be published.
+     */
+    private void publishLocked(File tmpEntry, File entry) throws IOException {
+
+        RandomAccessFile lockFile = null;
+        FileLock lock = null;
+        long start = 0;
+
+        synchronized (getMonitor()) {
+
+            try {
+
+                start = System.currentTimeMillis();
+                lockFile = new RandomAccessFile(new File(getDirectory(), LOCK_FILE), "rw");
+                lock = lockFile.getChannel().lock();
+                LOG.debug("Acquired build cache lock after " + (System.currentTimeMillis() - start) + "ms.");
+
+                publish(tmpEntry, entry);
+                evict();
+
+            } finally {
+
+                if (lock != null)
+                    lock.release();
+
+                IOUtils.closeQuietly(lockFile);
+            }
+        }
+    }
+
+    /**
+     * @return The monitor serializing threads of this JVM publishing to the directory of this cache.
+     */
+    private Object getMonitor() {
+
+        String path = getDirectory().getAbsolutePath();
+
+        synchronized (MONITORS) {
+
+            if (!MONITORS.containsKey(path))
+                MONITORS.put(path, new Object());
+
+            return MONITORS.get(path);
+        }
+    }
+
+    /**
+     * Move a completely written entry to its final location. Must be called while holding the cache's lock.
+     * 
+     * @param tmpEntry The temporary directory containing the entry.
+     * @param entry The final directory of the entry.
+     * @throws IOException if the entry could not be published.
+     */
+    void publish(File tmpEntry, File entry) throws IOException {
+
+        if (tmpEntry.renameTo(entry))
+            LOG.info("Published build cache entry " + entry.getName() + ".");
+        else if (entry.isDirectory())
+            LOG.debug("Build cache entry " + entry.getName() + " has been published concurrently.");
+        else
+            throw new IOException("Could not rename " + tmpEntry + " to " + entry);
+    }
+
+    /**
+     * Remove the least recently used entries until the size of the cache is below its limit. Stale temporary directories left
+     * behind by crashed builds are removed too. Must be called while holding the cache's lock.
+     */
+    void evict() {
+
+        List<File> entries = null;
+        long size = 0;
+        File tmpEntry = null;
+
+        entries = getEntries();
+
+        for (File currEntry : entries)
+            size += FileUtils.sizeOfDirectory(currEntry);
+
+        Collections.sort(entries, new Comparator<File>() {
+
+            @Override
+            public int compare(File file1, File file2) {
+
+                return Long.valueOf(file1.lastModified()).compareTo(Long.valueOf(file2.lastModified()));
+            }
+        });
+
+        for (File currEntry : entries) {
+
+            if (size <= getMaxSize())
+                break;
+
+            size -= FileUtils.sizeOfDirectory(currEntry);
+            tmpEntry = new File(new File(getDirectory(), TMP_DIR), currEntry.getName() + "-" + UUID.randomUUID());
+            tmpEntry.getParentFile().mkdirs();
+
+            if (currEntry.renameTo(tmpEntry)) {
+
+                LOG.info("Evicted build cache entry " + currEntry.getName() + ".");
+                FileUtils.deleteQuietly(tmpEntry);
+            }
+        }
+
+        deleteStaleTmpEntries();
+    }
+
+    private void deleteStaleTmpEntries() {
+
+        File[] tmpEntries = new File(getDirectory(), TMP_DIR).listFiles();
+
+        if (tmpEntries == null)
+            return;
+
+        for (File currTmp : tmpEntries) {
+
+            if (currTmp.lastModified() < System.currentTimeMillis() - STALE_TMP_AGE)
+                FileUtils.deleteQuietly(currTmp);
+        }
+    }
+
+    /**
+     * @return All published entries of the cache.
+     */
+    List<File> getEntries() {
+
+        List<File> entries = null;
+        File[] files = null;
+
+        entries = new ArrayList<File>();
+        files = getDirectory().listFiles();
+
+        if (files != null)
+            for (File currFile : Arrays.asList(files)) {
+
+                if (currFile.isDirectory() && !currFile.getName().equals(TMP_DIR))
+                    entries.add(currFile);
+            }
+
+        return entries;
+    }
+
+    /**
+     * Copy the given file to a temporary file next to the target and verify its checksum. Renaming it to the target is left to
+     * the caller, so nobody sees a half written or damaged archive.
+     * 
+     * @param source The file inside the cache entry.
+     * @param target The archive to be restored.
+     * @param checksum The checksum recorded when publishing the entry.
+     * @return The verified temporary file.
+     * @throws IOException if the file could not be copied or its checksum does not match.
+     */
+    private File copyVerified(File source, File target, String checksum) throws IOException {
+
+        File tmpTarget = null;
+        String actual = null;
+
+        tmpTarget = new File(target.getParentFile(), "." + target.getName() + "-" + UUID.randomUUID());
+        FileUtils.copyFile(source, tmpTarget);
+        actual = Digests.digest(tmpTarget);
+
+        if (!actual.equals(checksum)) {
+
+            FileUtils.deleteQuietly(tmpTarget);
+            throw new IOException("Checksum of " + source + " is " + actual + " instead of " + checksum + ".");
+        }
+
+        return tmpTarget;
+    }
+
+    private String findIndex(Properties manifest, String relativePath) {
+
+        for (String currKey : manifest.stringPropertyNames()) {
+
+            if (currKey.startsWith(OUTPUT_PREFIX) && manifest.getProperty(currKey).equals(relativePath))
+                return currKey.substring(OUTPUT_PREFIX.length());
+        }
+
+        return null;
+    }
+
+    private Properties loadManifest(File entry) throws IOException {
+
+        Properties manifest = null;
+        InputStream is = null;
+
+        manifest = new Properties();
+
+        try {
+
+            is = new FileInputStream(new File(entry, MANIFEST));
+            manifest.load(is);
+
+        } finally {
+
+            IOUtils.closeQuietly(is);
+        }
+
+        return manifest;
+    }
+
+    private void storeManifest(File entry, Properties manifest) throws IOException {
+
+        OutputStream os = null;
+
+        try {
+
+            os = new FileOutputStream(new File(entry, MANIFEST));
+            manifest.store(os, "ojdeploy build cache entry");
+
+        } finally {
+
+            IOUtils.closeQuietly(os);
+        }
+    }
+
+    File getEntryDirectory(String key) {
+
+        return new File(getDirectory(), key);
+    }
+
+    public File getDirectory() {
+
+        return directory;
+    }
+
+    public void setDirectory(File directory) {
+
+        this.directory = directory;
+    }
+
+    public long getMaxSize() {
+
+        return maxSize;
+    }
+
+    public void setMaxSize(long maxSize) {
+
+        this.maxSize = maxSize;
+    }
+}
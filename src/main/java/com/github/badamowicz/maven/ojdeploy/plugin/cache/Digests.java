@@ -0,0 +1,192 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.cache;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.commons.io.IOUtils;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.exceptions.OjdeployExecutionException;
+
+/**
+ * Static helpers for calculating the SHA-256 digests used for fingerprinting inputs and outputs of ojdeploy.
+ * 
+ * @author bernd
+ *
+ */
+public final class Digests {
+
+    private static final String ALGORITHM   = "SHA-256";
+    private static final String ENCODING    = "UTF-8";
+    private static final int    BUFFER_SIZE = 64 * 1024;
+    private static final long   MAP_SIZE    = 64 * 1024 * 1024;
+    private static final char[] HEX_DIGITS  = "0123456789abcdef".toCharArray();
+
+    private Digests() {
+
+    }
+
+    /**
+     * @return A new {@link MessageDigest} for the algorithm used by this plugin.
+     */
+    public static MessageDigest newDigest() {
+
+        try {
+
+            return MessageDigest.getInstance(ALGORITHM);
+
+        } catch (NoSuchAlgorithmException e) {
+
+            throw new OjdeployExecutionException("Digest algorithm " + ALGORITHM + " not available!", e);
+        }
+    }
+
+    /**
+     * Calculate the digest of the given file's content.
+     * 
+     * @param file The file.
+     * @return The digest as hex string.
+     * @throws IOException if the file could not be read.
+     */
+    public static String digest(File file) throws IOException {
+
+        MessageDigest digest = null;
+        InputStream is = null;
+        byte[] buffer = null;
+        int read = 0;
+
+        digest = newDigest();
+        buffer = new byte[BUFFER_SIZE];
+
+        try {
+
+            is = new FileInputStream(file);
+
+            while ((read = is.read(buffer)) != -1)
+                digest.update(buffer, 0, read);
+
+        } finally {
+
+            IOUtils.closeQuietly(is);
+        }
+
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Calculate the digest of the given file's content by mapping the file into memory. This saves copying large files into a
+     * buffer. Beware that on Windows a mapped file can't be deleted or renamed until the mapping has been garbage collected, so
+     * use it for input files only.
+     * 
+     * @param file The file.
+     * @return The digest as hex string.
+     * @throws IOException if the file could not be read.
+     */
+    public static String digestMapped(File file) throws IOException {
+
+        MessageDigest digest = null;
+        FileInputStream is = null;
+        FileChannel channel = null;
+        long size = 0;
+
+        digest = newDigest();
+
+        try {
+
+            is = new FileInputStream(file);
+            channel = is.getChannel();
+            size = channel.size();
+
+            for (long position = 0; position < size; position += MAP_SIZE)
+                digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_SIZE, size - position)));
+
+        } finally {
+
+            IOUtils.closeQuietly(is);
+        }
+
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Calculate the digest of the given string.
+     * 
+     * @param value The string.
+     * @return The digest as hex string.
+     */
+    public static String digest(String value) {
+
+        MessageDigest digest = null;
+
+        digest = newDigest();
+        update(digest, value);
+
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Add the given string to the digest using a fixed encoding.
+     * 
+     * @param digest The digest to be updated.
+     * @param value The string.
+     */
+    public static void update(MessageDigest digest, String value) {
+
+        try {
+
+            digest.update(value.getBytes(ENCODING));
+
+        } catch (UnsupportedEncodingException e) {
+
+            throw new OjdeployExecutionException("Encoding " + ENCODING + " not available!", e);
+        }
+    }
+
+    /**
+     * @param bytes Some bytes, usually a digest.
+     * @return The bytes as lower case hex string.
+     */
+    public static String toHex(byte[] bytes) {
+
+        char[] hex = new char[bytes.length * 2];
+
+        for (int i = 0; i < bytes.length; i++) {
+
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+
+        return new String(hex);
+    }
+}
@@ -0,0 +1,223 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.cache;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Watches directory trees for changes using a {@link WatchService}. No thread of its own is started: pending changes are
+ * collected by {@link #pollChanges()} and handed over to the registered {@link Listener}s. So changes made before the poll are
+ * never missed by a caller relying on them.
+ * <p>
+ * Directories created inside a watched tree are watched as well. Instances are thread safe.
+ * 
+ * @author bernd
+ *
+ */
+public class DirectoryWatcher {
+
+    private static final Logger   LOG       = Logger.getLogger(DirectoryWatcher.class);
+
+    /** Implementation of the JDK which scans directories periodically instead of receiving notifications of the OS. */
+    private static final String   POLLING   = "PollingWatchService";
+
+    private WatchService          service   = null;
+    private Map<WatchKey, File>   keys      = null;
+    private Map<File, FileFilter> filters   = null;
+    private List<Listener>        listeners = null;
+
+    /**
+     * Callback for changes inside the watched directories.
+     */
+    public interface Listener {
+
+        /**
+         * @param file The file or directory changed.
+         * @param structural true, if the file has been created or deleted instead of being modified.
+         */
+        void changed(File file, boolean structural);
+
+        /**
+         * Called if changes have been lost, so everything must be considered changed.
+         */
+        void overflow();
+    }
+
+    /**
+     * Create a watcher using the default file system's {@link WatchService}.
+     * 
+     * @throws IOException if the file system does not notify about changes but would have to be scanned periodically.
+     */
+    public DirectoryWatcher() throws IOException {
+
+        super();
+        service = FileSystems.getDefault().newWatchService();
+
+        if (service.getClass().getSimpleName().equals(POLLING)) {
+
+            IOUtils.closeQuietly(service);
+            throw new IOException("File system does not notify about changes.");
+        }
+
+        keys = new HashMap<WatchKey, File>();
+        filters = new HashMap<File, FileFilter>();
+        listeners = new CopyOnWriteArrayList<Listener>();
+    }
+
+    /**
+     * Watch the given directory and all directories below it accepted by the filter.
+     * 
+     * @param root The directory.
+     * @param dirFilter Filter for the directories below the root.
+     * @throws IOException if the directories could not be watched, e.g. since the OS limits the number of watches.
+     */
+    public synchronized void watch(File root, FileFilter dirFilter) throws IOException {
+
+        File[] children = null;
+
+        if (!root.isDirectory() || filters.containsKey(root))
+            return;
+
+        keys.put(root.toPath().register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY), root);
+        filters.put(root, dirFilter);
+        children = root.listFiles();
+
+        if (children == null)
+            return;
+
+        for (File currChild : children) {
+
+            if (currChild.isDirectory() && dirFilter.accept(currChild))
+                watch(currChild, dirFilter);
+        }
+    }
+
+    /**
+     * Hand over all changes which happened since the last poll to the listeners.
+     * 
+     * @return The number of changes.
+     */
+    public synchronized int pollChanges() {
+
+        WatchKey key = null;
+        File dir = null;
+        File file = null;
+        int changes = 0;
+
+        while ((key = service.poll()) != null) {
+
+            dir = keys.get(key);
+
+            for (WatchEvent<?> currEvent : key.pollEvents()) {
+
+                changes++;
+
+                if (currEvent.kind() == StandardWatchEventKinds.OVERFLOW || dir == null) {
+
+                    LOG.debug("Changes below " + dir + " have been lost.");
+                    fireOverflow();
+                    continue;
+                }
+
+                file = new File(dir, ((Path) currEvent.context()).toString());
+                fireChanged(file, currEvent.kind() != StandardWatchEventKinds.ENTRY_MODIFY);
+
+                if (currEvent.kind() == StandardWatchEventKinds.ENTRY_CREATE && filters.get(dir).accept(file))
+                    watchQuietly(file, filters.get(dir));
+            }
+
+            if (!key.reset()) {
+
+                keys.remove(key);
+                filters.remove(dir);
+            }
+        }
+
+        return changes;
+    }
+
+    private void watchQuietly(File dir, FileFilter dirFilter) {
+
+        try {
+
+            watch(dir, dirFilter);
+
+        } catch (IOException e) {
+
+            LOG.warn("Could not watch " + dir + ". Considering everything changed.", e);
+            fireOverflow();
+        }
+    }
+
+    private void fireChanged(File file, boolean structural) {
+
+        for (Listener currListener : listeners)
+            currListener.changed(file, structural);
+    }
+
+    private void fireOverflow() {
+
+        for (Listener currListener : listeners)
+            currListener.overflow();
+    }
+
+    public void addListener(Listener listener) {
+
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+
+        listeners.remove(listener);
+    }
+
+    /**
+     * Stop watching all directories.
+     */
+    public synchronized void close() {
+
+        IOUtils.closeQuietly(service);
+        keys.clear();
+        filters.clear();
+    }
+}
@@ -0,0 +1,448 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.exceptions.OjdeployExecutionException;
+
+/**
+ * Index of the digests of files keyed by path, size and modification time. Files whose size and modification time did not
+ * change since they have been hashed last are never read again. Files are hashed in parallel on a fork-join pool shared by all
+ * indexes, large files are mapped into memory instead of being copied into buffers.
+ * <p>
+ * Files modified less than {@link #RACY_INTERVAL} ms before they have been hashed are not indexed, since a further modification
+ * within the granularity of the file system's timestamps would go unnoticed. If an index file is given, the index is loaded
+ * from and stored to it, so it survives between builds.
+ * <p>
+ * If the files are watched for changes, entries may be trusted without even checking size and modification time of their files
+ * again. The watcher must {@link #invalidate(File, boolean)} the entries of files changed. Instances are thread safe.
+ * 
+ * @author bernd
+ *
+ */
+public class FileHashIndex {
+
+    private static final Logger          LOG           = Logger.getLogger(FileHashIndex.class);
+
+    /** Identifies the format of the index file. */
+    private static final int             MAGIC         = 0x4f4a4831;
+
+    /** Time stamps of some file systems have a granularity of two seconds. */
+    static final long                    RACY_INTERVAL = 2000;
+
+    /** Files of at least this size are mapped into memory for hashing them. */
+    private static final long            MAP_THRESHOLD = 1024 * 1024;
+
+    /** Number of files hashed by a single task of the fork-join pool. */
+    private static final int             BATCH_SIZE    = 32;
+
+    /** Shared by all indexes, so a long running daemon does not keep a pool per index. Idle workers terminate by themselves. */
+    private static ForkJoinPool          pool          = null;
+
+    private File                         indexFile     = null;
+    private ConcurrentMap<String, Entry> entries       = null;
+    private Map<String, Boolean>         used          = null;
+    private Map<String, Boolean>         verified      = null;
+    private volatile boolean             trustVerified = false;
+    private volatile boolean             modified      = false;
+
+    /**
+     * Create an index which is kept in memory only.
+     */
+    public FileHashIndex() {
+
+        this(null);
+    }
+
+    /**
+     * Create an index and load it from the given file if it exists.
+     * 
+     * @param indexFile The file the index is kept in. May be null for keeping the index in memory only.
+     */
+    public FileHashIndex(File indexFile) {
+
+        super();
+        setIndexFile(indexFile);
+        entries = new ConcurrentHashMap<String, Entry>();
+        used = new ConcurrentHashMap<String, Boolean>();
+        verified = new ConcurrentHashMap<String, Boolean>();
+
+        if (indexFile != null && indexFile.isFile())
+            load();
+    }
+
+    /**
+     * Determine the digest of the given file, reading it only if it changed since it has been hashed last.
+     * 
+     * @param file The file.
+     * @return The digest as hex string.
+     * @throws IOException if the file could not be read.
+     */
+    public String digest(File file) throws IOException {
+
+        String path = null;
+        Entry entry = null;
+        long size = 0;
+        long lastModified = 0;
+        long start = 0;
+        String digest = null;
+
+        path = file.getAbsolutePath();
+
+        if (trustVerified && verified.containsKey(path)) {
+
+            entry = entries.get(path);
+
+            if (entry != null) {
+
+                used.put(path, Boolean.TRUE);
+                return entry.digest;
+            }
+        }
+
+        size = file.length();
+        lastModified = file.lastModified();
+        entry = entries.get(path);
+        used.put(path, Boolean.TRUE);
+
+        if (entry != null && entry.size == size && entry.lastModified == lastModified) {
+
+            if (trustVerified)
+                verified.put(path, Boolean.TRUE);
+
+            return entry.digest;
+        }
+
+        start = System.currentTimeMillis();
+        digest = size >= MAP_THRESHOLD ? Digests.digestMapped(file) : Digests.digest(file);
+
+        if (start - lastModified >= RACY_INTERVAL) {
+
+            entries.put(path, new Entry(size, lastModified, digest));
+            modified = true;
+
+            if (trustVerified)
+                verified.put(path, Boolean.TRUE);
+
+        } else if (entry != null) {
+
+            entries.remove(path);
+            modified = true;
+        }
+
+        return digest;
+    }
+
+    /**
+     * Stop trusting the entry of the given file without checking it.
+     * 
+     * @param file The file or directory changed.
+     * @param structural true, if the file has been created, deleted or moved. For a directory this affects all files below it.
+     */
+    public void invalidate(File file, boolean structural) {
+
+        String path = file.getAbsolutePath();
+
+        verified.remove(path);
+
+        if (!structural)
+            return;
+
+        for (String currPath : verified.keySet()) {
+
+            if (currPath.startsWith(path + File.separator))
+                verified.remove(currPath);
+        }
+    }
+
+    /**
+     * Stop trusting any entry without checking it.
+     */
+    public void invalidateAll() {
+
+        verified.clear();
+    }
+
+    /**
+     * Determine the digests of all given files. Files which must be read are hashed in parallel.
+     * 
+     * @param files The files.
+     * @return The digests as hex strings mapped by file.
+     * @throws IOException if any file could not be read.
+     */
+    public Map<File, String> digestAll(Collection<File> files) throws IOException {
+
+        List<File> fileList = null;
+        String[] digests = null;
+        Map<File, String> result = null;
+
+        fileList = new ArrayList<File>(files);
+        digests = new String[fileList.size()];
+
+        try {
+
+            if (fileList.size() <= BATCH_SIZE)
+                new HashTask(fileList, digests, 0, fileList.size()).compute();
+            else
+                getPool().invoke(new HashTask(fileList, digests, 0, fileList.size()));
+
+        } catch (OjdeployExecutionException e) {
+
+            throw findIOException(e);
+        }
+
+        result = new HashMap<File, String>();
+
+        for (int i = 0; i < digests.length; i++)
+            result.put(fileList.get(i), digests[i]);
+
+        return result;
+    }
+
+    /**
+     * The fork-join pool may rethrow a copy of the exception thrown by a worker, which wraps the original one. So search the
+     * causes for the {@link IOException} to be rethrown.
+     */
+    private IOException findIOException(OjdeployExecutionException failure) {
+
+        Throwable cause = failure;
+
+        while (cause != null && !(cause instanceof IOException))
+            cause = cause.getCause();
+
+        if (cause == null)
+            throw failure;
+
+        return (IOException) cause;
+    }
+
+    /**
+     * Write the index to its file if it has been modified. Entries not used since the index has been loaded are dropped if their
+     * files do not exist any more.
+     */
+    public synchronized void store() {
+
+        File tmpFile = null;
+        DataOutputStream os = null;
+        Map<String, Entry> snapshot = null;
+
+        if (getIndexFile() == null || !modified)
+            return;
+
+        modified = false;
+        snapshot = new HashMap<String, Entry>(entries);
+        tmpFile = new File(getIndexFile().getPath() + ".tmp");
+        getIndexFile().getParentFile().mkdirs();
+
+        try {
+
+            os = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+            os.writeInt(MAGIC);
+
+            for (Map.Entry<String, Entry> currEntry : snapshot.entrySet()) {
+
+                if (!used.containsKey(currEntry.getKey()) && !new File(currEntry.getKey()).isFile())
+                    continue;
+
+                os.writeUTF(currEntry.getKey());
+                os.writeLong(currEntry.getValue().size);
+                os.writeLong(currEntry.getValue().lastModified);
+                os.writeUTF(currEntry.getValue().digest);
+            }
+
+            os.writeUTF("");
+            os.close();
+            getIndexFile().delete();
+
+            if (!tmpFile.renameTo(getIndexFile()))
+                throw new IOException("Could not rename " + tmpFile + " to " + getIndexFile());
+
+        } catch (IOException e) {
+
+            IOUtils.closeQuietly(os);
+            tmpFile.delete();
+            LOG.warn("Could not store file hash index " + getIndexFile(), e);
+        }
+    }
+
+    private void load() {
+
+        DataInputStream is = null;
+        String path = null;
+
+        try {
+
+            is = new DataInputStream(new BufferedInputStream(new FileInputStream(getIndexFile())));
+
+            if (is.readInt() != MAGIC)
+                throw new IOException("Unknown format");
+
+            while ((path = is.readUTF()).length() > 0)
+                entries.put(path, new Entry(is.readLong(), is.readLong(), is.readUTF()));
+
+            LOG.debug("Loaded " + entries.size() + " digests from " + getIndexFile());
+
+        } catch (IOException e) {
+
+            LOG.warn("Could not read file hash index " + getIndexFile() + ". Hashing all files again.", e);
+            entries.clear();
+
+        } finally {
+
+            IOUtils.closeQuietly(is);
+        }
+    }
+
+    private static synchronized ForkJoinPool getPool() {
+
+        if (pool == null)
+            pool = new ForkJoinPool();
+
+        return pool;
+    }
+
+    /**
+     * @return The number of files indexed.
+     */
+    public int size() {
+
+        return entries.size();
+    }
+
+    public boolean isTrustVerified() {
+
+        return trustVerified;
+    }
+
+    /**
+     * @param trustVerified If true, entries checked once are trusted until they are invalidated.
+     */
+    public void setTrustVerified(boolean trustVerified) {
+
+        this.trustVerified = trustVerified;
+
+        if (!trustVerified)
+            invalidateAll();
+    }
+
+    public File getIndexFile() {
+
+        return indexFile;
+    }
+
+    public void setIndexFile(File indexFile) {
+
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Digest of a file along with size and modification time of the file when it has been hashed.
+     */
+    private static class Entry {
+
+        private final long   size;
+        private final long   lastModified;
+        private final String digest;
+
+        Entry(long size, long lastModified, String digest) {
+
+            this.size = size;
+            this.lastModified = lastModified;
+            this.digest = digest;
+        }
+    }
+
+    /**
+     * Hashes a range of files, splitting it in halves until it contains at most {@link #BATCH_SIZE} files.
+     */
+    private class HashTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 2712436021945318533L;
+
+        private final List<File>  files;
+        private final String[]    digests;
+        private final int         from;
+        private final int         to;
+
+        HashTask(List<File> files, String[] digests, int from, int to) {
+
+            this.files = files;
+            this.digests = digests;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+
+            int middle = 0;
+
+            if (to - from <= BATCH_SIZE) {
+
+                for (int i = from; i < to; i++)
+                    digests[i] = digestQuietly(files.get(i));
+
+            } else {
+
+                middle = (from + to) >>> 1;
+                invokeAll(new HashTask(files, digests, from, middle), new HashTask(files, digests, middle, to));
+            }
+        }
+
+        private String digestQuietly(File file) {
+
+            try {
+
+                return digest(file);
+
+            } catch (IOException e) {
+
+                throw new OjdeployExecutionException("Was not able to hash " + file + "!", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,644 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.filefilter.IOFileFilter;
+import org.apache.commons.io.filefilter.TrueFileFilter;
+import org.apache.log4j.Logger;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.exceptions.OjdeployExecutionException;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.DeploymentProfile;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.WorkspaceModel;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.WorkspaceParser;
+
+/**
+ * Creates the {@link InputFingerprint} of a deployment profile.
+ * <p>
+ * Inputs are the command line arguments, the values of the <i>defines</i> and the files feeding the profile: the directory of
+ * the project owning the profile, the directories of all projects this project depends on and the files added explicitly by
+ * the file groups of the profile. The .jws file is always an input. Directories of other projects nested inside these
+ * directories, output directories of the projects, the directories receiving the archives and version control metadata are
+ * ignored. If ojdeploy deploys the dependencies of the profile as well, the files feeding them are inputs too. Otherwise the
+ * archives of the profiles depended on are inputs instead, so a profile is deployed again whenever one of its dependencies has
+ * been. If the profile is unknown, all files of the workspace directory and the project directories are inputs. All paths are
+ * recorded relative to the workspace directory, so the same workspace checked out to different locations results in the same
+ * fingerprint.
+ * <p>
+ * Parsed workspaces are kept for further fingerprints. If a {@link DirectoryWatcher} is set, the inputs found are kept as well
+ * and digests of files are trusted until the watcher reports a change. Then a fingerprinter may live as long as the process.
+ * <p>
+ * Instances are thread safe.
+ * 
+ * @author bernd
+ *
+ */
+public class Fingerprinter {
+
+    private static final Logger                  LOG               = Logger.getLogger(Fingerprinter.class);
+
+    private static final String                  WORKSPACE_DIR_VAR = "${workspace.dir}";
+    private static final String[]                IGNORED_DIRS      = new String[] { ".svn", ".git", "target" };
+    private static final String                  MISSING           = "missing";
+    private static final String[]                JDEV_EXTENSIONS   = new String[] { "jws", "jpr" };
+
+    private WorkspaceParser                      parser            = null;
+    private Map<File, WorkspaceModel>            workspaces        = null;
+    private FileHashIndex                        hashIndex         = null;
+    private Map<String, SortedMap<String, File>> inputListings     = null;
+    private volatile DirectoryWatcher            watcher           = null;
+    private long                                 generation        = 0;
+
+    /**
+     * Create a fingerprinter remembering the digests of files in memory only.
+     */
+    public Fingerprinter() {
+
+        this(new FileHashIndex());
+    }
+
+    /**
+     * Create a fingerprinter using the given index of file digests.
+     * 
+     * @param hashIndex The index. It is stored after each fingerprint.
+     */
+    public Fingerprinter(FileHashIndex hashIndex) {
+
+        this(hashIndex, new WorkspaceParser());
+    }
+
+    /**
+     * Create a fingerprinter using the given index of file digests and parser.
+     * 
+     * @param hashIndex The index. It is stored after each fingerprint.
+     * @param parser The parser of the workspaces.
+     */
+    public Fingerprinter(FileHashIndex hashIndex, WorkspaceParser parser) {
+
+        super();
+        this.parser = parser;
+        workspaces = new HashMap<File, WorkspaceModel>();
+        inputListings = new HashMap<String, SortedMap<String, File>>();
+        setHashIndex(hashIndex);
+    }
+
+    /**
+     * Fingerprint the inputs of the given profile.
+     * 
+     * @param workspaceFile The .jws file.
+     * @param profile The name of the profile.
+     * @param defines The value of the parameter <i>defines</i> or <b>null</b>.
+     * @param arguments The resolved arguments handed over to ojdeploy.
+     * @param withDependencies If true, ojdeploy also deploys the profiles the given profile depends on. Their archives are added
+     *        to the outputs of the fingerprint.
+     * @return The fingerprint.
+     */
+    public InputFingerprint fingerprint(File workspaceFile, String profile, String defines, String arguments,
+            boolean withDependencies) {
+
+        WorkspaceModel model = null;
+        DeploymentProfile deploymentProfile = null;
+        InputFingerprint fingerprint = null;
+        SortedMap<String, File> inputFiles = null;
+        Map<File, String> digests = null;
+        long start = System.currentTimeMillis();
+
+        model = getWorkspace(workspaceFile);
+        deploymentProfile = model.getProfile(profile);
+        fingerprint = new InputFingerprint(profile, model.getWorkspaceDirectory());
+        fingerprint.getOutputFiles().addAll(collectOutputFiles(model, profile, withDependencies));
+        fingerprint.put(InputFingerprint.COMMAND_LINE, Digests.digest(normalize(model, arguments)));
+        fingerprint.put(InputFingerprint.DEFINES, Digests.digest(defines != null ? defines : ""));
+
+        try {
+
+            inputFiles = getInputFiles(model, deploymentProfile, withDependencies);
+            digests = getHashIndex().digestAll(inputFiles.values());
+
+            for (Map.Entry<String, File> currEntry : inputFiles.entrySet())
+                fingerprint.put(InputFingerprint.FILE_PREFIX + currEntry.getKey(), digests.get(currEntry.getValue()));
+
+            if (deploymentProfile != null && !withDependencies)
+                putDependencyArchives(fingerprint, model, deploymentProfile);
+
+        } catch (IOException e) {
+
+            throw new OjdeployExecutionException("Was not able to fingerprint inputs of profile " + profile + "!", e);
+        }
+
+        getHashIndex().store();
+
+        LOG.debug("Fingerprinted " + fingerprint.getEntries().size() + " inputs of profile " + profile + " in "
+                + (System.currentTimeMillis() - start) + "ms.");
+        return fingerprint;
+    }
+
+    /**
+     * Replace the absolute path of the workspace directory inside the arguments by a placeholder.
+     */
+    private String normalize(WorkspaceModel model, String arguments) {
+
+        return arguments.replace(model.getWorkspaceDirectory().getAbsolutePath(), WORKSPACE_DIR_VAR);
+    }
+
+    /**
+     * Collect the archives written by ojdeploy when deploying the given profile.
+     * 
+     * @param model The workspace.
+     * @param profile The name of the profile.
+     * @param withDependencies If true, the archives of all profiles the given one depends on are added.
+     * @return The archives. The list is empty if the profile is unknown.
+     */
+    List<File> collectOutputFiles(WorkspaceModel model, String profile, boolean withDependencies) {
+
+        List<File> outputFiles = null;
+        List<DeploymentProfile> profiles = null;
+        DeploymentProfile deploymentProfile = null;
+
+        outputFiles = new ArrayList<File>();
+        deploymentProfile = model.getProfile(profile);
+
+        if (deploymentProfile == null)
+            return outputFiles;
+
+        profiles = new ArrayList<DeploymentProfile>();
+        profiles.add(deploymentProfile);
+
+        if (withDependencies)
+            profiles = model.getDependencyClosure(profiles);
+
+        for (DeploymentProfile currProfile : profiles) {
+
+            if (currProfile.getArchiveFile() != null)
+                outputFiles.add(currProfile.getArchiveFile());
+        }
+
+        return outputFiles;
+    }
+
+    /**
+     * Collect the input files of the given profile. If changes are watched, the files found are kept until files are created or
+     * deleted.
+     */
+    private SortedMap<String, File> getInputFiles(WorkspaceModel model, DeploymentProfile profile, boolean withDependencies) {
+
+        String key = null;
+        SortedMap<String, File> inputFiles = null;
+        long currGeneration = 0;
+
+        if (getWatcher() == null)
+            return collectInputFiles(model, profile, withDependencies);
+
+        key = model.getWorkspaceFile() + ":" + (profile != null ? profile.getOwnerFile() + ":" + profile.getName() : "") + ":"
+                + withDependencies;
+
+        synchronized (workspaces) {
+
+            inputFiles = inputListings.get(key);
+            currGeneration = generation;
+        }
+
+        if (inputFiles != null)
+            return inputFiles;
+
+        inputFiles = collectInputFiles(model, profile, withDependencies);
+
+        synchronized (workspaces) {
+
+            if (currGeneration == generation)
+                inputListings.put(key, inputFiles);
+        }
+
+        return inputFiles;
+    }
+
+    /**
+     * Add the archives of the profiles the given profile depends on. Archives not existing yet are recorded as missing.
+     */
+    private void putDependencyArchives(InputFingerprint fingerprint, WorkspaceModel model, DeploymentProfile profile)
+            throws IOException {
+
+        File currArchive = null;
+
+        for (DeploymentProfile currDependency : model.getDependencies(profile)) {
+
+            currArchive = currDependency.getArchiveFile();
+
+            if (currArchive != null)
+                fingerprint.put(InputFingerprint.ARCHIVE_PREFIX + relativize(model.getWorkspaceDirectory(), currArchive),
+                        currArchive.isFile() ? Digests.digest(currArchive) : MISSING);
+        }
+    }
+
+    /**
+     * Collect the input files of the given profile.
+     * 
+     * @param model The workspace.
+     * @param profile The profile. If <b>null</b>, all input files of the workspace are collected.
+     * @param withDependencies If true, the input files of all profiles the given one depends on are added.
+     * @return The input files mapped by their path relative to the workspace directory.
+     */
+    SortedMap<String, File> collectInputFiles(WorkspaceModel model, DeploymentProfile profile, boolean withDependencies) {
+
+        SortedMap<String, File> inputFiles = null;
+        List<DeploymentProfile> profiles = null;
+        Set<File> roots = null;
+        List<File> excluded = null;
+        IOFileFilter dirFilter = null;
+
+        if (profile == null)
+            return collectInputFiles(model);
+
+        inputFiles = new TreeMap<String, File>();
+        profiles = new ArrayList<DeploymentProfile>();
+        profiles.add(profile);
+
+        if (withDependencies)
+            profiles = model.getDependencyClosure(profiles);
+
+        roots = new LinkedHashSet<File>();
+
+        for (DeploymentProfile currProfile : profiles)
+            roots.addAll(getInputRoots(model, currProfile));
+
+        excluded = getExcludedDirectories(model);
+
+        for (File currProject : model.getProjectFiles())
+            excluded.add(currProject.getParentFile());
+
+        dirFilter = new OutputDirectoryFilter(excluded);
+        inputFiles.put(relativize(model.getWorkspaceDirectory(), model.getWorkspaceFile()), model.getWorkspaceFile());
+
+        for (File currRoot : roots) {
+
+            if (currRoot.isFile())
+                inputFiles.put(relativize(model.getWorkspaceDirectory(), currRoot), currRoot);
+            else if (currRoot.isDirectory())
+                for (File currFile : FileUtils.listFiles(currRoot, TrueFileFilter.INSTANCE, dirFilter))
+                    inputFiles.put(relativize(model.getWorkspaceDirectory(), currFile), currFile);
+        }
+
+        return inputFiles;
+    }
+
+    /**
+     * Determine the files and directories feeding the given profile alone. Nested project directories are excluded while walking
+     * them.
+     * 
+     * @param model The workspace.
+     * @param profile The profile.
+     * @return The directory of the owning project or workspace, the directories of all projects the owning project depends on
+     *         and the contributors of the profile's file groups.
+     */
+    List<File> getInputRoots(WorkspaceModel model, DeploymentProfile profile) {
+
+        List<File> roots = null;
+
+        roots = new ArrayList<File>();
+
+        if (profile.getProjectName() != null) {
+
+            for (File currProject : model.getProjectClosure(profile.getOwnerFile()))
+                roots.add(currProject.getParentFile());
+
+        } else {
+
+            roots.add(profile.getOwnerFile().getParentFile());
+        }
+
+        roots.addAll(profile.getContributors());
+
+        return roots;
+    }
+
+    /**
+     * Collect all input files of the given workspace.
+     * 
+     * @param model The workspace.
+     * @return All input files mapped by their path relative to the workspace directory.
+     */
+    SortedMap<String, File> collectInputFiles(WorkspaceModel model) {
+
+        SortedMap<String, File> inputFiles = null;
+        List<File> roots = null;
+        IOFileFilter dirFilter = null;
+
+        inputFiles = new TreeMap<String, File>();
+        roots = new ArrayList<File>();
+        roots.add(model.getWorkspaceDirectory());
+
+        for (File currProject : model.getProjectFiles()) {
+
+            if (relativize(model.getWorkspaceDirectory(), currProject).startsWith("../"))
+                roots.add(currProject.getParentFile());
+        }
+
+        dirFilter = new OutputDirectoryFilter(getExcludedDirectories(model));
+
+        for (File currRoot : roots) {
+
+            if (currRoot.isDirectory())
+                for (File currFile : FileUtils.listFiles(currRoot, TrueFileFilter.INSTANCE, dirFilter))
+                    inputFiles.put(relativize(model.getWorkspaceDirectory(), currFile), currFile);
+        }
+
+        return inputFiles;
+    }
+
+    /**
+     * Check whether a file is written by ojdeploy or ignored when collecting the inputs of the workspace's profiles. This applies
+     * to the archives of all profiles, files inside of output directories, directories receiving archives and version control
+     * metadata. Only the directories below the workspace directory and the project directories are checked.
+     * 
+     * @param model The parsed workspace.
+     * @param file A file below one of the workspace's directories.
+     * @return true, if the file is no input of any profile.
+     */
+    public boolean isIgnored(WorkspaceModel model, File file) {
+
+        IOFileFilter dirFilter = null;
+        List<File> roots = null;
+        File currFile = null;
+
+        currFile = WorkspaceParser.normalize(file);
+
+        for (DeploymentProfile currProfile : model.getProfiles()) {
+
+            if (currProfile.getArchiveFile() != null && currFile.equals(WorkspaceParser.normalize(currProfile.getArchiveFile())))
+                return true;
+        }
+
+        dirFilter = new OutputDirectoryFilter(getExcludedDirectories(model));
+        roots = new ArrayList<File>();
+        roots.add(WorkspaceParser.normalize(model.getWorkspaceDirectory()));
+
+        for (File currProject : model.getProjectFiles())
+            roots.add(WorkspaceParser.normalize(currProject.getParentFile()));
+
+        while (currFile != null && !roots.contains(currFile)) {
+
+            if (!dirFilter.accept(currFile))
+                return true;
+
+            currFile = currFile.getParentFile();
+        }
+
+        return false;
+    }
+
+    private List<File> getExcludedDirectories(WorkspaceModel model) {
+
+        List<File> excluded = null;
+
+        excluded = new ArrayList<File>(model.getOutputDirectories());
+
+        for (DeploymentProfile currProfile : model.getProfiles()) {
+
+            if (currProfile.getArchiveFile() != null)
+                excluded.add(currProfile.getArchiveFile().getParentFile());
+        }
+
+        return excluded;
+    }
+
+    /**
+     * @param baseDir The base directory.
+     * @param file A file.
+     * @return The path of the file relative to the base directory using '/' as separator. Files outside of the base directory
+     *         are addressed using '../'.
+     */
+    public static String relativize(File baseDir, File file) {
+
+        String base = FilenameUtils.separatorsToUnix(baseDir.getAbsolutePath()) + "/";
+        String path = FilenameUtils.separatorsToUnix(file.getAbsolutePath());
+        StringBuilder prefix = new StringBuilder();
+
+        while (!path.startsWith(base) && base.indexOf('/') != base.lastIndexOf('/')) {
+
+            base = base.substring(0, base.lastIndexOf('/', base.length() - 2) + 1);
+            prefix.append("../");
+        }
+
+        return prefix + path.substring(base.length());
+    }
+
+    /**
+     * Parse the given workspace once and keep the model for further fingerprints.
+     * 
+     * @param workspaceFile The .jws file.
+     * @return The parsed workspace.
+     */
+    public WorkspaceModel getWorkspace(File workspaceFile) {
+
+        WorkspaceModel model = null;
+        long currGeneration = 0;
+
+        pollChanges();
+
+        synchronized (workspaces) {
+
+            model = workspaces.get(workspaceFile);
+            currGeneration = generation;
+        }
+
+        if (model != null)
+            return model;
+
+        model = parser.parse(workspaceFile);
+        watch(model);
+        pollChanges();
+
+        synchronized (workspaces) {
+
+            if (currGeneration == generation)
+                workspaces.put(workspaceFile, model);
+        }
+
+        return model;
+    }
+
+    /**
+     * Hand over the changes reported by the watcher since the last call.
+     */
+    private void pollChanges() {
+
+        DirectoryWatcher currWatcher = getWatcher();
+        int changes = 0;
+
+        if (currWatcher != null)
+            changes = currWatcher.pollChanges();
+
+        if (changes > 0)
+            LOG.debug("Watcher reported " + changes + " changes of workspace files.");
+    }
+
+    /**
+     * Watch the workspace directory, the project directories and the contributors of all profiles for changes.
+     */
+    private void watch(WorkspaceModel model) {
+
+        DirectoryWatcher currWatcher = getWatcher();
+        IOFileFilter dirFilter = null;
+
+        if (currWatcher == null)
+            return;
+
+        dirFilter = new OutputDirectoryFilter(getExcludedDirectories(model));
+
+        try {
+
+            currWatcher.watch(model.getWorkspaceDirectory(), dirFilter);
+
+            for (File currProject : model.getProjectFiles())
+                currWatcher.watch(currProject.getParentFile(), dirFilter);
+
+            for (DeploymentProfile currProfile : model.getProfiles()) {
+
+                for (File currContributor : currProfile.getContributors())
+                    currWatcher.watch(currContributor.isDirectory() ? currContributor : currContributor.getParentFile(),
+                            dirFilter);
+            }
+
+        } catch (IOException e) {
+
+            LOG.warn("Could not watch workspace " + model.getWorkspaceFile() + " for changes. Checking all files again.", e);
+            setWatcher(null);
+            currWatcher.close();
+        }
+    }
+
+    /**
+     * Forget all parsed workspaces and input files found.
+     */
+    private void invalidate() {
+
+        synchronized (workspaces) {
+
+            workspaces.clear();
+            inputListings.clear();
+            generation++;
+        }
+    }
+
+    public FileHashIndex getHashIndex() {
+
+        return hashIndex;
+    }
+
+    public void setHashIndex(FileHashIndex hashIndex) {
+
+        this.hashIndex = hashIndex;
+    }
+
+    public DirectoryWatcher getWatcher() {
+
+        return watcher;
+    }
+
+    /**
+     * @param watcher The watcher reporting changes of the workspaces' files. May be null for checking all files on every
+     *        fingerprint.
+     */
+    public void setWatcher(DirectoryWatcher watcher) {
+
+        this.watcher = watcher;
+
+        if (watcher != null)
+            watcher.addListener(new WatchListener());
+        else
+            invalidate();
+
+        getHashIndex().setTrustVerified(watcher != null);
+    }
+
+    /**
+     * Invalidates the state affected by the changes reported by the watcher. Creating or deleting files and changing workspace
+     * or project files invalidates the parsed workspaces and the input files found.
+     */
+    private class WatchListener implements DirectoryWatcher.Listener {
+
+        @Override
+        public void changed(File file, boolean structural) {
+
+            getHashIndex().invalidate(file, structural);
+
+            if (structural || FilenameUtils.isExtension(file.getName(), JDEV_EXTENSIONS))
+                invalidate();
+        }
+
+        @Override
+        public void overflow() {
+
+            getHashIndex().invalidateAll();
+            invalidate();
+        }
+    }
+
+    /**
+     * Skips output directories, archive directories and version control metadata while walking the workspace.
+     */
+    private static class OutputDirectoryFilter implements IOFileFilter {
+
+        private final Collection<File> excluded;
+
+        OutputDirectoryFilter(Collection<File> excluded) {
+
+            this.excluded = excluded;
+        }
+
+        @Override
+        public boolean accept(File file) {
+
+            for (String currName : IGNORED_DIRS) {
+
+                if (currName.equals(file.getName()))
+                    return false;
+            }
+
+            return !excluded.contains(WorkspaceParser.normalize(file));
+        }
+
+        @Override
+        public boolean accept(File dir, String name) {
+
+            return accept(new File(dir, name));
+        }
+    }
+}
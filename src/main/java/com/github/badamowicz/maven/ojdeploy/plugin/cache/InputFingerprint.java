@@ -0,0 +1,249 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.cache;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * All inputs of a single ojdeploy run reduced to a sorted map of keys and digests. Beside the overall digest, the single
+ * entries are kept so it's possible to tell which input has changed between two runs.
+ * 
+ * @author bernd
+ *
+ */
+public class InputFingerprint {
+
+    /**
+     * Key prefix of all entries describing an input file. The prefix is followed by the file's path relative to the workspace.
+     */
+    public static final String        FILE_PREFIX     = "file:";
+    public static final String        COMMAND_LINE    = "commandLine";
+
+    /**
+     * Key prefix of all entries describing the archive of a profile the fingerprinted profile depends on. The prefix is followed
+     * by the archive's path relative to the workspace.
+     */
+    public static final String        ARCHIVE_PREFIX  = "archive:";
+    public static final String        DEFINES         = "defines";
+
+    private static final int          MAX_DIFFERENCES = 5;
+
+    private String                    profile         = null;
+    private File                      baseDirectory   = null;
+    private List<File>                outputFiles     = new ArrayList<File>();
+    private SortedMap<String, String> entries         = new TreeMap<String, String>();
+
+    /**
+     * @param profile The name of the profile.
+     * @param baseDirectory The directory all input paths are relative to, usually the workspace directory.
+     */
+    public InputFingerprint(String profile, File baseDirectory) {
+
+        super();
+        setProfile(profile);
+        setBaseDirectory(baseDirectory);
+    }
+
+    /**
+     * Load a fingerprint stored before by {@link #store(File)}.
+     * 
+     * @param file The file containing the fingerprint.
+     * @param profile The name of the profile.
+     * @param baseDirectory The directory all input paths are relative to.
+     * @return The fingerprint. It does not contain any output files.
+     * @throws IOException if the file could not be read.
+     */
+    public static InputFingerprint load(File file, String profile, File baseDirectory) throws IOException {
+
+        InputFingerprint fingerprint = null;
+        Properties props = null;
+        InputStream is = null;
+
+        fingerprint = new InputFingerprint(profile, baseDirectory);
+        props = new Properties();
+
+        try {
+
+            is = new FileInputStream(file);
+            props.load(is);
+
+        } finally {
+
+            IOUtils.closeQuietly(is);
+        }
+
+        for (String currKey : props.stringPropertyNames())
+            fingerprint.put(currKey, props.getProperty(currKey));
+
+        return fingerprint;
+    }
+
+    /**
+     * Store all entries of this fingerprint in the given file.
+     * 
+     * @param file The target file. Missing parent directories are created.
+     * @throws IOException if the file could not be written.
+     */
+    public void store(File file) throws IOException {
+
+        Properties props = null;
+        OutputStream os = null;
+
+        props = new Properties();
+        props.putAll(getEntries());
+        file.getParentFile().mkdirs();
+
+        try {
+
+            os = new FileOutputStream(file);
+            props.store(os, "ojdeploy input fingerprint of profile " + getProfile());
+
+        } finally {
+
+            IOUtils.closeQuietly(os);
+        }
+    }
+
+    public void put(String key, String digest) {
+
+        getEntries().put(key, digest);
+    }
+
+    /**
+     * @return The digest over all entries of this fingerprint.
+     */
+    public String getDigest() {
+
+        MessageDigest digest = null;
+
+        digest = Digests.newDigest();
+
+        for (Entry<String, String> currEntry : getEntries().entrySet()) {
+
+            Digests.update(digest, currEntry.getKey());
+            Digests.update(digest, "=");
+            Digests.update(digest, currEntry.getValue());
+            Digests.update(digest, "\n");
+        }
+
+        return Digests.toHex(digest.digest());
+    }
+
+    /**
+     * Describe the differences between this fingerprint and a previous one in a human readable form.
+     * 
+     * @param previous The fingerprint of a previous run.
+     * @return A list of differences which is empty if both fingerprints are equal. Only the first few differences are listed.
+     */
+    public List<String> getDifferences(InputFingerprint previous) {
+
+        List<String> differences = null;
+        int count = 0;
+
+        differences = new ArrayList<String>();
+
+        for (Entry<String, String> currEntry : getEntries().entrySet()) {
+
+            if (!previous.getEntries().containsKey(currEntry.getKey()))
+                count = addDifference(differences, count, "added " + currEntry.getKey());
+            else if (!previous.getEntries().get(currEntry.getKey()).equals(currEntry.getValue()))
+                count = addDifference(differences, count, "changed " + currEntry.getKey());
+        }
+
+        for (String currKey : previous.getEntries().keySet()) {
+
+            if (!getEntries().containsKey(currKey))
+                count = addDifference(differences, count, "removed " + currKey);
+        }
+
+        if (count > MAX_DIFFERENCES)
+            differences.add("and " + (count - MAX_DIFFERENCES) + " more");
+
+        return differences;
+    }
+
+    private int addDifference(List<String> differences, int count, String difference) {
+
+        if (count < MAX_DIFFERENCES)
+            differences.add(difference);
+
+        return count + 1;
+    }
+
+    public String getProfile() {
+
+        return profile;
+    }
+
+    public void setProfile(String profile) {
+
+        this.profile = profile;
+    }
+
+    public File getBaseDirectory() {
+
+        return baseDirectory;
+    }
+
+    public void setBaseDirectory(File baseDirectory) {
+
+        this.baseDirectory = baseDirectory;
+    }
+
+    /**
+     * @return The archives written by ojdeploy for the profile. The list is empty if they are unknown.
+     */
+    public List<File> getOutputFiles() {
+
+        return outputFiles;
+    }
+
+    public SortedMap<String, String> getEntries() {
+
+        return entries;
+    }
+
+    @Override
+    public String toString() {
+
+        return "InputFingerprint[" + profile + ":" + entries.size() + " entries]";
+    }
+}
@@ -0,0 +1,153 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Decides whether a deployment profile must be deployed again. The {@link InputFingerprint} of a profile is created before
+ * running ojdeploy and stored after a successful run. The next run is skipped if the fingerprint did not change and all
+ * archives of the profile still exist.
+ * <p>
+ * Instances are thread safe.
+ * 
+ * @author bernd
+ *
+ */
+public class UpToDateCheck {
+
+    private static final Logger LOG                = Logger.getLogger(UpToDateCheck.class);
+
+    private static final String FINGERPRINT_SUFFIX = ".fingerprint";
+
+    private File                stateDirectory     = null;
+
+    /**
+     * @param stateDirectory The directory where fingerprints are stored, usually below the module's build directory.
+     */
+    public UpToDateCheck(File stateDirectory) {
+
+        super();
+        setStateDirectory(stateDirectory);
+    }
+
+    /**
+     * Compare the given fingerprint with the one stored by the last successful run.
+     * 
+     * @param fingerprint The fingerprint of the current inputs.
+     * @return <b>null</b> if the profile is up to date, otherwise the reason why it must be deployed again.
+     */
+    public String findRebuildReason(InputFingerprint fingerprint) {
+
+        File fingerprintFile = null;
+        InputFingerprint previous = null;
+        List<String> differences = null;
+
+        if (fingerprint.getOutputFiles().isEmpty())
+            return "archive of profile is unknown";
+
+        for (File currOutput : fingerprint.getOutputFiles()) {
+
+            if (!currOutput.isFile())
+                return "archive " + currOutput + " does not exist";
+        }
+
+        fingerprintFile = getFingerprintFile(fingerprint.getProfile());
+
+        if (!fingerprintFile.isFile())
+            return "no fingerprint of a previous run available";
+
+        try {
+
+            previous = InputFingerprint.load(fingerprintFile, fingerprint.getProfile(), fingerprint.getBaseDirectory());
+
+        } catch (IOException e) {
+
+            LOG.warn("Could not read fingerprint " + fingerprintFile, e);
+            return "fingerprint of previous run not readable";
+        }
+
+        differences = fingerprint.getDifferences(previous);
+
+        return differences.isEmpty() ? null : "inputs changed: " + differences;
+    }
+
+    /**
+     * Check if the given profile is up to date and log the reason for the decision.
+     * 
+     * @param fingerprint The fingerprint of the current inputs.
+     * @return true, if running ojdeploy can be skipped.
+     */
+    public boolean isUpToDate(InputFingerprint fingerprint) {
+
+        String reason = findRebuildReason(fingerprint);
+
+        if (reason == null)
+            LOG.info("Profile " + fingerprint.getProfile() + " is up to date since its inputs did not change and its archives "
+                    + fingerprint.getOutputFiles() + " exist. Skipping ojdeploy.");
+        else
+            LOG.info("Profile " + fingerprint.getProfile() + " must be deployed: " + reason + ".");
+
+        return reason == null;
+    }
+
+    /**
+     * Store the given fingerprint after a successful run.
+     * 
+     * @param fingerprint The fingerprint of the inputs used by the run.
+     */
+    public void store(InputFingerprint fingerprint) {
+
+        try {
+
+            fingerprint.store(getFingerprintFile(fingerprint.getProfile()));
+
+        } catch (IOException e) {
+
+            LOG.warn("Could not store fingerprint of profile " + fingerprint.getProfile(), e);
+        }
+    }
+
+    File getFingerprintFile(String profile) {
+
+        return new File(getStateDirectory(), profile + FINGERPRINT_SUFFIX);
+    }
+
+    public File getStateDirectory() {
+
+        return stateDirectory;
+    }
+
+    public void setStateDirectory(File stateDirectory) {
+
+        this.stateDirectory = stateDirectory;
+    }
+}
@@ -0,0 +1,132 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.WorkspaceIndex;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.WorkspaceParser;
+
+/**
+ * Process wide state of the workspaces deployed. If Maven runs as a daemon like mvnd, the classes of the plugin survive between
+ * builds. Then the parsed workspaces, the input files found and the digests of the files are kept in memory by a shared
+ * {@link Fingerprinter}. They are invalidated by notifications of the file system instead of checking all files again. At most
+ * {@link #MAX_FINGERPRINTERS} fingerprinters are kept. The watcher of the one used least recently is closed when it is evicted.
+ * 
+ * @author bernd
+ *
+ */
+public final class WorkspaceState {
+
+    private static final Logger                   LOG                = Logger.getLogger(WorkspaceState.class);
+
+    /** System property set by the mvnd daemon. */
+    private static final String                   MVND_HOME          = "mvnd.home";
+
+    /** Maximum number of index files, i.e. modules, whose state is kept. */
+    static final int                              MAX_FINGERPRINTERS = 16;
+
+    private static final Map<File, Fingerprinter> FINGERPRINTERS     = new LinkedHashMap<File, Fingerprinter>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<File, Fingerprinter> eldest) {
+
+            if (size() <= MAX_FINGERPRINTERS)
+                return false;
+
+            close(eldest.getValue());
+            return true;
+        }
+    };
+
+    private WorkspaceState() {
+
+    }
+
+    /**
+     * Get the fingerprinter shared by all builds using the given index files. It is created on first use and created again if its
+     * watcher has failed.
+     * 
+     * @param hashIndexFile The file keeping the digests of files.
+     * @param workspaceIndexFile The file keeping the parsed workspace and project files.
+     * @return The fingerprinter or <b>null</b> if the file system does not notify about changes.
+     */
+    public static synchronized Fingerprinter getFingerprinter(File hashIndexFile, File workspaceIndexFile) {
+
+        Fingerprinter fingerprinter = FINGERPRINTERS.get(hashIndexFile.getAbsoluteFile());
+
+        if (fingerprinter != null && fingerprinter.getWatcher() != null)
+            return fingerprinter;
+
+        if (fingerprinter != null)
+            FINGERPRINTERS.remove(hashIndexFile.getAbsoluteFile());
+
+        try {
+
+            fingerprinter = new Fingerprinter(new FileHashIndex(hashIndexFile), new WorkspaceParser(new WorkspaceIndex(
+                    workspaceIndexFile)));
+            fingerprinter.setWatcher(new DirectoryWatcher());
+
+        } catch (IOException e) {
+
+            LOG.info("Not keeping the state of the workspace in memory: " + e.getMessage());
+            return null;
+        }
+
+        FINGERPRINTERS.put(hashIndexFile.getAbsoluteFile(), fingerprinter);
+        return fingerprinter;
+    }
+
+    /**
+     * Stop watching the workspaces of a fingerprinter evicted.
+     */
+    private static void close(Fingerprinter fingerprinter) {
+
+        DirectoryWatcher watcher = fingerprinter.getWatcher();
+
+        if (watcher == null)
+            return;
+
+        fingerprinter.setWatcher(null);
+        watcher.close();
+    }
+
+    /**
+     * @return true, if the plugin runs inside the mvnd daemon.
+     */
+    public static boolean isDaemon() {
+
+        return System.getProperty(MVND_HOME) != null;
+    }
+}
@@ -26,6 +26,9 @@
  */
 package com.github.badamowicz.maven.ojdeploy.plugin.exceptions;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Exceptions of this type are thrown if it was not possible - for whatever reason - to execute an ojdeploy command.
  * 
@@ -36,6 +39,8 @@ public class OjdeployExecutionException extends RuntimeException {
 
     private static final long serialVersionUID = 9199740922863187821L;
 
+    private List<String>      outputTail       = Collections.emptyList();
+
     public OjdeployExecutionException() {
 
         super();
@@ -61,4 +66,17 @@ public class OjdeployExecutionException extends RuntimeException {
         super(message, cause, enableSuppression, writableStackTrace);
     }
 
+    /**
+     * @return The last lines written by ojdeploy before it failed. Empty if ojdeploy has not been run.
+     */
+    public List<String> getOutputTail() {
+
+        return outputTail;
+    }
+
+    public void setOutputTail(List<String> outputTail) {
+
+        this.outputTail = outputTail;
+    }
+
 }
@@ -0,0 +1,243 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import java.io.Closeable;
+import java.util.List;
+
+import org.apache.commons.exec.DefaultExecuteResultHandler;
+import org.apache.commons.exec.ExecuteException;
+import org.apache.commons.exec.Executor;
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.cache.InputFingerprint;
+import com.github.badamowicz.maven.ojdeploy.plugin.exceptions.OjdeployExecutionException;
+
+/**
+ * An ojdeploy run started by {@link OjdeployExecutor#start(java.util.List, boolean)}. The run may still be in progress. Call
+ * {@link #await()} for waiting until it has finished and obtaining its {@link ExecutionResult}.
+ * 
+ * @author bernd
+ *
+ */
+public class AsyncExecution {
+
+    private static final Logger         LOG                = Logger.getLogger(AsyncExecution.class);
+
+    /** Child processes may keep the output streams open after the process has been destroyed. So don't wait forever. */
+    private static final long           DESTROY_GRACE_TIME = 5000;
+
+    private OjdeployExecutor            executor           = null;
+    private ExecutionResult             result             = null;
+    private long                        start              = 0;
+    private InputFingerprint            fingerprint        = null;
+    private String                      cacheKey           = null;
+    private List<MojoParameter>         params             = null;
+    private DefaultExecuteResultHandler handler            = null;
+    private ProcessCanceller            canceller          = null;
+    private Closeable                   output             = null;
+    private OutputTail                  tail               = null;
+    private boolean                     completed          = false;
+
+    /**
+     * Create an execution which has already been completed without starting a process.
+     */
+    AsyncExecution(OjdeployExecutor executor, ExecutionResult result, long start) {
+
+        this(executor, result, start, null, null, null, null, null, null, null);
+    }
+
+    /**
+     * Create an execution for a running ojdeploy process.
+     */
+    AsyncExecution(OjdeployExecutor executor, ExecutionResult result, long start, InputFingerprint fingerprint,
+            String cacheKey, List<MojoParameter> params, DefaultExecuteResultHandler handler, ProcessCanceller canceller,
+            Closeable output, OutputTail tail) {
+
+        super();
+        this.executor = executor;
+        this.result = result;
+        this.start = start;
+        this.fingerprint = fingerprint;
+        this.cacheKey = cacheKey;
+        this.params = params;
+        this.handler = handler;
+        this.canceller = canceller;
+        this.output = output;
+        this.tail = tail;
+    }
+
+    /**
+     * @return true, if ojdeploy has finished or no process had to be started at all.
+     */
+    public boolean isDone() {
+
+        return handler == null || handler.hasResult();
+    }
+
+    /**
+     * Destroy ojdeploy including all of its child processes if it is still running. Awaiting a cancelled run fails and neither
+     * its archives nor its run time are recorded.
+     */
+    public void cancel() {
+
+        if (canceller != null && !isDone())
+            canceller.cancel();
+    }
+
+    /**
+     * Wait until ojdeploy has finished. If the waiting thread is interrupted, ojdeploy is cancelled.
+     * 
+     * @return The {@link ExecutionResult} of the run.
+     * @throws OjdeployExecutionException if ojdeploy could not be executed or returned an unexpected exit value.
+     */
+    public ExecutionResult await() {
+
+        return await(0);
+    }
+
+    /**
+     * Wait until ojdeploy has finished. If it does not finish within the given time, the process is destroyed including all of
+     * its child processes.
+     * 
+     * @param timeout The maximum time to wait in milliseconds. Values lower than 1 mean waiting without any limit.
+     * @return The {@link ExecutionResult} of the run.
+     * @throws OjdeployExecutionException if ojdeploy could not be executed, returned an unexpected exit value or did not finish in
+     *         time.
+     */
+    public synchronized ExecutionResult await(long timeout) {
+
+        if (completed)
+            return result;
+
+        try {
+
+            if (handler != null)
+                waitFor(timeout);
+
+        } catch (InterruptedException e) {
+
+            cancel();
+            Thread.currentThread().interrupt();
+            throw new OjdeployExecutionException("Interrupted while waiting for ojdeploy! The process has been cancelled.", e);
+
+        } finally {
+
+            completed = handler == null || handler.hasResult();
+            result.setDuration(System.currentTimeMillis() - start);
+        }
+
+        if (handler != null)
+            executor.recordRun(result);
+
+        return result;
+    }
+
+    private void waitFor(long timeout) throws InterruptedException {
+
+        ExecuteException failure = null;
+
+        if (timeout > 0) {
+
+            handler.waitFor(timeout);
+
+            if (!handler.hasResult()) {
+
+                LOG.error("ojdeploy did not finish within " + timeout + "ms. Destroying process tree.");
+                canceller.destroy("ojdeploy did not finish within " + timeout + "ms.");
+                handler.waitFor(DESTROY_GRACE_TIME);
+                IOUtils.closeQuietly(output);
+                throw createFailure("ojdeploy did not finish within " + timeout + "ms and has been destroyed!", null);
+            }
+
+        } else {
+
+            handler.waitFor();
+        }
+
+        IOUtils.closeQuietly(output);
+        failure = handler.getException();
+
+        if (result.getAbortReason() != null)
+            throw createFailure(result.getAbortReason() + " The process tree has been destroyed!", null);
+
+        if (failure != null) {
+
+            if (failure.getExitValue() != Executor.INVALID_EXITVALUE)
+                result.setExitValue(failure.getExitValue());
+
+            throw createFailure("Was not able to execute ojdeploy!\n",
+                    failure.getExitValue() == Executor.INVALID_EXITVALUE && failure.getCause() != null ? failure.getCause()
+                            : failure);
+        }
+
+        result.setExitValue(handler.getExitValue());
+        LOG.info("Finished executing ojdeploy with exit value: " + result.getExitValue());
+        executor.recordOutputs(fingerprint, cacheKey, result, params);
+    }
+
+    /**
+     * Create the exception for a failed run. The last lines of output are attached to it and appended to its message.
+     * 
+     * @param message The message.
+     * @param cause The cause. May be null.
+     * @return The exception.
+     */
+    private OjdeployExecutionException createFailure(String message, Throwable cause) {
+
+        OjdeployExecutionException failure = null;
+        List<String> lines = null;
+        StringBuilder fullMessage = null;
+
+        fullMessage = new StringBuilder(message);
+
+        if (tail != null && tail.getCount() > 0) {
+
+            lines = tail.getLines();
+            fullMessage.append("\nLast ").append(lines.size()).append(" lines of output:");
+
+            for (String currLine : lines)
+                fullMessage.append("\n  ").append(currLine);
+        }
+
+        failure = new OjdeployExecutionException(fullMessage.toString(), cause);
+
+        if (lines != null)
+            failure.setOutputTail(lines);
+
+        return failure;
+    }
+
+    /**
+     * @return The result of the run. It is not complete before {@link #await()} has returned.
+     */
+    public ExecutionResult getResult() {
+
+        return result;
+    }
+}
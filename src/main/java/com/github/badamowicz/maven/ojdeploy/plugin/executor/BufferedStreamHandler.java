@@ -0,0 +1,341 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.apache.commons.exec.ExecuteStreamHandler;
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Stream handler writing the standard output and the standard error of ojdeploy to separate files. In verbose mode ojdeploy
+ * writes hundreds of megabytes, so the output is not copied byte by byte like the PumpStreamHandler of commons-exec does.
+ * <p>
+ * Every stream is handled by two threads. A reader fills large chunks from the stream of the process and a writer writes them to
+ * the {@link FileChannel} of the file. Both threads exchange a fixed number of chunks being reused for the whole run. So a slow
+ * disk does not stall ojdeploy until all chunks are filled, while the memory taken by the handler is bounded by the number and
+ * the size of the chunks. Once all chunks are filled, the reader stops reading and ojdeploy is blocked by the pipe.
+ * <p>
+ * After writing a chunk, the writer splits it into lines for the {@link OutputListener}s added before starting.
+ * 
+ * @author bernd
+ *
+ */
+public class BufferedStreamHandler implements ExecuteStreamHandler, Closeable {
+
+    private static final Logger  LOG                = Logger.getLogger(BufferedStreamHandler.class);
+
+    static final int             DEFAULT_CHUNK_SIZE = 256 * 1024;
+    static final int             DEFAULT_CHUNKS     = 16;
+
+    private Pump                 outputPump         = null;
+    private Pump                 errorPump          = null;
+    private OutputStream         processInput       = null;
+    private List<OutputListener> listeners          = new ArrayList<OutputListener>();
+
+    /**
+     * @param outputFile The file receiving the standard output of the process.
+     * @param errorFile The file receiving the standard error of the process.
+     * @throws IOException if one of the files could not be opened.
+     */
+    public BufferedStreamHandler(File outputFile, File errorFile) throws IOException {
+
+        this(outputFile, errorFile, DEFAULT_CHUNK_SIZE, DEFAULT_CHUNKS);
+    }
+
+    /**
+     * @param outputFile The file receiving the standard output of the process.
+     * @param errorFile The file receiving the standard error of the process.
+     * @param chunkSize The size of each chunk in bytes.
+     * @param chunks The number of chunks per stream.
+     * @throws IOException if one of the files could not be opened.
+     */
+    public BufferedStreamHandler(File outputFile, File errorFile, int chunkSize, int chunks) throws IOException {
+
+        super();
+        outputPump = new Pump("stdout", outputFile, chunkSize, chunks, false);
+
+        try {
+
+            errorPump = new Pump("stderr", errorFile, chunkSize, chunks, true);
+
+        } catch (IOException e) {
+
+            outputPump.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @param listener Receives the output line by line. Must be added before starting.
+     */
+    public void addOutputListener(OutputListener listener) {
+
+        listeners.add(listener);
+    }
+
+    @Override
+    public void setProcessInputStream(OutputStream os) {
+
+        processInput = os;
+    }
+
+    @Override
+    public void setProcessOutputStream(InputStream is) {
+
+        outputPump.setSource(is);
+    }
+
+    @Override
+    public void setProcessErrorStream(InputStream is) {
+
+        errorPump.setSource(is);
+    }
+
+    /**
+     * Start pumping. The standard input of the process is closed, since ojdeploy does not read anything.
+     */
+    @Override
+    public void start() {
+
+        IOUtils.closeQuietly(processInput);
+        outputPump.start(listeners);
+        errorPump.start(listeners);
+    }
+
+    /**
+     * Wait until both streams have been written completely.
+     */
+    @Override
+    public void stop() {
+
+        try {
+
+            outputPump.join();
+            errorPump.join();
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Close both files. Chunks still being pumped are discarded.
+     */
+    @Override
+    public void close() {
+
+        outputPump.close();
+        errorPump.close();
+    }
+
+    /**
+     * Pumps a single stream of the process into a file.
+     */
+    private static class Pump {
+
+        /** Marks the end of the stream. Identified by reference. */
+        private final ByteBuffer          eof      = ByteBuffer.allocate(0);
+
+        private String                    name     = null;
+        private boolean                   error    = false;
+        private LineSplitter              splitter = null;
+        private FileOutputStream          file     = null;
+        private FileChannel               channel  = null;
+        private BlockingQueue<ByteBuffer> free     = null;
+        private BlockingQueue<ByteBuffer> filled   = null;
+        private InputStream               source   = null;
+        private Thread                    reader   = null;
+        private Thread                    writer   = null;
+        private IOException               failure  = null;
+
+        Pump(String name, File target, int chunkSize, int chunks, boolean error) throws IOException {
+
+            super();
+            this.name = name;
+            this.error = error;
+            file = new FileOutputStream(target);
+            channel = file.getChannel();
+            free = new ArrayBlockingQueue<ByteBuffer>(chunks);
+            filled = new ArrayBlockingQueue<ByteBuffer>(chunks + 1);
+
+            for (int i = 0; i < chunks; i++)
+                free.add(ByteBuffer.allocate(chunkSize));
+        }
+
+        void setSource(InputStream source) {
+
+            this.source = source;
+        }
+
+        void start(List<OutputListener> listeners) {
+
+            if (!listeners.isEmpty())
+                splitter = new LineSplitter(listeners, error);
+
+            reader = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+
+                    read();
+                }
+            }, "ojdeploy-" + name + "-reader");
+
+            writer = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+
+                    write();
+                }
+            }, "ojdeploy-" + name + "-writer");
+
+            reader.setDaemon(true);
+            writer.setDaemon(true);
+            writer.start();
+            reader.start();
+        }
+
+        /**
+         * Fill chunks from the stream. A chunk is handed over to the writer as soon as the stream has no more bytes available
+         * without blocking, so output is written timely even if ojdeploy writes slowly.
+         */
+        private void read() {
+
+            ByteBuffer chunk = null;
+            boolean endOfStream = false;
+            int count = 0;
+
+            try {
+
+                while (!endOfStream) {
+
+                    chunk = free.take();
+                    chunk.clear();
+
+                    do {
+
+                        count = source.read(chunk.array(), chunk.position(), chunk.remaining());
+
+                        if (count < 0)
+                            endOfStream = true;
+                        else
+                            chunk.position(chunk.position() + count);
+
+                    } while (!endOfStream && chunk.hasRemaining() && source.available() > 0);
+
+                    chunk.flip();
+                    filled.put(chunk);
+                }
+
+            } catch (IOException e) {
+
+                LOG.debug("Stream " + name + " of ojdeploy has been closed.", e);
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+
+            } finally {
+
+                // never blocks since there are more places than chunks
+                filled.offer(eof);
+            }
+        }
+
+        /**
+         * Write filled chunks to the file and hand them back to the reader. After a failure, chunks are discarded to keep the
+         * process from being blocked.
+         */
+        private void write() {
+
+            ByteBuffer chunk = null;
+
+            try {
+
+                while ((chunk = filled.take()) != eof) {
+
+                    try {
+
+                        if (failure == null)
+                            while (chunk.hasRemaining())
+                                channel.write(chunk);
+
+                        if (splitter != null) {
+
+                            chunk.rewind();
+                            splitter.feed(chunk);
+                        }
+
+                    } catch (IOException e) {
+
+                        failure = e;
+                        LOG.warn("Could not write " + name + " of ojdeploy. Discarding further output.", e);
+                    }
+
+                    free.put(chunk);
+                }
+
+                if (splitter != null)
+                    splitter.finish();
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void join() throws InterruptedException {
+
+            if (reader != null)
+                reader.join();
+
+            if (writer != null)
+                writer.join();
+        }
+
+        void close() {
+
+            IOUtils.closeQuietly(channel);
+            IOUtils.closeQuietly(file);
+        }
+    }
+}
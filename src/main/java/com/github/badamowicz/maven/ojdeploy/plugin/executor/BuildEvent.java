@@ -0,0 +1,119 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+/**
+ * A structured event recognized in the output of ojdeploy by the {@link OutputEventParser}.
+ * 
+ * @author bernd
+ *
+ */
+public class BuildEvent {
+
+    /**
+     * The kinds of events recognized.
+     */
+    public enum Type {
+
+        /** ojdeploy started compiling a project. The detail names the project if given. */
+        COMPILE_STARTED,
+
+        /** ojdeploy finished compiling. The detail contains the summary of errors and warnings. */
+        COMPILE_FINISHED,
+
+        /** ojdeploy started deploying a profile. */
+        DEPLOYMENT_STARTED,
+
+        /** ojdeploy finished deploying a profile. The detail tells if the deployment has been finished or is incomplete. */
+        DEPLOYMENT_FINISHED,
+
+        /** A warning. The detail contains the message. */
+        WARNING,
+
+        /** An error. The detail contains the message. */
+        ERROR,
+
+        /** An archive has been written. The detail contains its location. */
+        ARCHIVE_WRITTEN
+    }
+
+    private Type    type   = null;
+    private String  name   = null;
+    private String  detail = null;
+    private boolean error  = false;
+    private long    time   = 0;
+
+    /**
+     * @param type The kind of event.
+     * @param name Names the run which emitted the event, e.g. the profile. May be null.
+     * @param detail The detail of the event.
+     * @param error true, if the line has been written to standard error.
+     */
+    public BuildEvent(Type type, String name, String detail, boolean error) {
+
+        super();
+        this.type = type;
+        this.name = name;
+        this.detail = detail;
+        this.error = error;
+        this.time = System.currentTimeMillis();
+    }
+
+    public Type getType() {
+
+        return type;
+    }
+
+    public String getName() {
+
+        return name;
+    }
+
+    public String getDetail() {
+
+        return detail;
+    }
+
+    public boolean isError() {
+
+        return error;
+    }
+
+    /**
+     * @return The time the event has been recognized at in milliseconds.
+     */
+    public long getTime() {
+
+        return time;
+    }
+
+    @Override
+    public String toString() {
+
+        return "BuildEvent[" + type + ":" + name + ":" + detail + "]";
+    }
+}
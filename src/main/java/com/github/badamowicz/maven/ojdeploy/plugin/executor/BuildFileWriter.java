@@ -0,0 +1,212 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Properties;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Writes the build file for a batch deployment of ojdeploy (see <i>ojdeploy -buildfileschema</i>). Every deployment becomes a
+ * <i>deploy</i> element, parameters shared by all deployments are written to the <i>defaults</i> element.
+ * <p>
+ * The names of the build file's parameters are derived from the mappings of the Mojo parameters to ojdeploy arguments. For
+ * example the Mojo parameter <i>workspaceFile</i> is mapped to <i>-workspace</i> and hence written as parameter <i>workspace</i>.
+ * 
+ * @author bernd
+ *
+ */
+public class BuildFileWriter {
+
+    private static final Logger LOG            = Logger.getLogger(BuildFileWriter.class);
+
+    private static final String ENCODING       = "UTF-8";
+    private static final String ROOT_ELEMENT   = "ojdeploy-build";
+    private static final String DEPLOY_ELEMENT = "deploy";
+    private static final String DEFAULTS       = "defaults";
+    private static final String PARAMETER      = "parameter";
+    private static final String BASEDIR        = "basedir";
+    private static final String INDENT         = "    ";
+
+    private Properties          mappings       = null;
+
+    /**
+     * @param mappings The mappings between Mojo parameters and ojdeploy arguments.
+     */
+    public BuildFileWriter(Properties mappings) {
+
+        super();
+        this.mappings = mappings;
+    }
+
+    /**
+     * Write the build file.
+     * 
+     * @param buildFile The file to be written. Missing parent directories are created.
+     * @param deployments One list of parameters per deployment.
+     * @param defaults Parameters applying to all deployments.
+     * @throws IOException if the file could not be written.
+     */
+    public void write(File buildFile, List<List<MojoParameter>> deployments, List<MojoParameter> defaults) throws IOException {
+
+        OutputStream os = null;
+
+        try {
+
+            if (buildFile.getParentFile() != null)
+                buildFile.getParentFile().mkdirs();
+
+            os = new FileOutputStream(buildFile);
+            write(os, deployments, defaults);
+            LOG.debug("Wrote build file " + buildFile + " containing " + deployments.size() + " deployments.");
+
+        } finally {
+
+            IOUtils.closeQuietly(os);
+        }
+    }
+
+    /**
+     * Write the build file to the given stream.
+     * 
+     * @param os The stream receiving the build file. It is not closed.
+     * @param deployments One list of parameters per deployment.
+     * @param defaults Parameters applying to all deployments.
+     * @throws IOException if the build file could not be written.
+     */
+    void write(OutputStream os, List<List<MojoParameter>> deployments, List<MojoParameter> defaults) throws IOException {
+
+        XMLStreamWriter writer = null;
+
+        try {
+
+            writer = XMLOutputFactory.newInstance().createXMLStreamWriter(os, ENCODING);
+            writer.writeStartDocument(ENCODING, "1.0");
+            newLine(writer, 0);
+            writer.writeStartElement(ROOT_ELEMENT);
+            writeBaseDir(writer, defaults);
+
+            for (List<MojoParameter> currDeployment : deployments)
+                writeParameters(writer, DEPLOY_ELEMENT, currDeployment);
+
+            writeParameters(writer, DEFAULTS, defaults);
+            newLine(writer, 0);
+            writer.writeEndElement();
+            newLine(writer, 0);
+            writer.writeEndDocument();
+            writer.flush();
+
+        } catch (XMLStreamException e) {
+
+            throw new IOException("Could not write ojdeploy build file!", e);
+
+        } finally {
+
+            close(writer);
+        }
+    }
+
+    /**
+     * The base directory is an attribute of the root element instead of a parameter.
+     */
+    private void writeBaseDir(XMLStreamWriter writer, List<MojoParameter> defaults) throws XMLStreamException {
+
+        for (MojoParameter currParam : defaults) {
+
+            if (BASEDIR.equals(getName(currParam)))
+                writer.writeAttribute(BASEDIR, currParam.getParameterValue().toString());
+        }
+    }
+
+    private void writeParameters(XMLStreamWriter writer, String element, List<MojoParameter> params) throws XMLStreamException {
+
+        String currName = null;
+
+        newLine(writer, 1);
+        writer.writeStartElement(element);
+
+        for (MojoParameter currParam : params) {
+
+            currName = getName(currParam);
+
+            if (currName == null || BASEDIR.equals(currName) || Boolean.FALSE.equals(currParam.getParameterValue()))
+                continue;
+
+            newLine(writer, 2);
+            writer.writeEmptyElement(PARAMETER);
+            writer.writeAttribute("name", currName);
+            writer.writeAttribute("value", currParam.getParameterValue().toString());
+        }
+
+        newLine(writer, 1);
+        writer.writeEndElement();
+    }
+
+    /**
+     * Look up the name of the build file parameter for the given Mojo parameter.
+     * 
+     * @param param The Mojo parameter.
+     * @return The name or <b>null</b> if the parameter is not mapped to an ojdeploy argument.
+     */
+    String getName(MojoParameter param) {
+
+        String argument = mappings.getProperty(param.getParameterName());
+
+        return argument != null ? argument.substring(1) : null;
+    }
+
+    private void newLine(XMLStreamWriter writer, int depth) throws XMLStreamException {
+
+        writer.writeCharacters("\n");
+
+        for (int i = 0; i < depth; i++)
+            writer.writeCharacters(INDENT);
+    }
+
+    private void close(XMLStreamWriter writer) {
+
+        try {
+
+            if (writer != null)
+                writer.close();
+
+        } catch (XMLStreamException e) {
+
+            LOG.debug("Could not close XML writer.", e);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FilenameUtils;
+
+/**
+ * A deployment profile as defined inside a JDeveloper workspace (.jws) or project (.jpr) file.
+ * 
+ * @author bernd
+ *
+ */
+public class DeploymentProfile {
+
+    private static final String     PROJECT_EXTENSION = "jpr";
+
+    private String                  name              = null;
+    private File                    ownerFile         = null;
+    private File                    archiveFile       = null;
+    private String                  profileClass      = null;
+    private List<ProfileDependency> dependencies      = new ArrayList<ProfileDependency>();
+    private List<File>              contributors      = new ArrayList<File>();
+
+    public DeploymentProfile(String name, File ownerFile) {
+
+        super();
+        setName(name);
+        setOwnerFile(ownerFile);
+    }
+
+    /**
+     * @return The name of the JDeveloper project owning this profile as expected by ojdeploy's argument <i>-project</i> or
+     *         <b>null</b> if the profile is defined on workspace level.
+     */
+    public String getProjectName() {
+
+        if (FilenameUtils.isExtension(getOwnerFile().getName(), PROJECT_EXTENSION))
+            return FilenameUtils.getBaseName(getOwnerFile().getName());
+
+        return null;
+    }
+
+    /**
+     * @param dependency Reference to a profile which must be deployed before this one.
+     */
+    public void addDependency(ProfileDependency dependency) {
+
+        getDependencies().add(dependency);
+    }
+
+    public String getName() {
+
+        return name;
+    }
+
+    public void setName(String name) {
+
+        this.name = name;
+    }
+
+    public File getOwnerFile() {
+
+        return ownerFile;
+    }
+
+    public void setOwnerFile(File ownerFile) {
+
+        this.ownerFile = ownerFile;
+    }
+
+    /**
+     * @return The archive (EAR, WAR, JAR) written by this profile or <b>null</b> if the profile does not define any.
+     */
+    public File getArchiveFile() {
+
+        return archiveFile;
+    }
+
+    public void setArchiveFile(File archiveFile) {
+
+        this.archiveFile = archiveFile;
+    }
+
+    public String getProfileClass() {
+
+        return profileClass;
+    }
+
+    public void setProfileClass(String profileClass) {
+
+        this.profileClass = profileClass;
+    }
+
+    public List<ProfileDependency> getDependencies() {
+
+        return dependencies;
+    }
+
+    /**
+     * @param contributor A file or directory explicitly added to the archive by one of the file groups of this profile.
+     */
+    public void addContributor(File contributor) {
+
+        getContributors().add(contributor);
+    }
+
+    /**
+     * @return The files and directories explicitly added to the archive. Project outputs and project dependencies contributed
+     *         by type are not part of this list.
+     */
+    public List<File> getContributors() {
+
+        return contributors;
+    }
+
+    @Override
+    public String toString() {
+
+        return "DeploymentProfile[" + name + ":" + ownerFile.getName() + "]";
+    }
+}
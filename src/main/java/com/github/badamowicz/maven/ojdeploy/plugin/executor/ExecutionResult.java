@@ -0,0 +1,241 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import java.io.File;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.process.ProcessStats;
+
+/**
+ * Helper bean describing the outcome of a single ojdeploy run.
+ *
+ * @author bernd
+ *
+ */
+public class ExecutionResult {
+
+    private String       name            = null;
+    private File         logFile         = null;
+    private File         errorLogFile    = null;
+    private int          exitValue       = -1;
+    private boolean      dryRun          = false;
+    private boolean      upToDate        = false;
+    private boolean      fromCache       = false;
+    private Throwable    failure         = null;
+    private long         duration        = 0;
+    private long         processDuration = 0;
+    private ProcessStats processStats    = null;
+    private String       abortReason     = null;
+    private String       workspace       = null;
+    private boolean      nodependents    = false;
+
+    public ExecutionResult(String name) {
+
+        super();
+        setName(name);
+    }
+
+    /**
+     * @return true, if ojdeploy has been run (or simulated in dry run mode) without any error.
+     */
+    public boolean isSuccessful() {
+
+        return getFailure() == null;
+    }
+
+    public String getName() {
+
+        return name;
+    }
+
+    public void setName(String name) {
+
+        this.name = name;
+    }
+
+    /**
+     * @return The absolute path of the workspace deployed or <b>null</b> if the run does not name a single workspace.
+     */
+    public String getWorkspace() {
+
+        return workspace;
+    }
+
+    public void setWorkspace(String workspace) {
+
+        this.workspace = workspace;
+    }
+
+    /**
+     * @return true, if the run deployed the profile only using <i>-nodependents</i>.
+     */
+    public boolean isNodependents() {
+
+        return nodependents;
+    }
+
+    public void setNodependents(boolean nodependents) {
+
+        this.nodependents = nodependents;
+    }
+
+    public File getLogFile() {
+
+        return logFile;
+    }
+
+    public void setLogFile(File logFile) {
+
+        this.logFile = logFile;
+    }
+
+    /**
+     * @return The file receiving the standard error of ojdeploy. May be null if no process has been started.
+     */
+    public File getErrorLogFile() {
+
+        return errorLogFile;
+    }
+
+    public void setErrorLogFile(File errorLogFile) {
+
+        this.errorLogFile = errorLogFile;
+    }
+
+    public int getExitValue() {
+
+        return exitValue;
+    }
+
+    public void setExitValue(int exitValue) {
+
+        this.exitValue = exitValue;
+    }
+
+    public boolean isDryRun() {
+
+        return dryRun;
+    }
+
+    public void setDryRun(boolean dryRun) {
+
+        this.dryRun = dryRun;
+    }
+
+    /**
+     * @return true, if running ojdeploy has been skipped since the profile was up to date.
+     */
+    public boolean isUpToDate() {
+
+        return upToDate;
+    }
+
+    public void setUpToDate(boolean upToDate) {
+
+        this.upToDate = upToDate;
+    }
+
+    /**
+     * @return true, if the archives have been restored from the build cache instead of running ojdeploy.
+     */
+    public boolean isFromCache() {
+
+        return fromCache;
+    }
+
+    public void setFromCache(boolean fromCache) {
+
+        this.fromCache = fromCache;
+    }
+
+    public Throwable getFailure() {
+
+        return failure;
+    }
+
+    public void setFailure(Throwable failure) {
+
+        this.failure = failure;
+    }
+
+    public long getDuration() {
+
+        return duration;
+    }
+
+    public void setDuration(long duration) {
+
+        this.duration = duration;
+    }
+
+    /**
+     * @return The time in milliseconds from spawning the ojdeploy process until it exited. Unlike {@link #getDuration()}, this
+     *         does not include computing fingerprints or waiting for a throttle slot. 0 if no process has been started.
+     */
+    public long getProcessDuration() {
+
+        return processDuration;
+    }
+
+    public void setProcessDuration(long processDuration) {
+
+        this.processDuration = processDuration;
+    }
+
+    /**
+     * @return The resource usage of ojdeploy if it has been sampled, otherwise <b>null</b>.
+     */
+    public ProcessStats getProcessStats() {
+
+        return processStats;
+    }
+
+    public void setProcessStats(ProcessStats processStats) {
+
+        this.processStats = processStats;
+    }
+
+    /**
+     * @return The reason if the plugin has destroyed ojdeploy, e.g. since it stalled. Otherwise <b>null</b>.
+     */
+    public String getAbortReason() {
+
+        return abortReason;
+    }
+
+    public void setAbortReason(String abortReason) {
+
+        this.abortReason = abortReason;
+    }
+
+    @Override
+    public String toString() {
+
+        return "ExecutionResult[" + name + ":" + exitValue + ":" + (isSuccessful() ? "success" : "failure") + ":" + duration
+                + "ms]";
+    }
+}
@@ -0,0 +1,162 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Splits the bytes of a stream into lines and hands them to {@link OutputListener}s. All buffers are allocated once and reused,
+ * so splitting does not create any garbage per line. Lines longer than {@link #MAX_LINE_LENGTH} are truncated.
+ * 
+ * @author bernd
+ *
+ */
+class LineSplitter {
+
+    private static final Logger  LOG             = Logger.getLogger(LineSplitter.class);
+
+    static final int             MAX_LINE_LENGTH = 8192;
+    private static final int     BUFFER_SIZE     = 8192;
+
+    private List<OutputListener> listeners       = null;
+    private boolean              error           = false;
+    private CharsetDecoder       decoder         = null;
+    private ByteBuffer           input           = null;
+    private CharBuffer           chars           = null;
+    private StringBuilder        line            = null;
+
+    /**
+     * @param listeners The listeners receiving the lines.
+     * @param error true, if the stream is the standard error of the process.
+     */
+    LineSplitter(List<OutputListener> listeners, boolean error) {
+
+        super();
+        this.listeners = listeners;
+        this.error = error;
+        decoder = Charset.defaultCharset().newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        input = ByteBuffer.allocate(BUFFER_SIZE);
+        chars = CharBuffer.allocate(BUFFER_SIZE);
+        line = new StringBuilder(256);
+    }
+
+    /**
+     * Split the remaining bytes of the given buffer. Bytes of an incomplete character are kept until the next call.
+     * 
+     * @param bytes The bytes read from the stream. The buffer's position is moved to its limit.
+     */
+    void feed(ByteBuffer bytes) {
+
+        int limit = 0;
+
+        while (bytes.hasRemaining()) {
+
+            limit = bytes.limit();
+            bytes.limit(bytes.position() + Math.min(bytes.remaining(), input.remaining()));
+            input.put(bytes);
+            bytes.limit(limit);
+
+            input.flip();
+            decode(false);
+            input.compact();
+        }
+    }
+
+    /**
+     * Called at the end of the stream for handing over the last line if it has no line terminator.
+     */
+    void finish() {
+
+        input.flip();
+        decode(true);
+        decoder.flush(chars);
+        chars.flip();
+        split();
+        chars.clear();
+
+        if (line.length() > 0)
+            emit();
+    }
+
+    private void decode(boolean endOfInput) {
+
+        CoderResult result = null;
+
+        do {
+
+            result = decoder.decode(input, chars, endOfInput);
+            chars.flip();
+            split();
+            chars.clear();
+
+        } while (result.isOverflow());
+    }
+
+    private void split() {
+
+        char curr = 0;
+
+        while (chars.hasRemaining()) {
+
+            curr = chars.get();
+
+            if (curr == '\n')
+                emit();
+            else if (line.length() < MAX_LINE_LENGTH)
+                line.append(curr);
+        }
+    }
+
+    private void emit() {
+
+        if (line.length() > 0 && line.charAt(line.length() - 1) == '\r')
+            line.setLength(line.length() - 1);
+
+        for (OutputListener currListener : listeners) {
+
+            try {
+
+                currListener.line(line, error);
+
+            } catch (RuntimeException e) {
+
+                LOG.warn("Listener " + currListener + " failed handling output of ojdeploy.", e);
+            }
+        }
+
+        line.setLength(0);
+    }
+}
@@ -0,0 +1,118 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Static helpers for deriving new lists of {@link MojoParameter} objects from existing ones. The given lists are never
+ * modified.
+ * 
+ * @author bernd
+ *
+ */
+public final class MojoParameters {
+
+    private MojoParameters() {
+
+    }
+
+    /**
+     * Create a copy of the given list where the parameter with the given name is replaced. If the list does not contain such a
+     * parameter, it is appended.
+     * 
+     * @param ojdParams The original list.
+     * @param name The name of the parameter.
+     * @param value The new value.
+     * @param type The type of the value.
+     * @return A new list.
+     */
+    public static List<MojoParameter> with(List<MojoParameter> ojdParams, String name, Object value, Class<?> type) {
+
+        List<MojoParameter> params = null;
+        boolean replaced = false;
+
+        params = new ArrayList<MojoParameter>(ojdParams.size() + 1);
+
+        for (MojoParameter currParam : ojdParams) {
+
+            if (currParam.getParameterName().equals(name)) {
+
+                params.add(new MojoParameter(name, value, type));
+                replaced = true;
+
+            } else
+                params.add(currParam);
+        }
+
+        if (!replaced)
+            params.add(new MojoParameter(name, value, type));
+
+        return params;
+    }
+
+    /**
+     * Create a copy of the given list without the parameter with the given name.
+     * 
+     * @param ojdParams The original list.
+     * @param name The name of the parameter to be removed.
+     * @return A new list.
+     */
+    public static List<MojoParameter> without(List<MojoParameter> ojdParams, String name) {
+
+        List<MojoParameter> params = null;
+
+        params = new ArrayList<MojoParameter>(ojdParams.size());
+
+        for (MojoParameter currParam : ojdParams) {
+
+            if (!currParam.getParameterName().equals(name))
+                params.add(currParam);
+        }
+
+        return params;
+    }
+
+    /**
+     * Look up the value of the parameter with the given name.
+     * 
+     * @param ojdParams The list of parameters.
+     * @param name The name of the parameter.
+     * @return The value or <b>null</b> if the list does not contain such a parameter.
+     */
+    public static Object valueOf(List<MojoParameter> ojdParams, String name) {
+
+        for (MojoParameter currParam : ojdParams) {
+
+            if (currParam.getParameterName().equals(name))
+                return currParam.getParameterValue();
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,90 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.exec.CommandLine;
+import org.apache.commons.exec.DefaultExecutor;
+import org.apache.log4j.Logger;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.metrics.BuildMetrics;
+import com.github.badamowicz.maven.ojdeploy.plugin.process.ProcessTree;
+
+/**
+ * Executor telling {@link ProcessListener}s about the process it has launched. commons-exec does not expose the process, so
+ * launching it is intercepted.
+ * 
+ * @author bernd
+ *
+ */
+class ObservedExecutor extends DefaultExecutor {
+
+    private static final Logger   LOG       = Logger.getLogger(ObservedExecutor.class);
+
+    private List<ProcessListener> listeners = null;
+    private BuildMetrics          metrics   = null;
+    private String                name      = null;
+
+    /**
+     * @param listeners The listeners to be told about the process.
+     * @param metrics If set, the time for spawning the process is recorded. May be null.
+     * @param name Names the run. Used as track of the metrics.
+     */
+    ObservedExecutor(List<ProcessListener> listeners, BuildMetrics metrics, String name) {
+
+        super();
+        this.listeners = listeners;
+        this.metrics = metrics;
+        this.name = name;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    protected Process launch(CommandLine command, Map env, File dir) throws IOException {
+
+        Process process = null;
+        long start = metrics != null ? metrics.now() : 0;
+        long pid = 0;
+
+        process = super.launch(command, env, dir);
+
+        if (metrics != null)
+            metrics.record("spawn", BuildMetrics.SPAWN, name, start);
+
+        pid = ProcessTree.getPid(process);
+        LOG.debug("Started ojdeploy with process id " + pid + ".");
+
+        for (ProcessListener currListener : listeners)
+            currListener.processStarted(pid);
+
+        return process;
+    }
+}
@@ -27,42 +27,106 @@
 package com.github.badamowicz.maven.ojdeploy.plugin.executor;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
 
 import org.apache.commons.exec.CommandLine;
-import org.apache.commons.exec.DefaultExecutor;
-import org.apache.commons.exec.PumpStreamHandler;
+import org.apache.commons.exec.DefaultExecuteResultHandler;
+import org.apache.commons.exec.ExecuteException;
+import org.apache.commons.exec.ExecuteWatchdog;
+import org.apache.commons.exec.ShutdownHookProcessDestroyer;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.log4j.Logger;
+import org.apache.maven.plugin.logging.Log;
 
+import com.github.badamowicz.maven.ojdeploy.plugin.cache.BuildCache;
+import com.github.badamowicz.maven.ojdeploy.plugin.cache.Digests;
+import com.github.badamowicz.maven.ojdeploy.plugin.cache.Fingerprinter;
+import com.github.badamowicz.maven.ojdeploy.plugin.cache.InputFingerprint;
+import com.github.badamowicz.maven.ojdeploy.plugin.cache.UpToDateCheck;
 import com.github.badamowicz.maven.ojdeploy.plugin.exceptions.OjdeployExecutionException;
+import com.github.badamowicz.maven.ojdeploy.plugin.metrics.BuildMetrics;
+import com.github.badamowicz.maven.ojdeploy.plugin.metrics.RegressionGate;
+import com.github.badamowicz.maven.ojdeploy.plugin.metrics.RunHistory;
+import com.github.badamowicz.maven.ojdeploy.plugin.process.ProcessSampler;
+import com.github.badamowicz.maven.ojdeploy.plugin.process.StackProfiler;
 
 /**
  * This class actually performs the ojdeploy commands. It provides sufficient mappings and error handling if things go wrong.
  * Beware that validating arguments to ojdeploy is not subject to this class! It's up to the calling Mojo to check if given
  * parameters are valid.
+ * <p>
+ * All state of a single run is kept by the run itself. Once configured, one instance may be used by several threads at once,
+ * e.g. by parallel builds of Maven. Just make sure each run uses a log file of its own.
  * 
  * @author bernd
  *
  */
 public class OjdeployExecutor {
 
-    private static final String OJDEPLOY_BIN_LIN    = "ojdeploy";
-    private static final String OJDEPLOY_BIN_WIN    = "ojdeploy.exe";
-    private static final String JDEV_BIN_PATH_PARAM = "jdevBinPath";
-
-    private static final Logger LOG                 = Logger.getLogger(OjdeployExecutor.class);
-
-    private static final String PROPS_FILE          = "executor.properties";
-
-    private Properties          props               = null;
-    private boolean             dryRun              = false;
-    private CommandLine         cmdLine             = null;
-    private String              ojdeployBinary      = null;
+    private static final String      OJDEPLOY_BIN_LIN             = "ojdeploy";
+    private static final String      OJDEPLOY_BIN_WIN             = "ojdeploy.exe";
+    private static final String      JDEV_BIN_PATH_PARAM          = "jdevBinPath";
+    private static final String      PROFILE_PARAM                = "profile";
+    private static final String      WORKSPACE_PARAM              = "workspaceFile";
+    private static final String      DEFINES_PARAM                = "defines";
+    private static final String      NODEPENDENTS_PARAM           = "nodependents";
+    private static final String      BUILD_FILE_PARAM             = "buildFile";
+    private static final String      VERBOSE_PARAM                = "verbose";
+    private static final String      PROJECT_PARAM                = "project";
+    private static final String      SCHEMA_PARAM                 = "buildFileSchema";
+
+    private static final Logger      LOG                          = Logger.getLogger(OjdeployExecutor.class);
+
+    private static final String      PROPS_FILE                   = "executor.properties";
+    static final int                 DEFAULT_TAIL_LINES           = 50;
+    static final int                 DEFAULT_THREAD_DUMPS         = 3;
+    static final int                 DEFAULT_TIMEOUT_PERCENTILE   = 95;
+    static final int                 DEFAULT_REGRESSION_THRESHOLD = 50;
+
+    /** The number of latest runs of a profile the adaptive timeout is derived from. */
+    static final int                 HISTORY_WINDOW               = 30;
+
+    /** Fewer runs do not tell anything about the duration of a profile. */
+    static final int                 MIN_HISTORY_RUNS             = 5;
+
+    /** Protects fast profiles from being killed by some jitter of the machine. */
+    static final long                MIN_ADAPTIVE_TIMEOUT         = 60000;
+
+    /** The mappings read from {@link #PROPS_FILE}, shared by all instances. */
+    private static Properties        mappings                     = null;
+
+    private Properties               props                        = null;
+    private String                   ojdeployBinary               = null;
+    private File                     logFile                      = null;
+    private UpToDateCheck            upToDateCheck                = null;
+    private Fingerprinter            fingerprinter                = null;
+    private BuildCache               buildCache                   = null;
+    private String                   ojdeployVersion              = null;
+    private ProcessThrottle          throttle                     = null;
+    private Log                      outputLog                    = null;
+    private OutputTee.Level          outputLevel                  = OutputTee.Level.OFF;
+    private Pattern                  outputFilter                 = null;
+    private int                      tailLines                    = DEFAULT_TAIL_LINES;
+    private List<BuildEventListener> buildEventListeners          = new CopyOnWriteArrayList<BuildEventListener>();
+    private BuildMetrics             metrics                      = null;
+    private long                     samplingInterval             = 0;
+    private long                     processTimeout               = 0;
+    private RunHistory               history                      = null;
+    private int                      timeoutPercentile            = DEFAULT_TIMEOUT_PERCENTILE;
+    private double                   timeoutMultiplier            = 0;
+    private RegressionGate.Action    regressionAction             = RegressionGate.Action.OFF;
+    private int                      regressionThreshold          = DEFAULT_REGRESSION_THRESHOLD;
+    private long                     stallTimeout                 = 0;
+    private int                      threadDumps                  = DEFAULT_THREAD_DUMPS;
+    private long                     profilingInterval            = 0;
 
     /**
      * Constructor performs necessary initializations of internal data and mappings.
@@ -71,6 +135,7 @@ public class OjdeployExecutor {
 
         initProperties();
         initOjdeployBinary();
+        setLogFile(new File(getProps().getProperty("ojdeploy.build.log.file")));
     }
 
     /**
@@ -93,40 +158,467 @@ public class OjdeployExecutor {
         LOG.debug("Initialized ojdeploy binary for operating system " + osName + " with '" + getOjdeployBinary() + "'.");
     }
 
-    public void execute(List<MojoParameter> ojdParams, boolean dryRun) {
+    /**
+     * Execute ojdeploy with the given parameters.
+     * 
+     * @param ojdParams The list of parameters handed over to ojdeploy.
+     * @param dryRun If true, the command line is only logged but not executed.
+     * @return The {@link ExecutionResult} of the run.
+     * @throws OjdeployExecutionException if ojdeploy could not be executed or returned an unexpected exit value.
+     */
+    public ExecutionResult execute(List<MojoParameter> ojdParams, boolean dryRun) {
+
+        return execute(ojdParams, getLogFile(), dryRun);
+    }
+
+    /**
+     * Execute ojdeploy with the given parameters.
+     * 
+     * @param ojdParams The list of parameters handed over to ojdeploy.
+     * @param logFile The file receiving the output of this run.
+     * @param dryRun If true, the command line is only logged but not executed.
+     * @return The {@link ExecutionResult} of the run.
+     * @throws OjdeployExecutionException if ojdeploy could not be executed or returned an unexpected exit value.
+     */
+    public ExecutionResult execute(List<MojoParameter> ojdParams, File logFile, boolean dryRun) {
+
+        return start(ojdParams, logFile, dryRun).await();
+    }
+
+    /**
+     * Start ojdeploy with the given parameters without waiting for it to finish. If the profile is up to date or can be restored
+     * from the build cache, the returned execution has already been completed.
+     * 
+     * @param ojdParams The list of parameters handed over to ojdeploy.
+     * @param dryRun If true, the command line is only logged but not executed.
+     * @return The {@link AsyncExecution} to be awaited.
+     * @throws OjdeployExecutionException if ojdeploy could not be started.
+     */
+    public AsyncExecution start(List<MojoParameter> ojdParams, boolean dryRun) {
+
+        return start(ojdParams, getLogFile(), dryRun);
+    }
+
+    /**
+     * Start ojdeploy with the given parameters without waiting for it to finish. All state of the run is kept by the returned
+     * execution, so several runs may be started concurrently.
+     * 
+     * @param ojdParams The list of parameters handed over to ojdeploy.
+     * @param logFile The file receiving the output of this run.
+     * @param dryRun If true, the command line is only logged but not executed.
+     * @return The {@link AsyncExecution} to be awaited.
+     * @throws OjdeployExecutionException if ojdeploy could not be started.
+     */
+    public AsyncExecution start(List<MojoParameter> ojdParams, File logFile, boolean dryRun) {
+
+        ExecutionResult result = null;
+        CommandLine cmdLine = null;
+        long prepareStart = 0;
+        InputFingerprint fingerprint = null;
+        String cacheKey = null;
+        long start = System.currentTimeMillis();
 
         try {
-            setDryRun(dryRun);
-            prepareCommandLine(ojdParams);
+            result = new ExecutionResult(getProfileName(ojdParams));
+            result.setWorkspace(getWorkspacePath(ojdParams));
+            result.setLogFile(logFile);
+            result.setDryRun(dryRun);
+            prepareStart = getMetrics() != null ? getMetrics().now() : 0;
+            cmdLine = prepareCommandLine(ojdParams);
+
+            if (getMetrics() != null)
+                getMetrics().record("prepareCommandLine", BuildMetrics.SETUP, result.getName(), prepareStart);
+
+            if (dryRun) {
+
+                LOG.info("Dry run option is set. Would execute this command:\n" + cmdLine);
+
+            } else {
 
-            if (isDryRun())
-                LOG.info("Dry run option is set. Would execute this command:\n" + getCmdLine());
-            else
-                exec();
+                fingerprint = createFingerprint(ojdParams, cmdLine);
+                cacheKey = createCacheKey(fingerprint, cmdLine);
+
+                if (fingerprint != null && getUpToDateCheck() != null && getUpToDateCheck().isUpToDate(fingerprint))
+                    result.setUpToDate(true);
+                else if (cacheKey != null && getBuildCache().restore(cacheKey, fingerprint))
+                    result.setFromCache(true);
+                else
+                    return launch(skipUpToDateDependencies(ojdParams), result, fingerprint, cacheKey, start);
+
+                recordOutputs(fingerprint, cacheKey, result, ojdParams);
+            }
 
         } catch (Exception e) {
 
             throw new OjdeployExecutionException("Was not able to execute ojdeploy!\n", e);
         }
+
+        return new AsyncExecution(this, result, start);
+    }
+
+    /**
+     * Run several deployments by a single ojdeploy process. A build file containing all deployments is generated and handed over
+     * to ojdeploy by the argument <i>-buildfile</i>. Up to date check and build cache do not apply to batch deployments.
+     * 
+     * @param deployments One list of parameters per deployment, each naming at least workspace and profile.
+     * @param ojdParams The parameters shared by all deployments. Parameters naming a deployment or a build file are ignored.
+     * @param buildFile The build file to be generated.
+     * @param dryRun If true, the build file is generated but ojdeploy is not executed.
+     * @return The {@link ExecutionResult} of the run.
+     * @throws OjdeployExecutionException if the build file could not be written or ojdeploy failed.
+     */
+    public ExecutionResult executeBatch(List<List<MojoParameter>> deployments, List<MojoParameter> ojdParams, File buildFile,
+            boolean dryRun) {
+
+        return execute(prepareBatch(deployments, ojdParams, buildFile), dryRun);
+    }
+
+    /**
+     * Write the build file for a batch deployment.
+     * 
+     * @param deployments One list of parameters per deployment, each naming at least workspace and profile.
+     * @param ojdParams The parameters shared by all deployments. Parameters naming a deployment or a build file are ignored.
+     * @param buildFile The build file to be generated.
+     * @return The parameters for running ojdeploy with the generated build file.
+     * @throws OjdeployExecutionException if the build file could not be written.
+     */
+    public List<MojoParameter> prepareBatch(List<List<MojoParameter>> deployments, List<MojoParameter> ojdParams,
+            File buildFile) {
+
+        List<MojoParameter> batchParams = null;
+        List<MojoParameter> defaults = null;
+        List<String> excluded = null;
+
+        batchParams = new ArrayList<MojoParameter>();
+        defaults = new ArrayList<MojoParameter>();
+        excluded = Arrays.asList(new String[] { WORKSPACE_PARAM, PROFILE_PARAM, PROJECT_PARAM, BUILD_FILE_PARAM, SCHEMA_PARAM });
+
+        for (MojoParameter currParam : ojdParams) {
+
+            if (isJdevBinPath(currParam) || currParam.getParameterName().equals(VERBOSE_PARAM))
+                batchParams.add(currParam);
+            else if (!excluded.contains(currParam.getParameterName()))
+                defaults.add(currParam);
+        }
+
+        try {
+
+            new BuildFileWriter(getProps()).write(buildFile, deployments, defaults);
+
+        } catch (IOException e) {
+
+            throw new OjdeployExecutionException("Was not able to write build file " + buildFile + "!", e);
+        }
+
+        LOG.info("Deploying " + deployments.size() + " profiles by a single ojdeploy process using build file " + buildFile + ".");
+        batchParams.add(new MojoParameter(BUILD_FILE_PARAM, buildFile.getAbsolutePath(), String.class));
+
+        return batchParams;
+    }
+
+    /**
+     * Fingerprint the inputs of the profile to be deployed if an {@link UpToDateCheck} or a {@link BuildCache} is configured.
+     * 
+     * @param ojdParams The list of parameters available.
+     * @param cmdLine The command line prepared from the parameters.
+     * @return The fingerprint or <b>null</b> if neither is configured or the parameters do not name a workspace and profile.
+     */
+    private InputFingerprint createFingerprint(List<MojoParameter> ojdParams, CommandLine cmdLine) {
+
+        Object workspace = null;
+        Object defines = null;
+        String profile = null;
+
+        if (getFingerprinter() == null || (getUpToDateCheck() == null && getBuildCache() == null))
+            return null;
+
+        workspace = MojoParameters.valueOf(ojdParams, WORKSPACE_PARAM);
+        defines = MojoParameters.valueOf(ojdParams, DEFINES_PARAM);
+        profile = getProfileName(ojdParams);
+
+        if (workspace == null || profile == null) {
+
+            LOG.info("Up to date check and build cache require a workspace and a profile. Running ojdeploy unconditionally.");
+            return null;
+        }
+
+        return getFingerprinter().fingerprint(new File(workspace.toString()), profile,
+                defines != null ? defines.toString() : null, getArguments(cmdLine),
+                !Boolean.TRUE.equals(MojoParameters.valueOf(ojdParams, NODEPENDENTS_PARAM)));
+    }
+
+    /**
+     * Restrict a deployment including the dependencies of the profile to the profile itself if all profiles it depends on are
+     * up to date. Then ojdeploy only needs to run the profile with <i>-nodependents</i>. This typically applies to an EAR whose
+     * modules did not change.
+     * 
+     * @param ojdParams The list of parameters available.
+     * @return The parameters extended by <i>nodependents</i> or the given ones if any dependency must be deployed.
+     */
+    List<MojoParameter> skipUpToDateDependencies(List<MojoParameter> ojdParams) {
+
+        List<DeploymentProfile> dependencies = null;
+        String reason = null;
+
+        dependencies = getDependencyProfiles(ojdParams);
+
+        if (dependencies.isEmpty())
+            return ojdParams;
+
+        for (DeploymentProfile currDependency : dependencies) {
+
+            reason = getUpToDateCheck().findRebuildReason(createDependencyFingerprint(currDependency, ojdParams));
+
+            if (reason != null) {
+
+                LOG.info("Deploying profile " + getProfileName(ojdParams) + " including its dependencies since "
+                        + currDependency.getName() + " must be deployed: " + reason + ".");
+                return ojdParams;
+            }
+        }
+
+        LOG.info("All profiles " + getProfileName(ojdParams) + " depends on are up to date. Applying -nodependents.");
+
+        return MojoParameters.with(ojdParams, NODEPENDENTS_PARAM, Boolean.TRUE, Boolean.class);
+    }
+
+    /**
+     * Determine the profiles deployed along with the profile named by the given parameters.
+     * 
+     * @param ojdParams The list of parameters available.
+     * @return All profiles the profile depends on transitively. Empty if <i>nodependents</i> is set, the profile is unknown or
+     *         there is no up to date check.
+     */
+    private List<DeploymentProfile> getDependencyProfiles(List<MojoParameter> ojdParams) {
+
+        Object workspace = null;
+        WorkspaceModel model = null;
+        DeploymentProfile profile = null;
+        List<DeploymentProfile> closure = null;
+
+        workspace = MojoParameters.valueOf(ojdParams, WORKSPACE_PARAM);
+
+        if (getFingerprinter() == null || getUpToDateCheck() == null || workspace == null || getProfileName(ojdParams) == null
+                || Boolean.TRUE.equals(MojoParameters.valueOf(ojdParams, NODEPENDENTS_PARAM)))
+            return new ArrayList<DeploymentProfile>();
+
+        model = getFingerprinter().getWorkspace(new File(workspace.toString()));
+        profile = model.getProfile(getProfileName(ojdParams));
+
+        if (profile == null)
+            return new ArrayList<DeploymentProfile>();
+
+        closure = model.getDependencyClosure(Arrays.asList(profile));
+        closure.remove(profile);
+
+        return closure;
+    }
+
+    /**
+     * Fingerprint the given dependency the same way as if it had been deployed on its own by the {@link ProfileScheduler}.
+     */
+    private InputFingerprint createDependencyFingerprint(DeploymentProfile dependency, List<MojoParameter> ojdParams) {
+
+        List<MojoParameter> params = ProfileScheduler.createParams(dependency, ojdParams);
+
+        return createFingerprint(params, prepareCommandLine(params));
+    }
+
+    /**
+     * Create the key of the build cache entry for the given fingerprint.
+     * 
+     * @param fingerprint The fingerprint of the profile. May be null.
+     * @param cmdLine The command line naming the ojdeploy executable.
+     * @return The key or <b>null</b> if no build cache is configured.
+     * @throws IOException if the ojdeploy executable could not be read.
+     */
+    private String createCacheKey(InputFingerprint fingerprint, CommandLine cmdLine) throws IOException {
+
+        if (fingerprint == null || getBuildCache() == null)
+            return null;
+
+        return getBuildCache().createKey(fingerprint, getProps(), resolveOjdeployVersion(cmdLine));
+    }
+
+    /**
+     * Remember the archives written (or restored) by this run for the up to date check and publish them to the build cache. If
+     * the run deployed the dependencies of the profile as well, their fingerprints are remembered too.
+     */
+    void recordOutputs(InputFingerprint fingerprint, String cacheKey, ExecutionResult result, List<MojoParameter> ojdParams) {
+
+        if (fingerprint != null && getUpToDateCheck() != null && !result.isUpToDate()) {
+
+            getUpToDateCheck().store(fingerprint);
+
+            for (DeploymentProfile currDependency : getDependencyProfiles(ojdParams))
+                getUpToDateCheck().store(createDependencyFingerprint(currDependency, ojdParams));
+        }
+
+        if (cacheKey != null && !result.isFromCache())
+            getBuildCache().store(cacheKey, fingerprint);
+    }
+
+    /**
+     * Identify the version of ojdeploy. If no version has been configured, the digest of the ojdeploy executable is used. If the
+     * executable can't be found, its path is used as a last resort.
+     * 
+     * @param cmdLine The command line naming the ojdeploy executable.
+     * @return The version of ojdeploy.
+     * @throws IOException if the ojdeploy executable could not be read.
+     */
+    String resolveOjdeployVersion(CommandLine cmdLine) throws IOException {
+
+        File executable = null;
+
+        if (getOjdeployVersion() != null)
+            return getOjdeployVersion();
+
+        executable = new File(cmdLine.getExecutable());
+
+        return executable.isFile() ? Digests.digest(executable) : cmdLine.getExecutable();
+    }
+
+    /**
+     * @param cmdLine The command line.
+     * @return All arguments of the command line separated by blanks.
+     */
+    private String getArguments(CommandLine cmdLine) {
+
+        StringBuilder arguments = new StringBuilder();
+
+        for (String currArg : cmdLine.getArguments()) {
+
+            if (arguments.length() > 0)
+                arguments.append(' ');
+
+            arguments.append(currArg);
+        }
+
+        return arguments.toString();
+    }
+
+    /**
+     * Look up the value of the parameter <i>profile</i>.
+     * 
+     * @param ojdParams The list of parameters available.
+     * @return The name of the profile or <b>null</b> if no profile is given.
+     */
+    String getProfileName(List<MojoParameter> ojdParams) {
+
+        Object profile = MojoParameters.valueOf(ojdParams, PROFILE_PARAM);
+
+        return profile != null ? profile.toString() : null;
+    }
+
+    /**
+     * @param ojdParams The list of parameters available.
+     * @return The absolute path of the workspace or <b>null</b> if no workspace is given, e.g. for batch deployments.
+     */
+    private String getWorkspacePath(List<MojoParameter> ojdParams) {
+
+        Object workspace = MojoParameters.valueOf(ojdParams, WORKSPACE_PARAM);
+
+        return workspace != null ? new File(workspace.toString()).getAbsolutePath() : null;
+    }
+
+    /**
+     * Derive the deadline of a run from the history of its profile. Only runs of the same scope count, since runs using
+     * <i>-nodependents</i> are much shorter than runs deploying the dependencies as well. The given percentile of the latest
+     * durations is multiplied by the timeout multiplier. As long as the history holds too few runs, the configured process
+     * timeout applies. Otherwise the configured process timeout is an upper bound only.
+     * 
+     * @param result The result of the run naming workspace and profile.
+     * @return The maximum run time in milliseconds. Values lower than 1 mean no limit.
+     */
+    long getEffectiveProcessTimeout(ExecutionResult result) {
+
+        List<RunHistory.Run> runs = null;
+        long percentile = 0;
+        long timeout = 0;
+
+        if (getHistory() == null || getTimeoutMultiplier() <= 0 || result.getWorkspace() == null || result.getName() == null)
+            return getProcessTimeout();
+
+        runs = getHistory().getRuns(result.getWorkspace(), result.getName(), result.isNodependents(), HISTORY_WINDOW);
+
+        if (runs.size() < MIN_HISTORY_RUNS) {
+
+            LOG.debug("Only " + runs.size() + " runs of profile " + result.getName() + " in history. No adaptive timeout.");
+            return getProcessTimeout();
+        }
+
+        percentile = RunHistory.percentile(RunHistory.getDurations(runs), getTimeoutPercentile());
+        timeout = Math.max((long) (percentile * getTimeoutMultiplier()), MIN_ADAPTIVE_TIMEOUT);
+
+        if (getProcessTimeout() > 0)
+            timeout = Math.min(timeout, getProcessTimeout());
+
+        LOG.info("Timeout of profile " + result.getName() + " is " + timeout / 1000 + "s derived from " + getTimeoutPercentile()
+                + "th percentile " + percentile / 1000 + "s of the last " + runs.size() + " runs.");
+
+        return timeout;
+    }
+
+    /**
+     * Append a successful run to the history, if any. Before, the run is checked for regressions against the runs in the
+     * history. The run is appended even if it regressed, so the baseline follows lasting changes. Only the time the ojdeploy
+     * process has been running is recorded and checked, so waiting for a throttle slot on a busy host is no regression.
+     * 
+     * @param result The result of the run.
+     * @throws OjdeployExecutionException if the run regressed and the regression action is {@link RegressionGate.Action#FAIL}.
+     */
+    void recordRun(ExecutionResult result) {
+
+        List<String> regressions = null;
+        long peakRssBytes = 0;
+
+        if (getHistory() == null || !result.isSuccessful() || result.getWorkspace() == null || result.getName() == null
+                || result.getProcessDuration() <= 0)
+            return;
+
+        peakRssBytes = result.getProcessStats() != null ? result.getProcessStats().getPeakRssBytes() : -1;
+
+        if (getRegressionAction() != RegressionGate.Action.OFF)
+            regressions = new RegressionGate(getHistory(), getRegressionThreshold()).check(result.getWorkspace(),
+                    result.getName(), result.isNodependents(), result.getProcessDuration(), peakRssBytes);
+
+        getHistory().append(new RunHistory.Run(System.currentTimeMillis(), result.getWorkspace(), result.getName(),
+                result.isNodependents(), result.getProcessDuration(), peakRssBytes));
+
+        if (regressions == null || regressions.isEmpty())
+            return;
+
+        for (String currRegression : regressions)
+            LOG.warn(currRegression);
+
+        if (getRegressionAction() == RegressionGate.Action.FAIL)
+            throw new OjdeployExecutionException("Profile " + result.getName() + " regressed by more than "
+                    + getRegressionThreshold() + "% against its baseline: " + regressions);
     }
 
     /**
      * Prepare the command line required for running ojdeploy.
      * 
      * @param ojdParams The list of parameters available.
+     * @return The command line.
      */
-    void prepareCommandLine(List<MojoParameter> ojdParams) {
+    CommandLine prepareCommandLine(List<MojoParameter> ojdParams) {
+
+        CommandLine cmdLine = null;
+
+        cmdLine = prepareJdevCommand(ojdParams);
+        prepareCommandArguments(cmdLine, ojdParams);
 
-        prepareJdevCommand(ojdParams);
-        prepareCommandArguments(ojdParams);
+        return cmdLine;
     }
 
     /**
      * Prepare all the arguments necessary for running ojdeploy.
      * 
+     * @param cmdLine The command line receiving the arguments.
      * @param ojdParams The list of parameters available.
      */
-    private void prepareCommandArguments(List<MojoParameter> ojdParams) {
+    private void prepareCommandArguments(CommandLine cmdLine, List<MojoParameter> ojdParams) {
 
         LOG.debug("Start initializing ojdeploy arguments.");
 
@@ -135,13 +627,13 @@ public class OjdeployExecutor {
             if (isBooleanTrue(currParam)) {
 
                 LOG.debug("Adding boolean " + currParam.getParameterName());
-                addMappedCmdLineArgument(currParam.getParameterName());
+                addMappedCmdLineArgument(cmdLine, currParam.getParameterName());
 
             } else if (!isBoolean(currParam) && !isJdevBinPath(currParam)) {
 
                 LOG.debug("Adding non-boolean " + currParam.getParameterName());
-                addMappedCmdLineArgument(currParam.getParameterName());
-                getCmdLine().addArgument(currParam.getParameterValue().toString());
+                addMappedCmdLineArgument(cmdLine, currParam.getParameterName());
+                cmdLine.addArgument(currParam.getParameterValue().toString());
             }
         }
 
@@ -177,8 +669,9 @@ public class OjdeployExecutor {
      * Prepare the start command for ojdeploy.
      * 
      * @param ojdParams The list of parameters available.
+     * @return The command line containing the executable only.
      */
-    private void prepareJdevCommand(List<MojoParameter> ojdParams) {
+    private CommandLine prepareJdevCommand(List<MojoParameter> ojdParams) {
 
         String executable = null;
         boolean binPathFound = false;
@@ -201,8 +694,9 @@ public class OjdeployExecutor {
                 break;
         }
 
-        setCmdLine(new CommandLine(executable));
         LOG.debug("Base command initialized with: " + executable);
+
+        return new CommandLine(executable);
     }
 
     private boolean isJdevBinPath(MojoParameter currParam) {
@@ -211,28 +705,153 @@ public class OjdeployExecutor {
     }
 
     /**
-     * Actually execute the ojdeploy command which has been prepared before.
+     * Actually launch the ojdeploy command which has been prepared before. The process is destroyed when the JVM shuts down
+     * before it has finished.
      * 
-     * @throws IOException if execution of external process failed.
+     * @param ojdParams The list of parameters handed over to ojdeploy.
+     * @param result The result to be completed when the process has finished.
+     * @param fingerprint The fingerprint of the profile. May be null.
+     * @param cacheKey The key of the build cache entry. May be null.
+     * @param start The time the execution has been started at.
+     * @return The running execution.
+     * @throws IOException if the log file could not be opened.
      */
-    private void exec() throws IOException {
+    private AsyncExecution launch(List<MojoParameter> ojdParams, ExecutionResult result, InputFingerprint fingerprint,
+            String cacheKey, long start) throws IOException {
+
+        CommandLine cmdLine = null;
+        BufferedStreamHandler streamHandler = null;
+        ObservedExecutor executor = null;
+        ExecuteWatchdog watchdog = null;
+        CompletionHandler handler = null;
+        ProcessThrottle.Permit permit = null;
+        OutputTail tail = null;
+        List<ProcessListener> processListeners = null;
+        StallWatchdog stallWatchdog = null;
+        ProcessCanceller canceller = null;
+        long processTimeout = 0;
+        boolean launched = false;
+
+        cmdLine = prepareCommandLine(ojdParams);
+        LOG.info("Start executing ojdeploy now with command:");
+        LOG.info(cmdLine);
+        result.setErrorLogFile(createErrorLogFile(result.getLogFile()));
+        LOG.info("Output of ojdeploy is written to " + result.getLogFile().getAbsolutePath() + " and "
+                + result.getErrorLogFile().getAbsolutePath());
 
-        FileOutputStream fos = null;
-        PumpStreamHandler pStreamHandler = null;
-        DefaultExecutor executor = null;
-        int exitVal = -1;
+        try {
 
-        LOG.info("Start executing ojdeploy now with command:");
-        LOG.info(getCmdLine());
-        fos = new FileOutputStream(new File(getProps().getProperty("ojdeploy.build.log.file")));
-        pStreamHandler = new PumpStreamHandler(fos);
-        executor = new DefaultExecutor();
-        executor.setStreamHandler(pStreamHandler);
-        executor.setExitValue(Integer.valueOf(getProps().getProperty("exit.value")));
-        exitVal = executor.execute(getCmdLine());
-        fos.flush();
-        fos.close();
-        LOG.info("Finished executing ojdeploy with exit value: " + exitVal);
+            if (result.getLogFile().getParentFile() != null)
+                result.getLogFile().getParentFile().mkdirs();
+
+            streamHandler = new BufferedStreamHandler(result.getLogFile(), result.getErrorLogFile());
+            tail = new OutputTail(getTailLines());
+            streamHandler.addOutputListener(tail);
+
+            if (getOutputLog() != null && getOutputLevel() != OutputTee.Level.OFF)
+                streamHandler.addOutputListener(new OutputTee(getOutputLog(), getOutputLevel(), getOutputFilter(), result
+                        .getName()));
+
+            if (!getBuildEventListeners().isEmpty())
+                streamHandler.addOutputListener(new OutputEventParser(result.getName(), getBuildEventListeners()));
+
+            watchdog = new ExecuteWatchdog(ExecuteWatchdog.INFINITE_TIMEOUT);
+            processListeners = new ArrayList<ProcessListener>();
+            canceller = new ProcessCanceller(result, watchdog);
+            processListeners.add(canceller);
+
+            result.setNodependents(Boolean.TRUE.equals(MojoParameters.valueOf(ojdParams, NODEPENDENTS_PARAM)));
+            processTimeout = getEffectiveProcessTimeout(result);
+
+            if (processTimeout > 0 || getStallTimeout() > 0) {
+
+                stallWatchdog = new StallWatchdog(result, processTimeout, getStallTimeout(),
+                        createThreadDumpFiles(result.getLogFile()), watchdog);
+                streamHandler.addOutputListener(stallWatchdog);
+                processListeners.add(stallWatchdog);
+            }
+
+            if (getSamplingInterval() > 0)
+                processListeners.add(new ProcessSampler(result, getSamplingInterval(), createLogSibling(result.getLogFile(),
+                        "-process", "properties")));
+
+            if (getProfilingInterval() > 0)
+                processListeners.add(new StackProfiler(getProfilingInterval(), createLogSibling(result.getLogFile(), "-stacks",
+                        "collapsed")));
+
+            executor = new ObservedExecutor(processListeners, getMetrics(), result.getName());
+            executor.setStreamHandler(streamHandler);
+            executor.setExitValue(Integer.valueOf(getProps().getProperty("exit.value")));
+            executor.setWatchdog(watchdog);
+            executor.setProcessDestroyer(new ShutdownHookProcessDestroyer());
+
+            if (getThrottle() != null)
+                permit = getThrottle().acquire(result.getName());
+
+            handler = new CompletionHandler(permit, getMetrics(), result, processListeners);
+            processListeners.add(0, handler);
+            executor.execute(cmdLine, handler);
+            launched = true;
+
+        } finally {
+
+            if (!launched) {
+
+                IOUtils.closeQuietly(streamHandler);
+
+                if (permit != null)
+                    permit.release();
+            }
+        }
+
+        return new AsyncExecution(this, result, start, fingerprint, cacheKey, ojdParams, handler, canceller, streamHandler,
+                tail);
+    }
+
+    /**
+     * Derive the file receiving the standard error of ojdeploy from the log file. For example <i>omp.log</i> will become
+     * <i>omp-stderr.log</i>.
+     * 
+     * @param logFile The log file receiving the standard output.
+     * @return The file for the standard error.
+     */
+    File createErrorLogFile(File logFile) {
+
+        return createLogSibling(logFile, "-stderr", FilenameUtils.getExtension(logFile.getName()));
+    }
+
+    /**
+     * @param logFile The log file of the run.
+     * @return The files receiving the thread dumps if ojdeploy is destroyed by the {@link StallWatchdog}, e.g.
+     *         <i>omp-threads-1.txt</i>.
+     */
+    private List<File> createThreadDumpFiles(File logFile) {
+
+        List<File> files = null;
+
+        files = new ArrayList<File>();
+
+        for (int i = 1; i <= getThreadDumps(); i++)
+            files.add(createLogSibling(logFile, "-threads-" + i, "txt"));
+
+        return files;
+    }
+
+    /**
+     * Derive a file belonging to a run from its log file. For example <i>omp.log</i> will become <i>omp-process.properties</i>.
+     * 
+     * @param logFile The log file of the run.
+     * @param suffix The suffix appended to the base name of the log file.
+     * @param extension The extension of the file. May be empty.
+     * @return The file located next to the log file.
+     */
+    File createLogSibling(File logFile, String suffix, String extension) {
+
+        String baseName = null;
+
+        baseName = FilenameUtils.getBaseName(logFile.getName()) + suffix;
+
+        return new File(logFile.getParentFile(), extension.isEmpty() ? baseName : baseName + "." + extension);
     }
 
     /**
@@ -240,17 +859,31 @@ public class OjdeployExecutor {
      * 
      * @param mojoParam The name of the Mojo's parameter. It will be mapped to the associated ojdeploy argument. For example the
      *        Mojo parameter <i>updateWebxmlEJBRefs</i> will be mapped to the command line argument <i>-updatewebxmlejbrefs</i>.
+     * @param cmdLine The command line receiving the argument.
      */
-    private void addMappedCmdLineArgument(String mojoParam) {
+    private void addMappedCmdLineArgument(CommandLine cmdLine, String mojoParam) {
 
-        getCmdLine().addArgument(getProps().getProperty(mojoParam));
+        cmdLine.addArgument(getProps().getProperty(mojoParam));
     }
 
+    /**
+     * Initialize the mappings of the parameters. They are read from the class path only once, so they are shared by all executors
+     * as long as the classes of the plugin live, e.g. between the builds of a Maven daemon.
+     */
     private void initProperties() {
 
         InputStream is = null;
         Properties properties = null;
 
+        synchronized (OjdeployExecutor.class) {
+
+            if (mappings != null) {
+
+                setProps(mappings);
+                return;
+            }
+        }
+
         try {
 
             LOG.debug("Initializing properties for executing ojdeploy.");
@@ -258,6 +891,12 @@ public class OjdeployExecutor {
             properties = new Properties();
             properties.load(is);
             setProps(properties);
+
+            synchronized (OjdeployExecutor.class) {
+
+                mappings = properties;
+            }
+
             LOG.debug("Finished initializing properties for executing ojdeploy.");
 
         } catch (Exception e) {
@@ -280,33 +919,407 @@ public class OjdeployExecutor {
         this.props = props;
     }
 
-    boolean isDryRun() {
+    String getOjdeployBinary() {
 
-        return dryRun;
+        return ojdeployBinary;
     }
 
-    void setDryRun(boolean dryRun) {
+    void setOjdeployBinary(String ojdeployBinary) {
 
-        this.dryRun = dryRun;
+        this.ojdeployBinary = ojdeployBinary;
     }
 
-    CommandLine getCmdLine() {
+    public UpToDateCheck getUpToDateCheck() {
 
-        return cmdLine;
+        return upToDateCheck;
     }
 
-    void setCmdLine(CommandLine cmdLine) {
+    /**
+     * @param upToDateCheck If set, ojdeploy is only run if the inputs of the profile have changed since the last successful run.
+     */
+    public void setUpToDateCheck(UpToDateCheck upToDateCheck) {
 
-        this.cmdLine = cmdLine;
+        this.upToDateCheck = upToDateCheck;
     }
 
-    String getOjdeployBinary() {
+    public File getLogFile() {
 
-        return ojdeployBinary;
+        return logFile;
     }
 
-    void setOjdeployBinary(String ojdeployBinary) {
+    /**
+     * @param logFile The file receiving the output of ojdeploy if a run does not name a log file of its own. Defaults to the file
+     *        configured inside the executor's properties.
+     */
+    public void setLogFile(File logFile) {
 
-        this.ojdeployBinary = ojdeployBinary;
+        this.logFile = logFile;
+    }
+
+    public Fingerprinter getFingerprinter() {
+
+        return fingerprinter;
+    }
+
+    /**
+     * @param fingerprinter Used for fingerprinting the inputs of a profile if an up to date check or a build cache is set.
+     */
+    public void setFingerprinter(Fingerprinter fingerprinter) {
+
+        this.fingerprinter = fingerprinter;
+    }
+
+    public BuildCache getBuildCache() {
+
+        return buildCache;
+    }
+
+    /**
+     * @param buildCache If set, archives are restored from this cache instead of running ojdeploy whenever possible.
+     */
+    public void setBuildCache(BuildCache buildCache) {
+
+        this.buildCache = buildCache;
+    }
+
+    public String getOjdeployVersion() {
+
+        return ojdeployVersion;
+    }
+
+    /**
+     * @param ojdeployVersion The version of ojdeploy as part of the build cache key. If not set, the executable's digest is used.
+     */
+    public void setOjdeployVersion(String ojdeployVersion) {
+
+        this.ojdeployVersion = ojdeployVersion;
+    }
+
+    public ProcessThrottle getThrottle() {
+
+        return throttle;
+    }
+
+    /**
+     * @param throttle If set, every ojdeploy process must occupy a slot of this throttle before being started.
+     */
+    public void setThrottle(ProcessThrottle throttle) {
+
+        this.throttle = throttle;
+    }
+
+    public Log getOutputLog() {
+
+        return outputLog;
+    }
+
+    /**
+     * @param outputLog If set, the output of ojdeploy is copied to this log while ojdeploy is running. Nothing is copied unless
+     *            an output level other than OFF is set, too.
+     */
+    public void setOutputLog(Log outputLog) {
+
+        this.outputLog = outputLog;
+    }
+
+    public OutputTee.Level getOutputLevel() {
+
+        return outputLevel;
+    }
+
+    /**
+     * @param outputLevel The level the output of ojdeploy is logged at. Defaults to OFF.
+     */
+    public void setOutputLevel(OutputTee.Level outputLevel) {
+
+        this.outputLevel = outputLevel;
+    }
+
+    public Pattern getOutputFilter() {
+
+        return outputFilter;
+    }
+
+    /**
+     * @param outputFilter If set, only lines of output containing a match of this pattern are logged.
+     */
+    public void setOutputFilter(Pattern outputFilter) {
+
+        this.outputFilter = outputFilter;
+    }
+
+    public int getTailLines() {
+
+        return tailLines;
+    }
+
+    /**
+     * @param tailLines The number of lines of output attached to the exception if ojdeploy fails.
+     */
+    public void setTailLines(int tailLines) {
+
+        this.tailLines = tailLines;
+    }
+
+    /**
+     * @return The listeners receiving the events recognized in the output of every run of this executor.
+     */
+    public List<BuildEventListener> getBuildEventListeners() {
+
+        return buildEventListeners;
+    }
+
+    /**
+     * @param listener Receives the events recognized in the output of all runs started afterwards. Since profiles may be
+     *        deployed in parallel, the listener must be thread safe.
+     */
+    public void addBuildEventListener(BuildEventListener listener) {
+
+        buildEventListeners.add(listener);
+    }
+
+    public void removeBuildEventListener(BuildEventListener listener) {
+
+        buildEventListeners.remove(listener);
+    }
+
+    public BuildMetrics getMetrics() {
+
+        return metrics;
+    }
+
+    /**
+     * @param metrics If set, the wall time of preparing, spawning and running ojdeploy is recorded by these metrics. The metrics
+     *        are registered as {@link BuildEventListener} too, so compiling and packaging are recorded as well.
+     */
+    public void setMetrics(BuildMetrics metrics) {
+
+        if (this.metrics != null)
+            removeBuildEventListener(this.metrics);
+
+        this.metrics = metrics;
+
+        if (metrics != null)
+            addBuildEventListener(metrics);
+    }
+
+    public long getSamplingInterval() {
+
+        return samplingInterval;
+    }
+
+    /**
+     * @param samplingInterval If greater than 0, the resource usage of the process tree of ojdeploy is sampled at this interval
+     *        in milliseconds. Only supported on Linux.
+     */
+    public void setSamplingInterval(long samplingInterval) {
+
+        this.samplingInterval = samplingInterval;
+    }
+
+    public long getProcessTimeout() {
+
+        return processTimeout;
+    }
+
+    /**
+     * @param processTimeout If greater than 0, the process tree of ojdeploy is destroyed if it runs longer than this time in
+     *        milliseconds.
+     */
+    public void setProcessTimeout(long processTimeout) {
+
+        this.processTimeout = processTimeout;
+    }
+
+    public RunHistory getHistory() {
+
+        return history;
+    }
+
+    /**
+     * @param history If set, successful runs are appended to this history and the process timeout is derived from it.
+     */
+    public void setHistory(RunHistory history) {
+
+        this.history = history;
+    }
+
+    public int getTimeoutPercentile() {
+
+        return timeoutPercentile;
+    }
+
+    /**
+     * @param timeoutPercentile The percentile of the durations in the history the adaptive timeout is derived from.
+     */
+    public void setTimeoutPercentile(int timeoutPercentile) {
+
+        this.timeoutPercentile = timeoutPercentile;
+    }
+
+    public double getTimeoutMultiplier() {
+
+        return timeoutMultiplier;
+    }
+
+    /**
+     * @param timeoutMultiplier The factor the percentile of the durations is multiplied with. Values lower than or equal to 0
+     *        disable the adaptive timeout.
+     */
+    public void setTimeoutMultiplier(double timeoutMultiplier) {
+
+        this.timeoutMultiplier = timeoutMultiplier;
+    }
+
+    public RegressionGate.Action getRegressionAction() {
+
+        return regressionAction;
+    }
+
+    /**
+     * @param regressionAction What to do if the duration or the peak memory of a run exceeds the baseline taken from the history.
+     */
+    public void setRegressionAction(RegressionGate.Action regressionAction) {
+
+        this.regressionAction = regressionAction;
+    }
+
+    public int getRegressionThreshold() {
+
+        return regressionThreshold;
+    }
+
+    /**
+     * @param regressionThreshold The percentage the duration or the peak memory of a run may exceed the baseline by.
+     */
+    public void setRegressionThreshold(int regressionThreshold) {
+
+        this.regressionThreshold = regressionThreshold;
+    }
+
+    public long getStallTimeout() {
+
+        return stallTimeout;
+    }
+
+    /**
+     * @param stallTimeout If greater than 0, the process tree of ojdeploy is destroyed if it does not write any output for this
+     *        time in milliseconds.
+     */
+    public void setStallTimeout(long stallTimeout) {
+
+        this.stallTimeout = stallTimeout;
+    }
+
+    public int getThreadDumps() {
+
+        return threadDumps;
+    }
+
+    /**
+     * @param threadDumps The number of thread dumps taken of the JVM of ojdeploy before it is destroyed for exceeding the process
+     *        or stall timeout.
+     */
+    public void setThreadDumps(int threadDumps) {
+
+        this.threadDumps = threadDumps;
+    }
+
+    public long getProfilingInterval() {
+
+        return profilingInterval;
+    }
+
+    /**
+     * @param profilingInterval If greater than 0, the stacks of the JVM of ojdeploy are sampled at this interval in milliseconds
+     *        and written next to the log file in collapsed format. Only supported on Linux.
+     */
+    public void setProfilingInterval(long profilingInterval) {
+
+        this.profilingInterval = profilingInterval;
+    }
+
+    /**
+     * Tells the {@link ProcessListener}s, frees the slot of the {@link ProcessThrottle} and records the lifetime of the process as
+     * soon as the process has finished, even if nobody awaits the execution.
+     */
+    private static class CompletionHandler extends DefaultExecuteResultHandler implements ProcessListener {
+
+        private ProcessThrottle.Permit permit       = null;
+        private BuildMetrics           metrics      = null;
+        private ExecutionResult        result       = null;
+        private List<ProcessListener>  listeners    = null;
+        private long                   start        = 0;
+        private long                   processStart = 0;
+
+        CompletionHandler(ProcessThrottle.Permit permit, BuildMetrics metrics, ExecutionResult result,
+                List<ProcessListener> listeners) {
+
+            super();
+            this.permit = permit;
+            this.metrics = metrics;
+            this.result = result;
+            this.listeners = listeners;
+            this.start = metrics != null ? metrics.now() : 0;
+        }
+
+        @Override
+        public void processStarted(long pid) {
+
+            processStart = System.currentTimeMillis();
+        }
+
+        @Override
+        public void processFinished() {
+
+            if (processStart > 0)
+                result.setProcessDuration(System.currentTimeMillis() - processStart);
+        }
+
+        @Override
+        public void onProcessComplete(int exitValue) {
+
+            try {
+
+                complete();
+
+            } finally {
+
+                super.onProcessComplete(exitValue);
+            }
+        }
+
+        @Override
+        public void onProcessFailed(ExecuteException e) {
+
+            try {
+
+                complete();
+
+            } finally {
+
+                super.onProcessFailed(e);
+            }
+        }
+
+        /**
+         * Notify the listeners. The permit is released and the span is recorded even if a listener fails.
+         */
+        private void complete() {
+
+            try {
+
+                for (ProcessListener currListener : listeners)
+                    currListener.processFinished();
+
+            } finally {
+
+                if (permit != null)
+                    permit.release();
+
+                if (metrics != null)
+                    metrics.record("ojdeploy", BuildMetrics.PROCESS, result.getName(), start);
+            }
+        }
     }
 }
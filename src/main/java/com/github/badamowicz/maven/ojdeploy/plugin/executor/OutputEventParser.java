@@ -0,0 +1,262 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Recognizes the markers written by ojdeploy and turns them into {@link BuildEvent}s. Lines look like this, the leading time
+ * stamp being optional:
+ * 
+ * <pre>
+ * [10:42:01 AM] ----  Deployment started.  ----
+ * [10:42:03 AM] Compiling project Model.jpr
+ * [10:42:09 AM] Successful compilation: 0 errors, 2 warnings.
+ * [10:42:10 AM] Wrote Archive Module to /work/Model/deploy/Model.jar
+ * [10:42:10 AM] ----  Deployment finished.  ----
+ * </pre>
+ * 
+ * Verbose output has hundreds of megabytes, so lines are inspected character by character without regular expressions and
+ * without copying them. Only lines being recognized as an event are turned into strings.
+ * 
+ * @author bernd
+ *
+ */
+public class OutputEventParser implements OutputListener {
+
+    private static final Logger      LOG       = Logger.getLogger(OutputEventParser.class);
+
+    /** Time stamps like [10:42:01 AM] are never longer than this. */
+    private static final int         MAX_STAMP = 16;
+
+    private String                   name      = null;
+    private List<BuildEventListener> listeners = null;
+
+    /**
+     * @param name Names the run, e.g. the profile. Handed over to the events. May be null.
+     * @param listeners The listeners receiving the events.
+     */
+    public OutputEventParser(String name, List<BuildEventListener> listeners) {
+
+        super();
+        this.name = name;
+        this.listeners = listeners;
+    }
+
+    @Override
+    public void line(CharSequence line, boolean error) {
+
+        int start = 0;
+        char first = 0;
+
+        start = skipWhitespace(line, skipTimeStamp(line));
+
+        if (start >= line.length())
+            return;
+
+        first = Character.toLowerCase(line.charAt(start));
+
+        // dispatch on the first character, so most lines are rejected by a single comparison
+        switch (first) {
+
+        case '-':
+            parseDeployment(line, start, error);
+            break;
+        case 'c':
+            if (startsWith(line, start, "Compiling"))
+                fire(BuildEvent.Type.COMPILE_STARTED, detail(line, start, "Compiling", "project"), error);
+            else if (startsWith(line, start, "Compilation"))
+                fire(BuildEvent.Type.COMPILE_FINISHED, detail(line, start, "Compilation", null), error);
+            break;
+        case 's':
+            if (startsWith(line, start, "Successful compilation"))
+                fire(BuildEvent.Type.COMPILE_FINISHED, detail(line, start, "Successful compilation", null), error);
+            break;
+        case 'w':
+            if (isMessage(line, start, "Warning"))
+                fire(BuildEvent.Type.WARNING, line.subSequence(start, line.length()).toString(), error);
+            else if (startsWith(line, start, "Wrote ") && indexOf(line, start, " to ") > 0)
+                fire(BuildEvent.Type.ARCHIVE_WRITTEN, archive(line, start), error);
+            break;
+        case 'e':
+            if (isMessage(line, start, "Error"))
+                fire(BuildEvent.Type.ERROR, line.subSequence(start, line.length()).toString(), error);
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Parse lines like <i>---- Deployment started. ----</i>.
+     */
+    private void parseDeployment(CharSequence line, int start, boolean error) {
+
+        int pos = start;
+
+        while (pos < line.length() && line.charAt(pos) == '-')
+            pos++;
+
+        pos = skipWhitespace(line, pos);
+
+        if (!startsWith(line, pos, "Deployment"))
+            return;
+
+        pos = skipWhitespace(line, pos + "Deployment".length());
+
+        if (startsWith(line, pos, "started"))
+            fire(BuildEvent.Type.DEPLOYMENT_STARTED, "started", error);
+        else if (startsWith(line, pos, "finished"))
+            fire(BuildEvent.Type.DEPLOYMENT_FINISHED, "finished", error);
+        else if (startsWith(line, pos, "incomplete"))
+            fire(BuildEvent.Type.DEPLOYMENT_FINISHED, "incomplete", error);
+        else if (startsWith(line, pos, "cancelled"))
+            fire(BuildEvent.Type.DEPLOYMENT_FINISHED, "cancelled", error);
+    }
+
+    private void fire(BuildEvent.Type type, String detail, boolean error) {
+
+        BuildEvent event = null;
+
+        event = new BuildEvent(type, name, detail, error);
+
+        for (BuildEventListener currListener : listeners) {
+
+            try {
+
+                currListener.onEvent(event);
+
+            } catch (RuntimeException e) {
+
+                LOG.warn("Listener " + currListener + " failed handling " + event + ".", e);
+            }
+        }
+    }
+
+    /**
+     * @return true, if the line is a message of the given kind like <i>Warning: ...</i> or <i>Error(12,5): ...</i>.
+     */
+    static boolean isMessage(CharSequence line, int start, String kind) {
+
+        int pos = start + kind.length();
+
+        return startsWith(line, start, kind) && pos < line.length() && (line.charAt(pos) == ':' || line.charAt(pos) == '(');
+    }
+
+    /**
+     * @return The rest of the line after the keyword and an optional second keyword, without surrounding punctuation.
+     */
+    static String detail(CharSequence line, int start, String keyword, String optional) {
+
+        int pos = 0;
+        int end = line.length();
+
+        pos = skipWhitespace(line, start + keyword.length());
+
+        if (optional != null && startsWith(line, pos, optional))
+            pos = skipWhitespace(line, pos + optional.length());
+
+        while (pos < end && (line.charAt(pos) == ':' || line.charAt(pos) == '.' || Character.isWhitespace(line.charAt(pos))))
+            pos++;
+
+        while (end > pos && (line.charAt(end - 1) == '.' || Character.isWhitespace(line.charAt(end - 1))))
+            end--;
+
+        return line.subSequence(pos, end).toString();
+    }
+
+    /**
+     * @return The location of the archive of a line like <i>Wrote Archive Module to file:/work/Model.jar</i>.
+     */
+    static String archive(CharSequence line, int start) {
+
+        int pos = 0;
+        int end = line.length();
+
+        pos = indexOf(line, start, " to ") + " to ".length();
+
+        if (startsWith(line, pos, "file:"))
+            pos += "file:".length();
+
+        while (end > pos && Character.isWhitespace(line.charAt(end - 1)))
+            end--;
+
+        return line.subSequence(pos, end).toString();
+    }
+
+    /**
+     * @return The position after a leading time stamp like <i>[10:42:01 AM]</i> or 0 if there is none.
+     */
+    static int skipTimeStamp(CharSequence line) {
+
+        if (line.length() == 0 || line.charAt(0) != '[')
+            return 0;
+
+        for (int i = 1; i < Math.min(line.length(), MAX_STAMP); i++)
+            if (line.charAt(i) == ']')
+                return i + 1;
+
+        return 0;
+    }
+
+    static int skipWhitespace(CharSequence line, int pos) {
+
+        while (pos < line.length() && Character.isWhitespace(line.charAt(pos)))
+            pos++;
+
+        return pos;
+    }
+
+    /**
+     * @return true, if the line contains the given prefix at the given position, ignoring the case.
+     */
+    static boolean startsWith(CharSequence line, int pos, String prefix) {
+
+        if (pos + prefix.length() > line.length())
+            return false;
+
+        for (int i = 0; i < prefix.length(); i++)
+            if (Character.toLowerCase(line.charAt(pos + i)) != Character.toLowerCase(prefix.charAt(i)))
+                return false;
+
+        return true;
+    }
+
+    /**
+     * @return The position of the given string inside the line or -1 if it is not contained.
+     */
+    static int indexOf(CharSequence line, int from, String str) {
+
+        for (int i = from; i <= line.length() - str.length(); i++)
+            if (startsWith(line, i, str))
+                return i;
+
+        return -1;
+    }
+}
@@ -0,0 +1,47 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+/**
+ * Receives the output of ojdeploy line by line while the process is running. Listeners are called by the threads pumping the
+ * output, so a slow listener slows down ojdeploy. Standard output and standard error are pumped by different threads, so a
+ * listener may be called concurrently for both streams.
+ * 
+ * @author bernd
+ *
+ */
+public interface OutputListener {
+
+    /**
+     * Called for every line of output.
+     * 
+     * @param line The line without its line terminator. The characters are only valid during this call, since the underlying
+     *        buffer is reused for the next line. Call {@link CharSequence#toString()} for keeping them.
+     * @param error true, if the line has been written to standard error.
+     */
+    void line(CharSequence line, boolean error);
+}
@@ -0,0 +1,93 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the last lines of the output of ojdeploy in a ring buffer of fixed size. The buffers of the lines are reused, so the
+ * memory taken is bounded by the number of lines and their maximum length, no matter how much output ojdeploy writes.
+ * 
+ * @author bernd
+ *
+ */
+public class OutputTail implements OutputListener {
+
+    private StringBuilder[] lines = null;
+    private int             next  = 0;
+    private long            count = 0;
+
+    /**
+     * @param size The maximum number of lines kept.
+     */
+    public OutputTail(int size) {
+
+        super();
+        lines = new StringBuilder[Math.max(0, size)];
+    }
+
+    @Override
+    public synchronized void line(CharSequence line, boolean error) {
+
+        if (lines.length == 0)
+            return;
+
+        if (lines[next] == null)
+            lines[next] = new StringBuilder(line.length());
+
+        lines[next].setLength(0);
+        lines[next].append(line);
+        next = (next + 1) % lines.length;
+        count++;
+    }
+
+    /**
+     * @return The lines kept, the oldest one first.
+     */
+    public synchronized List<String> getLines() {
+
+        List<String> tail = null;
+        int size = 0;
+
+        size = (int) Math.min(count, lines.length);
+        tail = new ArrayList<String>(size);
+
+        for (int i = 0; i < size; i++)
+            tail.add(lines[(next - size + i + lines.length) % lines.length].toString());
+
+        return tail;
+    }
+
+    /**
+     * @return The total number of lines seen, including those no longer kept.
+     */
+    public synchronized long getCount() {
+
+        return count;
+    }
+}
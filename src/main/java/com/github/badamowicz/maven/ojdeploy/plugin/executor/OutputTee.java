@@ -0,0 +1,137 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.plugin.logging.Log;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.exceptions.OjdeployExecutionException;
+
+/**
+ * Copies the output of ojdeploy to the Maven log while ojdeploy is running, so the output is visible in the build log without
+ * opening the log file. Lines are logged at a configurable level and may be restricted to those matching a filter.
+ * 
+ * @author bernd
+ *
+ */
+public class OutputTee implements OutputListener {
+
+    /**
+     * The levels of the Maven log. OFF disables the tee.
+     */
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR, OFF;
+
+        /**
+         * @param level The name of the level, ignoring the case.
+         * @return The level.
+         * @throws OjdeployExecutionException if the name is not known.
+         */
+        public static Level parse(String level) {
+
+            try {
+
+                return valueOf(level.trim().toUpperCase());
+
+            } catch (IllegalArgumentException e) {
+
+                throw new OjdeployExecutionException("Unknown log level '" + level + "'! Use one of debug, info, warn, error, off.");
+            }
+        }
+    }
+
+    private Log     log     = null;
+    private Level   level   = null;
+    private Matcher matcher = null;
+    private String  prefix  = null;
+
+    /**
+     * @param log The Maven log.
+     * @param level The level the lines are logged at.
+     * @param filter If set, only lines containing a match of this pattern are logged. May be null.
+     * @param name Names the run, e.g. the profile. Lines are prefixed by it, since the output of profiles deployed in parallel is
+     *        interleaved. May be null.
+     */
+    public OutputTee(Log log, Level level, Pattern filter, String name) {
+
+        super();
+        this.log = log;
+        this.level = level;
+        this.matcher = filter != null ? filter.matcher("") : null;
+        this.prefix = name != null ? "[" + name + "] " : "";
+    }
+
+    /**
+     * Synchronized since standard output and standard error are pumped by different threads sharing the matcher.
+     */
+    @Override
+    public synchronized void line(CharSequence line, boolean error) {
+
+        if (level == Level.OFF || !isEnabled())
+            return;
+
+        if (matcher != null && !matcher.reset(line).find())
+            return;
+
+        log(prefix + line);
+    }
+
+    private boolean isEnabled() {
+
+        switch (level) {
+
+        case DEBUG:
+            return log.isDebugEnabled();
+        case INFO:
+            return log.isInfoEnabled();
+        case WARN:
+            return log.isWarnEnabled();
+        default:
+            return log.isErrorEnabled();
+        }
+    }
+
+    private void log(String message) {
+
+        switch (level) {
+
+        case DEBUG:
+            log.debug(message);
+            break;
+        case INFO:
+            log.info(message);
+            break;
+        case WARN:
+            log.warn(message);
+            break;
+        default:
+            log.error(message);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.exec.ExecuteException;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.log4j.Logger;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.exceptions.OjdeployExecutionException;
+
+/**
+ * Runs several ojdeploy commands - usually one per deployment profile - in parallel using a bounded pool of worker threads.
+ * All commands are performed by a single shared {@link OjdeployExecutor}, which keeps the state of every run in its
+ * {@link AsyncExecution}. So every profile gets its own command line, its own log file and its own {@link ExecutionResult}.
+ * Failures of single profiles do not stop the remaining ones. It's up to the caller to evaluate the returned results. If the
+ * caller is interrupted, the worker threads are interrupted as well and cancel their running ojdeploy processes.
+ * 
+ * @author bernd
+ *
+ */
+public class ParallelOjdeployExecutor {
+
+    private static final Logger LOG         = Logger.getLogger(ParallelOjdeployExecutor.class);
+
+    private int                 parallelism = 1;
+    private OjdeployExecutor    executor    = null;
+
+    /**
+     * @param parallelism The maximum number of ojdeploy processes running at the same time. Values lower than 1 will be
+     *        replaced by the number of available processors.
+     */
+    public ParallelOjdeployExecutor(int parallelism) {
+
+        this(parallelism, new OjdeployExecutor());
+    }
+
+    /**
+     * @param parallelism The maximum number of ojdeploy processes running at the same time. Values lower than 1 will be
+     *        replaced by the number of available processors.
+     * @param executor The executor shared by all profiles. Each profile gets a log file of its own derived from the executor's
+     *        log file.
+     */
+    public ParallelOjdeployExecutor(int parallelism, OjdeployExecutor executor) {
+
+        super();
+        setParallelism(parallelism);
+        setExecutor(executor);
+    }
+
+    /**
+     * Execute ojdeploy once for each entry of the given map and wait until all of them are finished.
+     * 
+     * @param profileParams Mapping of a profile name to the list of parameters used for deploying this profile. The order of the
+     *        map is preserved for the returned results.
+     * @param dryRun If true, the command lines are only logged but not executed.
+     * @return One {@link ExecutionResult} per profile in the order given by the map.
+     */
+    public List<ExecutionResult> execute(Map<String, List<MojoParameter>> profileParams, boolean dryRun) {
+
+        ExecutorService pool = null;
+        List<Future<ExecutionResult>> futures = null;
+        List<ExecutionResult> results = null;
+
+        if (profileParams.isEmpty())
+            return new ArrayList<ExecutionResult>(0);
+
+        try {
+
+            pool = createPool(profileParams.size());
+            futures = new ArrayList<Future<ExecutionResult>>(profileParams.size());
+            LOG.info("Deploying " + profileParams.size() + " profiles using up to " + getParallelism()
+                    + " parallel ojdeploy processes.");
+
+            for (Entry<String, List<MojoParameter>> currEntry : profileParams.entrySet())
+                futures.add(pool.submit(new ProfileTask(currEntry.getKey(), currEntry.getValue(), dryRun)));
+
+            results = new ArrayList<ExecutionResult>(futures.size());
+
+            for (Future<ExecutionResult> currFuture : futures)
+                results.add(currFuture.get());
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new OjdeployExecutionException("Interrupted while waiting for ojdeploy processes!", e);
+
+        } catch (ExecutionException e) {
+
+            throw new OjdeployExecutionException("Unexpected error while running ojdeploy processes!", e.getCause());
+
+        } finally {
+
+            if (pool != null)
+                pool.shutdownNow();
+        }
+
+        return results;
+    }
+
+    /**
+     * Deploy exactly one profile within the current thread and convert any failure into the returned {@link ExecutionResult}.
+     * 
+     * @param profile The name of the profile.
+     * @param ojdParams The parameters used for deploying the profile.
+     * @param dryRun If true, the command line is only logged but not executed.
+     * @return The result of the deployment. It is never <b>null</b>.
+     */
+    public ExecutionResult executeProfile(String profile, List<MojoParameter> ojdParams, boolean dryRun) {
+
+        File logFile = null;
+        ExecutionResult result = null;
+        long start = System.currentTimeMillis();
+
+        logFile = createLogFile(getExecutor().getLogFile(), profile);
+
+        try {
+
+            LOG.info("Start deploying profile " + profile + ". Output goes to " + logFile);
+            result = getExecutor().execute(ojdParams, logFile, dryRun);
+            result.setName(profile);
+
+        } catch (OjdeployExecutionException e) {
+
+            LOG.error("Deploying profile " + profile + " failed!", e);
+            result = new ExecutionResult(profile);
+            result.setLogFile(logFile);
+            result.setErrorLogFile(getExecutor().createErrorLogFile(logFile));
+            result.setExitValue(findExitValue(e));
+            result.setFailure(e);
+            result.setDuration(System.currentTimeMillis() - start);
+        }
+
+        LOG.info("Finished deploying profile " + profile + ": " + result);
+        return result;
+    }
+
+    /**
+     * Create the pool of worker threads used for running ojdeploy processes.
+     * 
+     * @param tasks The number of tasks which will be submitted. Used for limiting the number of threads.
+     * @return A new pool. It's up to the caller to shut it down.
+     */
+    ExecutorService createPool(int tasks) {
+
+        return Executors.newFixedThreadPool(Math.max(1, Math.min(getParallelism(), tasks)), new WorkerThreadFactory());
+    }
+
+    /**
+     * Derive a profile specific log file from the given one. For example <i>omp.log</i> will become <i>omp-profileXY.log</i>.
+     * 
+     * @param logFile The default log file.
+     * @param profile The name of the profile.
+     * @return The log file for the given profile.
+     */
+    File createLogFile(File logFile, String profile) {
+
+        String baseName = null;
+        String extension = null;
+
+        baseName = FilenameUtils.getBaseName(logFile.getName()) + "-" + profile;
+        extension = FilenameUtils.getExtension(logFile.getName());
+
+        return new File(logFile.getParentFile(), extension.isEmpty() ? baseName : baseName + "." + extension);
+    }
+
+    /**
+     * Search the causes of the given exception for the exit value of ojdeploy.
+     * 
+     * @param failure The exception thrown while executing ojdeploy.
+     * @return The exit value or -1 if ojdeploy did not return any.
+     */
+    int findExitValue(Throwable failure) {
+
+        Throwable cause = failure;
+
+        while (cause != null) {
+
+            if (cause instanceof ExecuteException)
+                return ((ExecuteException) cause).getExitValue();
+
+            cause = cause.getCause();
+        }
+
+        return -1;
+    }
+
+    public int getParallelism() {
+
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+
+        this.parallelism = parallelism < 1 ? Runtime.getRuntime().availableProcessors() : parallelism;
+    }
+
+    public OjdeployExecutor getExecutor() {
+
+        return executor;
+    }
+
+    public void setExecutor(OjdeployExecutor executor) {
+
+        this.executor = executor;
+    }
+
+    /**
+     * Deploys exactly one profile.
+     */
+    private class ProfileTask implements Callable<ExecutionResult> {
+
+        private final String              profile;
+        private final List<MojoParameter> ojdParams;
+        private final boolean             dryRun;
+
+        ProfileTask(String profile, List<MojoParameter> ojdParams, boolean dryRun) {
+
+            this.profile = profile;
+            this.ojdParams = ojdParams;
+            this.dryRun = dryRun;
+        }
+
+        @Override
+        public ExecutionResult call() {
+
+            return executeProfile(profile, ojdParams, dryRun);
+        }
+    }
+
+    /**
+     * Names the worker threads so the output of log4j can be associated with the profiles.
+     */
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+
+            return new Thread(runnable, "ojdeploy-worker-" + counter.incrementAndGet());
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import java.util.List;
+
+import org.apache.commons.exec.ExecuteWatchdog;
+import org.apache.log4j.Logger;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.process.ProcessTree;
+
+/**
+ * Destroys a running ojdeploy on request, e.g. since its inputs have changed again while it was running or since awaiting it
+ * has timed out. Like the
+ * {@link StallWatchdog}, it destroys the whole process tree, since destroying the ojdeploy script alone leaves its JVM running.
+ * 
+ * @author bernd
+ *
+ */
+class ProcessCanceller implements ProcessListener {
+
+    private static final Logger LOG           = Logger.getLogger(ProcessCanceller.class);
+
+    /** Time the processes get for terminating themselves before they are killed. */
+    private static final long   DESTROY_GRACE = 5000;
+
+    /** Time to wait for the process to start, if it is cancelled right after the run has been started. */
+    private static final long   START_TIMEOUT = 5000;
+
+    private ExecutionResult     result        = null;
+    private ExecuteWatchdog     watchdog      = null;
+    private long                pid           = -1;
+    private boolean             started       = false;
+    private boolean             finished      = false;
+
+    /**
+     * @param result The result of the run. Receives the reason if the process is destroyed.
+     * @param watchdog The watchdog of commons-exec for destroying the process if its tree is not accessible.
+     */
+    ProcessCanceller(ExecutionResult result, ExecuteWatchdog watchdog) {
+
+        super();
+        this.result = result;
+        this.watchdog = watchdog;
+    }
+
+    @Override
+    public synchronized void processStarted(long pid) {
+
+        this.pid = pid;
+        started = true;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void processFinished() {
+
+        finished = true;
+        notifyAll();
+    }
+
+    /**
+     * Destroy ojdeploy including all of its child processes. Nothing happens if it has already finished. If the process has
+     * not been started yet, this waits for its id, since its children could not be found otherwise.
+     */
+    void cancel() {
+
+        destroy("ojdeploy has been cancelled.");
+    }
+
+    /**
+     * Destroy ojdeploy including all of its child processes like {@link #cancel()} does.
+     * 
+     * @param reason The reason for destroying the process. It becomes the abort reason of the result.
+     */
+    void destroy(String reason) {
+
+        List<Long> tree = null;
+        long deadline = System.currentTimeMillis() + START_TIMEOUT;
+
+        synchronized (this) {
+
+            if (finished)
+                return;
+
+            LOG.info("Destroying ojdeploy of " + result.getName() + ". " + reason);
+            result.setAbortReason(reason);
+
+            try {
+
+                while (!started && !finished && System.currentTimeMillis() < deadline)
+                    wait(Math.max(1, deadline - System.currentTimeMillis()));
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+            }
+
+            if (pid > 0 && ProcessTree.isSupported())
+                tree = ProcessTree.stopTree(pid);
+        }
+
+        if (tree != null)
+            ProcessTree.destroy(tree, DESTROY_GRACE);
+
+        watchdog.destroyProcess();
+    }
+}
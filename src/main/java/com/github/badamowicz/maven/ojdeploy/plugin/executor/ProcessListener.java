@@ -0,0 +1,49 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+/**
+ * Observes the lifetime of the ojdeploy process of a single run. Listeners are called by the threads of commons-exec, so they
+ * must return quickly.
+ * 
+ * @author bernd
+ *
+ */
+public interface ProcessListener {
+
+    /**
+     * Called right after the process has been started.
+     * 
+     * @param pid The id of the process or -1 if it could not be determined.
+     */
+    void processStarted(long pid);
+
+    /**
+     * Called when the process has terminated, before the run is reported as finished.
+     */
+    void processFinished();
+}
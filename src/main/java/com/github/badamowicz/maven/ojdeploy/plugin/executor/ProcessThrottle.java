@@ -0,0 +1,307 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.exceptions.OjdeployExecutionException;
+
+/**
+ * Host wide admission control limiting the number of ojdeploy processes running at the same time. Every ojdeploy process takes
+ * one or two gigabytes of heap, so parallel reactors and several CI executors on one host may easily overcommit its memory.
+ * <p>
+ * The throttle provides a fixed number of slots, each of them being a lock file inside a directory shared by all builds of the
+ * host. A process may only be started while holding an exclusive {@link FileLock} on one of the slots. Since file locks are
+ * released by the operating system when a JVM dies, slots of crashed builds never leak.
+ * <p>
+ * On POSIX systems file locks are owned by the whole process, and closing <i>any</i> channel of a file releases all locks the
+ * JVM holds on it. Therefore a slot occupied by one thread of this JVM is never opened again by another thread. The slots held
+ * by this JVM are tracked in a static table which is consulted before touching any lock file.
+ * 
+ * @author bernd
+ *
+ */
+public class ProcessThrottle {
+
+    private static final Logger    LOG           = Logger.getLogger(ProcessThrottle.class);
+
+    private static final String    SLOT_PREFIX   = "slot-";
+    private static final String    SLOT_SUFFIX   = ".lock";
+    private static final long      POLL_INTERVAL = 500;
+    private static final Set<File> HELD_SLOTS    = new HashSet<File>();
+
+    private File                   directory     = null;
+    private int                    maxProcesses  = 0;
+    private long                   timeout       = 0;
+
+    /**
+     * @param directory The directory containing the lock files of the slots. All builds sharing it are throttled together.
+     * @param maxProcesses The maximum number of ojdeploy processes running at the same time.
+     * @param timeout The maximum time in milliseconds to wait for a free slot. Values lower than 1 mean waiting without any limit.
+     */
+    public ProcessThrottle(File directory, int maxProcesses, long timeout) {
+
+        super();
+
+        if (maxProcesses < 1)
+            throw new IllegalArgumentException("Maximum number of ojdeploy processes must be at least 1!");
+
+        setDirectory(directory);
+        setMaxProcesses(maxProcesses);
+        setTimeout(timeout);
+    }
+
+    /**
+     * Wait until a slot is free and occupy it.
+     * 
+     * @param name Names the run waiting for the slot. Only used for logging.
+     * @return The occupied slot. It must be released when the process has finished.
+     * @throws OjdeployExecutionException if no slot became free in time or the slots could not be accessed.
+     */
+    public Permit acquire(String name) {
+
+        Permit permit = null;
+        long start = System.currentTimeMillis();
+        long waited = 0;
+
+        getDirectory().mkdirs();
+
+        try {
+
+            permit = tryAcquire();
+
+            if (permit == null)
+                LOG.info("All " + getMaxProcesses() + " slots for running ojdeploy are occupied. Waiting for " + name + ".");
+
+            while (permit == null) {
+
+                waited = System.currentTimeMillis() - start;
+
+                if (getTimeout() > 0 && waited >= getTimeout())
+                    throw new OjdeployExecutionException("No free slot for running ojdeploy for " + name + " within "
+                            + getTimeout() + "ms. All " + getMaxProcesses() + " slots in " + getDirectory().getAbsolutePath()
+                            + " are occupied!");
+
+                Thread.sleep(POLL_INTERVAL);
+                permit = tryAcquire();
+            }
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new OjdeployExecutionException("Interrupted while waiting for a slot for running ojdeploy!", e);
+
+        } catch (IOException e) {
+
+            throw new OjdeployExecutionException("Was not able to access the slots in " + getDirectory().getAbsolutePath() + "!",
+                    e);
+        }
+
+        waited = System.currentTimeMillis() - start;
+
+        if (waited >= POLL_INTERVAL)
+            LOG.info("Waited " + waited + "ms for slot " + permit.getSlot() + " for running ojdeploy for " + name + ".");
+        else
+            LOG.debug("Acquired slot " + permit.getSlot() + " for running ojdeploy for " + name + ".");
+
+        return permit;
+    }
+
+    /**
+     * Try to occupy any of the slots without waiting.
+     * 
+     * @return The occupied slot or <b>null</b> if all slots are occupied.
+     * @throws IOException if a lock file could not be opened.
+     */
+    Permit tryAcquire() throws IOException {
+
+        File slotPath = null;
+        Permit permit = null;
+
+        for (int slot = 0; slot < getMaxProcesses(); slot++) {
+
+            slotPath = new File(getDirectory(), SLOT_PREFIX + slot + SLOT_SUFFIX).getCanonicalFile();
+
+            if (!reserve(slotPath))
+                continue;
+
+            permit = lock(slot, slotPath);
+
+            if (permit != null)
+                return permit;
+        }
+
+        return null;
+    }
+
+    /**
+     * Try to lock a slot which has already been reserved inside this JVM. The reservation is dropped if the slot is occupied by
+     * another process.
+     * 
+     * @param slot The number of the slot.
+     * @param slotPath The canonical path of its lock file.
+     * @return The occupied slot or <b>null</b> if another process holds it.
+     * @throws IOException if the lock file could not be opened.
+     */
+    private static Permit lock(int slot, File slotPath) throws IOException {
+
+        RandomAccessFile slotFile = null;
+        FileLock lock = null;
+
+        try {
+
+            slotFile = new RandomAccessFile(slotPath, "rw");
+            lock = slotFile.getChannel().tryLock();
+
+        } catch (OverlappingFileLockException e) {
+
+            // should not happen since the slot has been reserved, but never close a channel of a slot held by this JVM
+            slotFile = null;
+            lock = null;
+
+        } finally {
+
+            if (lock == null) {
+
+                IOUtils.closeQuietly(slotFile);
+                free(slotPath);
+            }
+        }
+
+        return lock != null ? new Permit(slot, slotPath, slotFile, lock) : null;
+    }
+
+    /**
+     * Reserve a slot for a thread of this JVM.
+     * 
+     * @param slotPath The canonical path of the slot's lock file.
+     * @return <b>true</b> if no other thread of this JVM holds or tries to lock the slot.
+     */
+    private static boolean reserve(File slotPath) {
+
+        synchronized (HELD_SLOTS) {
+
+            return HELD_SLOTS.add(slotPath);
+        }
+    }
+
+    private static void free(File slotPath) {
+
+        synchronized (HELD_SLOTS) {
+
+            HELD_SLOTS.remove(slotPath);
+        }
+    }
+
+    public File getDirectory() {
+
+        return directory;
+    }
+
+    public void setDirectory(File directory) {
+
+        this.directory = directory;
+    }
+
+    public int getMaxProcesses() {
+
+        return maxProcesses;
+    }
+
+    public void setMaxProcesses(int maxProcesses) {
+
+        this.maxProcesses = maxProcesses;
+    }
+
+    public long getTimeout() {
+
+        return timeout;
+    }
+
+    public void setTimeout(long timeout) {
+
+        this.timeout = timeout;
+    }
+
+    /**
+     * A slot occupied by a single ojdeploy process.
+     */
+    public static class Permit {
+
+        private int              slot     = 0;
+        private File             slotPath = null;
+        private RandomAccessFile slotFile = null;
+        private FileLock         lock     = null;
+
+        Permit(int slot, File slotPath, RandomAccessFile slotFile, FileLock lock) {
+
+            super();
+            this.slot = slot;
+            this.slotPath = slotPath;
+            this.slotFile = slotFile;
+            this.lock = lock;
+        }
+
+        /**
+         * Free the slot. Calling this method more than once has no effect.
+         */
+        public synchronized void release() {
+
+            if (lock == null)
+                return;
+
+            try {
+
+                lock.release();
+
+            } catch (IOException e) {
+
+                LOG.warn("Could not release slot " + slot + " for running ojdeploy.", e);
+
+            } finally {
+
+                lock = null;
+                IOUtils.closeQuietly(slotFile);
+                free(slotPath);
+            }
+        }
+
+        public int getSlot() {
+
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import java.io.File;
+
+/**
+ * Reference from one deployment profile to another one it depends on. JDeveloper identifies the referenced profile by the file
+ * owning it (.jws or .jpr) and its name.
+ * 
+ * @author bernd
+ *
+ */
+public class ProfileDependency {
+
+    private File   ownerFile   = null;
+    private String profileName = null;
+
+    public ProfileDependency(File ownerFile, String profileName) {
+
+        super();
+        setOwnerFile(ownerFile);
+        setProfileName(profileName);
+    }
+
+    public File getOwnerFile() {
+
+        return ownerFile;
+    }
+
+    public void setOwnerFile(File ownerFile) {
+
+        this.ownerFile = ownerFile;
+    }
+
+    public String getProfileName() {
+
+        return profileName;
+    }
+
+    public void setProfileName(String profileName) {
+
+        this.profileName = profileName;
+    }
+
+    @Override
+    public String toString() {
+
+        return "ProfileDependency[" + ownerFile + ":" + profileName + "]";
+    }
+}
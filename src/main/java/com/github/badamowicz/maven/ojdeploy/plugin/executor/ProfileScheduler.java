@@ -0,0 +1,268 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.exceptions.OjdeployExecutionException;
+
+/**
+ * Deploys profiles of a {@link WorkspaceModel} along their dependencies. Instead of letting ojdeploy rebuild the whole
+ * dependency chain serially, every profile is deployed by its own ojdeploy process using <i>-nodependents</i>. Profiles without
+ * dependencies are started in parallel right away and every dependent profile is started as soon as all of its dependencies
+ * have finished successfully. Profiles depending on a failed profile are skipped.
+ * 
+ * @author bernd
+ *
+ */
+public class ProfileScheduler {
+
+    private static final Logger      LOG                = Logger.getLogger(ProfileScheduler.class);
+
+    private static final String      PROFILE_PARAM      = "profile";
+    private static final String      PROJECT_PARAM      = "project";
+    private static final String      NODEPENDENTS_PARAM = "nodependents";
+
+    private WorkspaceModel           model              = null;
+    private ParallelOjdeployExecutor runner             = null;
+
+    /**
+     * @param model The workspace containing the profiles.
+     * @param runner Used for deploying single profiles. Its parallelism limits the number of concurrent ojdeploy processes.
+     */
+    public ProfileScheduler(WorkspaceModel model, ParallelOjdeployExecutor runner) {
+
+        super();
+        setModel(model);
+        setRunner(runner);
+    }
+
+    /**
+     * Deploy the given profiles and all profiles they depend on.
+     * 
+     * @param targets The profiles to be deployed.
+     * @param baseParams The parameters used for every profile. The parameters <i>profile</i>, <i>project</i> and
+     *        <i>nodependents</i> are replaced for each profile.
+     * @param dryRun If true, the command lines are only logged but not executed.
+     * @return One {@link ExecutionResult} per deployed or skipped profile, dependencies first.
+     */
+    public List<ExecutionResult> execute(Collection<DeploymentProfile> targets, List<MojoParameter> baseParams, boolean dryRun) {
+
+        List<DeploymentProfile> closure = null;
+        Map<DeploymentProfile, Integer> pendingDeps = null;
+        Map<DeploymentProfile, ExecutionResult> results = null;
+        Map<Future<ExecutionResult>, DeploymentProfile> running = null;
+        ExecutorService pool = null;
+        CompletionService<ExecutionResult> completion = null;
+        Future<ExecutionResult> finished = null;
+        DeploymentProfile finishedProfile = null;
+
+        closure = getModel().getDependencyClosure(targets);
+        pendingDeps = new HashMap<DeploymentProfile, Integer>();
+        results = new HashMap<DeploymentProfile, ExecutionResult>();
+        running = new IdentityHashMap<Future<ExecutionResult>, DeploymentProfile>();
+        LOG.info("Scheduling " + closure.size() + " profiles: " + closure);
+
+        try {
+
+            pool = getRunner().createPool(closure.size());
+            completion = new ExecutorCompletionService<ExecutionResult>(pool);
+
+            for (DeploymentProfile currProfile : closure) {
+
+                pendingDeps.put(currProfile, getModel().getDependencies(currProfile).size());
+
+                if (pendingDeps.get(currProfile) == 0)
+                    submit(currProfile, baseParams, dryRun, completion, running);
+            }
+
+            while (!running.isEmpty()) {
+
+                finished = completion.take();
+                finishedProfile = running.remove(finished);
+                results.put(finishedProfile, finished.get());
+
+                for (DeploymentProfile currDependent : getDependents(finishedProfile, closure)) {
+
+                    if (!results.get(finishedProfile).isSuccessful())
+                        skip(currDependent, finishedProfile, closure, results);
+                    else if (decrement(pendingDeps, currDependent) == 0 && !results.containsKey(currDependent))
+                        submit(currDependent, baseParams, dryRun, completion, running);
+                }
+            }
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new OjdeployExecutionException("Interrupted while waiting for ojdeploy processes!", e);
+
+        } catch (ExecutionException e) {
+
+            throw new OjdeployExecutionException("Unexpected error while running ojdeploy processes!", e.getCause());
+
+        } finally {
+
+            if (pool != null)
+                pool.shutdownNow();
+        }
+
+        return orderResults(closure, results);
+    }
+
+    /**
+     * Derive the parameters used for deploying exactly the given profile without its dependencies.
+     * 
+     * @param profile The profile to be deployed.
+     * @param baseParams The common parameters.
+     * @return A new list of parameters.
+     */
+    static List<MojoParameter> createParams(DeploymentProfile profile, List<MojoParameter> baseParams) {
+
+        List<MojoParameter> params = null;
+
+        params = MojoParameters.with(baseParams, PROFILE_PARAM, profile.getName(), String.class);
+        params = MojoParameters.with(params, NODEPENDENTS_PARAM, Boolean.TRUE, Boolean.class);
+
+        if (profile.getProjectName() != null)
+            params = MojoParameters.with(params, PROJECT_PARAM, profile.getProjectName(), String.class);
+        else
+            params = MojoParameters.without(params, PROJECT_PARAM);
+
+        return params;
+    }
+
+    private void submit(final DeploymentProfile profile, List<MojoParameter> baseParams, final boolean dryRun,
+            CompletionService<ExecutionResult> completion, Map<Future<ExecutionResult>, DeploymentProfile> running) {
+
+        final List<MojoParameter> params = createParams(profile, baseParams);
+
+        LOG.debug("Submitting " + profile + " for deployment.");
+        running.put(completion.submit(new Callable<ExecutionResult>() {
+
+            @Override
+            public ExecutionResult call() {
+
+                return getRunner().executeProfile(profile.getName(), params, dryRun);
+            }
+        }), profile);
+    }
+
+    /**
+     * Mark the given profile and all of its transitive dependents as skipped.
+     */
+    private void skip(DeploymentProfile profile, DeploymentProfile failedDependency, List<DeploymentProfile> closure,
+            Map<DeploymentProfile, ExecutionResult> results) {
+
+        ExecutionResult skipped = null;
+
+        if (results.containsKey(profile))
+            return;
+
+        LOG.warn("Skipping " + profile + " since dependency " + failedDependency.getName() + " failed.");
+        skipped = new ExecutionResult(profile.getName());
+        skipped.setFailure(new OjdeployExecutionException("Skipped since dependency " + failedDependency.getName()
+                + " failed."));
+        results.put(profile, skipped);
+
+        for (DeploymentProfile currDependent : getDependents(profile, closure))
+            skip(currDependent, failedDependency, closure, results);
+    }
+
+    private List<DeploymentProfile> getDependents(DeploymentProfile profile, List<DeploymentProfile> closure) {
+
+        List<DeploymentProfile> dependents = null;
+
+        dependents = new ArrayList<DeploymentProfile>();
+
+        for (DeploymentProfile currProfile : closure) {
+
+            if (getModel().getDependencies(currProfile).contains(profile))
+                dependents.add(currProfile);
+        }
+
+        return dependents;
+    }
+
+    private int decrement(Map<DeploymentProfile, Integer> pendingDeps, DeploymentProfile profile) {
+
+        int pending = pendingDeps.get(profile) - 1;
+
+        pendingDeps.put(profile, pending);
+        return pending;
+    }
+
+    private List<ExecutionResult> orderResults(List<DeploymentProfile> closure, Map<DeploymentProfile, ExecutionResult> results) {
+
+        List<ExecutionResult> ordered = null;
+
+        ordered = new ArrayList<ExecutionResult>(closure.size());
+
+        for (DeploymentProfile currProfile : closure) {
+
+            if (!results.containsKey(currProfile))
+                throw new OjdeployExecutionException("Profile " + currProfile.getName()
+                        + " has never been scheduled, since not all of its dependencies have been reported as finished!");
+
+            ordered.add(results.get(currProfile));
+        }
+
+        return ordered;
+    }
+
+    public WorkspaceModel getModel() {
+
+        return model;
+    }
+
+    public void setModel(WorkspaceModel model) {
+
+        this.model = model;
+    }
+
+    public ParallelOjdeployExecutor getRunner() {
+
+        return runner;
+    }
+
+    public void setRunner(ParallelOjdeployExecutor runner) {
+
+        this.runner = runner;
+    }
+}
@@ -0,0 +1,250 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.exec.ExecuteWatchdog;
+import org.apache.commons.io.FileUtils;
+import org.apache.log4j.Logger;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.process.ProcessTree;
+import com.github.badamowicz.maven.ojdeploy.plugin.process.ThreadDumper;
+
+/**
+ * Destroys ojdeploy if it runs longer than allowed or did not write any output for too long. Before, thread dumps of all JVMs of
+ * the process tree are taken, so the cause of a hang can be found later on. Then the whole process tree is destroyed, since
+ * destroying the ojdeploy script alone leaves its JVM running.
+ * 
+ * @author bernd
+ *
+ */
+class StallWatchdog implements ProcessListener, OutputListener, Runnable {
+
+    private static final Logger LOG            = Logger.getLogger(StallWatchdog.class);
+
+    /** Time between two thread dumps, so it can be seen whether the threads are stuck or still moving. */
+    private static final long   DUMP_INTERVAL  = 2000;
+
+    /** Time the processes get for terminating themselves before they are killed. */
+    private static final long   DESTROY_GRACE  = 5000;
+
+    private static final long   CHECK_INTERVAL = 1000;
+
+    private ExecutionResult     result         = null;
+    private long                processTimeout = 0;
+    private long                stallTimeout   = 0;
+    private List<File>          dumpFiles      = null;
+    private ExecuteWatchdog     watchdog       = null;
+    private long                pid            = -1;
+    private long                start          = 0;
+    private volatile long       lastOutput     = 0;
+    private boolean             stopped        = false;
+
+    /**
+     * @param result The result of the run. Receives the reason if the process is destroyed.
+     * @param processTimeout The maximum run time in milliseconds. Values lower than 1 mean no limit.
+     * @param stallTimeout The maximum time in milliseconds without any output. Values lower than 1 mean no limit.
+     * @param dumpFiles The files receiving the thread dumps. One dump is taken for every file.
+     * @param watchdog The watchdog of commons-exec for destroying the process if its tree is not accessible.
+     */
+    StallWatchdog(ExecutionResult result, long processTimeout, long stallTimeout, List<File> dumpFiles,
+            ExecuteWatchdog watchdog) {
+
+        super();
+        this.result = result;
+        this.processTimeout = processTimeout;
+        this.stallTimeout = stallTimeout;
+        this.dumpFiles = dumpFiles;
+        this.watchdog = watchdog;
+    }
+
+    @Override
+    public synchronized void processStarted(long pid) {
+
+        Thread thread = null;
+
+        this.pid = pid;
+        start = System.currentTimeMillis();
+        lastOutput = start;
+        thread = new Thread(this, "ojdeploy-watchdog-" + result.getName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void processFinished() {
+
+        stopped = true;
+        notifyAll();
+    }
+
+    @Override
+    public void line(CharSequence line, boolean error) {
+
+        lastOutput = System.currentTimeMillis();
+    }
+
+    @Override
+    public void run() {
+
+        String reason = null;
+
+        try {
+
+            while (reason == null) {
+
+                synchronized (this) {
+
+                    if (stopped)
+                        return;
+
+                    wait(getCheckInterval());
+
+                    if (stopped)
+                        return;
+                }
+
+                reason = check(System.currentTimeMillis());
+            }
+
+            abort(reason);
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @param now The current time.
+     * @return The reason for destroying ojdeploy or <b>null</b> if it may go on running.
+     */
+    String check(long now) {
+
+        if (processTimeout > 0 && now - start >= processTimeout)
+            return "ojdeploy did not finish within " + format(processTimeout) + ".";
+
+        if (stallTimeout > 0 && now - lastOutput >= stallTimeout)
+            return "ojdeploy did not write any output for " + format(stallTimeout) + ".";
+
+        return null;
+    }
+
+    /**
+     * @return The time in seconds if it is a whole number of seconds, otherwise in milliseconds.
+     */
+    private static String format(long millis) {
+
+        return millis % 1000 == 0 ? millis / 1000 + "s" : millis + "ms";
+    }
+
+    private void abort(String reason) throws InterruptedException {
+
+        List<Long> tree = null;
+        List<Long> jvms = null;
+        StringBuilder message = null;
+
+        LOG.error(reason + " Taking thread dumps and destroying ojdeploy.");
+        message = new StringBuilder(reason);
+
+        if (pid > 0 && ProcessTree.isSupported()) {
+
+            tree = ProcessTree.getTree(pid);
+            jvms = ProcessTree.getJvms(tree);
+
+            if (jvms.isEmpty())
+                LOG.warn("No JVM found among processes " + tree + ". No thread dumps taken.");
+            else if (takeDumps(jvms))
+                message.append(" Thread dumps have been saved to ").append(dumpFiles.get(0).getParentFile()).append(".");
+
+            // stopped JVMs can't take thread dumps, so the tree is stopped only now
+            result.setAbortReason(message.toString());
+            ProcessTree.destroy(ProcessTree.stopTree(pid), DESTROY_GRACE);
+
+        } else {
+
+            result.setAbortReason(message.toString());
+        }
+
+        watchdog.destroyProcess();
+    }
+
+    private boolean takeDumps(List<Long> jvms) throws InterruptedException {
+
+        StringBuilder currContent = null;
+        String currDump = null;
+        boolean taken = false;
+
+        for (int i = 0; i < dumpFiles.size(); i++) {
+
+            if (i > 0)
+                Thread.sleep(DUMP_INTERVAL);
+
+            currContent = new StringBuilder();
+
+            for (Long currJvm : jvms) {
+
+                currDump = ThreadDumper.dump(currJvm.longValue());
+
+                if (currDump != null)
+                    currContent.append("Process ").append(currJvm).append(":\n").append(currDump).append("\n");
+            }
+
+            if (currContent.length() == 0)
+                continue;
+
+            try {
+
+                FileUtils.write(dumpFiles.get(i), currContent);
+                LOG.info("Saved thread dump to " + dumpFiles.get(i).getAbsolutePath());
+                taken = true;
+
+            } catch (IOException e) {
+
+                LOG.warn("Could not save thread dump to " + dumpFiles.get(i) + ".", e);
+            }
+        }
+
+        return taken;
+    }
+
+    private long getCheckInterval() {
+
+        long interval = CHECK_INTERVAL;
+
+        if (processTimeout > 0)
+            interval = Math.min(interval, processTimeout / 10);
+
+        if (stallTimeout > 0)
+            interval = Math.min(interval, stallTimeout / 10);
+
+        return Math.max(interval, 10);
+    }
+}
@@ -0,0 +1,321 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Persistent index of the parsed JDeveloper files of workspaces. For every .jws and .jpr file, the part of the
+ * {@link WorkspaceModel} found inside the file is kept along with the size and modification time of the file. The
+ * {@link WorkspaceParser} only parses files whose size or modification time changed.
+ * <p>
+ * The index is stored in a compact binary format. Files modified less than {@link #RACY_INTERVAL} ms before they have been
+ * parsed are not indexed, since a further modification within the granularity of the file system's timestamps would go
+ * unnoticed. Instances are thread safe.
+ * 
+ * @author bernd
+ *
+ */
+public class WorkspaceIndex {
+
+    private static final Logger     LOG           = Logger.getLogger(WorkspaceIndex.class);
+
+    /** Identifies the format of the index file. */
+    private static final int        MAGIC         = 0x4f4a5731;
+
+    /** Time stamps of some file systems have a granularity of two seconds. */
+    static final long               RACY_INTERVAL = 2000;
+
+    private File                    indexFile     = null;
+    private Map<String, ParsedFile> files         = null;
+    private boolean                 modified      = false;
+
+    /**
+     * Create an index and load it from the given file if it exists.
+     * 
+     * @param indexFile The file the index is kept in.
+     */
+    public WorkspaceIndex(File indexFile) {
+
+        super();
+        setIndexFile(indexFile);
+        files = new HashMap<String, ParsedFile>();
+
+        if (indexFile.isFile())
+            load();
+    }
+
+    /**
+     * Look up the content of the given file parsed before.
+     * 
+     * @param file The .jws or .jpr file.
+     * @return The part of the workspace model found inside the file or <b>null</b> if the file has not been parsed before or
+     *         changed since.
+     */
+    public synchronized WorkspaceModel get(File file) {
+
+        ParsedFile parsed = files.get(file.getAbsolutePath());
+
+        if (parsed == null || parsed.size != file.length() || parsed.lastModified != file.lastModified())
+            return null;
+
+        return parsed.model;
+    }
+
+    /**
+     * Remember the content of the given file.
+     * 
+     * @param file The .jws or .jpr file.
+     * @param size The size of the file before it has been parsed.
+     * @param lastModified The modification time of the file before it has been parsed.
+     * @param model The part of the workspace model found inside the file.
+     */
+    public synchronized void put(File file, long size, long lastModified, WorkspaceModel model) {
+
+        if (System.currentTimeMillis() - lastModified < RACY_INTERVAL)
+            files.remove(file.getAbsolutePath());
+        else
+            files.put(file.getAbsolutePath(), new ParsedFile(size, lastModified, model));
+
+        modified = true;
+    }
+
+    /**
+     * Write the index to its file if it has been modified.
+     */
+    public synchronized void store() {
+
+        File tmpFile = null;
+        DataOutputStream os = null;
+
+        if (!modified)
+            return;
+
+        tmpFile = new File(getIndexFile().getPath() + ".tmp");
+        getIndexFile().getParentFile().mkdirs();
+
+        try {
+
+            os = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+            os.writeInt(MAGIC);
+
+            for (Map.Entry<String, ParsedFile> currEntry : files.entrySet()) {
+
+                os.writeUTF(currEntry.getKey());
+                os.writeLong(currEntry.getValue().size);
+                os.writeLong(currEntry.getValue().lastModified);
+                writeModel(os, currEntry.getValue().model);
+            }
+
+            os.writeUTF("");
+            os.close();
+            getIndexFile().delete();
+
+            if (!tmpFile.renameTo(getIndexFile()))
+                throw new IOException("Could not rename " + tmpFile + " to " + getIndexFile());
+
+            modified = false;
+
+        } catch (IOException e) {
+
+            IOUtils.closeQuietly(os);
+            tmpFile.delete();
+            LOG.warn("Could not store workspace index " + getIndexFile(), e);
+        }
+    }
+
+    private void load() {
+
+        DataInputStream is = null;
+        String path = null;
+
+        try {
+
+            is = new DataInputStream(new BufferedInputStream(new FileInputStream(getIndexFile())));
+
+            if (is.readInt() != MAGIC)
+                throw new IOException("Unknown format");
+
+            while ((path = is.readUTF()).length() > 0)
+                files.put(path, new ParsedFile(is.readLong(), is.readLong(), readModel(is, new File(path))));
+
+            LOG.debug("Loaded " + files.size() + " parsed files from " + getIndexFile());
+
+        } catch (IOException e) {
+
+            LOG.warn("Could not read workspace index " + getIndexFile() + ". Parsing all files again.", e);
+            files.clear();
+
+        } finally {
+
+            IOUtils.closeQuietly(is);
+        }
+    }
+
+    private void writeModel(DataOutputStream os, WorkspaceModel model) throws IOException {
+
+        writeFiles(os, model.getProjectFiles());
+        writeFiles(os, model.getOutputDirectories());
+        os.writeInt(model.getProjectDependencies().size());
+
+        for (Map.Entry<File, List<File>> currEntry : model.getProjectDependencies().entrySet()) {
+
+            os.writeUTF(currEntry.getKey().getPath());
+            writeFiles(os, currEntry.getValue());
+        }
+
+        os.writeInt(model.getProfiles().size());
+
+        for (DeploymentProfile currProfile : model.getProfiles()) {
+
+            os.writeUTF(currProfile.getName());
+            os.writeUTF(currProfile.getOwnerFile().getPath());
+            writeNullable(os, currProfile.getArchiveFile() != null ? currProfile.getArchiveFile().getPath() : null);
+            writeNullable(os, currProfile.getProfileClass());
+            os.writeInt(currProfile.getDependencies().size());
+
+            for (ProfileDependency currDependency : currProfile.getDependencies()) {
+
+                os.writeUTF(currDependency.getOwnerFile().getPath());
+                os.writeUTF(currDependency.getProfileName());
+            }
+
+            writeFiles(os, currProfile.getContributors());
+        }
+    }
+
+    private WorkspaceModel readModel(DataInputStream is, File file) throws IOException {
+
+        WorkspaceModel model = null;
+        DeploymentProfile currProfile = null;
+        String currValue = null;
+        int count = 0;
+
+        model = new WorkspaceModel(file);
+        model.getProjectFiles().addAll(readFiles(is));
+        model.getOutputDirectories().addAll(readFiles(is));
+        count = is.readInt();
+
+        for (int i = 0; i < count; i++)
+            model.getProjectDependencies().put(new File(is.readUTF()), readFiles(is));
+
+        count = is.readInt();
+
+        for (int i = 0; i < count; i++) {
+
+            currProfile = new DeploymentProfile(is.readUTF(), new File(is.readUTF()));
+            currValue = readNullable(is);
+            currProfile.setArchiveFile(currValue != null ? new File(currValue) : null);
+            currProfile.setProfileClass(readNullable(is));
+
+            for (int j = is.readInt(); j > 0; j--)
+                currProfile.addDependency(new ProfileDependency(new File(is.readUTF()), is.readUTF()));
+
+            for (File currContributor : readFiles(is))
+                currProfile.addContributor(currContributor);
+
+            model.getProfiles().add(currProfile);
+        }
+
+        return model;
+    }
+
+    private void writeFiles(DataOutputStream os, List<File> files) throws IOException {
+
+        os.writeInt(files.size());
+
+        for (File currFile : files)
+            os.writeUTF(currFile.getPath());
+    }
+
+    private List<File> readFiles(DataInputStream is) throws IOException {
+
+        List<File> files = null;
+
+        files = new ArrayList<File>();
+
+        for (int i = is.readInt(); i > 0; i--)
+            files.add(new File(is.readUTF()));
+
+        return files;
+    }
+
+    private void writeNullable(DataOutputStream os, String value) throws IOException {
+
+        os.writeBoolean(value != null);
+
+        if (value != null)
+            os.writeUTF(value);
+    }
+
+    private String readNullable(DataInputStream is) throws IOException {
+
+        return is.readBoolean() ? is.readUTF() : null;
+    }
+
+    public File getIndexFile() {
+
+        return indexFile;
+    }
+
+    public void setIndexFile(File indexFile) {
+
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * The part of the workspace model found inside a file along with size and modification time of the file when it has been
+     * parsed.
+     */
+    private static class ParsedFile {
+
+        private final long           size;
+        private final long           lastModified;
+        private final WorkspaceModel model;
+
+        ParsedFile(long size, long lastModified, WorkspaceModel model) {
+
+            this.size = size;
+            this.lastModified = lastModified;
+            this.model = model;
+        }
+    }
+}
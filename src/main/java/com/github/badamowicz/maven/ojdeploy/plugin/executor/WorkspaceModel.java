@@ -0,0 +1,236 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.exceptions.OjdeployExecutionException;
+
+/**
+ * The deployment related part of a JDeveloper workspace: its projects and all deployment profiles together with the
+ * dependencies between them. Use {@link WorkspaceParser} for creating instances.
+ * 
+ * @author bernd
+ *
+ */
+public class WorkspaceModel {
+
+    private static final Logger     LOG                 = Logger.getLogger(WorkspaceModel.class);
+
+    private File                    workspaceFile       = null;
+    private List<File>              projectFiles        = new ArrayList<File>();
+    private List<DeploymentProfile> profiles            = new ArrayList<DeploymentProfile>();
+    private List<File>              outputDirectories   = new ArrayList<File>();
+    private Map<File, List<File>>   projectDependencies = new HashMap<File, List<File>>();
+
+    public WorkspaceModel(File workspaceFile) {
+
+        super();
+        setWorkspaceFile(workspaceFile);
+    }
+
+    /**
+     * Find a profile by its name only. If several projects define a profile with the given name, the first one found wins.
+     * 
+     * @param name The name of the profile.
+     * @return The profile or <b>null</b> if no profile with the given name exists.
+     */
+    public DeploymentProfile getProfile(String name) {
+
+        for (DeploymentProfile currProfile : getProfiles()) {
+
+            if (currProfile.getName().equals(name))
+                return currProfile;
+        }
+
+        return null;
+    }
+
+    /**
+     * Find a profile by its name and the file owning it.
+     * 
+     * @param ownerFile The .jws or .jpr file defining the profile.
+     * @param name The name of the profile.
+     * @return The profile or <b>null</b> if no such profile exists.
+     */
+    public DeploymentProfile getProfile(File ownerFile, String name) {
+
+        for (DeploymentProfile currProfile : getProfiles()) {
+
+            if (currProfile.getName().equals(name) && currProfile.getOwnerFile().equals(ownerFile))
+                return currProfile;
+        }
+
+        return null;
+    }
+
+    /**
+     * Resolve the direct dependencies of the given profile. Dependencies pointing to profiles unknown to this workspace are
+     * ignored. A profile referenced several times is returned once.
+     * 
+     * @param profile The profile.
+     * @return All profiles which must be deployed before the given one.
+     */
+    public List<DeploymentProfile> getDependencies(DeploymentProfile profile) {
+
+        List<DeploymentProfile> dependencies = null;
+        DeploymentProfile currDependency = null;
+
+        dependencies = new ArrayList<DeploymentProfile>();
+
+        for (ProfileDependency currRef : profile.getDependencies()) {
+
+            currDependency = getProfile(currRef.getOwnerFile(), currRef.getProfileName());
+
+            if (currDependency != null && !dependencies.contains(currDependency))
+                dependencies.add(currDependency);
+            else if (currDependency == null)
+                LOG.warn("Profile " + profile.getName() + " depends on unknown " + currRef + ". Dependency is ignored.");
+        }
+
+        return dependencies;
+    }
+
+    /**
+     * Collect the given profiles and all profiles they depend on transitively.
+     * 
+     * @param targets The profiles to be deployed.
+     * @return All required profiles in topological order, i.e. every profile is preceded by its dependencies.
+     * @throws OjdeployExecutionException if the dependencies contain a cycle.
+     */
+    public List<DeploymentProfile> getDependencyClosure(Collection<DeploymentProfile> targets) {
+
+        List<DeploymentProfile> closure = null;
+
+        closure = new ArrayList<DeploymentProfile>();
+
+        for (DeploymentProfile currTarget : targets)
+            visit(currTarget, closure, new HashSet<DeploymentProfile>());
+
+        return closure;
+    }
+
+    private void visit(DeploymentProfile profile, List<DeploymentProfile> closure, Set<DeploymentProfile> path) {
+
+        if (closure.contains(profile))
+            return;
+
+        if (!path.add(profile))
+            throw new OjdeployExecutionException("Cyclic dependency detected for profile " + profile.getName() + "!");
+
+        for (DeploymentProfile currDependency : getDependencies(profile))
+            visit(currDependency, closure, path);
+
+        path.remove(profile);
+        closure.add(profile);
+    }
+
+    /**
+     * Collect the given project and all projects it depends on transitively.
+     * 
+     * @param project The .jpr file.
+     * @return The .jpr files of the project and its dependencies.
+     */
+    public List<File> getProjectClosure(File project) {
+
+        List<File> closure = null;
+
+        closure = new ArrayList<File>();
+        closure.add(project);
+
+        for (int i = 0; i < closure.size(); i++) {
+
+            if (!getProjectDependencies().containsKey(closure.get(i)))
+                continue;
+
+            for (File currDependency : getProjectDependencies().get(closure.get(i)))
+                if (!closure.contains(currDependency))
+                    closure.add(currDependency);
+        }
+
+        return closure;
+    }
+
+    public File getWorkspaceFile() {
+
+        return workspaceFile;
+    }
+
+    public void setWorkspaceFile(File workspaceFile) {
+
+        this.workspaceFile = workspaceFile;
+    }
+
+    public List<File> getProjectFiles() {
+
+        return projectFiles;
+    }
+
+    public List<DeploymentProfile> getProfiles() {
+
+        return profiles;
+    }
+
+    /**
+     * @return The projects every project depends on, mapped by the .jpr file of the depending project.
+     */
+    public Map<File, List<File>> getProjectDependencies() {
+
+        return projectDependencies;
+    }
+
+    /**
+     * @return The directories receiving the compiled classes of the projects.
+     */
+    public List<File> getOutputDirectories() {
+
+        return outputDirectories;
+    }
+
+    /**
+     * @return The directory containing the workspace file.
+     */
+    public File getWorkspaceDirectory() {
+
+        return getWorkspaceFile().getParentFile();
+    }
+
+    @Override
+    public String toString() {
+
+        return "WorkspaceModel[" + workspaceFile + ":" + projectFiles.size() + " projects:" + profiles.size() + " profiles]";
+    }
+}
@@ -0,0 +1,387 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.exceptions.OjdeployExecutionException;
+
+/**
+ * Parses a JDeveloper workspace file (.jws) and all project files (.jpr) referenced by it into a {@link WorkspaceModel}. Only
+ * the deployment related parts are taken into account, which are the list of projects, the projects each project depends on
+ * and the deployment profiles found below <i>oracle.jdeveloper.deploy.dt.DeploymentProfiles</i> including the contributors of
+ * their file groups. The files are read by a streaming parser, so no DOM is ever built.
+ * 
+ * @author bernd
+ *
+ */
+public class WorkspaceParser {
+
+    private static final Logger LOG                 = Logger.getLogger(WorkspaceParser.class);
+
+    private static final String DEPLOYMENT_PROFILES = "oracle.jdeveloper.deploy.dt.DeploymentProfiles";
+    private static final String PROFILE_DEFINITIONS = "profileDefinitions";
+    private static final String LIST_OF_CHILDREN    = "listOfChildren";
+    private static final String PROJECT_PATHS       = "oracle.jdevimpl.config.JProjectPaths";
+    private static final String DEPENDENCY_CONFIG   = "oracle.ide.model.DependencyConfiguration";
+    private static final String SOURCE_URL          = "sourceURL";
+    private static final String FILE_GROUPS         = "fileGroups";
+    private static final String CONTRIBUTORS        = "contributors";
+    private static final String OUTPUT_DIRECTORY    = "outputDirectory";
+    private static final String DEFAULT_OUTPUT_DIR  = "classes";
+    private static final String DEPENDENCIES        = "dependencies";
+    private static final String DEPENDENCY_LIST     = "dependencyList";
+    private static final String OWNER_URL           = "ownerURL";
+    private static final String PROFILE_NAME        = "profileName";
+    private static final String PROFILE_CLASS       = "profileClass";
+    private static final String URL_SUFFIX          = "URL";
+    private static final String ELEMENT_URL         = "url";
+    private static final String ELEMENT_VALUE       = "value";
+    private static final String ATTR_NAME           = "n";
+    private static final String ATTR_VALUE          = "v";
+    private static final String ATTR_PATH           = "path";
+    private static final String PROJECT_EXTENSION   = "jpr";
+
+    private XMLInputFactory     inputFactory        = null;
+    private WorkspaceIndex      index               = null;
+
+    public WorkspaceParser() {
+
+        this(null);
+    }
+
+    /**
+     * Create a parser which only parses files not found in the given index.
+     * 
+     * @param index The index of files parsed before. May be null for parsing all files.
+     */
+    public WorkspaceParser(WorkspaceIndex index) {
+
+        setIndex(index);
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    }
+
+    /**
+     * Parse the given workspace and all of its projects. Files found unchanged in the index are not parsed again.
+     * 
+     * @param workspaceFile The .jws file.
+     * @return The model of the workspace.
+     * @throws OjdeployExecutionException if one of the files could not be parsed.
+     */
+    public WorkspaceModel parse(File workspaceFile) {
+
+        WorkspaceModel model = null;
+
+        model = new WorkspaceModel(normalize(workspaceFile));
+        LOG.debug("Start parsing workspace " + model.getWorkspaceFile());
+        merge(model, getFileModel(model.getWorkspaceFile()));
+
+        for (File currProject : new ArrayList<File>(model.getProjectFiles())) {
+
+            if (currProject.isFile())
+                merge(model, getFileModel(currProject));
+            else
+                LOG.warn("Project file " + currProject + " referenced by workspace does not exist!");
+        }
+
+        if (getIndex() != null)
+            getIndex().store();
+
+        LOG.debug("Finished parsing workspace: " + model);
+        return model;
+    }
+
+    /**
+     * Look up the given file in the index or parse it if it changed.
+     * 
+     * @param file The .jws or .jpr file.
+     * @return The part of the workspace model found inside the file.
+     */
+    private WorkspaceModel getFileModel(File file) {
+
+        WorkspaceModel fileModel = null;
+        long size = 0;
+        long lastModified = 0;
+
+        fileModel = getIndex() != null ? getIndex().get(file) : null;
+
+        if (fileModel != null)
+            return fileModel;
+
+        size = file.length();
+        lastModified = file.lastModified();
+        fileModel = new WorkspaceModel(file);
+        parseFile(file, fileModel);
+
+        if (getIndex() != null)
+            getIndex().put(file, size, lastModified, fileModel);
+
+        return fileModel;
+    }
+
+    private void merge(WorkspaceModel model, WorkspaceModel fileModel) {
+
+        model.getProjectFiles().addAll(fileModel.getProjectFiles());
+        model.getProfiles().addAll(fileModel.getProfiles());
+        model.getOutputDirectories().addAll(fileModel.getOutputDirectories());
+        model.getProjectDependencies().putAll(fileModel.getProjectDependencies());
+    }
+
+    /**
+     * Parse a single workspace or project file and add everything found to the given model.
+     * 
+     * @param file The .jws or .jpr file.
+     * @param model The model to be filled.
+     */
+    void parseFile(File file, WorkspaceModel model) {
+
+        InputStream is = null;
+        XMLStreamReader reader = null;
+
+        try {
+
+            is = new FileInputStream(file);
+            reader = inputFactory.createXMLStreamReader(is);
+            new FileHandler(file, model).parse(reader);
+
+        } catch (Exception e) {
+
+            throw new OjdeployExecutionException("Was not able to parse JDeveloper file " + file + "!", e);
+
+        } finally {
+
+            closeQuietly(reader);
+            IOUtils.closeQuietly(is);
+        }
+    }
+
+    /**
+     * Resolve a path found inside a JDeveloper file. Such paths are always relative to the directory of the file.
+     * 
+     * @param ownerFile The file containing the path.
+     * @param path The relative path.
+     * @return The absolute and normalized file.
+     */
+    public static File resolve(File ownerFile, String path) {
+
+        return normalize(new File(ownerFile.getParentFile(), path));
+    }
+
+    /**
+     * @param file Some file.
+     * @return The absolute file without any '.' or '..' segments.
+     */
+    public static File normalize(File file) {
+
+        return new File(FilenameUtils.normalize(file.getAbsolutePath()));
+    }
+
+    public WorkspaceIndex getIndex() {
+
+        return index;
+    }
+
+    public void setIndex(WorkspaceIndex index) {
+
+        this.index = index;
+    }
+
+    private void closeQuietly(XMLStreamReader reader) {
+
+        try {
+
+            if (reader != null)
+                reader.close();
+
+        } catch (Exception e) {
+
+            LOG.debug("Could not close XML reader.", e);
+        }
+    }
+
+    /**
+     * Keeps track of the nesting of JDeveloper's <i>hash</i>, <i>list</i>, <i>value</i> and <i>url</i> elements while
+     * streaming through one file. Every element is identified by its attribute <i>n</i>, anonymous elements by an empty
+     * string.
+     */
+    private static class FileHandler {
+
+        private final File           file;
+        private final WorkspaceModel model;
+        private final List<String>   path            = new ArrayList<String>();
+        private int                  profilesDepth   = -1;
+        private DeploymentProfile    currProfile     = null;
+        private File                 currDepOwner    = null;
+        private String               currDepName     = null;
+        private File                 outputDirectory = null;
+
+        FileHandler(File file, WorkspaceModel model) {
+
+            this.file = file;
+            this.model = model;
+        }
+
+        void parse(XMLStreamReader reader) throws Exception {
+
+            while (reader.hasNext()) {
+
+                switch (reader.next()) {
+
+                case XMLStreamConstants.START_ELEMENT:
+                    startElement(reader);
+                    break;
+
+                case XMLStreamConstants.END_ELEMENT:
+                    endElement();
+                    break;
+
+                default:
+                    break;
+                }
+            }
+
+            if (FilenameUtils.isExtension(file.getName(), PROJECT_EXTENSION))
+                model.getOutputDirectories().add(
+                        outputDirectory != null ? outputDirectory : resolve(file, DEFAULT_OUTPUT_DIR));
+        }
+
+        private void startElement(XMLStreamReader reader) {
+
+            String name = null;
+            String element = null;
+            int depth = 0;
+
+            name = reader.getAttributeValue(null, ATTR_NAME);
+            element = reader.getLocalName();
+            path.add(name == null ? "" : name);
+            depth = path.size() - 1;
+
+            if (profilesDepth < 0) {
+
+                if (DEPLOYMENT_PROFILES.equals(name))
+                    profilesDepth = depth;
+                else if (depth == 3 && ELEMENT_URL.equals(element) && LIST_OF_CHILDREN.equals(path.get(1)))
+                    model.getProjectFiles().add(resolve(file, reader.getAttributeValue(null, ATTR_PATH)));
+                else if (depth == 2 && OUTPUT_DIRECTORY.equals(name) && PROJECT_PATHS.equals(path.get(1)))
+                    outputDirectory = resolve(file, reader.getAttributeValue(null, ATTR_PATH));
+                else if (depth == 4 && SOURCE_URL.equals(name) && isProjectDependency())
+                    addProjectDependency(resolve(file, reader.getAttributeValue(null, ATTR_PATH)));
+
+            } else if (depth == profilesDepth + 2 && PROFILE_DEFINITIONS.equals(path.get(profilesDepth + 1))) {
+
+                currProfile = new DeploymentProfile(name, file);
+
+            } else if (currProfile != null && depth == profilesDepth + 3) {
+
+                if (ELEMENT_URL.equals(element) && name != null && name.endsWith(URL_SUFFIX))
+                    currProfile.setArchiveFile(resolve(file, reader.getAttributeValue(null, ATTR_PATH)));
+                else if (ELEMENT_VALUE.equals(element) && PROFILE_CLASS.equals(name))
+                    currProfile.setProfileClass(reader.getAttributeValue(null, ATTR_VALUE));
+
+            } else if (currProfile != null && depth == profilesDepth + 6 && isDependencyEntry()) {
+
+                if (ELEMENT_URL.equals(element) && OWNER_URL.equals(name))
+                    currDepOwner = resolve(file, reader.getAttributeValue(null, ATTR_PATH));
+                else if (ELEMENT_VALUE.equals(element) && PROFILE_NAME.equals(name))
+                    currDepName = reader.getAttributeValue(null, ATTR_VALUE);
+
+            } else if (currProfile != null && depth == profilesDepth + 8 && ELEMENT_URL.equals(element) && isContributor()) {
+
+                currProfile.addContributor(resolve(file, reader.getAttributeValue(null, ATTR_PATH)));
+            }
+        }
+
+        /**
+         * Record a project the current project depends on, i.e. a project library whose source is another project.
+         */
+        private void addProjectDependency(File project) {
+
+            if (!FilenameUtils.isExtension(project.getName(), PROJECT_EXTENSION))
+                return;
+
+            if (!model.getProjectDependencies().containsKey(file))
+                model.getProjectDependencies().put(file, new ArrayList<File>());
+
+            model.getProjectDependencies().get(file).add(project);
+        }
+
+        private boolean isProjectDependency() {
+
+            return DEPENDENCY_CONFIG.equals(path.get(1)) && DEPENDENCY_LIST.equals(path.get(2));
+        }
+
+        private boolean isContributor() {
+
+            return FILE_GROUPS.equals(path.get(profilesDepth + 3)) && CONTRIBUTORS.equals(path.get(profilesDepth + 6));
+        }
+
+        private void endElement() {
+
+            int depth = path.size() - 1;
+
+            if (currProfile != null && depth == profilesDepth + 5 && isDependencyEntry()) {
+
+                if (currDepOwner != null && currDepName != null)
+                    currProfile.addDependency(new ProfileDependency(currDepOwner, currDepName));
+
+                currDepOwner = null;
+                currDepName = null;
+
+            } else if (currProfile != null && depth == profilesDepth + 2) {
+
+                LOG.debug("Found " + currProfile + " with dependencies " + currProfile.getDependencies());
+                model.getProfiles().add(currProfile);
+                currProfile = null;
+
+            } else if (depth == profilesDepth) {
+
+                profilesDepth = -1;
+            }
+
+            path.remove(depth);
+        }
+
+        private boolean isDependencyEntry() {
+
+            return DEPENDENCIES.equals(path.get(profilesDepth + 3)) && DEPENDENCY_LIST.equals(path.get(profilesDepth + 4));
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.metrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.BuildEvent;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.BuildEventListener;
+
+/**
+ * Collects the wall time of the phases of a single execution of the plugin. The phases of the plugin itself are recorded by
+ * calling {@link #record(String, String, String, long)}. The phases of ojdeploy, i.e. compiling projects and packaging profiles,
+ * are derived from the {@link BuildEvent}s recognized in its output.
+ * <p>
+ * Every span belongs to a track. The plugin's own phases are recorded on the track {@link #MAIN_TRACK}, while every ojdeploy run
+ * has a track named after its profile. Runs of profiles deployed in parallel are recorded concurrently, so all methods are thread
+ * safe.
+ * 
+ * @author bernd
+ *
+ */
+public class BuildMetrics implements BuildEventListener {
+
+    public static final String  MAIN_TRACK    = "main";
+
+    public static final String  TOTAL         = "total";
+    public static final String  SETUP         = "setup";
+    public static final String  PARAMETER     = "parameter";
+    public static final String  SPAWN         = "spawn";
+    public static final String  PROCESS       = "process";
+    public static final String  COMPILE       = "compile";
+    public static final String  PACKAGE       = "package";
+    public static final String  DEPLOY        = "deploy";
+
+    private long                startTime     = 0;
+    private long                startNanos    = 0;
+    private List<Span>          spans         = null;
+    private Map<String, String> openCompiles  = null;
+    private Map<String, Long>   compileStarts = null;
+    private Map<String, Long>   deployStarts  = null;
+    private Map<String, Long>   packageStarts = null;
+
+    public BuildMetrics() {
+
+        super();
+        startTime = System.currentTimeMillis();
+        startNanos = System.nanoTime();
+        spans = new ArrayList<Span>();
+        openCompiles = new HashMap<String, String>();
+        compileStarts = new HashMap<String, Long>();
+        deployStarts = new HashMap<String, Long>();
+        packageStarts = new HashMap<String, Long>();
+    }
+
+    /**
+     * @return The current time in nanoseconds to be handed over to {@link #record(String, String, String, long)}.
+     */
+    public long now() {
+
+        return System.nanoTime();
+    }
+
+    /**
+     * Record a phase ending now.
+     * 
+     * @param name The name of the phase.
+     * @param category The kind of phase, e.g. {@link #SETUP}.
+     * @param track The track of the phase. If null, {@link #MAIN_TRACK} is used.
+     * @param start The start of the phase as returned by {@link #now()}.
+     */
+    public void record(String name, String category, String track, long start) {
+
+        record(name, category, track, start, now());
+    }
+
+    private synchronized void record(String name, String category, String track, long start, long end) {
+
+        spans.add(new Span(name, category, track != null ? track : MAIN_TRACK, (start - startNanos) / 1000, (end - start) / 1000));
+    }
+
+    /**
+     * Derive compile and packaging phases from the output of ojdeploy. A project is compiled from its compile marker up to the
+     * next project's marker or the end of compilation. A profile is packaged from the end of compilation up to the end of its
+     * deployment.
+     */
+    @Override
+    public synchronized void onEvent(BuildEvent event) {
+
+        String track = null;
+        long time = now();
+
+        track = event.getName() != null ? event.getName() : MAIN_TRACK;
+
+        switch (event.getType()) {
+
+        case DEPLOYMENT_STARTED:
+            deployStarts.put(track, Long.valueOf(time));
+            packageStarts.put(track, Long.valueOf(time));
+            break;
+        case COMPILE_STARTED:
+            finishCompile(track, time);
+            openCompiles.put(track, event.getDetail().isEmpty() ? track : event.getDetail());
+            compileStarts.put(track, Long.valueOf(time));
+            break;
+        case COMPILE_FINISHED:
+            finishCompile(track, time);
+            packageStarts.put(track, Long.valueOf(time));
+            break;
+        case DEPLOYMENT_FINISHED:
+            finishCompile(track, time);
+            finishPhase(packageStarts, track, PACKAGE, time);
+            finishPhase(deployStarts, track, DEPLOY, time);
+            break;
+        default:
+            break;
+        }
+    }
+
+    private void finishCompile(String track, long time) {
+
+        String project = openCompiles.remove(track);
+        Long start = compileStarts.remove(track);
+
+        if (project != null && start != null)
+            record(project, COMPILE, track, start.longValue(), time);
+    }
+
+    private void finishPhase(Map<String, Long> starts, String track, String category, long time) {
+
+        Long start = starts.remove(track);
+
+        if (start != null)
+            record(track, category, track, start.longValue(), time);
+    }
+
+    /**
+     * @return A copy of all spans recorded so far in the order they have been finished.
+     */
+    public synchronized List<Span> getSpans() {
+
+        return new ArrayList<Span>(spans);
+    }
+
+    /**
+     * @return The wall clock time the metrics have been started at in milliseconds.
+     */
+    public long getStartTime() {
+
+        return startTime;
+    }
+}
@@ -0,0 +1,319 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Writes the spans of {@link BuildMetrics} as JSON and as textfile for the textfile collector of the Prometheus node exporter.
+ * Durations are summed up per phase, per profile and per project, so dashboards can track them over time. Besides, the spans
+ * are written as trace in the Chrome Trace Event format, showing the critical path of a build in Perfetto or chrome://tracing.
+ * 
+ * @author bernd
+ *
+ */
+public class MetricsWriter {
+
+    private static final String ENCODING = "UTF-8";
+
+    private String              module   = null;
+
+    /**
+     * @param module Names the Maven module the metrics belong to. Used as label of the Prometheus metrics.
+     */
+    public MetricsWriter(String module) {
+
+        super();
+        this.module = module;
+    }
+
+    /**
+     * Write the metrics as JSON. Durations are given in milliseconds.
+     * 
+     * @param metrics The metrics.
+     * @param file The file to be written.
+     * @throws IOException if the file could not be written.
+     */
+    public void writeJson(BuildMetrics metrics, File file) throws IOException {
+
+        StringBuilder json = null;
+        List<Span> spans = null;
+        Map<String, Map<String, Long>> profiles = null;
+        int index = 0;
+
+        spans = metrics.getSpans();
+        profiles = new LinkedHashMap<String, Map<String, Long>>();
+
+        for (Span currSpan : spans)
+            if (!BuildMetrics.MAIN_TRACK.equals(currSpan.getTrack()) && !BuildMetrics.COMPILE.equals(currSpan.getCategory()))
+                add(getOrCreate(profiles, currSpan.getTrack()), currSpan.getCategory(), currSpan.getDuration());
+
+        json = new StringBuilder();
+        json.append("{\n  \"module\": ").append(quote(module));
+        json.append(",\n  \"startTime\": ").append(metrics.getStartTime());
+        json.append(",\n  \"phases\": ");
+        appendDurations(json, sumBy(spans, null), "  ");
+        json.append(",\n  \"profiles\": {");
+
+        for (Map.Entry<String, Map<String, Long>> currProfile : profiles.entrySet()) {
+
+            json.append(index++ > 0 ? ",\n    " : "\n    ").append(quote(currProfile.getKey())).append(": ");
+            appendDurations(json, currProfile.getValue(), "    ");
+        }
+
+        json.append(index > 0 ? "\n  }" : "}");
+        json.append(",\n  \"projects\": ");
+        appendDurations(json, sumBy(spans, BuildMetrics.COMPILE), "  ");
+        json.append(",\n  \"spans\": [");
+        index = 0;
+
+        for (Span currSpan : spans) {
+
+            json.append(index++ > 0 ? ",\n    " : "\n    ");
+            json.append("{\"name\": ").append(quote(currSpan.getName()));
+            json.append(", \"category\": ").append(quote(currSpan.getCategory()));
+            json.append(", \"track\": ").append(quote(currSpan.getTrack()));
+            json.append(", \"startMillis\": ").append(millis(currSpan.getStart()));
+            json.append(", \"durationMillis\": ").append(millis(currSpan.getDuration())).append("}");
+        }
+
+        json.append(index > 0 ? "\n  ]\n}\n" : "]\n}\n");
+
+        writeAtomically(file, json.toString());
+    }
+
+    /**
+     * Write the metrics in the text format of Prometheus. The file is replaced atomically, so the node exporter never reads a
+     * partially written file.
+     * 
+     * @param metrics The metrics.
+     * @param file The file to be written. Must end with <i>.prom</i> for being picked up by the node exporter.
+     * @throws IOException if the file could not be written.
+     */
+    public void writePrometheus(BuildMetrics metrics, File file) throws IOException {
+
+        StringBuilder text = null;
+        Map<String, Long> durations = null;
+        String currLabels = null;
+
+        durations = new LinkedHashMap<String, Long>();
+
+        for (Span currSpan : metrics.getSpans()) {
+
+            currLabels = "module=" + quote(module) + ",phase=" + quote(currSpan.getCategory()) + ",track="
+                    + quote(currSpan.getTrack()) + ",name=" + quote(currSpan.getName());
+            add(durations, currLabels, currSpan.getDuration());
+        }
+
+        text = new StringBuilder();
+        text.append("# HELP ojdeploy_phase_duration_seconds Wall time of the phases of the last ojdeploy build.\n");
+        text.append("# TYPE ojdeploy_phase_duration_seconds gauge\n");
+
+        for (Map.Entry<String, Long> currDuration : durations.entrySet())
+            text.append("ojdeploy_phase_duration_seconds{").append(currDuration.getKey()).append("} ")
+                    .append(seconds(currDuration.getValue().longValue())).append('\n');
+
+        text.append("# HELP ojdeploy_last_build_timestamp_seconds Start of the last ojdeploy build.\n");
+        text.append("# TYPE ojdeploy_last_build_timestamp_seconds gauge\n");
+        text.append("ojdeploy_last_build_timestamp_seconds{module=").append(quote(module)).append("} ")
+                .append(format(metrics.getStartTime() / 1000.0)).append('\n');
+
+        writeAtomically(file, text.toString());
+    }
+
+    /**
+     * Write the spans as trace in the Chrome Trace Event format. Every track becomes a thread of its own, so profiles deployed in
+     * parallel are shown side by side.
+     * 
+     * @param metrics The metrics.
+     * @param file The file to be written.
+     * @throws IOException if the file could not be written.
+     */
+    public void writeTrace(BuildMetrics metrics, File file) throws IOException {
+
+        StringBuilder json = null;
+        Map<String, Integer> threads = null;
+        List<Span> spans = null;
+        Integer currThread = null;
+
+        spans = metrics.getSpans();
+        threads = new LinkedHashMap<String, Integer>();
+        threads.put(BuildMetrics.MAIN_TRACK, Integer.valueOf(0));
+
+        for (Span currSpan : spans)
+            if (!threads.containsKey(currSpan.getTrack()))
+                threads.put(currSpan.getTrack(), Integer.valueOf(threads.size()));
+
+        json = new StringBuilder();
+        json.append("{\"displayTimeUnit\": \"ms\", \"traceEvents\": [\n");
+        json.append("  {\"name\": \"process_name\", \"ph\": \"M\", \"pid\": 1, \"tid\": 0, \"args\": {\"name\": ")
+                .append(quote(module)).append("}}");
+
+        for (Map.Entry<String, Integer> currTrack : threads.entrySet()) {
+
+            json.append(",\n  {\"name\": \"thread_name\", \"ph\": \"M\", \"pid\": 1, \"tid\": ").append(currTrack.getValue())
+                    .append(", \"args\": {\"name\": ").append(quote(currTrack.getKey())).append("}}");
+            json.append(",\n  {\"name\": \"thread_sort_index\", \"ph\": \"M\", \"pid\": 1, \"tid\": ")
+                    .append(currTrack.getValue()).append(", \"args\": {\"sort_index\": ").append(currTrack.getValue())
+                    .append("}}");
+        }
+
+        for (Span currSpan : spans) {
+
+            currThread = threads.get(currSpan.getTrack());
+            json.append(",\n  {\"name\": ").append(quote(currSpan.getName()));
+            json.append(", \"cat\": ").append(quote(currSpan.getCategory()));
+            json.append(", \"ph\": \"X\", \"ts\": ").append(currSpan.getStart());
+            json.append(", \"dur\": ").append(currSpan.getDuration());
+            json.append(", \"pid\": 1, \"tid\": ").append(currThread).append("}");
+        }
+
+        json.append("\n]}\n");
+
+        writeAtomically(file, json.toString());
+    }
+
+    /**
+     * Sum up the durations of the spans by their name or by their category.
+     * 
+     * @param spans The spans.
+     * @param category If given, durations of spans of this category are summed up by name. Otherwise all durations are summed up
+     *        by category.
+     * @return The durations in microseconds.
+     */
+    private Map<String, Long> sumBy(List<Span> spans, String category) {
+
+        Map<String, Long> durations = null;
+
+        durations = new LinkedHashMap<String, Long>();
+
+        for (Span currSpan : spans) {
+
+            if (category == null)
+                add(durations, currSpan.getCategory(), currSpan.getDuration());
+            else if (category.equals(currSpan.getCategory()))
+                add(durations, currSpan.getName(), currSpan.getDuration());
+        }
+
+        return durations;
+    }
+
+    private static void add(Map<String, Long> durations, String key, long duration) {
+
+        Long sum = durations.get(key);
+
+        durations.put(key, Long.valueOf(sum != null ? sum.longValue() + duration : duration));
+    }
+
+    private static Map<String, Long> getOrCreate(Map<String, Map<String, Long>> map, String key) {
+
+        if (!map.containsKey(key))
+            map.put(key, new LinkedHashMap<String, Long>());
+
+        return map.get(key);
+    }
+
+    private static void appendDurations(StringBuilder json, Map<String, Long> durations, String indent) {
+
+        int index = 0;
+
+        json.append('{');
+
+        for (Map.Entry<String, Long> currDuration : durations.entrySet()) {
+
+            json.append(index++ > 0 ? ",\n  " : "\n  ").append(indent).append(quote(currDuration.getKey())).append(": ")
+                    .append(millis(currDuration.getValue().longValue()));
+        }
+
+        json.append(index > 0 ? "\n" + indent + "}" : "}");
+    }
+
+    private static String millis(long micros) {
+
+        return format(micros / 1000.0);
+    }
+
+    private static String seconds(long micros) {
+
+        return String.format(Locale.ROOT, "%.6f", micros / 1000000.0);
+    }
+
+    private static String format(double value) {
+
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    /**
+     * Quote a string as required by JSON and by the label values of Prometheus.
+     */
+    static String quote(String value) {
+
+        StringBuilder quoted = null;
+        char curr = 0;
+
+        quoted = new StringBuilder(value.length() + 2).append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+
+            curr = value.charAt(i);
+
+            if (curr == '"' || curr == '\\')
+                quoted.append('\\').append(curr);
+            else if (curr == '\n')
+                quoted.append("\\n");
+            else if (curr < ' ')
+                quoted.append(String.format("\\u%04x", Integer.valueOf(curr)));
+            else
+                quoted.append(curr);
+        }
+
+        return quoted.append('"').toString();
+    }
+
+    private static void writeAtomically(File file, String content) throws IOException {
+
+        File tmpFile = null;
+
+        tmpFile = new File(file.getAbsoluteFile().getParentFile(), "." + file.getName() + ".tmp");
+        FileUtils.writeStringToFile(tmpFile, content, ENCODING);
+
+        if (!tmpFile.renameTo(file)) {
+
+            FileUtils.deleteQuietly(file);
+
+            if (!tmpFile.renameTo(file))
+                throw new IOException("Could not rename " + tmpFile + " to " + file + "!");
+        }
+    }
+}
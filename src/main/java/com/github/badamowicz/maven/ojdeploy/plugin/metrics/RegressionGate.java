@@ -0,0 +1,146 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.exceptions.OjdeployExecutionException;
+
+/**
+ * Compares a run with the baseline of its profile taken from the {@link RunHistory}. The baseline is the median of the latest
+ * runs, so it follows lasting changes of a profile while a single outlier does not move it.
+ * 
+ * @author bernd
+ *
+ */
+public class RegressionGate {
+
+    /**
+     * What to do about a regression.
+     */
+    public enum Action {
+        OFF, WARN, FAIL;
+
+        /**
+         * @param action The name of the action, ignoring the case.
+         * @return The action.
+         * @throws OjdeployExecutionException if the name is not known.
+         */
+        public static Action parse(String action) {
+
+            try {
+
+                return valueOf(action.trim().toUpperCase());
+
+            } catch (IllegalArgumentException e) {
+
+                throw new OjdeployExecutionException("Unknown regression action '" + action + "'! Use one of off, warn, fail.");
+            }
+        }
+    }
+
+    /** The number of latest runs of a profile the baseline is taken from. */
+    static final int   BASELINE_RUNS     = 20;
+
+    /** Fewer runs are no baseline. */
+    static final int   MIN_BASELINE_RUNS = 5;
+
+    private RunHistory history           = null;
+    private int        threshold         = 0;
+
+    /**
+     * @param history The history holding the runs the baseline is taken from.
+     * @param threshold The percentage a run may exceed the baseline by.
+     */
+    public RegressionGate(RunHistory history, int threshold) {
+
+        super();
+        this.history = history;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Compare a run with the baseline. Call this before appending the run to the history.
+     * 
+     * @param workspace The absolute path of the workspace.
+     * @param profile The name of the profile.
+     * @param nodependents true, if the run deployed the profile only. Then only such runs form the baseline.
+     * @param duration The duration of the run in milliseconds.
+     * @param peakRssBytes The peak memory of the run or -1 if unknown.
+     * @return A description of every regression found. Empty if the run is within the threshold or there is no baseline yet.
+     */
+    public List<String> check(String workspace, String profile, boolean nodependents, long duration, long peakRssBytes) {
+
+        List<String> regressions = null;
+        List<RunHistory.Run> runs = null;
+        List<Long> peaks = null;
+        long baseline = 0;
+
+        regressions = new ArrayList<String>();
+        runs = history.getRuns(workspace, profile, nodependents, BASELINE_RUNS);
+
+        if (runs.size() < MIN_BASELINE_RUNS)
+            return regressions;
+
+        baseline = RunHistory.percentile(RunHistory.getDurations(runs), 50);
+
+        if (exceeds(duration, baseline))
+            regressions.add("Duration " + duration / 1000 + "s of profile " + profile + " exceeds its baseline of " + baseline
+                    / 1000 + "s by " + getExcess(duration, baseline) + "%.");
+
+        peaks = new ArrayList<Long>();
+
+        for (RunHistory.Run currRun : runs)
+            if (currRun.getPeakRssBytes() > 0)
+                peaks.add(Long.valueOf(currRun.getPeakRssBytes()));
+
+        if (peakRssBytes <= 0 || peaks.size() < MIN_BASELINE_RUNS)
+            return regressions;
+
+        baseline = RunHistory.percentile(peaks, 50);
+
+        if (exceeds(peakRssBytes, baseline))
+            regressions.add("Peak memory " + FileUtils.byteCountToDisplaySize(peakRssBytes) + " of profile " + profile
+                    + " exceeds its baseline of " + FileUtils.byteCountToDisplaySize(baseline) + " by "
+                    + getExcess(peakRssBytes, baseline) + "%.");
+
+        return regressions;
+    }
+
+    private boolean exceeds(long value, long baseline) {
+
+        return baseline > 0 && value * 100 > baseline * (100 + threshold);
+    }
+
+    private static long getExcess(long value, long baseline) {
+
+        return (value - baseline) * 100 / baseline;
+    }
+}
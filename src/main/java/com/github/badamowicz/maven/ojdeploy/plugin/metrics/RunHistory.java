@@ -0,0 +1,468 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.metrics;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * History of successful ojdeploy runs. Every run is appended as a single tab separated line holding time, workspace, profile,
+ * scope, duration and peak memory. The scope tells whether the run deployed the profile only using <i>-nodependents</i> or its
+ * dependencies as well, so short runs don't form the baseline of full ones. Lines which can't be parsed, e.g. a line torn by a
+ * crash, are skipped.
+ * <p>
+ * The history stays small: once the file exceeds its size limit, it is rewritten keeping only the latest runs of every
+ * workspace, profile and scope. Several builds may share the same history file. Appending and rewriting are serialized by an
+ * exclusive {@link FileLock} on a lock file next to the history. Reading does not require any lock, since the rewritten file
+ * replaces the old one by renaming it.
+ * 
+ * @author bernd
+ *
+ */
+public class RunHistory {
+
+    private static final Logger              LOG           = Logger.getLogger(RunHistory.class);
+
+    private static final String              SEPARATOR     = "\t";
+    private static final String              ENCODING      = "UTF-8";
+
+    /** Scope of a run deploying the profile including its dependencies. */
+    private static final String              SCOPE_FULL    = "full";
+
+    /** Scope of a run deploying the profile only, using <i>-nodependents</i>. */
+    private static final String              SCOPE_PROFILE = "nodependents";
+
+    private static final String              LOCK_SUFFIX   = ".lock";
+
+    /** Size in bytes the history file is compacted at. About 5000 runs. */
+    private static final long                MAX_SIZE      = 512 * 1024;
+
+    /** Runs kept per workspace, profile and scope when compacting. Covers the windows of adaptive timeout and baseline. */
+    private static final int                 RUNS_KEPT     = 50;
+
+    /** Monitors serializing the threads of this JVM writing to the same history file. */
+    private static final Map<String, Object> MONITORS      = new HashMap<String, Object>();
+
+    private File                             file          = null;
+    private long                             maxSize       = 0;
+    private int                              runsKept      = 0;
+
+    /**
+     * @param file The history file. It is created on the first run appended.
+     */
+    public RunHistory(File file) {
+
+        this(file, MAX_SIZE, RUNS_KEPT);
+    }
+
+    /**
+     * @param file The history file. It is created on the first run appended.
+     * @param maxSize The size in bytes the history file is compacted at.
+     * @param runsKept The number of runs kept per workspace, profile and scope when compacting.
+     */
+    RunHistory(File file, long maxSize, int runsKept) {
+
+        super();
+        this.file = file;
+        this.maxSize = maxSize;
+        this.runsKept = runsKept;
+    }
+
+    /**
+     * Append a successful run to the history. Failures are logged only, since the history must never break a build.
+     * 
+     * @param run The run.
+     */
+    public synchronized void append(Run run) {
+
+        RandomAccessFile lockFile = null;
+        FileLock lock = null;
+        OutputStream os = null;
+
+        if (file.getAbsoluteFile().getParentFile() != null)
+            file.getAbsoluteFile().getParentFile().mkdirs();
+
+        synchronized (getMonitor()) {
+
+            try {
+
+                lockFile = new RandomAccessFile(new File(file.getPath() + LOCK_SUFFIX), "rw");
+                lock = lockFile.getChannel().lock();
+
+                os = new FileOutputStream(file, true);
+                os.write(format(run).getBytes(ENCODING));
+                os.close();
+
+                if (file.length() > maxSize)
+                    compact();
+
+            } catch (IOException e) {
+
+                LOG.warn("Could not append run to history " + file + ".", e);
+
+            } finally {
+
+                IOUtils.closeQuietly(os);
+                release(lock);
+                IOUtils.closeQuietly(lockFile);
+            }
+        }
+    }
+
+    /**
+     * Rewrite the history file keeping only the latest runs of every workspace, profile and scope. Must be called while holding
+     * the lock of the history.
+     * 
+     * @throws IOException if the history could not be rewritten.
+     */
+    private void compact() throws IOException {
+
+        List<Run> runs = null;
+        Map<String, Integer> counts = null;
+        Map<String, Integer> seen = null;
+        StringBuilder content = null;
+        File tmpFile = null;
+        String currKey = null;
+        int currSeen = 0;
+        int kept = 0;
+
+        runs = readAll();
+        counts = new HashMap<String, Integer>();
+        seen = new HashMap<String, Integer>();
+        content = new StringBuilder();
+
+        for (Run currRun : runs) {
+
+            currKey = getKey(currRun);
+            counts.put(currKey, Integer.valueOf(counts.containsKey(currKey) ? counts.get(currKey).intValue() + 1 : 1));
+        }
+
+        for (Run currRun : runs) {
+
+            currKey = getKey(currRun);
+            currSeen = seen.containsKey(currKey) ? seen.get(currKey).intValue() : 0;
+            seen.put(currKey, Integer.valueOf(currSeen + 1));
+
+            if (currSeen >= counts.get(currKey).intValue() - runsKept) {
+
+                content.append(format(currRun));
+                kept++;
+            }
+        }
+
+        tmpFile = new File(file.getAbsoluteFile().getParentFile(), "." + file.getName() + ".tmp");
+        FileUtils.writeStringToFile(tmpFile, content.toString(), ENCODING);
+
+        if (!tmpFile.renameTo(file)) {
+
+            FileUtils.deleteQuietly(file);
+
+            if (!tmpFile.renameTo(file))
+                throw new IOException("Could not rename " + tmpFile + " to " + file + "!");
+        }
+
+        LOG.debug("Compacted history " + file + " from " + runs.size() + " to " + kept + " runs.");
+    }
+
+    /**
+     * @return All runs of the history file in the order they have been appended. Malformed lines are left out.
+     * @throws IOException if the file could not be read.
+     */
+    private List<Run> readAll() throws IOException {
+
+        List<Run> runs = null;
+        BufferedReader reader = null;
+        String currLine = null;
+        Run currRun = null;
+
+        runs = new ArrayList<Run>();
+
+        try {
+
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), ENCODING));
+
+            while ((currLine = reader.readLine()) != null) {
+
+                currRun = parse(currLine);
+
+                if (currRun != null)
+                    runs.add(currRun);
+            }
+
+        } finally {
+
+            IOUtils.closeQuietly(reader);
+        }
+
+        return runs;
+    }
+
+    /**
+     * @return The monitor serializing the threads of this JVM writing to the history file. Two channels of the same file must
+     *         not be open at the same time, since closing one of them releases the lock of the other one.
+     */
+    private Object getMonitor() {
+
+        String path = file.getAbsolutePath();
+
+        synchronized (MONITORS) {
+
+            if (!MONITORS.containsKey(path))
+                MONITORS.put(path, new Object());
+
+            return MONITORS.get(path);
+        }
+    }
+
+    private void release(FileLock lock) {
+
+        if (lock == null)
+            return;
+
+        try {
+
+            lock.release();
+
+        } catch (IOException e) {
+
+            LOG.warn("Could not release lock of history " + file + ".", e);
+        }
+    }
+
+    private static String getKey(Run run) {
+
+        return run.getWorkspace() + SEPARATOR + run.getProfile() + SEPARATOR + run.isNodependents();
+    }
+
+    /**
+     * @param run The run.
+     * @return The line of the history file holding the run, including the line break.
+     */
+    static String format(Run run) {
+
+        StringBuilder line = null;
+
+        line = new StringBuilder();
+        line.append(run.getTime()).append(SEPARATOR).append(run.getWorkspace()).append(SEPARATOR).append(run.getProfile())
+                .append(SEPARATOR).append(run.isNodependents() ? SCOPE_PROFILE : SCOPE_FULL).append(SEPARATOR)
+                .append(run.getDuration()).append(SEPARATOR).append(run.getPeakRssBytes()).append('\n');
+
+        return line.toString();
+    }
+
+    /**
+     * Read the latest runs of a profile having the given scope.
+     * 
+     * @param workspace The absolute path of the workspace.
+     * @param profile The name of the profile.
+     * @param nodependents true, for reading the runs which deployed the profile only.
+     * @param window The maximum number of runs returned.
+     * @return The latest runs, the oldest first. Empty if there is no history.
+     */
+    public synchronized List<Run> getRuns(String workspace, String profile, boolean nodependents, int window) {
+
+        LinkedList<Run> runs = null;
+        BufferedReader reader = null;
+        String currLine = null;
+        Run currRun = null;
+
+        runs = new LinkedList<Run>();
+
+        if (!file.isFile())
+            return runs;
+
+        try {
+
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), ENCODING));
+
+            while ((currLine = reader.readLine()) != null) {
+
+                currRun = parse(currLine);
+
+                if (currRun == null || !currRun.getWorkspace().equals(workspace) || !currRun.getProfile().equals(profile)
+                        || currRun.isNodependents() != nodependents)
+                    continue;
+
+                runs.add(currRun);
+
+                if (runs.size() > window)
+                    runs.removeFirst();
+            }
+
+        } catch (IOException e) {
+
+            LOG.warn("Could not read history " + file + ".", e);
+
+        } finally {
+
+            IOUtils.closeQuietly(reader);
+        }
+
+        return runs;
+    }
+
+    /**
+     * @param line A line of the history file.
+     * @return The run or <b>null</b> if the line is malformed.
+     */
+    static Run parse(String line) {
+
+        String[] fields = line.split(SEPARATOR);
+
+        if (fields.length != 6 || !(fields[3].equals(SCOPE_FULL) || fields[3].equals(SCOPE_PROFILE)))
+            return null;
+
+        try {
+
+            return new Run(Long.parseLong(fields[0]), fields[1], fields[2], fields[3].equals(SCOPE_PROFILE),
+                    Long.parseLong(fields[4]), Long.parseLong(fields[5]));
+
+        } catch (NumberFormatException e) {
+
+            return null;
+        }
+    }
+
+    /**
+     * Calculate a percentile by the nearest rank method.
+     * 
+     * @param values The values. Must not be empty.
+     * @param percentile The percentile between 1 and 100.
+     * @return The smallest value such that at least the given percentage of values is lower or equal.
+     */
+    public static long percentile(List<Long> values, int percentile) {
+
+        List<Long> sorted = null;
+        int rank = 0;
+
+        sorted = new ArrayList<Long>(values);
+        Collections.sort(sorted);
+        rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+
+        return sorted.get(Math.min(Math.max(rank, 1), sorted.size()) - 1).longValue();
+    }
+
+    /**
+     * @param runs The runs.
+     * @return The durations of the runs in milliseconds.
+     */
+    public static List<Long> getDurations(List<Run> runs) {
+
+        List<Long> durations = null;
+
+        durations = new ArrayList<Long>();
+
+        for (Run currRun : runs)
+            durations.add(Long.valueOf(currRun.getDuration()));
+
+        return durations;
+    }
+
+    public File getFile() {
+
+        return file;
+    }
+
+    /**
+     * A single successful run of a profile.
+     */
+    public static class Run {
+
+        private long    time         = 0;
+        private String  workspace    = null;
+        private String  profile      = null;
+        private boolean nodependents = false;
+        private long    duration     = 0;
+        private long    peakRssBytes = -1;
+
+        /**
+         * @param time The time the run has finished at.
+         * @param workspace The absolute path of the workspace.
+         * @param profile The name of the profile.
+         * @param nodependents true, if the run deployed the profile only using <i>-nodependents</i>.
+         * @param duration The time in milliseconds the ojdeploy process has been running.
+         * @param peakRssBytes The peak memory of the process tree or -1 if unknown.
+         */
+        public Run(long time, String workspace, String profile, boolean nodependents, long duration, long peakRssBytes) {
+
+            super();
+            this.time = time;
+            this.workspace = workspace;
+            this.profile = profile;
+            this.nodependents = nodependents;
+            this.duration = duration;
+            this.peakRssBytes = peakRssBytes;
+        }
+
+        public long getTime() {
+
+            return time;
+        }
+
+        public String getWorkspace() {
+
+            return workspace;
+        }
+
+        public String getProfile() {
+
+            return profile;
+        }
+
+        public boolean isNodependents() {
+
+            return nodependents;
+        }
+
+        public long getDuration() {
+
+            return duration;
+        }
+
+        public long getPeakRssBytes() {
+
+            return peakRssBytes;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.metrics;
+
+/**
+ * A phase of a build measured by {@link BuildMetrics}. Times are given in microseconds relative to the start of the metrics.
+ * 
+ * @author bernd
+ *
+ */
+public class Span {
+
+    private String name     = null;
+    private String category = null;
+    private String track    = null;
+    private long   start    = 0;
+    private long   duration = 0;
+
+    /**
+     * @param name The name of the span, e.g. the project being compiled.
+     * @param category The kind of phase, see the constants of {@link BuildMetrics}.
+     * @param track The sequence of phases the span belongs to, e.g. the profile. Tracks are run in parallel.
+     * @param start The start in microseconds relative to the start of the metrics.
+     * @param duration The duration in microseconds.
+     */
+    public Span(String name, String category, String track, long start, long duration) {
+
+        super();
+        this.name = name;
+        this.category = category;
+        this.track = track;
+        this.start = start;
+        this.duration = duration;
+    }
+
+    public String getName() {
+
+        return name;
+    }
+
+    public String getCategory() {
+
+        return category;
+    }
+
+    public String getTrack() {
+
+        return track;
+    }
+
+    public long getStart() {
+
+        return start;
+    }
+
+    public long getDuration() {
+
+        return duration;
+    }
+
+    @Override
+    public String toString() {
+
+        return "Span[" + category + ":" + name + ":" + track + ":" + duration + "us]";
+    }
+}
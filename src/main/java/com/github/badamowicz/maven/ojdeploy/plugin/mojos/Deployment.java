@@ -0,0 +1,103 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.mojos;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * A single deployment inside the parameter 'deployments' of {@link OjdeployMojo}. All deployments are run by one ojdeploy
+ * process using a generated build file.
+ * 
+ * @author bernd
+ *
+ */
+public class Deployment {
+
+    private File         workspaceFile = null;
+    private String       profile       = null;
+    private String       project       = null;
+    private List<String> defines       = null;
+
+    /**
+     * @return The workspace containing the profile. If omitted, the Mojo's parameter 'workspaceFile' is used.
+     */
+    public File getWorkspaceFile() {
+
+        return workspaceFile;
+    }
+
+    public void setWorkspaceFile(File workspaceFile) {
+
+        this.workspaceFile = workspaceFile;
+    }
+
+    /**
+     * @return The name of the profile to be deployed.
+     */
+    public String getProfile() {
+
+        return profile;
+    }
+
+    public void setProfile(String profile) {
+
+        this.profile = profile;
+    }
+
+    /**
+     * @return The project containing the profile. If omitted, the profile is assumed to be in the workspace.
+     */
+    public String getProject() {
+
+        return project;
+    }
+
+    public void setProject(String project) {
+
+        this.project = project;
+    }
+
+    /**
+     * @return Variables used for this deployment only.
+     */
+    public List<String> getDefines() {
+
+        return defines;
+    }
+
+    public void setDefines(List<String> defines) {
+
+        this.defines = defines;
+    }
+
+    @Override
+    public String toString() {
+
+        return "Deployment[" + workspaceFile + ":" + project + ":" + profile + "]";
+    }
+}
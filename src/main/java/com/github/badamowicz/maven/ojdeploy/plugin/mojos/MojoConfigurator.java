@@ -0,0 +1,390 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.mojos;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.log4j.Logger;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.apache.maven.plugin.descriptor.Parameter;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.introspection.ReflectionValueExtractor;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.exceptions.OjdeployExecutionException;
+
+/**
+ * Creates {@link OjdeployMojo} objects from the plugin configuration of a module inside the reactor. Like Maven does for the
+ * goal <i>ojdeploy</i>, a parameter not configured explicitly is taken from its property, e.g. <i>-Dtimeout=...</i>, or else from
+ * its default value as declared in the plugin descriptor. So an aggregated module is deployed with the same parameters as if it
+ * was built on its own. Expressions are resolved against the system properties, the properties of the module and the module
+ * itself, e.g. <i>${project.build.directory}</i>. Parameters whose expression can't be resolved keep the value <b>null</b>.
+ * 
+ * @author bernd
+ *
+ */
+public class MojoConfigurator {
+
+    private static final Logger  LOG        = Logger.getLogger(MojoConfigurator.class);
+
+    private static final String  PLUGIN_KEY = "com.github.badamowicz:ojdeploy-maven-plugin";
+    private static final String  GOAL       = "ojdeploy";
+    private static final Pattern EXPRESSION = Pattern.compile("\\$\\{([^}]+)\\}");
+
+    private MojoDescriptor       descriptor = null;
+
+    /**
+     * @param pluginDescriptor The descriptor of this plugin. The parameters of the goal <i>ojdeploy</i> are taken from it.
+     * @throws OjdeployExecutionException if the descriptor does not contain the goal <i>ojdeploy</i>.
+     */
+    public MojoConfigurator(PluginDescriptor pluginDescriptor) {
+
+        super();
+
+        if (pluginDescriptor == null || pluginDescriptor.getMojo(GOAL) == null)
+            throw new OjdeployExecutionException("Descriptor of goal '" + GOAL + "' not found!");
+
+        descriptor = pluginDescriptor.getMojo(GOAL);
+    }
+
+    /**
+     * Create one Mojo per execution of the goal <i>ojdeploy</i> inside the given module.
+     * 
+     * @param project The module.
+     * @return The configured Mojos. The list is empty if the module does not use the goal <i>ojdeploy</i>.
+     */
+    public List<OjdeployMojo> configure(MavenProject project) {
+
+        List<OjdeployMojo> mojos = null;
+        Plugin plugin = null;
+        Xpp3Dom currConfig = null;
+
+        mojos = new ArrayList<OjdeployMojo>();
+        plugin = project.getPlugin(PLUGIN_KEY);
+
+        if (plugin == null)
+            return mojos;
+
+        for (PluginExecution currExecution : plugin.getExecutions()) {
+
+            if (!currExecution.getGoals().contains(GOAL))
+                continue;
+
+            currConfig = merge((Xpp3Dom) currExecution.getConfiguration(), (Xpp3Dom) plugin.getConfiguration());
+            mojos.add(createMojo(project, currConfig));
+            LOG.debug("Found execution " + currExecution.getId() + " of goal " + GOAL + " in module " + project.getArtifactId()
+                    + ".");
+        }
+
+        return mojos;
+    }
+
+    /**
+     * Merge the configuration of an execution with the configuration of the plugin. Elements of the execution win.
+     */
+    private Xpp3Dom merge(Xpp3Dom executionConfig, Xpp3Dom pluginConfig) {
+
+        if (executionConfig == null)
+            return pluginConfig;
+
+        if (pluginConfig == null)
+            return executionConfig;
+
+        return Xpp3Dom.mergeXpp3Dom(new Xpp3Dom(executionConfig), new Xpp3Dom(pluginConfig));
+    }
+
+    /**
+     * Create a Mojo from the given configuration.
+     * 
+     * @param project The module the configuration belongs to. Relative paths are resolved against its base directory.
+     * @param config The configuration. May be null.
+     * @return The Mojo.
+     */
+    OjdeployMojo createMojo(MavenProject project, Xpp3Dom config) {
+
+        OjdeployMojo mojo = null;
+
+        mojo = new OjdeployMojo();
+        mojo.setBuildDirectory(new File(project.getBuild().getDirectory()));
+        mojo.setMavenProject(project);
+
+        if (config != null)
+            configure(mojo, config, project.getBasedir());
+
+        applyDefaults(mojo, config, project);
+
+        return mojo;
+    }
+
+    /**
+     * Set all parameters of the given Mojo which are not configured explicitly from their property or their default value.
+     * 
+     * @param mojo The Mojo.
+     * @param config The explicit configuration. May be null.
+     * @param project The module the Mojo belongs to.
+     */
+    private void applyDefaults(OjdeployMojo mojo, Xpp3Dom config, MavenProject project) {
+
+        Field currField = null;
+        Object currValue = null;
+
+        for (Parameter currParam : descriptor.getParameters()) {
+
+            if (config != null && config.getChild(currParam.getName()) != null)
+                continue;
+
+            currValue = evaluate(currParam.getExpression(), project);
+
+            if (currValue == null)
+                currValue = evaluate(currParam.getDefaultValue(), project);
+
+            if (currValue == null)
+                continue;
+
+            try {
+
+                currField = OjdeployMojo.class.getDeclaredField(currParam.getName());
+
+                // lists can't be given by properties
+                if (currValue instanceof String && !currField.getType().isAssignableFrom(List.class))
+                    currValue = convert(currField.getType(), (String) currValue, project.getBasedir());
+
+                if (!currField.getType().isInstance(currValue)) {
+
+                    LOG.debug("Ignoring value of type " + currValue.getClass().getName() + " of parameter "
+                            + currParam.getName() + ".");
+                    continue;
+                }
+
+                currField.setAccessible(true);
+                currField.set(mojo, currValue);
+
+            } catch (Exception e) {
+
+                throw new OjdeployExecutionException("Was not able to apply the default of parameter " + currParam.getName()
+                        + "!", e);
+            }
+        }
+    }
+
+    /**
+     * Resolve the expressions inside the given value.
+     * 
+     * @param value The value, e.g. <i>${user.home}/.ojdeploy/slots</i>. May be null.
+     * @param project The module expressions starting with <i>project</i> are resolved against.
+     * @return The resolved value. If the value consists of a single expression only, this may be an object like the
+     *         {@link MavenProject} itself. <b>null</b> if any of the expressions can't be resolved.
+     */
+    Object evaluate(String value, MavenProject project) {
+
+        Matcher matcher = null;
+        StringBuffer resolved = null;
+        Object currValue = null;
+
+        if (value == null)
+            return null;
+
+        matcher = EXPRESSION.matcher(value);
+
+        if (matcher.matches())
+            return resolve(matcher.group(1), project);
+
+        resolved = new StringBuffer();
+        matcher.reset();
+
+        while (matcher.find()) {
+
+            currValue = resolve(matcher.group(1), project);
+
+            if (currValue == null)
+                return null;
+
+            matcher.appendReplacement(resolved, Matcher.quoteReplacement(currValue.toString()));
+        }
+
+        matcher.appendTail(resolved);
+
+        return resolved.toString();
+    }
+
+    private Object resolve(String name, MavenProject project) {
+
+        if (name.equals("project"))
+            return project;
+
+        if (name.equals("basedir"))
+            return project.getBasedir();
+
+        if (name.startsWith("project.")) {
+
+            try {
+
+                return ReflectionValueExtractor.evaluate(name, project);
+
+            } catch (Exception e) {
+
+                LOG.debug("Could not resolve expression " + name + ".", e);
+                return null;
+            }
+        }
+
+        if (System.getProperty(name) != null)
+            return System.getProperty(name);
+
+        return project.getProperties().getProperty(name);
+    }
+
+    /**
+     * Set all fields of the given bean named by the children of the given configuration.
+     * 
+     * @param bean The bean to be configured.
+     * @param config The configuration.
+     * @param baseDir The directory relative paths are resolved against.
+     */
+    void configure(Object bean, Xpp3Dom config, File baseDir) {
+
+        Field currField = null;
+
+        for (Xpp3Dom currChild : config.getChildren()) {
+
+            try {
+
+                currField = bean.getClass().getDeclaredField(currChild.getName());
+                currField.setAccessible(true);
+                currField.set(bean, convert(currField, currChild, baseDir));
+
+            } catch (NoSuchFieldException e) {
+
+                LOG.warn("Ignoring unknown parameter " + currChild.getName() + ".");
+
+            } catch (Exception e) {
+
+                throw new OjdeployExecutionException("Was not able to configure parameter " + currChild.getName() + "!", e);
+            }
+        }
+    }
+
+    private Object convert(Field field, Xpp3Dom element, File baseDir) throws InstantiationException, IllegalAccessException {
+
+        Class<?> elementType = null;
+        List<Object> list = null;
+        Object currBean = null;
+
+        if (field.getType().isAssignableFrom(List.class)) {
+
+            elementType = (Class<?>) ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+            list = new ArrayList<Object>();
+
+            for (Xpp3Dom currChild : element.getChildren()) {
+
+                if (elementType.equals(String.class)) {
+
+                    list.add(currChild.getValue());
+
+                } else {
+
+                    currBean = elementType.newInstance();
+                    configure(currBean, currChild, baseDir);
+                    list.add(currBean);
+                }
+            }
+
+            return list;
+        }
+
+        return convert(field.getType(), element.getValue(), baseDir);
+    }
+
+    /**
+     * Convert the value of a configuration element to the type of its field. Besides files and strings, every type offering a
+     * static method <i>valueOf(String)</i> is supported, e.g. all wrappers of primitive types and enums.
+     * 
+     * @param type The type of the field.
+     * @param value The value. May be null.
+     * @param baseDir The directory relative paths are resolved against.
+     * @return The converted value.
+     * @throws IllegalArgumentException if the type is not supported or the value is not valid for it.
+     */
+    private Object convert(Class<?> type, String value, File baseDir) {
+
+        File file = null;
+        Method valueOf = null;
+
+        if (value == null)
+            return null;
+
+        value = value.trim();
+
+        if (type.equals(File.class)) {
+
+            file = new File(value);
+            return file.isAbsolute() || baseDir == null ? file : new File(baseDir, value);
+
+        } else if (type.equals(String.class) || type.equals(Object.class)) {
+
+            return value;
+        }
+
+        try {
+
+            valueOf = type.getMethod("valueOf", String.class);
+
+        } catch (NoSuchMethodException e) {
+
+            throw new IllegalArgumentException("Parameters of type " + type.getName() + " are not supported!", e);
+        }
+
+        if (!Modifier.isStatic(valueOf.getModifiers()) || !type.isAssignableFrom(valueOf.getReturnType()))
+            throw new IllegalArgumentException("Parameters of type " + type.getName() + " are not supported!");
+
+        try {
+
+            return valueOf.invoke(null, value);
+
+        } catch (InvocationTargetException e) {
+
+            throw new IllegalArgumentException("Value '" + value + "' is not a valid " + type.getSimpleName() + "!",
+                    e.getCause());
+
+        } catch (IllegalAccessException e) {
+
+            throw new IllegalArgumentException("Parameters of type " + type.getName() + " are not supported!", e);
+        }
+    }
+}
@@ -0,0 +1,474 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.mojos;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.project.MavenProject;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.exceptions.OjdeployExecutionException;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.DeploymentProfile;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.ExecutionResult;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.MojoParameter;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.MojoParameters;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.OjdeployExecutor;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.WorkspaceModel;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.WorkspaceParser;
+
+/**
+ * Mojo deploys the profiles of all modules of the reactor using the goal <i>ojdeploy</i> by as few ojdeploy processes as
+ * possible. The configuration of every module's <i>ojdeploy</i> executions is collected. All executions sharing the same
+ * parameters apart from workspace, project, profile and defines are merged into one build file and deployed by a single ojdeploy
+ * process.
+ * <p>
+ * Afterwards the results are mapped back to the modules: the property <i>ojdeploy.exitValue</i> of every module is set to the
+ * exit value of its ojdeploy process and the property <i>ojdeploy.archives</i> lists the archives of its profiles. If the
+ * process succeeded, the goal <i>ojdeploy</i> of the modules is skipped for the rest of the build. Modules of failed groups and
+ * of dry runs are left to their own execution. Therefore this goal must run before the modules are built, e.g. by binding it
+ * to the aggregating project or calling it from the command line.
+ * 
+ * @goal aggregate
+ * @aggregator
+ * @requiresProject true
+ * @threadSafe
+ *
+ */
+public class OjdeployAggregateMojo extends AbstractMojo {
+
+    private static final Logger       LOG                 = Logger.getLogger(OjdeployAggregateMojo.class);
+
+    static final String               EXIT_VALUE_PROPERTY = "ojdeploy.exitValue";
+    static final String               ARCHIVES_PROPERTY   = "ojdeploy.archives";
+
+    private static final String       STATE_DIR           = "ojdeploy";
+    private static final List<String> DEPLOYMENT_PARAMS   = Arrays.asList(new String[] { "workspaceFile", "project", "profile",
+            "defines"                                   });
+    private static final List<String> BATCH_PARAMS        = Arrays.asList(new String[] { "buildFile", "buildFileSchema" });
+
+    /**
+     * All projects of the reactor.
+     * 
+     * @parameter default-value="${reactorProjects}"
+     * @readonly
+     * @required
+     */
+    private List<MavenProject>        reactorProjects     = null;
+
+    /**
+     * The build directory of the aggregating project. The generated build files and log files are stored below this directory.
+     * 
+     * @parameter default-value="${project.build.directory}"
+     * @readonly
+     */
+    private File                      buildDirectory      = null;
+
+    /**
+     * If set to true, the build files are generated but ojdeploy is not executed.
+     * 
+     * @parameter property="dryRun" default-value="false"
+     */
+    private Boolean                   dryRun              = null;
+
+    /**
+     * The maximum number of ojdeploy processes running at the same time on this host. See the goal <i>ojdeploy</i>.
+     * 
+     * @parameter property="maxProcesses"
+     */
+    private Integer                   maxProcesses        = null;
+
+    /**
+     * The directory holding the lock files which limit the number of ojdeploy processes. See the goal <i>ojdeploy</i>.
+     * 
+     * @parameter property="throttleDirectory" default-value="${user.home}/.ojdeploy/slots"
+     */
+    private File                      throttleDirectory   = null;
+
+    /**
+     * Time in seconds to wait for a free slot for running ojdeploy. See the goal <i>ojdeploy</i>.
+     * 
+     * @parameter property="throttleTimeout" default-value="3600"
+     */
+    private Long                      throttleTimeout     = null;
+
+    /**
+     * The descriptor of this plugin. The default values of the parameters of goal <i>ojdeploy</i> are taken from it.
+     * 
+     * @parameter default-value="${plugin}"
+     * @readonly
+     * @required
+     */
+    private PluginDescriptor          pluginDescriptor    = null;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+
+        Map<String, List<ModuleDeployment>> groups = null;
+        List<ExecutionResult> results = null;
+        int index = 0;
+
+        try {
+
+            groups = groupDeployments(collectDeployments());
+            results = new ArrayList<ExecutionResult>();
+
+            LOG.info("Deploying " + groups.size() + " groups of modules by one ojdeploy process each.");
+
+            for (List<ModuleDeployment> currGroup : groups.values())
+                results.addAll(executeGroup(currGroup, ++index));
+
+        } catch (Exception e) {
+
+            throw new MojoExecutionException("Failed executing ojdeploy for the reactor!\n", e);
+        }
+
+        OjdeployMojo.checkResults(results);
+    }
+
+    /**
+     * Collect the executions of the goal <i>ojdeploy</i> of all modules.
+     * 
+     * @return One {@link ModuleDeployment} per execution which can be batched.
+     */
+    List<ModuleDeployment> collectDeployments() {
+
+        List<ModuleDeployment> deployments = null;
+        MojoConfigurator configurator = null;
+
+        deployments = new ArrayList<ModuleDeployment>();
+        configurator = new MojoConfigurator(getPluginDescriptor());
+
+        for (MavenProject currProject : getReactorProjects()) {
+
+            for (OjdeployMojo currMojo : configurator.configure(currProject)) {
+
+                if (currMojo.getBuildFile() != null || Boolean.TRUE.equals(currMojo.getBuildFileSchema())) {
+
+                    LOG.warn("Execution of module " + currProject.getArtifactId()
+                            + " uses 'buildFile' or 'buildFileSchema' and is left to the module itself.");
+                    continue;
+                }
+
+                deployments.add(new ModuleDeployment(currProject, currMojo));
+            }
+        }
+
+        return deployments;
+    }
+
+    /**
+     * Group the given deployments by the parameters they share.
+     * 
+     * @param deployments All deployments.
+     * @return The groups in order of the reactor.
+     */
+    Map<String, List<ModuleDeployment>> groupDeployments(List<ModuleDeployment> deployments) {
+
+        Map<String, List<ModuleDeployment>> groups = null;
+        String currKey = null;
+
+        groups = new LinkedHashMap<String, List<ModuleDeployment>>();
+
+        for (ModuleDeployment currDeployment : deployments) {
+
+            currKey = currDeployment.getSharedParameters().toString();
+
+            if (!groups.containsKey(currKey))
+                groups.put(currKey, new ArrayList<ModuleDeployment>());
+
+            groups.get(currKey).add(currDeployment);
+        }
+
+        return groups;
+    }
+
+    /**
+     * Deploy all modules of a group by a single ojdeploy process and map the result back to the modules.
+     * 
+     * @param group The modules sharing the same parameters.
+     * @param index The number of the group used for naming build file and log file.
+     * @return One {@link ExecutionResult} per module.
+     */
+    private List<ExecutionResult> executeGroup(List<ModuleDeployment> group, int index) {
+
+        List<List<MojoParameter>> deploymentParams = null;
+        OjdeployExecutor executor = null;
+        ExecutionResult groupResult = null;
+        List<ExecutionResult> results = null;
+
+        deploymentParams = new ArrayList<List<MojoParameter>>();
+
+        for (ModuleDeployment currDeployment : group)
+            deploymentParams.addAll(currDeployment.getDeployments());
+
+        executor = new OjdeployExecutor();
+        executor.setLogFile(new File(getStateDirectory(), "omp-aggregate-" + index + ".log"));
+        executor.setThrottle(OjdeployMojo.createThrottle(getMaxProcesses(), getThrottleDirectory(), getThrottleTimeout()));
+        executor.setOutputLog(getLog());
+        getStateDirectory().mkdirs();
+        groupResult = new ExecutionResult("aggregate-" + index);
+        groupResult.setLogFile(executor.getLogFile());
+
+        try {
+
+            groupResult = executor.executeBatch(deploymentParams, group.get(0).getSharedParameters(), new File(
+                    getStateDirectory(), "ojdeploy-build-" + index + ".xml"), Boolean.TRUE.equals(getDryRun()));
+
+        } catch (OjdeployExecutionException e) {
+
+            LOG.error("Deploying group " + index + " failed!", e);
+            groupResult.setFailure(e);
+        }
+
+        results = new ArrayList<ExecutionResult>();
+
+        for (ModuleDeployment currDeployment : group)
+            results.add(mapResult(currDeployment, groupResult));
+
+        return results;
+    }
+
+    /**
+     * Map the result of a group back to one of its modules.
+     * 
+     * @param deployment The module's deployment.
+     * @param groupResult The result of the group's ojdeploy process.
+     * @return The result of the module.
+     */
+    ExecutionResult mapResult(ModuleDeployment deployment, ExecutionResult groupResult) {
+
+        ExecutionResult result = null;
+        MavenProject project = null;
+
+        project = deployment.getProject();
+        result = new ExecutionResult(project.getArtifactId());
+        result.setLogFile(groupResult.getLogFile());
+        result.setExitValue(groupResult.getExitValue());
+        result.setDryRun(groupResult.isDryRun());
+        result.setFailure(groupResult.getFailure());
+        result.setDuration(groupResult.getDuration());
+
+        // only skip the module's own execution if its profiles have actually been deployed
+        if (groupResult.isSuccessful() && !groupResult.isDryRun())
+            project.getProperties().setProperty(OjdeployMojo.AGGREGATED_PROPERTY, Boolean.TRUE.toString());
+
+        project.getProperties().setProperty(EXIT_VALUE_PROPERTY, String.valueOf(groupResult.getExitValue()));
+        project.getProperties().setProperty(ARCHIVES_PROPERTY, findArchives(deployment));
+        LOG.info("Module " + project.getArtifactId() + ": " + result);
+
+        return result;
+    }
+
+    /**
+     * Look up the archives of the profiles deployed for the given module.
+     * 
+     * @param deployment The module's deployment.
+     * @return The paths of the archives separated by commas. Profiles without known archive are left out.
+     */
+    String findArchives(ModuleDeployment deployment) {
+
+        StringBuilder archives = null;
+        Object currWorkspace = null;
+        WorkspaceModel currModel = null;
+        DeploymentProfile currProfile = null;
+
+        archives = new StringBuilder();
+
+        for (List<MojoParameter> currParams : deployment.getDeployments()) {
+
+            currWorkspace = MojoParameters.valueOf(currParams, "workspaceFile");
+
+            if (currWorkspace == null || !new File(currWorkspace.toString()).isFile())
+                continue;
+
+            currModel = new WorkspaceParser().parse(new File(currWorkspace.toString()));
+            currProfile = currModel.getProfile(String.valueOf(MojoParameters.valueOf(currParams, "profile")));
+
+            if (currProfile != null && currProfile.getArchiveFile() != null)
+                archives.append(archives.length() > 0 ? "," : "").append(currProfile.getArchiveFile().getAbsolutePath());
+        }
+
+        return archives.toString();
+    }
+
+    File getStateDirectory() {
+
+        return new File(getBuildDirectory() != null ? getBuildDirectory() : new File("target"), STATE_DIR);
+    }
+
+    public List<MavenProject> getReactorProjects() {
+
+        return reactorProjects;
+    }
+
+    public void setReactorProjects(List<MavenProject> reactorProjects) {
+
+        this.reactorProjects = reactorProjects;
+    }
+
+    public File getBuildDirectory() {
+
+        return buildDirectory;
+    }
+
+    public void setBuildDirectory(File buildDirectory) {
+
+        this.buildDirectory = buildDirectory;
+    }
+
+    public Boolean getDryRun() {
+
+        return dryRun;
+    }
+
+    public void setDryRun(Boolean dryRun) {
+
+        this.dryRun = dryRun;
+    }
+
+    public Integer getMaxProcesses() {
+
+        return maxProcesses;
+    }
+
+    public void setMaxProcesses(Integer maxProcesses) {
+
+        this.maxProcesses = maxProcesses;
+    }
+
+    public File getThrottleDirectory() {
+
+        return throttleDirectory;
+    }
+
+    public void setThrottleDirectory(File throttleDirectory) {
+
+        this.throttleDirectory = throttleDirectory;
+    }
+
+    public Long getThrottleTimeout() {
+
+        return throttleTimeout;
+    }
+
+    public void setThrottleTimeout(Long throttleTimeout) {
+
+        this.throttleTimeout = throttleTimeout;
+    }
+
+    public PluginDescriptor getPluginDescriptor() {
+
+        return pluginDescriptor;
+    }
+
+    public void setPluginDescriptor(PluginDescriptor pluginDescriptor) {
+
+        this.pluginDescriptor = pluginDescriptor;
+    }
+
+    /**
+     * The deployments of a single execution of the goal <i>ojdeploy</i> inside a module.
+     */
+    static class ModuleDeployment {
+
+        private MavenProject              project          = null;
+        private List<MojoParameter>       sharedParameters = null;
+        private List<List<MojoParameter>> deployments      = null;
+
+        ModuleDeployment(MavenProject project, OjdeployMojo mojo) {
+
+            List<MojoParameter> params = null;
+            List<MojoParameter> currDeployment = null;
+            Object defines = null;
+
+            this.project = project;
+            params = mojo.getParameterList();
+            sharedParameters = new ArrayList<MojoParameter>();
+            deployments = new ArrayList<List<MojoParameter>>();
+
+            for (MojoParameter currParam : params) {
+
+                if (!DEPLOYMENT_PARAMS.contains(currParam.getParameterName())
+                        && !BATCH_PARAMS.contains(currParam.getParameterName()))
+                    sharedParameters.add(currParam);
+            }
+
+            if (mojo.getDeployments() != null && !mojo.getDeployments().isEmpty()) {
+
+                defines = MojoParameters.valueOf(params, "defines");
+
+                for (Deployment currMojoDeployment : mojo.getDeployments()) {
+
+                    currDeployment = mojo.getDeploymentParameters(currMojoDeployment);
+
+                    if (defines != null && MojoParameters.valueOf(currDeployment, "defines") == null)
+                        currDeployment = MojoParameters.with(currDeployment, "defines", defines.toString(), String.class);
+
+                    deployments.add(currDeployment);
+                }
+
+            } else {
+
+                for (String currProfile : mojo.getEffectiveProfiles()) {
+
+                    currDeployment = new ArrayList<MojoParameter>();
+
+                    for (MojoParameter currParam : mojo.getParameterList(currProfile)) {
+
+                        if (DEPLOYMENT_PARAMS.contains(currParam.getParameterName()))
+                            currDeployment.add(currParam);
+                    }
+
+                    deployments.add(currDeployment);
+                }
+            }
+        }
+
+        MavenProject getProject() {
+
+            return project;
+        }
+
+        List<MojoParameter> getSharedParameters() {
+
+            return sharedParameters;
+        }
+
+        List<List<MojoParameter>> getDeployments() {
+
+            return deployments;
+        }
+    }
+}
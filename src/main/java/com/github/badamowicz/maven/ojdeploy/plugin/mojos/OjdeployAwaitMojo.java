@@ -0,0 +1,107 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.mojos;
+
+import org.apache.log4j.Logger;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.AsyncExecution;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.ExecutionResult;
+
+/**
+ * Mojo waits for the ojdeploy process started by the goal <i>start</i> and fails the build if ojdeploy failed.
+ * 
+ * @goal await
+ * @requiresProject true
+ * @threadSafe
+ *
+ */
+public class OjdeployAwaitMojo extends AbstractMojo {
+
+    private static final Logger LOG          = Logger.getLogger(OjdeployAwaitMojo.class);
+
+    /**
+     * Identifies the process started by the goal <i>start</i>.
+     * 
+     * @parameter property="asyncId" default-value="default"
+     */
+    private String              asyncId      = null;
+
+    /**
+     * The maximum number of seconds to wait for ojdeploy. If ojdeploy does not finish in time, the process is destroyed and the
+     * build fails. A value of 0 means waiting without any limit.
+     * 
+     * @parameter property="awaitTimeout" default-value="0"
+     */
+    private Long                awaitTimeout = null;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+
+        AsyncExecution execution = null;
+        ExecutionResult result = null;
+        long start = System.currentTimeMillis();
+
+        execution = (AsyncExecution) getPluginContext().remove(OjdeployStartMojo.CONTEXT_KEY + getAsyncId());
+
+        if (execution == null)
+            throw new MojoExecutionException("No ojdeploy process has been started by goal 'start' with asyncId '"
+                    + getAsyncId() + "'!");
+
+        try {
+
+            result = execution.await(getAwaitTimeout() != null ? getAwaitTimeout().longValue() * 1000 : 0);
+
+        } catch (Exception e) {
+
+            throw new MojoExecutionException("Failed executing ojdeploy!\n", e);
+        }
+
+        LOG.info("Waited " + (System.currentTimeMillis() - start) + "ms for ojdeploy: " + result);
+    }
+
+    public String getAsyncId() {
+
+        return asyncId;
+    }
+
+    public void setAsyncId(String asyncId) {
+
+        this.asyncId = asyncId;
+    }
+
+    public Long getAwaitTimeout() {
+
+        return awaitTimeout;
+    }
+
+    public void setAwaitTimeout(Long awaitTimeout) {
+
+        this.awaitTimeout = awaitTimeout;
+    }
+}
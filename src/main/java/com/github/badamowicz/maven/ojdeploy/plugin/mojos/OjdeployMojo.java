@@ -27,19 +27,44 @@
 package com.github.badamowicz.maven.ojdeploy.plugin.mojos;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import org.apache.log4j.Logger;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
 
+import com.github.badamowicz.maven.ojdeploy.plugin.cache.BuildCache;
+import com.github.badamowicz.maven.ojdeploy.plugin.cache.FileHashIndex;
+import com.github.badamowicz.maven.ojdeploy.plugin.cache.Fingerprinter;
+import com.github.badamowicz.maven.ojdeploy.plugin.cache.UpToDateCheck;
+import com.github.badamowicz.maven.ojdeploy.plugin.cache.WorkspaceState;
 import com.github.badamowicz.maven.ojdeploy.plugin.exceptions.OjdeployExecutionException;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.DeploymentProfile;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.ExecutionResult;
 import com.github.badamowicz.maven.ojdeploy.plugin.executor.MojoParameter;
 import com.github.badamowicz.maven.ojdeploy.plugin.executor.OjdeployExecutor;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.OutputTee;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.ParallelOjdeployExecutor;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.ProcessThrottle;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.ProfileScheduler;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.WorkspaceIndex;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.WorkspaceModel;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.WorkspaceParser;
+import com.github.badamowicz.maven.ojdeploy.plugin.metrics.BuildMetrics;
+import com.github.badamowicz.maven.ojdeploy.plugin.metrics.MetricsWriter;
+import com.github.badamowicz.maven.ojdeploy.plugin.metrics.RegressionGate;
+import com.github.badamowicz.maven.ojdeploy.plugin.metrics.RunHistory;
 
 /**
  * Mojo is capable of executing OJDeploy commands. It will do nothing else than execute the <i>ojdeploy</i> binary on the command
@@ -53,18 +78,27 @@ import com.github.badamowicz.maven.ojdeploy.plugin.executor.OjdeployExecutor;
  * 
  * @goal ojdeploy
  * @requiresProject true
+ * @threadSafe
  *
  */
 public class OjdeployMojo extends AbstractMojo {
 
-    private OjdeployExecutor          executor            = null;
-    private static final Logger       LOG                 = Logger.getLogger(OjdeployMojo.class);
+    private static final Logger       LOG                     = Logger.getLogger(OjdeployMojo.class);
+    private static final String       STATE_DIR               = "ojdeploy";
+    private static final String       BATCH_BUILD_FILE        = "ojdeploy-build.xml";
+    private static final String       HASH_INDEX_FILE         = "file-hashes.idx";
+    private static final String       WORKSPACE_INDEX_FILE    = "workspace-model.idx";
+    static final String               AGGREGATED_PROPERTY     = "ojdeploy.aggregated";
+    private static final long         DEFAULT_CACHE_SIZE      = 2048;
+
+    /** Wall time of the phases of this execution. Only set while {@link #execute()} is running. */
+    private BuildMetrics              metrics                 = null;
 
     /**
      * These are the parameters which must be handed over to ojdeploy as command line arguments. Be sure to have 'verbose' as the
      * first argument, otherwise it will have no effect on ojdeploy.
      */
-    private static final List<String> OJDEPLOY_PARAMS     = Arrays.asList(new String[] { "verbose", "jdevBinPath",
+    private static final List<String> OJDEPLOY_PARAMS         = Arrays.asList(new String[] { "verbose", "jdevBinPath",
             "workspaceFile", "buildFile", "outputFile", "profile", "project", "buildFileSchema", "baseDir", "nocompile",
             "nodependents", "clean", "nodatasources", "forceRewrite", "updateWebxmlEJBRefs", "defines", "statusLogFile",
             "timeout"                                    });
@@ -75,7 +109,7 @@ public class OjdeployMojo extends AbstractMojo {
      * 
      * @parameter property="dryRun" default-value="false"
      */
-    private Boolean                   dryRun              = null;
+    private Boolean                   dryRun                  = null;
 
     /**
      * The path pointing to the directory containing the ojdeploy binary. Example:
@@ -84,36 +118,329 @@ public class OjdeployMojo extends AbstractMojo {
      * 
      * @parameter property="jdevBinPath"
      */
-    private File                      jdevBinPath         = null;
+    private File                      jdevBinPath             = null;
 
     /**
      * Full path to the JDeveloper Workspace file (.jws).
      * 
      * @parameter property="workspaceFile"
      */
-    private File                      workspaceFile       = null;
+    private File                      workspaceFile           = null;
 
     /**
      * Full path to a build file for batch deploy. This parameter is mutual exclusive with 'buildFileSchema' and 'profile'.
      * 
      * @parameter property="buildFile"
      */
-    private File                      buildFile           = null;
+    private File                      buildFile               = null;
 
     /**
      * The report's file name.
      * 
      * parameter property="outputFile"
      */
-    private File                      outputFile          = null;
+    private File                      outputFile              = null;
 
     /**
      * The profile file to be used. This parameter is mutual exclusive with 'buildFile' and 'buildFileSchema'.
      * 
      * @parameter property="profile"
-     * @required
      */
-    private String                    profile             = null;
+    private String                    profile                 = null;
+
+    /**
+     * A list of profiles to be deployed by this execution. Each profile is deployed by an ojdeploy process of its own and the
+     * processes are run in parallel. If the parameter 'profile' is given too, it is added to this list. Beware that this
+     * parameter will <b>not</b> be handed over to the ojdeploy command!
+     * 
+     * @parameter property="profiles"
+     */
+    private List<String>              profiles                = null;
+
+    /**
+     * A list of deployments, each naming a 'profile' and optionally 'workspaceFile', 'project' and 'defines'. If given, a build
+     * file containing all deployments is generated below the build directory and all of them are deployed by a single ojdeploy
+     * process. This saves the startup time of JDeveloper for every deployment but the first one. All other ojdeploy parameters of
+     * this Mojo apply to every deployment. This parameter is mutual exclusive with 'buildFile', 'profile' and 'profiles'. Beware
+     * that this parameter will <b>not</b> be handed over to the ojdeploy command!
+     * 
+     * @parameter
+     */
+    private List<Deployment>          deployments             = null;
+
+    /**
+     * Maximum number of ojdeploy processes running in parallel if more than one profile is given. Defaults to the number of
+     * available processors. Beware that this parameter will <b>not</b> be handed over to the ojdeploy command!
+     * 
+     * @parameter property="parallelism"
+     */
+    private Integer                   parallelism             = null;
+
+    /**
+     * If set to true, the workspace given by 'workspaceFile' is parsed for the dependencies between its deployment profiles.
+     * Every profile is then deployed together with all profiles it depends on, each of them by an ojdeploy process of its own
+     * using '-nodependents'. Profiles are started as soon as their dependencies are finished, so independent profiles are
+     * deployed in parallel. Beware that this parameter will <b>not</b> be handed over to the ojdeploy command!
+     * 
+     * @parameter property="scheduleDependencies" default-value="false"
+     */
+    private Boolean                   scheduleDependencies    = null;
+
+    /**
+     * If set to true, ojdeploy is only run if the inputs of a profile have changed since the last successful run or if the
+     * profile's archive does not exist. Inputs are the workspace file, all files of the directories of the project owning the
+     * profile and of the projects it depends on, the 'defines' and the resulting command line. The digests of files are indexed
+     * by path, size and modification time below the build directory, so unchanged files are not read again. Requires
+     * 'workspaceFile' and a profile. Beware that this parameter will <b>not</b> be handed over to the ojdeploy command!
+     * 
+     * @parameter property="incremental" default-value="false"
+     */
+    private Boolean                   incremental             = null;
+
+    /**
+     * If set to true, the parsed workspace, the input files found and the digests of the files are kept in memory between
+     * builds. They are invalidated by notifications of the file system, so unchanged files are not even checked again. This
+     * only pays off if the plugin survives between builds as inside the mvnd daemon, so it is enabled by default there. Applies
+     * to 'incremental' and 'useBuildCache'. Beware that this parameter will <b>not</b> be handed over to the ojdeploy command!
+     * 
+     * @parameter property="keepWorkspaceState"
+     */
+    private Boolean                   keepWorkspaceState      = null;
+
+    /**
+     * If set to true, the archives of every profile are published to a build cache after a successful run. Whenever a profile
+     * with exactly the same inputs is deployed again, its archives are restored from the cache instead of running ojdeploy. Inputs
+     * are the same as for 'incremental' plus the argument mappings of this plugin and the version of ojdeploy. Beware that this
+     * parameter will <b>not</b> be handed over to the ojdeploy command!
+     * 
+     * @parameter property="useBuildCache" default-value="false"
+     */
+    private Boolean                   useBuildCache           = null;
+
+    /**
+     * The directory of the build cache. It may be shared by several builds and hosts, e.g. a volume mounted by all CI agents, so
+     * archives built by one agent are reused by the others. Beware that this parameter will <b>not</b> be handed over to the
+     * ojdeploy command!
+     * 
+     * @parameter property="buildCacheDirectory" default-value="${user.home}/.ojdeploy/cache"
+     */
+    private File                      buildCacheDirectory     = null;
+
+    /**
+     * The maximum size of the build cache in megabytes. If the cache grows beyond this size, the least recently used entries are
+     * removed. Beware that this parameter will <b>not</b> be handed over to the ojdeploy command!
+     * 
+     * @parameter property="buildCacheMaxSize" default-value="2048"
+     */
+    private Long                      buildCacheMaxSize       = null;
+
+    /**
+     * The version of ojdeploy being part of the build cache key. If omitted, the digest of the ojdeploy executable is used. Beware
+     * that this parameter will <b>not</b> be handed over to the ojdeploy command!
+     * 
+     * @parameter property="ojdeployVersion"
+     */
+    private String                    ojdeployVersion         = null;
+
+    /**
+     * The maximum number of ojdeploy processes running at the same time on this host, counting all builds sharing the
+     * 'throttleDirectory'. Every ojdeploy process takes one or two gigabytes of heap, so this allows raising the parallelism of
+     * Maven without overcommitting the memory of the host. If omitted, the number of processes is not limited. Beware that this
+     * parameter will <b>not</b> be handed over to the ojdeploy command!
+     * 
+     * @parameter property="maxProcesses"
+     */
+    private Integer                   maxProcesses            = null;
+
+    /**
+     * The directory holding the lock files which limit the number of ojdeploy processes to 'maxProcesses'. Builds using the same
+     * directory are throttled together. Beware that this parameter will <b>not</b> be handed over to the ojdeploy command!
+     * 
+     * @parameter property="throttleDirectory" default-value="${user.home}/.ojdeploy/slots"
+     */
+    private File                      throttleDirectory       = null;
+
+    /**
+     * Time in seconds to wait for one of the 'maxProcesses' slots to become free. If no slot becomes free in time, the build
+     * fails. A value of 0 means waiting without any limit. Beware that this parameter will <b>not</b> be handed over to the
+     * ojdeploy command!
+     * 
+     * @parameter property="throttleTimeout" default-value="3600"
+     */
+    private Long                      throttleTimeout         = null;
+
+    /**
+     * The level the output of ojdeploy is copied to the Maven log at while ojdeploy is running. One of <i>debug</i>, <i>info</i>,
+     * <i>warn</i>, <i>error</i> or <i>off</i>. Defaults to <i>off</i>, since ojdeploy may write hundreds of MB, especially with
+     * <i>verbose</i> set. The complete output is always written to the log files below the build directory, and the last lines
+     * are reported if ojdeploy fails. Combine it with <i>outputFilter</i> for copying e.g. errors and warnings only. Beware that
+     * this parameter will <b>not</b> be handed over to the ojdeploy command!
+     * 
+     * @parameter property="outputLogLevel" default-value="off"
+     */
+    private String                    outputLogLevel          = null;
+
+    /**
+     * A regular expression restricting the output of ojdeploy copied to the Maven log to the lines containing a match. For example
+     * <i>(?i)error|warning</i>. If omitted, all lines are logged. Beware that this parameter will <b>not</b> be handed over to the
+     * ojdeploy command!
+     * 
+     * @parameter property="outputFilter"
+     */
+    private String                    outputFilter            = null;
+
+    /**
+     * The number of the last lines of output reported if ojdeploy fails. Beware that this parameter will <b>not</b> be handed over
+     * to the ojdeploy command!
+     * 
+     * @parameter property="outputTailLines" default-value="50"
+     */
+    private Integer                   outputTailLines         = null;
+
+    /**
+     * The file receiving the wall time of the phases of this execution as JSON: setting up the plugin, spawning ojdeploy, compiling
+     * every project and packaging every profile. Compiling and packaging are derived from the output of ojdeploy. Beware that this
+     * parameter will <b>not</b> be handed over to the ojdeploy command!
+     * 
+     * @parameter property="metricsFile" default-value="${project.build.directory}/ojdeploy-metrics.json"
+     */
+    private File                      metricsFile             = null;
+
+    /**
+     * If given, the metrics are written to this file too, using the text format of Prometheus. Point it to the directory of the
+     * textfile collector of the node exporter, e.g. <i>/var/lib/node_exporter/ojdeploy-${project.artifactId}.prom</i>. Beware
+     * that this parameter will <b>not</b> be handed over to the ojdeploy command!
+     * 
+     * @parameter property="prometheusTextfile"
+     */
+    private File                      prometheusTextfile      = null;
+
+    /**
+     * The file receiving the phases of this execution as trace in the Chrome Trace Event format. Open it in Perfetto or
+     * <i>chrome://tracing</i> for finding the project which serializes the build. Profiles deployed in parallel are shown as
+     * threads of their own. Beware that this parameter will <b>not</b> be handed over to the ojdeploy command!
+     * 
+     * @parameter property="traceFile" default-value="${project.build.directory}/ojdeploy-trace.json"
+     */
+    private File                      traceFile               = null;
+
+    /**
+     * The interval in milliseconds at which CPU time, memory, threads and I/O of the processes of ojdeploy are sampled. The
+     * totals are logged and stored next to the log file of ojdeploy. Only supported on Linux. A value of 0 disables sampling.
+     * Beware that this parameter will <b>not</b> be handed over to the ojdeploy command!
+     * 
+     * @parameter property="processSamplingInterval" default-value="1000"
+     */
+    private Long                      processSamplingInterval = null;
+
+    /**
+     * The maximum time in seconds an ojdeploy run may take. If exceeded, thread dumps of its JVM are taken and the whole process
+     * tree is destroyed. A value of 0 means no limit. Unlike <i>timeout</i>, this limit is enforced by the plugin itself. Beware
+     * that this parameter will <b>not</b> be handed over to the ojdeploy command!
+     * 
+     * @parameter property="processTimeout" default-value="0"
+     */
+    private Long                      processTimeout          = null;
+
+    /**
+     * The file keeping the history of successful ojdeploy runs. The durations of the latest runs of a profile determine its
+     * timeout, see <i>timeoutMultiplier</i>. Builds sharing the file share the history. If not set, no history is kept. Beware
+     * that this parameter will <b>not</b> be handed over to the ojdeploy command!
+     * 
+     * @parameter property="historyFile"
+     */
+    private File                      historyFile             = null;
+
+    /**
+     * The percentile of the durations of the latest runs of a profile its timeout is derived from. Beware that this parameter
+     * will <b>not</b> be handed over to the ojdeploy command!
+     * 
+     * @parameter property="timeoutPercentile" default-value="95"
+     */
+    private Integer                   timeoutPercentile       = null;
+
+    /**
+     * The factor the percentile of the durations of a profile is multiplied with for deriving its timeout. If exceeded, thread
+     * dumps are taken and the process tree is destroyed, just like for <i>processTimeout</i>. The adaptive timeout is applied
+     * once <i>historyFile</i> holds at least 5 runs of the profile with the same scope, i.e. using <i>-nodependents</i> or
+     * not, and never exceeds <i>processTimeout</i>, if set. Defaults to 0, which disables the adaptive timeout. Beware that this
+     * parameter will <b>not</b> be handed over to the ojdeploy command!
+     * 
+     * @parameter property="timeoutMultiplier" default-value="0"
+     */
+    private Double                    timeoutMultiplier       = null;
+
+    /**
+     * What to do if the duration or the peak memory of an ojdeploy run exceeds the baseline of its profile by more than
+     * <i>regressionThreshold</i>. The baseline is the median of the latest runs in <i>historyFile</i>. One of <i>off</i>,
+     * <i>warn</i> or <i>fail</i>. Defaults to <i>off</i>. Requires <i>historyFile</i> to be set. Peak memory is only known if
+     * <i>processSamplingInterval</i> is enabled. Beware that this parameter will <b>not</b> be handed over to the ojdeploy
+     * command!
+     * 
+     * @parameter property="regressionAction" default-value="off"
+     */
+    private String                    regressionAction        = null;
+
+    /**
+     * The percentage the duration or the peak memory of an ojdeploy run may exceed the baseline of its profile by. Beware that
+     * this parameter will <b>not</b> be handed over to the ojdeploy command!
+     * 
+     * @parameter property="regressionThreshold" default-value="50"
+     */
+    private Integer                   regressionThreshold     = null;
+
+    /**
+     * The maximum time in seconds ojdeploy may run without writing any output. If exceeded, ojdeploy is considered hung, e.g.
+     * waiting for a datasource. Thread dumps of its JVM are taken and the whole process tree is destroyed. Defaults to 0, which
+     * disables stall detection. Beware that this parameter will <b>not</b> be handed over to the ojdeploy command!
+     * 
+     * @parameter property="stallTimeout" default-value="0"
+     */
+    private Long                      stallTimeout            = null;
+
+    /**
+     * The number of thread dumps taken of the JVM of ojdeploy before destroying it for exceeding <i>processTimeout</i> or
+     * <i>stallTimeout</i>. The dumps are saved next to the log file of ojdeploy. Beware that this parameter will <b>not</b> be
+     * handed over to the ojdeploy command!
+     * 
+     * @parameter property="stallThreadDumps" default-value="3"
+     */
+    private Integer                   stallThreadDumps        = null;
+
+    /**
+     * The interval in milliseconds at which the stacks of the JVM of ojdeploy are sampled using <i>jcmd Thread.print</i>. The
+     * stacks of all runnable threads are written next to the log file of ojdeploy in the collapsed format of flame graph tools.
+     * Every sample starts jcmd, so values below 500 are not recommended. Only supported on Linux. A value of 0 disables
+     * profiling. Beware that this parameter will <b>not</b> be handed over to the ojdeploy command!
+     * 
+     * @parameter property="profilingInterval" default-value="0"
+     */
+    private Long                      profilingInterval       = null;
+
+    /**
+     * The build directory of the project. Fingerprints of inputs and other state of this plugin are stored below this directory.
+     * 
+     * @parameter default-value="${project.build.directory}"
+     * @readonly
+     */
+    private File                      buildDirectory          = null;
+
+    /**
+     * The Maven project. Used for detecting if the profiles of this module have already been deployed by the goal
+     * <i>aggregate</i>.
+     * 
+     * @parameter default-value="${project}"
+     * @readonly
+     */
+    private MavenProject              mavenProject            = null;
+
+    /**
+     * The current execution of this Mojo. Its id names the log file of ojdeploy.
+     * 
+     * @parameter default-value="${mojoExecution}"
+     * @readonly
+     */
+    private MojoExecution             mojoExecution           = null;
 
     /**
      * Name of the JDeveloper Project within the .jws where the Profile can be found. If omitted, the Profile is assumed to be in
@@ -121,63 +448,63 @@ public class OjdeployMojo extends AbstractMojo {
      * 
      * @parameter property="project"
      */
-    private String                    project             = null;
+    private String                    project                 = null;
 
     /**
      * Print XML Schema for the build file. This property is mutual exclusive with the parameters 'profile' and 'buildFile'.
      * 
      * @parameter property="buildFileSchema"
      */
-    private Boolean                   buildFileSchema     = null;
+    private Boolean                   buildFileSchema         = null;
 
     /**
      * Path for workspace relative to a base directory.
      * 
      * @parameter property="baseDir"
      */
-    private File                      baseDir             = null;
+    private File                      baseDir                 = null;
 
     /**
      * Skip compilation of Project or Workspace.
      * 
      * @parameter property="nocompile"
      */
-    private Boolean                   nocompile           = null;
+    private Boolean                   nocompile               = null;
 
     /**
      * Do not deploy dependent profiles.
      * 
      * @parameter property="nodependents"
      */
-    private Boolean                   nodependents        = null;
+    private Boolean                   nodependents            = null;
 
     /**
      * Clean output directories before compiling.
      * 
      * @parameter property="clean"
      */
-    private Boolean                   clean               = null;
+    private Boolean                   clean                   = null;
 
     /**
      * Do not include datasources from IDE.
      * 
      * @parameter property="nodatasources"
      */
-    private Boolean                   nodatasources       = null;
+    private Boolean                   nodatasources           = null;
 
     /**
      * Rewrite output file even if it is identical to existing file.
      * 
      * @parameter property="forceRewrite"
      */
-    private Boolean                   forceRewrite        = null;
+    private Boolean                   forceRewrite            = null;
 
     /**
      * Update EJB references in web.xml.
      * 
      * @parameter property="updateWebxmlEJBRefs"
      */
-    private Boolean                   updateWebxmlEJBRefs = null;
+    private Boolean                   updateWebxmlEJBRefs     = null;
 
     /**
      * Define variables as </i>key=value pairs</i> as nested elements. This parameter conforms to the original 'define' argument
@@ -185,42 +512,530 @@ public class OjdeployMojo extends AbstractMojo {
      * 
      * @parameter property="defines"
      */
-    private List<String>              defines             = null;
+    private List<String>              defines                 = null;
+
+    /**
+     * Full path to an output file for status summary. No macros allowed.
+     * 
+     * @parameter property="statusLogFile"
+     */
+    private File                      statusLogFile           = null;
+
+    /**
+     * Time in seconds allowed for each deployment task.
+     * 
+     * @parameter property="timeout" default-value="30000"
+     */
+    private Long                      timeout                 = null;
+
+    /**
+     * Make ojdeploy issue more information.
+     * 
+     * @parameter property="verbose"
+     */
+    private Boolean                   verbose                 = null;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+
+        List<String> effectiveProfiles = null;
+        List<ExecutionResult> results = null;
+        long start = 0;
+
+        if (isAggregated()) {
+
+            LOG.info("Module has already been deployed by goal 'aggregate'. Skipping execution.");
+            return;
+        }
+
+        metrics = new BuildMetrics();
+        start = metrics.now();
+
+        try {
+
+            if (getDeployments() != null && !getDeployments().isEmpty()) {
+
+                executeBatch();
+                return;
+            }
+
+            effectiveProfiles = getEffectiveProfiles();
+
+            if (Boolean.TRUE.equals(getScheduleDependencies())) {
+
+                results = executeScheduled(effectiveProfiles);
+
+            } else if (effectiveProfiles.size() > 1) {
+
+                results = executeParallel(effectiveProfiles);
+
+            } else {
+
+                createExecutor().execute(getParameterList(), getDryRun());
+            }
+
+        } catch (Exception e) {
+
+            throw new MojoExecutionException("Failed executing ojdeploy!\n", e);
+
+        } finally {
+
+            metrics.record("ojdeploy", BuildMetrics.TOTAL, null, start);
+            writeMetrics();
+            metrics = null;
+        }
+
+        if (results != null)
+            checkResults(results);
+    }
+
+    /**
+     * Write the metrics and the trace of this execution. Failing to do so does not fail the build.
+     */
+    private void writeMetrics() {
+
+        MetricsWriter writer = null;
+
+        writer = new MetricsWriter(getMavenProject() != null ? getMavenProject().getArtifactId() : "default");
+
+        try {
+
+            if (getMetricsFile() != null) {
+
+                getMetricsFile().getAbsoluteFile().getParentFile().mkdirs();
+                writer.writeJson(metrics, getMetricsFile());
+                LOG.info("Metrics of ojdeploy written to " + getMetricsFile().getAbsolutePath());
+            }
+
+            if (getPrometheusTextfile() != null)
+                writer.writePrometheus(metrics, getPrometheusTextfile());
+
+            if (getTraceFile() != null) {
+
+                getTraceFile().getAbsoluteFile().getParentFile().mkdirs();
+                writer.writeTrace(metrics, getTraceFile());
+            }
+
+        } catch (IOException e) {
+
+            LOG.warn("Could not write metrics of ojdeploy.", e);
+        }
+    }
+
+    /**
+     * @return true, if the goal <i>aggregate</i> has already deployed the profiles of this module.
+     */
+    boolean isAggregated() {
+
+        return getMavenProject() != null
+                && Boolean.parseBoolean(getMavenProject().getProperties().getProperty(AGGREGATED_PROPERTY));
+    }
+
+    /**
+     * Deploy all entries of the parameter 'deployments' by a single ojdeploy process.
+     */
+    private void executeBatch() {
+
+        createExecutor().executeBatch(getBatchDeployments(), getParameterList(), getBatchBuildFile(), getDryRun());
+    }
+
+    /**
+     * Convert all entries of the parameter 'deployments' into lists of parameters.
+     * 
+     * @return One list of parameters per deployment.
+     */
+    List<List<MojoParameter>> getBatchDeployments() {
+
+        List<List<MojoParameter>> deploymentParams = null;
+
+        if (getBuildFile() != null || getProfile() != null || (getProfiles() != null && !getProfiles().isEmpty()))
+            throw new OjdeployExecutionException(
+                    "Parameter 'deployments' must not be combined with 'buildFile', 'profile' or 'profiles'!");
+
+        deploymentParams = new ArrayList<List<MojoParameter>>();
+
+        for (Deployment currDeployment : getDeployments())
+            deploymentParams.add(getDeploymentParameters(currDeployment));
+
+        return deploymentParams;
+    }
+
+    /**
+     * @return The build file generated for the parameter 'deployments'.
+     */
+    File getBatchBuildFile() {
+
+        return new File(getStateDirectory(), BATCH_BUILD_FILE);
+    }
+
+    /**
+     * Convert the given deployment into a list of parameters.
+     * 
+     * @param deployment The deployment.
+     * @return The parameters naming workspace, project, profile and defines of the deployment.
+     */
+    List<MojoParameter> getDeploymentParameters(Deployment deployment) {
+
+        List<MojoParameter> params = null;
+        File workspace = null;
+
+        workspace = deployment.getWorkspaceFile() != null ? deployment.getWorkspaceFile() : getWorkspaceFile();
+
+        if (deployment.getProfile() == null || workspace == null)
+            throw new OjdeployExecutionException("Every deployment requires a 'profile' and a 'workspaceFile'! Found "
+                    + deployment + ".");
+
+        params = new ArrayList<MojoParameter>();
+        params.add(new MojoParameter("workspaceFile", workspace.getAbsolutePath(), String.class));
+
+        if (deployment.getProject() != null)
+            params.add(new MojoParameter("project", deployment.getProject(), String.class));
+
+        params.add(new MojoParameter("profile", deployment.getProfile(), String.class));
+
+        if (deployment.getDefines() != null && !deployment.getDefines().isEmpty())
+            params.add(new MojoParameter("defines", join(deployment.getDefines()), String.class));
+
+        return params;
+    }
+
+    /**
+     * Deploy all the given profiles in parallel.
+     * 
+     * @param effectiveProfiles The profiles to be deployed.
+     * @return One {@link ExecutionResult} per profile.
+     */
+    private List<ExecutionResult> executeParallel(List<String> effectiveProfiles) {
+
+        Map<String, List<MojoParameter>> profileParams = null;
+        ParallelOjdeployExecutor parallelExecutor = null;
+
+        profileParams = new LinkedHashMap<String, List<MojoParameter>>();
+
+        for (String currProfile : effectiveProfiles)
+            profileParams.put(currProfile, getParameterList(currProfile));
+
+        parallelExecutor = createParallelExecutor();
+
+        return parallelExecutor.execute(profileParams, getDryRun());
+    }
+
+    /**
+     * Deploy all the given profiles together with the profiles they depend on as defined by the workspace.
+     * 
+     * @param effectiveProfiles The profiles to be deployed.
+     * @return One {@link ExecutionResult} per deployed or skipped profile.
+     */
+    private List<ExecutionResult> executeScheduled(List<String> effectiveProfiles) {
+
+        WorkspaceModel model = null;
+        List<DeploymentProfile> targets = null;
+
+        model = parseWorkspace();
+        targets = findProfiles(model, effectiveProfiles);
+
+        return new ProfileScheduler(model, createParallelExecutor()).execute(targets, getParameterList(), getDryRun());
+    }
+
+    /**
+     * Parse the workspace given by the parameter 'workspaceFile'.
+     * 
+     * @return The parsed workspace.
+     */
+    WorkspaceModel parseWorkspace() {
+
+        if (getWorkspaceFile() == null)
+            throw new OjdeployExecutionException("Parameter 'workspaceFile' is required for analyzing the workspace!");
+
+        if (getSharedFingerprinter() != null)
+            return getSharedFingerprinter().getWorkspace(getWorkspaceFile());
+
+        return createWorkspaceParser().parse(getWorkspaceFile());
+    }
+
+    /**
+     * @return The {@link Fingerprinter} kept between builds if 'keepWorkspaceState' applies, otherwise a new one using the
+     *         indexes below the state directory.
+     */
+    Fingerprinter createFingerprinter() {
+
+        if (getSharedFingerprinter() != null)
+            return getSharedFingerprinter();
+
+        return new Fingerprinter(new FileHashIndex(new File(getStateDirectory(), HASH_INDEX_FILE)), createWorkspaceParser());
+    }
+
+    /**
+     * @return The process wide {@link Fingerprinter} or <b>null</b> if the state of the workspace is not kept between builds.
+     */
+    private Fingerprinter getSharedFingerprinter() {
+
+        boolean keep = getKeepWorkspaceState() != null ? getKeepWorkspaceState().booleanValue() : WorkspaceState.isDaemon();
+
+        if (!keep)
+            return null;
+
+        return WorkspaceState.getFingerprinter(new File(getStateDirectory(), HASH_INDEX_FILE), new File(getStateDirectory(),
+                WORKSPACE_INDEX_FILE));
+    }
+
+    /**
+     * @return A new {@link WorkspaceParser} which only parses the JDeveloper files changed since the last build.
+     */
+    WorkspaceParser createWorkspaceParser() {
+
+        return new WorkspaceParser(new WorkspaceIndex(new File(getStateDirectory(), WORKSPACE_INDEX_FILE)));
+    }
+
+    /**
+     * Look up the given profiles inside the workspace.
+     * 
+     * @param model The parsed workspace.
+     * @param profileNames The names of the profiles.
+     * @return The profiles in the given order.
+     */
+    List<DeploymentProfile> findProfiles(WorkspaceModel model, List<String> profileNames) {
+
+        List<DeploymentProfile> found = null;
+        DeploymentProfile currProfile = null;
+
+        found = new ArrayList<DeploymentProfile>(profileNames.size());
+
+        for (String currName : profileNames) {
+
+            currProfile = model.getProfile(currName);
+
+            if (currProfile == null)
+                throw new OjdeployExecutionException("Profile " + currName + " not found in workspace "
+                        + model.getWorkspaceFile() + "!");
+
+            found.add(currProfile);
+        }
+
+        return found;
+    }
+
+    private ParallelOjdeployExecutor createParallelExecutor() {
+
+        ParallelOjdeployExecutor parallelExecutor = null;
+
+        parallelExecutor = new ParallelOjdeployExecutor(getParallelism() != null ? getParallelism().intValue() : 0,
+                createExecutor());
+
+        return parallelExecutor;
+    }
+
+    /**
+     * @return A new {@link OjdeployExecutor} configured with up to date check and build cache as requested by the parameters. Its
+     *         output is written to a log file of this execution below the state directory.
+     */
+    OjdeployExecutor createExecutor() {
+
+        OjdeployExecutor executor = null;
+
+        executor = new OjdeployExecutor();
+        executor.setLogFile(getExecutionLogFile());
+        executor.setUpToDateCheck(createUpToDateCheck());
+        executor.setBuildCache(createBuildCache());
+        executor.setOjdeployVersion(getOjdeployVersion());
+        executor.setThrottle(createThrottle(getMaxProcesses(), getThrottleDirectory(), getThrottleTimeout()));
+        executor.setOutputLog(getLog());
+        executor.setMetrics(metrics);
+
+        if (getOutputLogLevel() != null)
+            executor.setOutputLevel(OutputTee.Level.parse(getOutputLogLevel()));
+
+        if (getOutputFilter() != null)
+            executor.setOutputFilter(compileOutputFilter());
+
+        if (getOutputTailLines() != null)
+            executor.setTailLines(getOutputTailLines().intValue());
+
+        if (getProcessSamplingInterval() != null)
+            executor.setSamplingInterval(getProcessSamplingInterval().longValue());
+
+        if (getProcessTimeout() != null)
+            executor.setProcessTimeout(getProcessTimeout().longValue() * 1000);
+
+        if (getHistoryFile() != null)
+            executor.setHistory(new RunHistory(getHistoryFile()));
+
+        if (getTimeoutPercentile() != null)
+            executor.setTimeoutPercentile(getTimeoutPercentile().intValue());
+
+        if (getTimeoutMultiplier() != null)
+            executor.setTimeoutMultiplier(getTimeoutMultiplier().doubleValue());
+
+        if (getRegressionAction() != null)
+            executor.setRegressionAction(RegressionGate.Action.parse(getRegressionAction()));
+
+        if (getRegressionThreshold() != null)
+            executor.setRegressionThreshold(getRegressionThreshold().intValue());
+
+        if (getStallTimeout() != null)
+            executor.setStallTimeout(getStallTimeout().longValue() * 1000);
+
+        if (getStallThreadDumps() != null)
+            executor.setThreadDumps(getStallThreadDumps().intValue());
+
+        if (getProfilingInterval() != null)
+            executor.setProfilingInterval(getProfilingInterval().longValue());
+
+        if (executor.getUpToDateCheck() != null || executor.getBuildCache() != null)
+            executor.setFingerprinter(createFingerprinter());
+
+        return executor;
+    }
+
+    /**
+     * @return A new {@link BuildCache} if the parameter 'useBuildCache' is set, otherwise <b>null</b>.
+     */
+    BuildCache createBuildCache() {
+
+        long maxSize = 0;
+
+        if (!Boolean.TRUE.equals(getUseBuildCache()))
+            return null;
+
+        if (getBuildCacheDirectory() == null)
+            throw new OjdeployExecutionException("Parameter 'buildCacheDirectory' is required for using the build cache!");
+
+        maxSize = (getBuildCacheMaxSize() != null ? getBuildCacheMaxSize().longValue() : DEFAULT_CACHE_SIZE) * 1024 * 1024;
+
+        return new BuildCache(getBuildCacheDirectory(), maxSize);
+    }
+
+    private Pattern compileOutputFilter() {
+
+        try {
+
+            return Pattern.compile(getOutputFilter());
+
+        } catch (PatternSyntaxException e) {
+
+            throw new OjdeployExecutionException("Parameter 'outputFilter' is no valid regular expression!", e);
+        }
+    }
+
+    /**
+     * Create the host wide throttle limiting the number of ojdeploy processes.
+     * 
+     * @param maxProcesses The maximum number of processes. May be null.
+     * @param directory The directory holding the lock files of the slots.
+     * @param timeout The time in seconds to wait for a free slot. May be null.
+     * @return A new {@link ProcessThrottle} if a maximum number of processes is given, otherwise <b>null</b>.
+     */
+    static ProcessThrottle createThrottle(Integer maxProcesses, File directory, Long timeout) {
+
+        if (maxProcesses == null || maxProcesses.intValue() < 1)
+            return null;
+
+        if (directory == null)
+            throw new OjdeployExecutionException("Parameter 'throttleDirectory' is required for limiting the ojdeploy processes!");
+
+        return new ProcessThrottle(directory, maxProcesses.intValue(), timeout != null ? timeout.longValue() * 1000 : 0);
+    }
+
+    /**
+     * @return A new {@link UpToDateCheck} if the parameter 'incremental' is set, otherwise <b>null</b>.
+     */
+    UpToDateCheck createUpToDateCheck() {
+
+        if (!Boolean.TRUE.equals(getIncremental()))
+            return null;
+
+        return new UpToDateCheck(getStateDirectory());
+    }
+
+    /**
+     * @return The log file of this execution. Every execution writes to a file of its own, so modules built in parallel by
+     *         <i>mvn -T</i> do not overwrite each other's logs.
+     */
+    File getExecutionLogFile() {
+
+        String executionId = null;
+
+        executionId = getMojoExecution() != null ? getMojoExecution().getExecutionId() : null;
+
+        return new File(getStateDirectory(), "omp-" + (executionId != null ? executionId : "default") + ".log");
+    }
 
     /**
-     * Full path to an output file for status summary. No macros allowed.
-     * 
-     * @parameter property="statusLogFile"
+     * @return The directory used by this plugin for keeping state between builds.
      */
-    private File                      statusLogFile       = null;
+    File getStateDirectory() {
+
+        return new File(getBuildDirectory() != null ? getBuildDirectory() : new File("target"), STATE_DIR);
+    }
 
     /**
-     * Time in seconds allowed for each deployment task.
+     * Check the results of a parallel deployment and report all failed profiles together.
      * 
-     * @parameter property="timeout" default-value="30000"
+     * @param results The results of all profiles.
+     * @throws MojoExecutionException if at least one profile failed.
      */
-    private Long                      timeout             = null;
+    static void checkResults(List<ExecutionResult> results) throws MojoExecutionException {
+
+        StringBuilder message = null;
+        int failures = 0;
+
+        message = new StringBuilder();
+
+        for (ExecutionResult currResult : results) {
+
+            if (!currResult.isSuccessful()) {
+
+                failures++;
+                message.append("\n  ").append(currResult.getName()).append(": ");
+
+                if (currResult.getLogFile() != null) {
+
+                    message.append("exit value ").append(currResult.getExitValue()).append(", see ")
+                            .append(currResult.getLogFile().getAbsolutePath());
+
+                    if (currResult.getErrorLogFile() != null)
+                        message.append(" and ").append(currResult.getErrorLogFile().getAbsolutePath());
+
+                } else {
+
+                    message.append(currResult.getFailure().getMessage());
+                }
+
+                if (currResult.getLogFile() != null && currResult.getFailure() instanceof OjdeployExecutionException)
+                    for (String currLine : ((OjdeployExecutionException) currResult.getFailure()).getOutputTail())
+                        message.append("\n    ").append(currLine);
+            }
+        }
+
+        if (failures > 0)
+            throw new MojoExecutionException("Failed executing ojdeploy for " + failures + " of " + results.size()
+                    + " profiles:" + message);
+    }
 
     /**
-     * Make ojdeploy issue more information.
+     * Merge the parameters 'profile' and 'profiles' into one list without duplicates.
      * 
-     * @parameter property="verbose"
+     * @return A list containing all profiles to be deployed. The list is empty if no profile is given at all.
      */
-    private Boolean                   verbose             = null;
+    List<String> getEffectiveProfiles() {
 
-    @Override
-    public void execute() throws MojoExecutionException {
+        List<String> effectiveProfiles = null;
 
-        try {
+        effectiveProfiles = new ArrayList<String>();
 
-            executor = new OjdeployExecutor();
-            executor.execute(getParameterList(), getDryRun());
+        if (getProfile() != null)
+            effectiveProfiles.add(getProfile());
 
-        } catch (Exception e) {
+        if (getProfiles() != null) {
 
-            throw new MojoExecutionException("Failed executing ojdeploy!\n", e);
+            for (String currProfile : getProfiles()) {
+
+                if (!effectiveProfiles.contains(currProfile))
+                    effectiveProfiles.add(currProfile);
+            }
         }
 
+        return effectiveProfiles;
     }
 
     /**
@@ -230,21 +1045,42 @@ public class OjdeployMojo extends AbstractMojo {
      */
     List<MojoParameter> getParameterList() {
 
+        return getParameterList(null);
+    }
+
+    /**
+     * Prepare the list of internal arguments and values handed over to {@link OjdeployExecutor}.
+     * 
+     * @param profileOverride If not <b>null</b>, this profile is used instead of the value of the parameter 'profile'.
+     * @return A list of Mojo parameters.
+     */
+    List<MojoParameter> getParameterList(String profileOverride) {
+
         List<MojoParameter> mojoParams = null;
         MojoParameter currMojoParam = null;
+        long start = metrics != null ? metrics.now() : 0;
+        long paramStart = 0;
 
         try {
             mojoParams = new ArrayList<MojoParameter>();
 
             for (String currParam : OJDEPLOY_PARAMS) {
 
-                currMojoParam = convertFieldToParam(getClass().getDeclaredField(currParam), currParam);
+                paramStart = metrics != null ? metrics.now() : 0;
+
+                if (profileOverride != null && currParam.equals("profile"))
+                    currMojoParam = new MojoParameter(currParam, profileOverride, String.class);
+                else
+                    currMojoParam = convertFieldToParam(OjdeployMojo.class.getDeclaredField(currParam), currParam);
 
                 if (currMojoParam != null) {
                     mojoParams.add(currMojoParam);
                     LOG.debug("New mojo parameter added to list: " + currMojoParam);
                 }
 
+                if (metrics != null)
+                    metrics.record(currParam, BuildMetrics.PARAMETER, null, paramStart);
+
                 currMojoParam = null;
             }
         } catch (Exception e) {
@@ -252,6 +1088,9 @@ public class OjdeployMojo extends AbstractMojo {
             throw new OjdeployExecutionException("Was not able to generate Mojo's parameter list!", e);
         }
 
+        if (metrics != null)
+            metrics.record("getParameterList", BuildMetrics.SETUP, null, start);
+
         LOG.debug("Gathered " + mojoParams.size() + " arguments for ojdeploy.");
         return mojoParams;
     }
@@ -325,30 +1164,42 @@ public class OjdeployMojo extends AbstractMojo {
 
         MojoParameter mojoParam = null;
         List<String> list = null;
-        Iterator<String> iter = null;
-        StringBuilder value = null;
 
         list = (List<String>) field.get(this);
 
         if (!list.isEmpty()) {
 
-            value = new StringBuilder();
-            iter = list.iterator();
+            mojoParam = new MojoParameter(param, join(list), String.class);
+
+        } else
+            LOG.debug("List contains no elements.");
 
-            while (iter.hasNext()) {
+        return mojoParam;
+    }
 
-                value.append(iter.next());
+    /**
+     * Join the given elements separated by commas.
+     * 
+     * @param list The elements.
+     * @return The joined elements.
+     */
+    private String join(List<String> list) {
 
-                if (iter.hasNext())
-                    value.append(",");
-            }
+        StringBuilder value = null;
+        Iterator<String> iter = null;
 
-            mojoParam = new MojoParameter(param, value, String.class);
+        value = new StringBuilder();
+        iter = list.iterator();
 
-        } else
-            LOG.debug("List contains no elements.");
+        while (iter.hasNext()) {
 
-        return mojoParam;
+            value.append(iter.next());
+
+            if (iter.hasNext())
+                value.append(",");
+        }
+
+        return value.toString();
     }
 
     private boolean fieldIsInitialized(Field currField) throws IllegalAccessException {
@@ -466,6 +1317,326 @@ public class OjdeployMojo extends AbstractMojo {
         return profile;
     }
 
+    public List<String> getProfiles() {
+
+        return profiles;
+    }
+
+    public void setProfiles(List<String> profiles) {
+
+        this.profiles = profiles;
+    }
+
+    public List<Deployment> getDeployments() {
+
+        return deployments;
+    }
+
+    public void setDeployments(List<Deployment> deployments) {
+
+        this.deployments = deployments;
+    }
+
+    public Integer getParallelism() {
+
+        return parallelism;
+    }
+
+    public void setParallelism(Integer parallelism) {
+
+        this.parallelism = parallelism;
+    }
+
+    public Boolean getScheduleDependencies() {
+
+        return scheduleDependencies;
+    }
+
+    public void setScheduleDependencies(Boolean scheduleDependencies) {
+
+        this.scheduleDependencies = scheduleDependencies;
+    }
+
+    public Boolean getIncremental() {
+
+        return incremental;
+    }
+
+    public void setIncremental(Boolean incremental) {
+
+        this.incremental = incremental;
+    }
+
+    public Boolean getKeepWorkspaceState() {
+
+        return keepWorkspaceState;
+    }
+
+    public void setKeepWorkspaceState(Boolean keepWorkspaceState) {
+
+        this.keepWorkspaceState = keepWorkspaceState;
+    }
+
+    public Boolean getUseBuildCache() {
+
+        return useBuildCache;
+    }
+
+    public void setUseBuildCache(Boolean useBuildCache) {
+
+        this.useBuildCache = useBuildCache;
+    }
+
+    public File getBuildCacheDirectory() {
+
+        return buildCacheDirectory;
+    }
+
+    public void setBuildCacheDirectory(File buildCacheDirectory) {
+
+        this.buildCacheDirectory = buildCacheDirectory;
+    }
+
+    public Long getBuildCacheMaxSize() {
+
+        return buildCacheMaxSize;
+    }
+
+    public void setBuildCacheMaxSize(Long buildCacheMaxSize) {
+
+        this.buildCacheMaxSize = buildCacheMaxSize;
+    }
+
+    public String getOjdeployVersion() {
+
+        return ojdeployVersion;
+    }
+
+    public void setOjdeployVersion(String ojdeployVersion) {
+
+        this.ojdeployVersion = ojdeployVersion;
+    }
+
+    public MavenProject getMavenProject() {
+
+        return mavenProject;
+    }
+
+    public void setMavenProject(MavenProject mavenProject) {
+
+        this.mavenProject = mavenProject;
+    }
+
+    public Integer getMaxProcesses() {
+
+        return maxProcesses;
+    }
+
+    public void setMaxProcesses(Integer maxProcesses) {
+
+        this.maxProcesses = maxProcesses;
+    }
+
+    public File getThrottleDirectory() {
+
+        return throttleDirectory;
+    }
+
+    public void setThrottleDirectory(File throttleDirectory) {
+
+        this.throttleDirectory = throttleDirectory;
+    }
+
+    public Long getThrottleTimeout() {
+
+        return throttleTimeout;
+    }
+
+    public void setThrottleTimeout(Long throttleTimeout) {
+
+        this.throttleTimeout = throttleTimeout;
+    }
+
+    public String getOutputLogLevel() {
+
+        return outputLogLevel;
+    }
+
+    public void setOutputLogLevel(String outputLogLevel) {
+
+        this.outputLogLevel = outputLogLevel;
+    }
+
+    public String getOutputFilter() {
+
+        return outputFilter;
+    }
+
+    public void setOutputFilter(String outputFilter) {
+
+        this.outputFilter = outputFilter;
+    }
+
+    public Integer getOutputTailLines() {
+
+        return outputTailLines;
+    }
+
+    public void setOutputTailLines(Integer outputTailLines) {
+
+        this.outputTailLines = outputTailLines;
+    }
+
+    public File getMetricsFile() {
+
+        return metricsFile;
+    }
+
+    public void setMetricsFile(File metricsFile) {
+
+        this.metricsFile = metricsFile;
+    }
+
+    public File getPrometheusTextfile() {
+
+        return prometheusTextfile;
+    }
+
+    public void setPrometheusTextfile(File prometheusTextfile) {
+
+        this.prometheusTextfile = prometheusTextfile;
+    }
+
+    public File getTraceFile() {
+
+        return traceFile;
+    }
+
+    public void setTraceFile(File traceFile) {
+
+        this.traceFile = traceFile;
+    }
+
+    public Long getProcessSamplingInterval() {
+
+        return processSamplingInterval;
+    }
+
+    public void setProcessSamplingInterval(Long processSamplingInterval) {
+
+        this.processSamplingInterval = processSamplingInterval;
+    }
+
+    public Long getProcessTimeout() {
+
+        return processTimeout;
+    }
+
+    public void setProcessTimeout(Long processTimeout) {
+
+        this.processTimeout = processTimeout;
+    }
+
+    public File getHistoryFile() {
+
+        return historyFile;
+    }
+
+    public void setHistoryFile(File historyFile) {
+
+        this.historyFile = historyFile;
+    }
+
+    public Integer getTimeoutPercentile() {
+
+        return timeoutPercentile;
+    }
+
+    public void setTimeoutPercentile(Integer timeoutPercentile) {
+
+        this.timeoutPercentile = timeoutPercentile;
+    }
+
+    public Double getTimeoutMultiplier() {
+
+        return timeoutMultiplier;
+    }
+
+    public void setTimeoutMultiplier(Double timeoutMultiplier) {
+
+        this.timeoutMultiplier = timeoutMultiplier;
+    }
+
+    public String getRegressionAction() {
+
+        return regressionAction;
+    }
+
+    public void setRegressionAction(String regressionAction) {
+
+        this.regressionAction = regressionAction;
+    }
+
+    public Integer getRegressionThreshold() {
+
+        return regressionThreshold;
+    }
+
+    public void setRegressionThreshold(Integer regressionThreshold) {
+
+        this.regressionThreshold = regressionThreshold;
+    }
+
+    public Long getStallTimeout() {
+
+        return stallTimeout;
+    }
+
+    public void setStallTimeout(Long stallTimeout) {
+
+        this.stallTimeout = stallTimeout;
+    }
+
+    public Integer getStallThreadDumps() {
+
+        return stallThreadDumps;
+    }
+
+    public void setStallThreadDumps(Integer stallThreadDumps) {
+
+        this.stallThreadDumps = stallThreadDumps;
+    }
+
+    public Long getProfilingInterval() {
+
+        return profilingInterval;
+    }
+
+    public void setProfilingInterval(Long profilingInterval) {
+
+        this.profilingInterval = profilingInterval;
+    }
+
+    public MojoExecution getMojoExecution() {
+
+        return mojoExecution;
+    }
+
+    public void setMojoExecution(MojoExecution mojoExecution) {
+
+        this.mojoExecution = mojoExecution;
+    }
+
+    public File getBuildDirectory() {
+
+        return buildDirectory;
+    }
+
+    public void setBuildDirectory(File buildDirectory) {
+
+        this.buildDirectory = buildDirectory;
+    }
+
     public String getProject() {
 
         return project;
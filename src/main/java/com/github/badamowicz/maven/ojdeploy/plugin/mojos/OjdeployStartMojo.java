@@ -0,0 +1,117 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.mojos;
+
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.apache.maven.plugin.MojoExecutionException;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.AsyncExecution;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.MojoParameter;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.OjdeployExecutor;
+
+/**
+ * Mojo starts ojdeploy in the background and returns immediately, so the build can go on with other work while ojdeploy is
+ * running. It takes the same parameters as the goal <i>ojdeploy</i> but deploys either a single profile or the entries of the
+ * parameter 'deployments'. The running process is registered in the plugin context of the project and must be joined by the
+ * goal <i>await</i> bound to a later phase.
+ * 
+ * @goal start
+ * @requiresProject true
+ * @threadSafe
+ *
+ */
+public class OjdeployStartMojo extends OjdeployMojo {
+
+    private static final Logger LOG         = Logger.getLogger(OjdeployStartMojo.class);
+
+    static final String         CONTEXT_KEY = "ojdeploy.async.";
+
+    /**
+     * Identifies the process started by this execution. The goal <i>await</i> must use the same id. Only required if several
+     * processes are started by the same project. Beware that this parameter will <b>not</b> be handed over to the ojdeploy
+     * command!
+     * 
+     * @parameter property="asyncId" default-value="default"
+     */
+    private String              asyncId     = null;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void execute() throws MojoExecutionException {
+
+        OjdeployExecutor executor = null;
+        List<MojoParameter> params = null;
+        AsyncExecution execution = null;
+
+        if (isAggregated()) {
+
+            LOG.info("Module has already been deployed by goal 'aggregate'. Skipping execution.");
+            return;
+        }
+
+        if (getPluginContext().containsKey(CONTEXT_KEY + getAsyncId()))
+            throw new MojoExecutionException("An ojdeploy process with asyncId '" + getAsyncId()
+                    + "' has already been started and not been awaited!");
+
+        try {
+
+            executor = createExecutor();
+
+            if (getDeployments() != null && !getDeployments().isEmpty())
+                params = executor.prepareBatch(getBatchDeployments(), getParameterList(), getBatchBuildFile());
+            else if (getEffectiveProfiles().size() > 1)
+                throw new MojoExecutionException("Goal 'start' deploys a single profile or the parameter 'deployments' only!");
+            else
+                params = getParameterList();
+
+            execution = executor.start(params, Boolean.TRUE.equals(getDryRun()));
+
+        } catch (MojoExecutionException e) {
+
+            throw e;
+
+        } catch (Exception e) {
+
+            throw new MojoExecutionException("Failed starting ojdeploy!\n", e);
+        }
+
+        getPluginContext().put(CONTEXT_KEY + getAsyncId(), execution);
+        LOG.info("Started ojdeploy in the background with asyncId '" + getAsyncId() + "'.");
+    }
+
+    public String getAsyncId() {
+
+        return asyncId;
+    }
+
+    public void setAsyncId(String asyncId) {
+
+        this.asyncId = asyncId;
+    }
+}
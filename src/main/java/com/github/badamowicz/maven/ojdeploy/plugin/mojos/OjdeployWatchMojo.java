@@ -0,0 +1,349 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.mojos;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.apache.maven.plugin.MojoExecutionException;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.cache.DirectoryWatcher;
+import com.github.badamowicz.maven.ojdeploy.plugin.cache.Fingerprinter;
+import com.github.badamowicz.maven.ojdeploy.plugin.exceptions.OjdeployExecutionException;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.AsyncExecution;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.ExecutionResult;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.OjdeployExecutor;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.WorkspaceModel;
+
+/**
+ * Mojo watches the directories of the workspace and deploys its profiles again whenever their inputs change, until Maven is
+ * stopped. It takes the same parameters as the goal <i>ojdeploy</i> and always deploys incrementally, so only the profiles whose
+ * inputs have changed are deployed again. Changes of a burst, e.g. saving several files at once, are collected until no further
+ * change happens for 'watchQuietPeriod' ms. A deployment still running when further changes arrive is cancelled and started
+ * again afterwards. Changes of the files written by ojdeploy, i.e. the archives, the output directories and the directories
+ * receiving archives, are ignored, so a deployment does not trigger the next one.
+ * 
+ * @goal watch
+ * @requiresProject true
+ * @threadSafe
+ *
+ */
+public class OjdeployWatchMojo extends OjdeployMojo {
+
+    private static final Logger LOG                  = Logger.getLogger(OjdeployWatchMojo.class);
+
+    /** Time between two checks for changes in milliseconds. */
+    private static final long   POLL_INTERVAL        = 100;
+
+    private static final long   DEFAULT_QUIET_PERIOD = 1000;
+
+    /**
+     * Time in milliseconds without any further change before the profiles are deployed again. Defaults to 1000. Beware that this
+     * parameter will <b>not</b> be handed over to the ojdeploy command!
+     * 
+     * @parameter property="watchQuietPeriod" default-value="1000"
+     */
+    private Long                watchQuietPeriod     = null;
+
+    private final List<File>    changes              = new ArrayList<File>();
+    private volatile boolean    stopped              = false;
+    private volatile int        rounds               = 0;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+
+        OjdeployExecutor executor = null;
+        Fingerprinter fingerprinter = null;
+        DirectoryWatcher watcher = null;
+        DirectoryWatcher.Listener listener = null;
+        boolean ownWatcher = false;
+
+        if (isAggregated()) {
+
+            LOG.info("Module has already been deployed by goal 'aggregate'. Skipping execution.");
+            return;
+        }
+
+        if (getWorkspaceFile() == null)
+            throw new MojoExecutionException("Parameter 'workspaceFile' is required for watching the workspace!");
+
+        if (getEffectiveProfiles().isEmpty())
+            throw new MojoExecutionException("Goal 'watch' requires at least one profile!");
+
+        setIncremental(Boolean.TRUE);
+
+        try {
+
+            executor = createExecutor();
+            fingerprinter = executor.getFingerprinter();
+
+            if (fingerprinter.getWatcher() == null) {
+
+                fingerprinter.setWatcher(new DirectoryWatcher());
+                ownWatcher = true;
+            }
+
+            watcher = fingerprinter.getWatcher();
+            listener = new ChangeListener();
+            watcher.addListener(listener);
+
+            try {
+
+                watch(executor, fingerprinter);
+
+            } finally {
+
+                watcher.removeListener(listener);
+
+                if (ownWatcher)
+                    watcher.close();
+            }
+
+        } catch (IOException e) {
+
+            throw new MojoExecutionException("Was not able to watch the workspace for changes!\n", e);
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            LOG.info("Interrupted while watching the workspace. Stopped watching.");
+        }
+    }
+
+    /**
+     * Deploy all profiles and deploy them again whenever their inputs change until {@link #stop()} is called.
+     * 
+     * @param executor The executor skipping profiles which are up to date.
+     * @param fingerprinter The fingerprinter whose watcher reports the changes.
+     * @throws MojoExecutionException if the workspace could not be watched.
+     * @throws InterruptedException if the thread has been interrupted while waiting for changes.
+     */
+    private void watch(OjdeployExecutor executor, Fingerprinter fingerprinter) throws MojoExecutionException,
+            InterruptedException {
+
+        List<String> pending = null;
+        AsyncExecution running = null;
+        long lastChange = 0;
+        boolean changed = false;
+
+        fingerprinter.getWorkspace(getWorkspaceFile());
+        pending = new ArrayList<String>(getEffectiveProfiles());
+        LOG.info("Watching workspace " + getWorkspaceFile() + " for changes.");
+
+        while (!stopped) {
+
+            if (running == null && !pending.isEmpty() && !changed)
+                running = start(executor, pending.remove(0));
+
+            if (running != null && running.isDone()) {
+
+                report(running, false);
+                running = null;
+
+                if (pending.isEmpty()) {
+
+                    rounds++;
+                    LOG.info("Waiting for changes of the workspace.");
+                }
+
+                continue;
+            }
+
+            Thread.sleep(POLL_INTERVAL);
+
+            if (fingerprinter.getWatcher() == null)
+                throw new MojoExecutionException("Was not able to watch the workspace for changes!");
+
+            fingerprinter.getWatcher().pollChanges();
+
+            if (hasRelevantChanges(fingerprinter)) {
+
+                lastChange = System.currentTimeMillis();
+                changed = true;
+
+                if (running != null) {
+
+                    running.cancel();
+                    report(running, true);
+                    running = null;
+                }
+
+            } else if (changed && System.currentTimeMillis() - lastChange >= getEffectiveQuietPeriod()) {
+
+                LOG.info("Inputs of the workspace have changed. Deploying changed profiles again.");
+                pending = new ArrayList<String>(getEffectiveProfiles());
+                changed = false;
+            }
+        }
+
+        if (running != null) {
+
+            running.cancel();
+            report(running, true);
+        }
+    }
+
+    /**
+     * Start deploying a single profile. Failures are logged, so watching goes on.
+     * 
+     * @return The running deployment or <b>null</b> if it could not be started.
+     */
+    private AsyncExecution start(OjdeployExecutor executor, String profile) {
+
+        try {
+
+            return executor.start(getParameterList(profile), Boolean.TRUE.equals(getDryRun()));
+
+        } catch (OjdeployExecutionException e) {
+
+            LOG.error("Deploying profile " + profile + " failed: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Wait for a deployment and log its outcome. Failures are logged, so watching goes on.
+     * 
+     * @param execution The deployment.
+     * @param cancelled true, if the deployment has been cancelled.
+     */
+    private void report(AsyncExecution execution, boolean cancelled) {
+
+        ExecutionResult result = null;
+
+        try {
+
+            result = execution.await();
+
+            if (result.isUpToDate())
+                LOG.info("Profile " + result.getName() + " is up to date.");
+            else if (result.isFromCache())
+                LOG.info("Restored profile " + result.getName() + " from the build cache.");
+            else if (!result.isDryRun())
+                LOG.info("Deployed profile " + result.getName() + " in " + result.getDuration() + "ms.");
+
+        } catch (OjdeployExecutionException e) {
+
+            if (cancelled)
+                LOG.info("Cancelled deploying profile " + execution.getResult().getName() + " since its inputs changed again.");
+            else
+                LOG.error("Deploying profile " + execution.getResult().getName() + " failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Check the changes reported since the last call. Changes of output directories, directories receiving archives and version
+     * control metadata are ignored, since ojdeploy itself writes to them.
+     * 
+     * @return true, if at least one input of the workspace has changed.
+     */
+    private boolean hasRelevantChanges(Fingerprinter fingerprinter) {
+
+        List<File> currChanges = null;
+        WorkspaceModel model = null;
+
+        synchronized (changes) {
+
+            currChanges = new ArrayList<File>(changes);
+            changes.clear();
+        }
+
+        if (currChanges.isEmpty())
+            return false;
+
+        model = fingerprinter.getWorkspace(getWorkspaceFile());
+
+        for (File currFile : currChanges) {
+
+            if (currFile == null || !fingerprinter.isIgnored(model, currFile)) {
+
+                LOG.debug("Input changed: " + (currFile != null ? currFile : "unknown files"));
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Stop watching. A deployment still running is cancelled.
+     */
+    void stop() {
+
+        stopped = true;
+    }
+
+    /**
+     * @return The number of times all profiles have been deployed after a change or at start.
+     */
+    int getRounds() {
+
+        return rounds;
+    }
+
+    private long getEffectiveQuietPeriod() {
+
+        return getWatchQuietPeriod() != null ? getWatchQuietPeriod().longValue() : DEFAULT_QUIET_PERIOD;
+    }
+
+    public Long getWatchQuietPeriod() {
+
+        return watchQuietPeriod;
+    }
+
+    public void setWatchQuietPeriod(Long watchQuietPeriod) {
+
+        this.watchQuietPeriod = watchQuietPeriod;
+    }
+
+    /**
+     * Collects the changes reported by the watcher. A lost change is recorded as <b>null</b>.
+     */
+    private class ChangeListener implements DirectoryWatcher.Listener {
+
+        @Override
+        public void changed(File file, boolean structural) {
+
+            synchronized (changes) {
+
+                changes.add(file);
+            }
+        }
+
+        @Override
+        public void overflow() {
+
+            synchronized (changes) {
+
+                changes.add(null);
+            }
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.process;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.ExecutionResult;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.ProcessListener;
+
+/**
+ * Samples the resource usage of the process tree of an ojdeploy run from the <i>/proc</i> file system of Linux while it is
+ * running. At every sample the files <i>stat</i>, <i>status</i> and <i>io</i> of all processes of the tree are read. When the
+ * process has finished, the totals are logged, stored next to the log file and handed over to the {@link ExecutionResult}.
+ * <p>
+ * CPU time and I/O are the values last seen for every process, so work done by a process after the last sample is missed. The
+ * peak RSS is the sum of the high water marks (<i>VmHWM</i>) of all processes, so peaks between two samples are not missed.
+ * 
+ * @author bernd
+ *
+ */
+public class ProcessSampler implements ProcessListener, Runnable {
+
+    private static final Logger LOG         = Logger.getLogger(ProcessSampler.class);
+
+    /** USER_HZ, the unit of the CPU times in /proc/&lt;pid&gt;/stat. It is 100 on all common Linux platforms. */
+    private static final long   CLOCK_TICKS = 100;
+
+    private static final int    UTIME       = 11;
+    private static final int    STIME       = 12;
+    private static final int    THREADS     = 17;
+
+    private ExecutionResult     result      = null;
+    private long                interval    = 0;
+    private File                statsFile   = null;
+    private long                pid         = -1;
+    private Thread              thread      = null;
+    private boolean             stopped     = false;
+    private Map<Long, Long>     cpuTicks    = null;
+    private Map<Long, Long>     readBytes   = null;
+    private Map<Long, Long>     writeBytes  = null;
+    private ProcessStats        stats       = null;
+
+    /**
+     * @param result The result of the run receiving the statistics.
+     * @param interval The time between two samples in milliseconds.
+     * @param statsFile The file the statistics are stored to. May be null.
+     */
+    public ProcessSampler(ExecutionResult result, long interval, File statsFile) {
+
+        super();
+        this.result = result;
+        this.interval = interval;
+        this.statsFile = statsFile;
+        cpuTicks = new HashMap<Long, Long>();
+        readBytes = new HashMap<Long, Long>();
+        writeBytes = new HashMap<Long, Long>();
+        stats = new ProcessStats();
+    }
+
+    @Override
+    public synchronized void processStarted(long pid) {
+
+        if (pid < 0 || !ProcessTree.isSupported()) {
+
+            LOG.debug("Sampling ojdeploy is not supported on this platform.");
+            return;
+        }
+
+        this.pid = pid;
+        thread = new Thread(this, "ojdeploy-sampler-" + pid);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+
+        try {
+
+            while (!isStopped()) {
+
+                sample();
+
+                synchronized (this) {
+
+                    if (!stopped)
+                        wait(interval);
+                }
+            }
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void processFinished() {
+
+        Thread sampler = null;
+
+        synchronized (this) {
+
+            stopped = true;
+            sampler = thread;
+            notifyAll();
+        }
+
+        if (sampler == null)
+            return;
+
+        try {
+
+            sampler.join();
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+        }
+
+        report();
+    }
+
+    /**
+     * Take a single sample of all processes of the tree.
+     */
+    synchronized void sample() {
+
+        long rss = 0;
+        long threads = 0;
+        String[] currStat = null;
+
+        for (Long currPid : ProcessTree.getTree(pid)) {
+
+            currStat = ProcessTree.readStat(currPid.longValue());
+
+            if (currStat == null || currStat.length <= THREADS)
+                continue;
+
+            cpuTicks.put(currPid, Long.valueOf(Long.parseLong(currStat[UTIME]) + Long.parseLong(currStat[STIME])));
+            threads += Long.parseLong(currStat[THREADS]);
+            rss += Math.max(0, readField(ProcessTree.read(currPid.longValue(), "status"), "VmHWM:")) * 1024;
+            putIfKnown(readBytes, currPid, readField(ProcessTree.read(currPid.longValue(), "io"), "read_bytes:"));
+            putIfKnown(writeBytes, currPid, readField(ProcessTree.read(currPid.longValue(), "io"), "write_bytes:"));
+        }
+
+        stats.setPeakRssBytes(Math.max(stats.getPeakRssBytes(), rss));
+        stats.setPeakThreads(Math.max(stats.getPeakThreads(), threads));
+        stats.setCpuMillis(sum(cpuTicks) * 1000 / CLOCK_TICKS);
+        stats.setReadBytes(sum(readBytes));
+        stats.setWrittenBytes(sum(writeBytes));
+        stats.setProcesses(cpuTicks.size());
+        stats.setSamples(stats.getSamples() + 1);
+    }
+
+    private void report() {
+
+        LOG.info("Resource usage of ojdeploy" + (result.getName() != null ? " for " + result.getName() : "") + ": " + stats);
+        result.setProcessStats(stats);
+
+        if (statsFile == null)
+            return;
+
+        try {
+
+            stats.store(statsFile);
+
+        } catch (IOException e) {
+
+            LOG.warn("Could not store resource usage of ojdeploy to " + statsFile + ".", e);
+        }
+    }
+
+    /**
+     * Read the numeric value of a field of a file like <i>status</i> or <i>io</i>.
+     * 
+     * @param content The content of the file. May be null.
+     * @param field The name of the field including the colon.
+     * @return The value or -1 if the field does not exist.
+     */
+    static long readField(String content, String field) {
+
+        int start = 0;
+        int end = 0;
+
+        if (content == null || (start = content.indexOf(field)) < 0)
+            return -1;
+
+        start += field.length();
+
+        while (start < content.length() && !Character.isDigit(content.charAt(start)))
+            start++;
+
+        end = start;
+
+        while (end < content.length() && Character.isDigit(content.charAt(end)))
+            end++;
+
+        return end > start ? Long.parseLong(content.substring(start, end)) : -1;
+    }
+
+    private static void putIfKnown(Map<Long, Long> values, Long pid, long value) {
+
+        if (value >= 0)
+            values.put(pid, Long.valueOf(value));
+    }
+
+    private static long sum(Map<Long, Long> values) {
+
+        long sum = 0;
+
+        for (Long currValue : values.values())
+            sum += currValue.longValue();
+
+        return sum;
+    }
+
+    private synchronized boolean isStopped() {
+
+        return stopped;
+    }
+
+    /**
+     * @return The statistics sampled so far.
+     */
+    public synchronized ProcessStats getStats() {
+
+        return stats;
+    }
+}
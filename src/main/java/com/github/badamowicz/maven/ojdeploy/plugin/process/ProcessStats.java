@@ -0,0 +1,183 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.process;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Resource usage of the process tree of a single ojdeploy run as sampled by {@link ProcessSampler}.
+ * 
+ * @author bernd
+ *
+ */
+public class ProcessStats {
+
+    private long cpuMillis    = 0;
+    private long peakRssBytes = 0;
+    private long peakThreads  = 0;
+    private long readBytes    = 0;
+    private long writtenBytes = 0;
+    private int  processes    = 0;
+    private int  samples      = 0;
+
+    /**
+     * @return The CPU time in user and kernel mode of all processes of the tree.
+     */
+    public long getCpuMillis() {
+
+        return cpuMillis;
+    }
+
+    public void setCpuMillis(long cpuMillis) {
+
+        this.cpuMillis = cpuMillis;
+    }
+
+    /**
+     * @return The highest resident set size of all processes of the tree taken together.
+     */
+    public long getPeakRssBytes() {
+
+        return peakRssBytes;
+    }
+
+    public void setPeakRssBytes(long peakRssBytes) {
+
+        this.peakRssBytes = peakRssBytes;
+    }
+
+    /**
+     * @return The highest number of threads of all processes of the tree taken together.
+     */
+    public long getPeakThreads() {
+
+        return peakThreads;
+    }
+
+    public void setPeakThreads(long peakThreads) {
+
+        this.peakThreads = peakThreads;
+    }
+
+    /**
+     * @return The bytes read from storage by all processes of the tree.
+     */
+    public long getReadBytes() {
+
+        return readBytes;
+    }
+
+    public void setReadBytes(long readBytes) {
+
+        this.readBytes = readBytes;
+    }
+
+    /**
+     * @return The bytes written to storage by all processes of the tree.
+     */
+    public long getWrittenBytes() {
+
+        return writtenBytes;
+    }
+
+    public void setWrittenBytes(long writtenBytes) {
+
+        this.writtenBytes = writtenBytes;
+    }
+
+    /**
+     * @return The number of distinct processes seen.
+     */
+    public int getProcesses() {
+
+        return processes;
+    }
+
+    public void setProcesses(int processes) {
+
+        this.processes = processes;
+    }
+
+    public int getSamples() {
+
+        return samples;
+    }
+
+    public void setSamples(int samples) {
+
+        this.samples = samples;
+    }
+
+    /**
+     * Store the statistics as properties file.
+     * 
+     * @param file The file to be written.
+     * @throws IOException if the file could not be written.
+     */
+    public void store(File file) throws IOException {
+
+        Properties props = null;
+        OutputStream os = null;
+
+        props = new Properties();
+        props.setProperty("cpu.millis", String.valueOf(cpuMillis));
+        props.setProperty("rss.peak.bytes", String.valueOf(peakRssBytes));
+        props.setProperty("threads.peak", String.valueOf(peakThreads));
+        props.setProperty("io.read.bytes", String.valueOf(readBytes));
+        props.setProperty("io.written.bytes", String.valueOf(writtenBytes));
+        props.setProperty("processes", String.valueOf(processes));
+        props.setProperty("samples", String.valueOf(samples));
+
+        if (file.getParentFile() != null)
+            file.getParentFile().mkdirs();
+
+        try {
+
+            os = new FileOutputStream(file);
+            props.store(os, "Resource usage of ojdeploy");
+
+        } finally {
+
+            IOUtils.closeQuietly(os);
+        }
+    }
+
+    @Override
+    public String toString() {
+
+        return "CPU " + cpuMillis + "ms, peak RSS " + FileUtils.byteCountToDisplaySize(peakRssBytes) + ", peak threads "
+                + peakThreads + ", read " + FileUtils.byteCountToDisplaySize(readBytes) + ", written "
+                + FileUtils.byteCountToDisplaySize(writtenBytes) + " by " + processes + " processes";
+    }
+}
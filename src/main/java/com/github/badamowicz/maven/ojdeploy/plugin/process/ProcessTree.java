@@ -0,0 +1,362 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.process;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Access to the tree of processes started by ojdeploy using the <i>/proc</i> file system of Linux. The ojdeploy binary is a
+ * shell script starting the JVM doing the actual work, so most information is not found in the process started by the plugin
+ * but in its descendants.
+ * 
+ * @author bernd
+ *
+ */
+public class ProcessTree {
+
+    private static final Logger LOG      = Logger.getLogger(ProcessTree.class);
+
+    private static final File   PROC_DIR = new File("/proc");
+
+    /** Utility class. */
+    private ProcessTree() {
+
+    }
+
+    /**
+     * @return true, if the <i>/proc</i> file system is available.
+     */
+    public static boolean isSupported() {
+
+        return new File(PROC_DIR, "self/stat").isFile();
+    }
+
+    /**
+     * Determine the id of the given process. The method <i>pid()</i> of Java 9 and later is looked up by reflection, since the
+     * plugin is compiled for Java 7. On older runtimes the private field <i>pid</i> of the UNIX implementation is read instead.
+     * 
+     * @param process The process.
+     * @return The id of the process or -1 if it could not be determined, e.g. on Windows.
+     */
+    public static long getPid(Process process) {
+
+        Method pidMethod = null;
+        Field pidField = null;
+
+        try {
+
+            pidMethod = Process.class.getMethod("pid");
+            return ((Number) pidMethod.invoke(process)).longValue();
+
+        } catch (NoSuchMethodException e) {
+
+            // Java 8 or older
+        } catch (Exception e) {
+
+            LOG.debug("Could not call pid() of " + process.getClass() + ".", e);
+        }
+
+        try {
+
+            pidField = process.getClass().getDeclaredField("pid");
+            pidField.setAccessible(true);
+            return ((Number) pidField.get(process)).longValue();
+
+        } catch (Exception e) {
+
+            LOG.debug("Could not determine process id of " + process.getClass() + ".", e);
+            return -1;
+        }
+    }
+
+    /**
+     * Find the given process and all its descendants.
+     * 
+     * @param pid The id of the root process.
+     * @return The ids of the process tree, parents before their children. Empty if the root process does not exist anymore.
+     */
+    public static List<Long> getTree(long pid) {
+
+        Map<Long, List<Long>> children = null;
+        List<Long> tree = null;
+        String[] entries = null;
+        long currParent = 0;
+
+        children = new HashMap<Long, List<Long>>();
+        tree = new ArrayList<Long>();
+        entries = PROC_DIR.list();
+
+        if (entries == null || !new File(PROC_DIR, String.valueOf(pid)).isDirectory())
+            return tree;
+
+        for (String currEntry : entries) {
+
+            if (!isNumeric(currEntry))
+                continue;
+
+            currParent = getParent(Long.parseLong(currEntry));
+
+            if (currParent > 0) {
+
+                if (!children.containsKey(Long.valueOf(currParent)))
+                    children.put(Long.valueOf(currParent), new ArrayList<Long>());
+
+                children.get(Long.valueOf(currParent)).add(Long.valueOf(currEntry));
+            }
+        }
+
+        tree.add(Long.valueOf(pid));
+
+        for (int i = 0; i < tree.size(); i++)
+            if (children.containsKey(tree.get(i)))
+                tree.addAll(children.get(tree.get(i)));
+
+        return tree;
+    }
+
+    /**
+     * Stop the given process and all its descendants. A process forking while the tree is collected would otherwise leave a child
+     * behind which is not destroyed. So the tree is collected and stopped repeatedly until no new process turns up.
+     * 
+     * @param pid The id of the root process.
+     * @return The ids of the stopped processes, parents before their children. Hand them over to {@link #destroy(List, long)},
+     *         which continues them after asking them to terminate.
+     */
+    public static List<Long> stopTree(long pid) {
+
+        List<Long> stopped = null;
+        List<Long> found = null;
+
+        stopped = new ArrayList<Long>();
+
+        do {
+
+            found = getTree(pid);
+            found.removeAll(stopped);
+            signal(found, "STOP");
+            stopped.addAll(found);
+
+        } while (!found.isEmpty());
+
+        return stopped;
+    }
+
+    /**
+     * Find the JVMs among the given processes. The ojdeploy script starts the JVM of JDeveloper as one of its descendants.
+     * 
+     * @param pids The process ids.
+     * @return The ids of the processes running a <i>java</i> binary.
+     */
+    public static List<Long> getJvms(List<Long> pids) {
+
+        List<Long> jvms = null;
+        File currExecutable = null;
+
+        jvms = new ArrayList<Long>();
+
+        for (Long currPid : pids) {
+
+            currExecutable = getExecutable(currPid.longValue());
+
+            if (currExecutable != null && currExecutable.getName().equals("java"))
+                jvms.add(currPid);
+        }
+
+        return jvms;
+    }
+
+    /**
+     * @param pid The process id.
+     * @return The binary the process is running or <b>null</b> if it could not be determined.
+     */
+    public static File getExecutable(long pid) {
+
+        File link = null;
+
+        link = new File(new File(PROC_DIR, String.valueOf(pid)), "exe");
+
+        try {
+
+            return link.exists() ? link.getCanonicalFile() : null;
+
+        } catch (IOException e) {
+
+            return null;
+        }
+    }
+
+    /**
+     * Terminate all given processes. They are asked to terminate first. Processes still alive after the grace time are killed.
+     * Take the ids from {@link #stopTree(long)} before, since descendants are reparented as soon as their parent has gone.
+     * Stopped processes are continued after being asked to terminate.
+     * 
+     * @param pids The process ids.
+     * @param graceTime The time in milliseconds the processes get for terminating themselves.
+     */
+    public static void destroy(List<Long> pids, long graceTime) {
+
+        List<Long> alive = null;
+        long deadline = System.currentTimeMillis() + graceTime;
+
+        signal(pids, "TERM");
+        signal(pids, "CONT");
+
+        try {
+
+            do {
+
+                alive = new ArrayList<Long>();
+
+                for (Long currPid : pids)
+                    if (isAlive(currPid.longValue()))
+                        alive.add(currPid);
+
+                if (!alive.isEmpty())
+                    Thread.sleep(100);
+
+            } while (!alive.isEmpty() && System.currentTimeMillis() < deadline);
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+        }
+
+        if (alive != null && !alive.isEmpty()) {
+
+            LOG.warn("Processes " + alive + " did not terminate within " + graceTime + "ms. Killing them.");
+            signal(alive, "KILL");
+        }
+    }
+
+    /**
+     * @param pid The process id.
+     * @return true, if the process exists and is not a zombie.
+     */
+    static boolean isAlive(long pid) {
+
+        String[] stat = readStat(pid);
+
+        return stat != null && stat.length > 0 && !stat[0].equals("Z");
+    }
+
+    private static void signal(List<Long> pids, String signal) {
+
+        List<String> command = null;
+        Process kill = null;
+
+        if (pids.isEmpty())
+            return;
+
+        command = new ArrayList<String>();
+        command.add("kill");
+        command.add("-" + signal);
+
+        for (Long currPid : pids)
+            command.add(currPid.toString());
+
+        try {
+
+            kill = new ProcessBuilder(command).redirectErrorStream(true).start();
+            IOUtils.toString(kill.getInputStream());
+            kill.waitFor();
+
+        } catch (IOException e) {
+
+            LOG.warn("Could not send " + signal + " to processes " + pids + ".", e);
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Read the fields of <i>/proc/&lt;pid&gt;/stat</i> following the command name. The command name may contain blanks and
+     * parentheses, so the fields are taken from the last closing parenthesis on. The first field returned is the state, i.e. the
+     * third field of the file.
+     * 
+     * @param pid The process id.
+     * @return The fields or <b>null</b> if the process does not exist anymore.
+     */
+    static String[] readStat(long pid) {
+
+        String stat = null;
+
+        stat = read(pid, "stat");
+
+        if (stat == null || stat.lastIndexOf(')') < 0)
+            return null;
+
+        return stat.substring(stat.lastIndexOf(')') + 1).trim().split("\\s+");
+    }
+
+    /**
+     * Read a file of the process.
+     * 
+     * @param pid The process id.
+     * @param name The name of the file, e.g. <i>status</i>.
+     * @return The content or <b>null</b> if the file could not be read, e.g. since the process has ended.
+     */
+    static String read(long pid, String name) {
+
+        try {
+
+            return FileUtils.readFileToString(new File(new File(PROC_DIR, String.valueOf(pid)), name));
+
+        } catch (IOException e) {
+
+            return null;
+        }
+    }
+
+    private static long getParent(long pid) {
+
+        String[] stat = readStat(pid);
+
+        return stat != null && stat.length > 1 ? Long.parseLong(stat[1]) : -1;
+    }
+
+    private static boolean isNumeric(String name) {
+
+        for (int i = 0; i < name.length(); i++)
+            if (!Character.isDigit(name.charAt(i)))
+                return false;
+
+        return !name.isEmpty();
+    }
+}
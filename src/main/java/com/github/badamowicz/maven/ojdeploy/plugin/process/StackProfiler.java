@@ -0,0 +1,269 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.process;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.ProcessListener;
+
+/**
+ * Poor man's sampling profiler for the JVM of ojdeploy. Thread dumps are taken by {@link ThreadDumper} at a fixed interval and
+ * the stacks of all runnable threads are counted. When the process has finished, the stacks are written in the collapsed format
+ * understood by flame graph tools like <i>flamegraph.pl</i> or speedscope: one line per distinct stack, frames from the root to
+ * the leaf separated by semicolons, followed by the number of samples.
+ * <p>
+ * Every sample starts jcmd, which is a JVM itself. So intervals below a few hundred milliseconds just burn CPU without gaining
+ * precision.
+ * 
+ * @author bernd
+ *
+ */
+public class StackProfiler implements ProcessListener, Runnable {
+
+    private static final Logger  LOG          = Logger.getLogger(StackProfiler.class);
+
+    private static final String  STATE_PREFIX = "java.lang.Thread.State: ";
+    private static final String  FRAME_PREFIX = "at ";
+
+    private long                 interval     = 0;
+    private File                 stacksFile   = null;
+    private long                 pid          = -1;
+    private Thread               thread       = null;
+    private boolean              stopped      = false;
+    private Map<String, Integer> stacks       = null;
+    private int                  samples      = 0;
+
+    /**
+     * @param interval The time between two samples in milliseconds.
+     * @param stacksFile The file receiving the collapsed stacks.
+     */
+    public StackProfiler(long interval, File stacksFile) {
+
+        super();
+        this.interval = interval;
+        this.stacksFile = stacksFile;
+        stacks = new TreeMap<String, Integer>();
+    }
+
+    @Override
+    public synchronized void processStarted(long pid) {
+
+        if (pid < 0 || !ProcessTree.isSupported()) {
+
+            LOG.debug("Profiling ojdeploy is not supported on this platform.");
+            return;
+        }
+
+        this.pid = pid;
+        thread = new Thread(this, "ojdeploy-profiler-" + pid);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+
+        List<Long> jvms = null;
+
+        try {
+
+            while (!isStopped()) {
+
+                jvms = ProcessTree.getJvms(ProcessTree.getTree(pid));
+
+                for (Long currJvm : jvms)
+                    sample(ThreadDumper.dump(currJvm.longValue()));
+
+                synchronized (this) {
+
+                    if (!stopped)
+                        wait(interval);
+                }
+            }
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void processFinished() {
+
+        Thread profiler = null;
+
+        synchronized (this) {
+
+            stopped = true;
+            profiler = thread;
+            notifyAll();
+        }
+
+        if (profiler == null)
+            return;
+
+        try {
+
+            profiler.join();
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+        }
+
+        write();
+    }
+
+    /**
+     * Count the stacks of a thread dump.
+     * 
+     * @param dump The output of <i>jcmd Thread.print</i> or <i>jstack</i>. May be null if the dump failed.
+     */
+    synchronized void sample(String dump) {
+
+        if (dump == null)
+            return;
+
+        collapse(dump, stacks);
+        samples++;
+    }
+
+    private void write() {
+
+        PrintWriter writer = null;
+
+        if (samples == 0) {
+
+            LOG.warn("No stacks of ojdeploy sampled. Profile is not written.");
+            return;
+        }
+
+        try {
+
+            FileUtils.forceMkdir(stacksFile.getAbsoluteFile().getParentFile());
+            writer = new PrintWriter(stacksFile, "UTF-8");
+
+            for (Map.Entry<String, Integer> currEntry : getStacks().entrySet())
+                writer.println(currEntry.getKey() + " " + currEntry.getValue());
+
+            LOG.info("Wrote " + samples + " samples of ojdeploy to " + stacksFile.getAbsolutePath());
+
+        } catch (IOException e) {
+
+            LOG.warn("Could not write profile of ojdeploy to " + stacksFile + ".", e);
+
+        } finally {
+
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    /**
+     * Add the stacks of all runnable threads of a thread dump to the counts. Frames are reduced to class and method, so calls
+     * from different lines of a method are merged.
+     * 
+     * @param dump The thread dump.
+     * @param stacks The counts per collapsed stack.
+     */
+    static void collapse(String dump, Map<String, Integer> stacks) {
+
+        StringBuilder currStack = null;
+        String currLine = null;
+        String currFrame = null;
+        boolean runnable = false;
+
+        currStack = new StringBuilder();
+
+        for (String currRawLine : dump.split("\r?\n")) {
+
+            currLine = currRawLine.trim();
+
+            if (currLine.startsWith("\"")) {
+
+                count(currStack, runnable, stacks);
+                currStack.setLength(0);
+                runnable = false;
+
+            } else if (currLine.startsWith(STATE_PREFIX)) {
+
+                runnable = currLine.startsWith("RUNNABLE", STATE_PREFIX.length());
+
+            } else if (currLine.startsWith(FRAME_PREFIX)) {
+
+                currFrame = currLine.substring(FRAME_PREFIX.length());
+
+                if (currFrame.indexOf('(') > 0)
+                    currFrame = currFrame.substring(0, currFrame.indexOf('('));
+
+                currStack.insert(0, currStack.length() > 0 ? currFrame + ";" : currFrame);
+            }
+        }
+
+        count(currStack, runnable, stacks);
+    }
+
+    private static void count(StringBuilder stack, boolean runnable, Map<String, Integer> stacks) {
+
+        Integer count = null;
+
+        if (!runnable || stack.length() == 0)
+            return;
+
+        count = stacks.get(stack.toString());
+        stacks.put(stack.toString(), Integer.valueOf(count == null ? 1 : count.intValue() + 1));
+    }
+
+    private synchronized boolean isStopped() {
+
+        return stopped;
+    }
+
+    /**
+     * @return The number of samples per collapsed stack so far.
+     */
+    public synchronized Map<String, Integer> getStacks() {
+
+        return new TreeMap<String, Integer>(stacks);
+    }
+
+    /**
+     * @return The number of thread dumps taken so far.
+     */
+    public synchronized int getSamples() {
+
+        return samples;
+    }
+}
@@ -0,0 +1,169 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.process;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.exec.CommandLine;
+import org.apache.commons.exec.DefaultExecutor;
+import org.apache.commons.exec.ExecuteWatchdog;
+import org.apache.commons.exec.PumpStreamHandler;
+import org.apache.log4j.Logger;
+
+/**
+ * Takes thread dumps of a running JVM using <i>jcmd &lt;pid&gt; Thread.print</i> or <i>jstack &lt;pid&gt;</i> of the JDK. The
+ * tools of the JDK running the JVM are preferred, since they are guaranteed to be able to attach to it. Otherwise the tools of the
+ * JDK running Maven and finally the ones found on the path are used.
+ * 
+ * @author bernd
+ *
+ */
+public class ThreadDumper {
+
+    private static final Logger   LOG          = Logger.getLogger(ThreadDumper.class);
+
+    /** Attaching to a hung JVM may hang as well. */
+    private static final long     TOOL_TIMEOUT = 30000;
+
+    private static final String[] TOOLS        = { "jcmd", "jstack" };
+
+    /** Utility class. */
+    private ThreadDumper() {
+
+    }
+
+    /**
+     * Take a thread dump of the given JVM.
+     * 
+     * @param pid The id of the JVM process.
+     * @return The thread dump or <b>null</b> if no tool was able to take it.
+     */
+    public static String dump(long pid) {
+
+        String dump = null;
+
+        for (CommandLine currCommand : getCommands(pid)) {
+
+            dump = run(currCommand);
+
+            if (dump != null)
+                return dump;
+        }
+
+        LOG.warn("Could not take thread dump of process " + pid + ". Neither jcmd nor jstack succeeded.");
+        return null;
+    }
+
+    /**
+     * @param pid The id of the JVM process.
+     * @return The commands for taking a thread dump, the most suitable first.
+     */
+    static List<CommandLine> getCommands(long pid) {
+
+        List<CommandLine> commands = null;
+        List<File> binDirs = null;
+        File executable = null;
+        File currTool = null;
+
+        commands = new ArrayList<CommandLine>();
+        binDirs = new ArrayList<File>();
+        executable = ProcessTree.getExecutable(pid);
+
+        if (executable != null) {
+
+            binDirs.add(executable.getParentFile());
+            binDirs.add(new File(executable.getParentFile(), "../../bin"));
+        }
+
+        binDirs.add(new File(System.getProperty("java.home"), "bin"));
+        binDirs.add(new File(System.getProperty("java.home"), "../bin"));
+
+        for (File currDir : binDirs) {
+
+            for (String currName : TOOLS) {
+
+                currTool = new File(currDir, currName);
+
+                if (currTool.isFile())
+                    commands.add(createCommand(currTool.getAbsolutePath(), pid));
+            }
+        }
+
+        for (String currName : TOOLS)
+            commands.add(createCommand(currName, pid));
+
+        return commands;
+    }
+
+    private static CommandLine createCommand(String tool, long pid) {
+
+        CommandLine command = null;
+
+        command = new CommandLine(tool);
+        command.addArgument(String.valueOf(pid));
+
+        if (tool.endsWith("jcmd"))
+            command.addArgument("Thread.print");
+
+        return command;
+    }
+
+    private static String run(CommandLine command) {
+
+        DefaultExecutor executor = null;
+        ByteArrayOutputStream output = null;
+        int exitValue = 0;
+
+        output = new ByteArrayOutputStream();
+        executor = new DefaultExecutor();
+        executor.setStreamHandler(new PumpStreamHandler(output));
+        executor.setWatchdog(new ExecuteWatchdog(TOOL_TIMEOUT));
+        executor.setExitValues(null);
+
+        try {
+
+            exitValue = executor.execute(command);
+
+        } catch (IOException e) {
+
+            LOG.debug("Could not run " + command + ".", e);
+            return null;
+        }
+
+        if (exitValue != 0) {
+
+            LOG.debug(command + " returned " + exitValue + ": " + output);
+            return null;
+        }
+
+        return output.toString();
+    }
+}
@@ -0,0 +1,204 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.cache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Test cases for {@link BuildCache}.
+ * 
+ * @author bernd
+ *
+ */
+public class BuildCacheTest {
+
+    private static final File TEST_DIR  = new File("target/buildcache-test");
+    private static final File WORKSPACE = new File(TEST_DIR, "workspace");
+
+    private BuildCache        cache     = null;
+    private Properties        mappings  = null;
+
+    @BeforeMethod
+    public void beforeMethod() {
+
+        FileUtils.deleteQuietly(TEST_DIR);
+        cache = new BuildCache(new File(TEST_DIR, "cache"), 1024 * 1024);
+        mappings = new Properties();
+        mappings.setProperty("profile", "-profile");
+    }
+
+    @Test
+    public void createKey() {
+
+        InputFingerprint fingerprint = null;
+        String key = null;
+
+        fingerprint = createFingerprint("profile1", "digest");
+        key = cache.createKey(fingerprint, mappings, "12.1.3");
+
+        assertEquals(cache.createKey(createFingerprint("profile1", "digest"), mappings, "12.1.3"), key, "Key must be stable!");
+        assertFalse(cache.createKey(fingerprint, mappings, "11.1.1").equals(key), "Version not part of key!");
+        assertFalse(cache.createKey(createFingerprint("profile1", "other"), mappings, "12.1.3").equals(key),
+                "Fingerprint not part of key!");
+
+        mappings.setProperty("clean", "-clean");
+        assertFalse(cache.createKey(fingerprint, mappings, "12.1.3").equals(key), "Mappings not part of key!");
+    }
+
+    @Test
+    public void storeAndRestore() throws IOException {
+
+        InputFingerprint fingerprint = null;
+        String key = null;
+
+        fingerprint = createFingerprint("profile1", "digest");
+        key = cache.createKey(fingerprint, mappings, "12.1.3");
+        assertFalse(cache.restore(key, fingerprint), "Empty cache must not restore anything!");
+
+        FileUtils.write(fingerprint.getOutputFiles().get(0), "archive1");
+        cache.store(key, fingerprint);
+        assertTrue(cache.getEntryDirectory(key).isDirectory(), "Entry not published!");
+        assertEquals(new File(cache.getDirectory(), "tmp").list().length, 0, "Temporary entry left behind!");
+
+        FileUtils.deleteQuietly(fingerprint.getOutputFiles().get(0));
+        assertTrue(cache.restore(key, fingerprint), "Entry not restored!");
+        assertEquals(FileUtils.readFileToString(fingerprint.getOutputFiles().get(0)), "archive1", "Wrong content restored!");
+    }
+
+    @Test
+    public void restoreDamagedEntry() throws IOException {
+
+        InputFingerprint fingerprint = null;
+        String key = null;
+
+        fingerprint = createFingerprint("profile3", "digest");
+        key = cache.createKey(fingerprint, mappings, "12.1.3");
+        FileUtils.write(fingerprint.getOutputFiles().get(0), "archive3");
+        cache.store(key, fingerprint);
+
+        FileUtils.write(new File(cache.getEntryDirectory(key), "0"), "damaged");
+        FileUtils.write(fingerprint.getOutputFiles().get(0), "local");
+
+        assertFalse(cache.restore(key, fingerprint), "Damaged entry restored!");
+        assertEquals(FileUtils.readFileToString(fingerprint.getOutputFiles().get(0)), "local", "Local archive overwritten!");
+        assertEquals(fingerprint.getOutputFiles().get(0).getParentFile().list().length, 1, "Temporary file left behind!");
+    }
+
+    @Test
+    public void storeConcurrently() throws Exception {
+
+        final InputFingerprint fingerprint = createFingerprint("profile4", "digest");
+        final String           key         = cache.createKey(fingerprint, mappings, "12.1.3");
+        ExecutorService pool = null;
+        List<Future<?>> futures = null;
+
+        FileUtils.write(fingerprint.getOutputFiles().get(0), "archive4");
+        pool = Executors.newFixedThreadPool(4);
+        futures = new ArrayList<Future<?>>();
+
+        for (int i = 0; i < 8; i++)
+            futures.add(pool.submit(new Runnable() {
+
+                @Override
+                public void run() {
+
+                    cache.store(key, fingerprint);
+                }
+            }));
+
+        for (Future<?> currFuture : futures)
+            currFuture.get();
+
+        pool.shutdown();
+        assertEquals(cache.getEntries().size(), 1, "Wrong number of entries!");
+        assertEquals(new File(cache.getDirectory(), "tmp").list().length, 0, "Temporary entries left behind!");
+        assertTrue(cache.restore(key, fingerprint), "Entry not restored!");
+    }
+
+    @Test
+    public void storeWithoutArchive() {
+
+        InputFingerprint fingerprint = null;
+        String key = null;
+
+        fingerprint = createFingerprint("profile2", "digest");
+        key = cache.createKey(fingerprint, mappings, "12.1.3");
+        cache.store(key, fingerprint);
+
+        assertFalse(cache.getEntryDirectory(key).exists(), "Entry without archive published!");
+    }
+
+    @Test
+    public void evict() throws IOException {
+
+        InputFingerprint fingerprint = null;
+        String oldKey = null;
+        String newKey = null;
+
+        cache.setMaxSize(1500);
+
+        fingerprint = createFingerprint("profile1", "old");
+        FileUtils.write(fingerprint.getOutputFiles().get(0), new String(new char[1000]));
+        oldKey = cache.createKey(fingerprint, mappings, "12.1.3");
+        cache.store(oldKey, fingerprint);
+        cache.getEntryDirectory(oldKey).setLastModified(System.currentTimeMillis() - 60000);
+
+        fingerprint = createFingerprint("profile1", "new");
+        newKey = cache.createKey(fingerprint, mappings, "12.1.3");
+        cache.store(newKey, fingerprint);
+
+        assertFalse(cache.getEntryDirectory(oldKey).exists(), "Least recently used entry not evicted!");
+        assertTrue(cache.getEntryDirectory(newKey).exists(), "Newest entry evicted!");
+        assertEquals(cache.getEntries().size(), 1, "Wrong number of entries!");
+    }
+
+    private InputFingerprint createFingerprint(String profile, String digest) {
+
+        InputFingerprint fingerprint = null;
+
+        fingerprint = new InputFingerprint(profile, WORKSPACE);
+        fingerprint.put(InputFingerprint.FILE_PREFIX + "src/A.java", digest);
+        fingerprint.getOutputFiles().add(new File(WORKSPACE, "deploy/" + profile + ".jar"));
+
+        return fingerprint;
+    }
+}
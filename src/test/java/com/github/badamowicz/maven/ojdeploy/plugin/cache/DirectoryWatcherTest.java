@@ -0,0 +1,175 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.cache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.TrueFileFilter;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.helper.AbstractOjdeployHelper;
+
+/**
+ * Test cases for {@link DirectoryWatcher} and a {@link Fingerprinter} relying on it. All tests work on a copy of the integration
+ * test's workspace.
+ * 
+ * @author bernd
+ *
+ */
+public class DirectoryWatcherTest extends AbstractOjdeployHelper {
+
+    private static final File TEST_DIR      = new File("target/watcher-test");
+    private static final long TIMEOUT       = 10000;
+
+    private File              workspaceFile = null;
+    private DirectoryWatcher  watcher       = null;
+    private final List<File>  changed       = new ArrayList<File>();
+
+    @BeforeClass
+    public void beforeClass() throws IOException {
+
+        FileUtils.deleteQuietly(TEST_DIR);
+        FileUtils.copyDirectory(IT_WORKSPACE_FILE.getParentFile(), new File(TEST_DIR, "ShuttleDemo"));
+        workspaceFile = new File(TEST_DIR, "ShuttleDemo/" + IT_WORKSPACE_FILE.getName()).getAbsoluteFile();
+
+        try {
+
+            watcher = new DirectoryWatcher();
+
+        } catch (IOException e) {
+
+            throw new SkipException("File system does not notify about changes.", e);
+        }
+
+        watcher.addListener(new DirectoryWatcher.Listener() {
+
+            @Override
+            public void changed(File file, boolean structural) {
+
+                changed.add(file);
+            }
+
+            @Override
+            public void overflow() {
+
+            }
+        });
+    }
+
+    @AfterClass
+    public void afterClass() {
+
+        if (watcher != null)
+            watcher.close();
+    }
+
+    @Test
+    public void pollChanges() throws Exception {
+
+        File dir = null;
+        File file = null;
+
+        dir = new File(TEST_DIR, "watched");
+        dir.mkdirs();
+        watcher.watch(dir, TrueFileFilter.INSTANCE);
+        file = new File(dir, "sub/file.txt");
+        file.getParentFile().mkdirs();
+        awaitChange(file.getParentFile());
+
+        FileUtils.write(file, "content");
+        awaitChange(file);
+    }
+
+    @Test
+    public void fingerprintWithWatcher() throws Exception {
+
+        Fingerprinter fingerprinter = null;
+        File source = null;
+        String digest = null;
+        long start = System.currentTimeMillis();
+
+        fingerprinter = new Fingerprinter();
+        fingerprinter.setWatcher(new DirectoryWatcher());
+        source = new File(workspaceFile.getParentFile(), "ViewController/public_html/index.jspx");
+        source.setLastModified(start - 60000);
+        digest = fingerprinter.fingerprint(workspaceFile, IT_WAR_PROFILE, null, "", false).getDigest();
+        assertEquals(fingerprinter.fingerprint(workspaceFile, IT_WAR_PROFILE, null, "", false).getDigest(), digest,
+                "Fingerprint of unchanged workspace not stable!");
+
+        FileUtils.write(source, "changed");
+
+        while (digest.equals(fingerprinter.fingerprint(workspaceFile, IT_WAR_PROFILE, null, "", false).getDigest()))
+            assertTrue(System.currentTimeMillis() - start < TIMEOUT, "Change of source file not detected!");
+
+        FileUtils.write(new File(workspaceFile.getParentFile(), "ViewController/public_html/new.jspx"), "new");
+
+        while (!fingerprinter.fingerprint(workspaceFile, IT_WAR_PROFILE, null, "", false).getEntries()
+                .containsKey(InputFingerprint.FILE_PREFIX + "ViewController/public_html/new.jspx"))
+            assertTrue(System.currentTimeMillis() - start < TIMEOUT, "New source file not detected!");
+        fingerprinter.getWatcher().close();
+    }
+
+    @Test
+    public void evictSharedFingerprinter() {
+
+        Fingerprinter first = null;
+
+        first = WorkspaceState.getFingerprinter(new File(TEST_DIR, "state-0/hashes.idx"), new File(TEST_DIR, "state-0/ws.idx"));
+        assertSame(WorkspaceState.getFingerprinter(new File(TEST_DIR, "state-0/hashes.idx"), new File(TEST_DIR,
+                "state-0/ws.idx")), first, "Fingerprinter not shared!");
+
+        for (int i = 1; i <= WorkspaceState.MAX_FINGERPRINTERS; i++)
+            WorkspaceState.getFingerprinter(new File(TEST_DIR, "state-" + i + "/hashes.idx"), new File(TEST_DIR, "state-" + i
+                    + "/ws.idx"));
+
+        assertNull(first.getWatcher(), "Watcher of evicted fingerprinter not closed!");
+    }
+
+    private void awaitChange(File file) throws InterruptedException {
+
+        long start = System.currentTimeMillis();
+
+        while (!changed.contains(file)) {
+
+            assertTrue(System.currentTimeMillis() - start < TIMEOUT, "Change of " + file + " not reported!");
+            Thread.sleep(50);
+            watcher.pollChanges();
+        }
+    }
+}
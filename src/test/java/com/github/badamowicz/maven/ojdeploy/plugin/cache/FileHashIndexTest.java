@@ -0,0 +1,158 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.cache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Test cases for {@link FileHashIndex}.
+ * 
+ * @author bernd
+ *
+ */
+public class FileHashIndexTest {
+
+    private static final File TEST_DIR   = new File("target/hashindex-test");
+    private static final File INDEX_FILE = new File(TEST_DIR, "file-hashes.idx");
+    private static final long OLD        = System.currentTimeMillis() - 60000;
+
+    private List<File>        files      = null;
+
+    @BeforeClass
+    public void beforeClass() throws IOException {
+
+        File currFile = null;
+
+        FileUtils.deleteQuietly(TEST_DIR);
+        files = new ArrayList<File>();
+
+        for (int i = 0; i < 100; i++) {
+
+            currFile = new File(TEST_DIR, "src/file" + i + ".txt");
+            FileUtils.write(currFile, "content " + i);
+            currFile.setLastModified(OLD);
+            files.add(currFile);
+        }
+    }
+
+    @Test
+    public void digestAll() throws IOException {
+
+        FileHashIndex index = null;
+        Map<File, String> digests = null;
+
+        index = new FileHashIndex(INDEX_FILE);
+        digests = index.digestAll(files);
+        assertEquals(digests.size(), files.size(), "Amount of digests not as expected!");
+
+        for (File currFile : files)
+            assertEquals(digests.get(currFile), Digests.digest(currFile), "Digest of " + currFile + " not as expected!");
+
+        index.store();
+        assertEquals(new FileHashIndex(INDEX_FILE).size(), files.size(), "Index not restored from file!");
+    }
+
+    @Test(dependsOnMethods = "digestAll")
+    public void unchangedFileIsNotRead() throws IOException {
+
+        FileHashIndex index = null;
+        File file = null;
+        String digest = null;
+
+        index = new FileHashIndex(INDEX_FILE);
+        file = files.get(0);
+        digest = index.digest(file);
+
+        FileUtils.write(file, "CONTENT 0");
+        file.setLastModified(OLD);
+        assertEquals(index.digest(file), digest, "File with same size and modification time should not be read!");
+
+        file.setLastModified(OLD + 1000);
+        assertNotEquals(index.digest(file), digest, "Modified file not detected!");
+    }
+
+    @Test
+    public void trustVerified() throws IOException {
+
+        FileHashIndex index = null;
+        File file = null;
+        String digest = null;
+
+        index = new FileHashIndex();
+        index.setTrustVerified(true);
+        file = new File(TEST_DIR, "trusted/file.txt");
+        FileUtils.write(file, "trusted");
+        file.setLastModified(OLD);
+        digest = index.digest(file);
+
+        FileUtils.write(file, "changed content");
+        assertEquals(index.digest(file), digest, "Verified entry should be trusted!");
+
+        index.invalidate(file.getParentFile(), true);
+        assertNotEquals(index.digest(file), digest, "Invalidated entry should be checked!");
+    }
+
+    @Test
+    public void recentlyModifiedFileIsNotIndexed() throws IOException {
+
+        FileHashIndex index = null;
+        File file = null;
+
+        index = new FileHashIndex();
+        file = new File(TEST_DIR, "recent.txt");
+        FileUtils.write(file, "recent");
+        assertEquals(index.digest(file), Digests.digest(file), "Digest not as expected!");
+        assertEquals(index.size(), 0, "Recently modified file must not be indexed!");
+    }
+
+    @Test
+    public void digestMapped() throws IOException {
+
+        File file = null;
+        StringBuilder content = null;
+
+        file = new File(TEST_DIR, "large.bin");
+        content = new StringBuilder();
+
+        for (int i = 0; i < 200000; i++)
+            content.append("line ").append(i).append('\n');
+
+        FileUtils.write(file, content);
+        assertEquals(Digests.digestMapped(file), Digests.digest(file), "Digest of mapped file not as expected!");
+    }
+}
@@ -0,0 +1,196 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.cache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.SortedMap;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.WorkspaceModel;
+import com.github.badamowicz.maven.ojdeploy.plugin.helper.AbstractOjdeployHelper;
+
+/**
+ * Test cases for {@link UpToDateCheck}, {@link Fingerprinter} and {@link InputFingerprint}. All tests work on a copy of the integration test's
+ * workspace.
+ * 
+ * @author bernd
+ *
+ */
+public class UpToDateCheckTest extends AbstractOjdeployHelper {
+
+    private static final File   TEST_DIR      = new File("target/uptodate-test");
+    private static final String COMMAND_LINE  = "ojdeploy -profile " + IT_EAR_PROFILE;
+
+    private File                workspaceFile = null;
+    private File                archiveFile   = null;
+    private UpToDateCheck       check         = null;
+    private Fingerprinter       fingerprinter = null;
+
+    @BeforeClass
+    public void beforeClass() throws IOException {
+
+        FileUtils.deleteQuietly(TEST_DIR);
+        FileUtils.copyDirectory(IT_WORKSPACE_FILE.getParentFile(), new File(TEST_DIR, "ShuttleDemo"));
+        workspaceFile = new File(TEST_DIR, "ShuttleDemo/" + IT_WORKSPACE_FILE.getName());
+        archiveFile = new File(TEST_DIR, "ShuttleDemo/deploy/ShuttleDemo_application1.ear");
+        FileUtils.write(new File(TEST_DIR, "ShuttleDemo/ViewController/classes/Generated.class"), "output");
+        check = new UpToDateCheck(new File(TEST_DIR, "state"));
+        fingerprinter = new Fingerprinter();
+    }
+
+    @Test
+    public void collectInputFiles() {
+
+        SortedMap<String, File> inputFiles = null;
+
+        inputFiles = fingerprinter.collectInputFiles(fingerprinter.getWorkspace(workspaceFile));
+        assertTrue(inputFiles.containsKey("ShuttleDemo.jws"), "Workspace file missing!");
+        assertTrue(inputFiles.containsKey("ViewController/ViewController.jpr"), "Project file missing!");
+        assertTrue(inputFiles.containsKey("ViewController/public_html/index.jspx"), "Source file missing!");
+        assertFalse(inputFiles.containsKey("ViewController/classes/Generated.class"), "Output directory not ignored!");
+    }
+
+    @Test
+    public void collectProfileInputFiles() {
+
+        SortedMap<String, File> inputFiles = null;
+        WorkspaceModel model = null;
+
+        model = fingerprinter.getWorkspace(workspaceFile);
+        inputFiles = fingerprinter.collectInputFiles(model, model.getProfile(IT_JAR_PROFILE), false);
+        assertTrue(inputFiles.containsKey("ShuttleDemo.jws"), "Workspace file missing!");
+        assertTrue(inputFiles.containsKey("Model/Model.jpr"), "Project file missing!");
+        assertFalse(inputFiles.containsKey("ViewController/ViewController.jpr"), "Unrelated project not ignored!");
+
+        inputFiles = fingerprinter.collectInputFiles(model, model.getProfile(IT_WAR_PROFILE), false);
+        assertTrue(inputFiles.containsKey("Model/Model.jpr"), "Project dependency missing!");
+        assertTrue(inputFiles.containsKey("ViewController/public_html/index.jspx"), "Source file missing!");
+        assertFalse(inputFiles.containsKey("src/META-INF/weblogic-application.xml"), "Workspace sources not ignored!");
+
+        inputFiles = fingerprinter.collectInputFiles(model, model.getProfile(IT_EAR_PROFILE), false);
+        assertTrue(inputFiles.containsKey("src/META-INF/weblogic-application.xml"), "Workspace source missing!");
+        assertFalse(inputFiles.containsKey("ViewController/public_html/index.jspx"), "Sources of dependency not ignored!");
+
+        inputFiles = fingerprinter.collectInputFiles(model, model.getProfile(IT_EAR_PROFILE), true);
+        assertTrue(inputFiles.containsKey("ViewController/public_html/index.jspx"), "Sources of dependency missing!");
+        assertTrue(inputFiles.containsKey("Model/Model.jpr"), "Transitive project dependency missing!");
+    }
+
+    @Test
+    public void fingerprintWithoutDependencies() {
+
+        InputFingerprint fingerprint = null;
+
+        fingerprint = fingerprinter.fingerprint(workspaceFile, IT_EAR_PROFILE, null, COMMAND_LINE, false);
+        assertEquals(fingerprint.getOutputFiles().size(), 1, "Only the archive of the profile itself expected!");
+        assertTrue(fingerprint.getEntries().containsKey(InputFingerprint.ARCHIVE_PREFIX
+                + "ViewController/deploy/ShuttleDemo_ViewController_webapp1.war"), "Archive of dependency missing!");
+    }
+
+    @Test
+    public void relativize() {
+
+        assertEquals(Fingerprinter.relativize(new File("/a/b"), new File("/a/b/c/d.txt")), "c/d.txt");
+        assertEquals(Fingerprinter.relativize(new File("/a/b"), new File("/a/x/d.txt")), "../x/d.txt");
+    }
+
+    @Test(dependsOnMethods = "collectInputFiles")
+    public void isUpToDate() throws IOException {
+
+        InputFingerprint fingerprint = null;
+
+        fingerprint = fingerprint(workspaceFile, IT_EAR_PROFILE, null, COMMAND_LINE);
+        assertEquals(fingerprint.getOutputFiles().size(), 2, "Archives of dependencies missing!");
+        assertEquals(fingerprint.getOutputFiles().get(1).getName(), archiveFile.getName(), "Archive not as expected!");
+        assertTrue(check.findRebuildReason(fingerprint).contains("does not exist"), "Missing archive not detected!");
+
+        for (File currOutput : fingerprint.getOutputFiles())
+            FileUtils.write(currOutput, "archive");
+
+        assertTrue(check.findRebuildReason(fingerprint).contains("no fingerprint"), "Missing fingerprint not detected!");
+
+        check.store(fingerprint);
+        assertNull(check.findRebuildReason(fingerprint), "Profile should be up to date!");
+        assertTrue(check.isUpToDate(fingerprint(workspaceFile, IT_EAR_PROFILE, null, COMMAND_LINE)),
+                "Profile should be up to date with a new fingerprint!");
+
+        assertNotNull(check.findRebuildReason(fingerprint(workspaceFile, IT_EAR_PROFILE, "a=b", COMMAND_LINE)),
+                "Changed defines not detected!");
+        assertNotNull(check.findRebuildReason(fingerprint(workspaceFile, IT_EAR_PROFILE, null, COMMAND_LINE + " -clean")),
+                "Changed command line not detected!");
+
+        FileUtils.write(new File(TEST_DIR, "ShuttleDemo/ViewController/public_html/index.jspx"), "changed");
+        assertTrue(check.findRebuildReason(fingerprint(workspaceFile, IT_EAR_PROFILE, null, COMMAND_LINE)).contains(
+                "changed file:ViewController/public_html/index.jspx"), "Changed source file not detected!");
+    }
+
+    @Test
+    public void fingerprintIsIndependentOfLocation() throws IOException {
+
+        File movedWorkspace = null;
+
+        movedWorkspace = new File(TEST_DIR, "moved/" + IT_WORKSPACE_FILE.getName());
+        FileUtils.copyDirectory(IT_WORKSPACE_FILE.getParentFile(), movedWorkspace.getParentFile());
+
+        assertEquals(fingerprint(movedWorkspace, IT_JAR_PROFILE, null, movedWorkspace.getAbsolutePath()).getDigest(),
+                fingerprint(new File(IT_WORKSPACE_FILE.getAbsolutePath()), IT_JAR_PROFILE, null,
+                        IT_WORKSPACE_FILE.getAbsolutePath()).getDigest(), "Fingerprint depends on location!");
+    }
+
+    private InputFingerprint fingerprint(File workspace, String profile, String defines, String arguments) {
+
+        return fingerprinter.fingerprint(workspace, profile, defines, arguments, true);
+    }
+
+    @Test
+    public void getDifferences() {
+
+        InputFingerprint current = null;
+        InputFingerprint previous = null;
+
+        current = new InputFingerprint(PROFILE, null);
+        previous = new InputFingerprint(PROFILE, null);
+
+        for (int i = 0; i < 7; i++)
+            current.put("file:" + i, "digest");
+
+        previous.put("file:old", "digest");
+        assertEquals(current.getDifferences(previous).size(), 6, "Differences should be limited!");
+        assertEquals(current.getDifferences(current).size(), 0, "No differences expected!");
+        assertFalse(current.getDigest().equals(previous.getDigest()), "Digests must differ!");
+    }
+}
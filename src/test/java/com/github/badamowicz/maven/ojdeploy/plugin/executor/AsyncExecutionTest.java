@@ -0,0 +1,308 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.exceptions.OjdeployExecutionException;
+
+/**
+ * Test cases for {@link AsyncExecution}. A shell script is used instead of the real ojdeploy, so these tests only run on
+ * systems providing /bin/sh.
+ * 
+ * @author bernd
+ *
+ */
+public class AsyncExecutionTest {
+
+    private static final File TEST_DIR = new File("target/async-test");
+
+    @BeforeClass
+    public void beforeClass() throws IOException {
+
+        File script = null;
+
+        FileUtils.deleteQuietly(TEST_DIR);
+        script = new File(TEST_DIR, "bin/ojdeploy");
+        // the long running case forks a child instead of exec'ing it, like the real ojdeploy script starts its JVM
+        FileUtils.write(script, "#!/bin/sh\necho \"$@\"\necho warning >&2\n"
+                + "case \"$*\" in *-clean*) sleep 37 & wait;; *-nocompile*) exit 3;; esac\n");
+        script.setExecutable(true);
+    }
+
+    @Test
+    public void await() {
+
+        AsyncExecution execution = null;
+        ExecutionResult result = null;
+
+        execution = createExecutor("success").start(createParams(null), false);
+        result = execution.await();
+
+        assertTrue(execution.isDone(), "Execution not done!");
+        assertEquals(result.getExitValue(), 0, "Wrong exit value!");
+        assertTrue(readLog("success").contains("-profile profileXY"), "Output of ojdeploy not logged!");
+        assertEquals(readLog("success-stderr").trim(), "warning", "Standard error of ojdeploy not logged separately!");
+    }
+
+    @Test
+    public void awaitFailing() {
+
+        ExecutionResult result = null;
+        AsyncExecution execution = null;
+
+        execution = createExecutor("failing").start(createParams("nocompile"), false);
+        result = execution.getResult();
+
+        try {
+
+            execution.await();
+            fail("Failure of ojdeploy not detected!");
+
+        } catch (OjdeployExecutionException e) {
+
+            assertEquals(result.getExitValue(), 3, "Wrong exit value!");
+            assertEquals(e.getOutputTail().size(), 2, "Output not attached to exception!");
+            assertTrue(e.getOutputTail().contains("warning"), "Standard error not attached to exception!");
+            assertTrue(e.getMessage().contains("-nocompile"), "Output not part of message!");
+        }
+    }
+
+    @Test
+    public void awaitTimeout() throws IOException {
+
+        OjdeployExecutor executor = null;
+        ProcessThrottle throttle = null;
+        ProcessThrottle.Permit permit = null;
+        AsyncExecution execution = null;
+        long start = System.currentTimeMillis();
+
+        throttle = new ProcessThrottle(new File(TEST_DIR, "timeout-slots"), 1, 1000);
+        executor = createExecutor("timeout");
+        executor.setThrottle(throttle);
+        execution = executor.start(createParams("clean"), false);
+        assertFalse(execution.isDone(), "Execution must still be running!");
+
+        try {
+
+            execution.await(500);
+            fail("Timeout not detected!");
+
+        } catch (OjdeployExecutionException e) {
+
+            assertTrue(System.currentTimeMillis() - start < 4000, "Process tree not destroyed!");
+            assertTrue(execution.isDone(), "Execution not done after destroying process!");
+        }
+
+        // the slot is only released after the child process of the script has closed the output streams, too
+        permit = throttle.tryAcquire();
+        assertNotNull(permit, "Slot still held by child process!");
+        permit.release();
+    }
+
+    @Test
+    public void awaitStalled() {
+
+        OjdeployExecutor executor = null;
+        AsyncExecution execution = null;
+        long start = System.currentTimeMillis();
+
+        executor = createExecutor("stalled");
+        executor.setStallTimeout(300);
+        execution = executor.start(createParams("clean"), false);
+
+        try {
+
+            execution.await();
+            fail("Stall not detected!");
+
+        } catch (OjdeployExecutionException e) {
+
+            assertTrue(System.currentTimeMillis() - start < 8000, "Process not destroyed!");
+            assertTrue(e.getMessage().contains("did not write any output for 300ms"), "Reason not part of message!");
+            assertNotNull(execution.getResult().getAbortReason(), "Reason not set!");
+        }
+    }
+
+    @Test
+    public void awaitCancelled() {
+
+        AsyncExecution execution = null;
+        long start = System.currentTimeMillis();
+
+        execution = createExecutor("cancelled").start(createParams("clean"), false);
+        execution.cancel();
+
+        try {
+
+            execution.await();
+            fail("Cancellation not detected!");
+
+        } catch (OjdeployExecutionException e) {
+
+            assertTrue(System.currentTimeMillis() - start < 8000, "Process not destroyed!");
+            assertTrue(e.getMessage().contains("cancelled"), "Reason not part of message!");
+            assertTrue(execution.isDone(), "Execution not done after cancelling!");
+        }
+    }
+
+    @Test
+    public void awaitInterrupted() throws InterruptedException {
+
+        AsyncExecution execution = null;
+        final Thread waiting = Thread.currentThread();
+        long start = System.currentTimeMillis();
+
+        execution = createExecutor("interrupted").start(createParams("clean"), false);
+        new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+
+                try {
+
+                    Thread.sleep(300);
+                    waiting.interrupt();
+
+                } catch (InterruptedException e) {
+
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }).start();
+
+        try {
+
+            execution.await();
+            fail("Interrupt not detected!");
+
+        } catch (OjdeployExecutionException e) {
+
+            assertTrue(Thread.interrupted(), "Interrupt status not restored!");
+        }
+
+        while (!execution.isDone() && System.currentTimeMillis() - start < 8000)
+            Thread.sleep(50);
+
+        assertTrue(execution.isDone(), "Process not cancelled!");
+        assertNotNull(execution.getResult().getAbortReason(), "Reason not set!");
+    }
+
+    @Test
+    public void awaitThrottled() throws IOException {
+
+        OjdeployExecutor executor = null;
+        ProcessThrottle throttle = null;
+        ProcessThrottle.Permit permit = null;
+
+        throttle = new ProcessThrottle(new File(TEST_DIR, "slots"), 1, 1000);
+        executor = createExecutor("throttled");
+        executor.setThrottle(throttle);
+        executor.start(createParams(null), false).await();
+
+        permit = throttle.tryAcquire();
+        assertNotNull(permit, "Slot not released after ojdeploy has finished!");
+        permit.release();
+    }
+
+    @Test
+    public void awaitSampled() {
+
+        OjdeployExecutor executor = null;
+        ExecutionResult result = null;
+
+        executor = createExecutor("sampled");
+        executor.setSamplingInterval(50);
+        result = executor.start(createParams(null), false).await();
+
+        if (!new File("/proc/self/stat").isFile())
+            return;
+
+        assertNotNull(result.getProcessStats(), "Process not sampled!");
+        assertTrue(new File(TEST_DIR, "sampled-process.properties").isFile(), "Statistics not stored next to log file!");
+    }
+
+    @Test
+    public void awaitDryRun() {
+
+        AsyncExecution execution = null;
+
+        execution = createExecutor("dryrun").start(createParams(null), true);
+
+        assertTrue(execution.isDone(), "Dry run must be done immediately!");
+        assertTrue(execution.await().isDryRun(), "Dry run not set!");
+    }
+
+    private OjdeployExecutor createExecutor(String name) {
+
+        OjdeployExecutor executor = null;
+
+        executor = new OjdeployExecutor();
+        executor.setLogFile(new File(TEST_DIR, name + ".log"));
+
+        return executor;
+    }
+
+    private List<MojoParameter> createParams(String booleanParam) {
+
+        List<MojoParameter> params = null;
+
+        params = new ArrayList<MojoParameter>();
+        params.add(new MojoParameter("jdevBinPath", new File(TEST_DIR, "bin").getAbsolutePath(), String.class));
+        params.add(new MojoParameter("profile", "profileXY", String.class));
+
+        if (booleanParam != null)
+            params.add(new MojoParameter(booleanParam, Boolean.TRUE, Boolean.class));
+
+        return params;
+    }
+
+    private String readLog(String name) {
+
+        try {
+
+            return FileUtils.readFileToString(new File(TEST_DIR, name + ".log"));
+
+        } catch (IOException e) {
+
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Test cases for {@link BufferedStreamHandler}.
+ * 
+ * @author bernd
+ *
+ */
+public class BufferedStreamHandlerTest {
+
+    private static final File TEST_DIR = new File("target/streamhandler-test");
+
+    private File              outFile  = null;
+    private File              errFile  = null;
+
+    @BeforeMethod
+    public void beforeMethod() {
+
+        FileUtils.deleteQuietly(TEST_DIR);
+        TEST_DIR.mkdirs();
+        outFile = new File(TEST_DIR, "out.log");
+        errFile = new File(TEST_DIR, "err.log");
+    }
+
+    @Test
+    public void pumpSeparated() throws IOException {
+
+        BufferedStreamHandler handler = null;
+        ByteArrayOutputStream input = null;
+
+        input = new ByteArrayOutputStream();
+        handler = new BufferedStreamHandler(outFile, errFile, 16, 2);
+        handler.setProcessInputStream(input);
+        handler.setProcessOutputStream(new ByteArrayInputStream(createContent("out", 1000)));
+        handler.setProcessErrorStream(new ByteArrayInputStream(createContent("err", 10)));
+        handler.start();
+        handler.stop();
+        handler.close();
+
+        assertEquals(FileUtils.readFileToByteArray(outFile), createContent("out", 1000), "Standard output not written completely!");
+        assertEquals(FileUtils.readFileToByteArray(errFile), createContent("err", 10), "Standard error not written completely!");
+    }
+
+    /**
+     * The reader must not allocate more chunks than given, so it has to wait for the writer whenever all chunks are filled.
+     */
+    @Test
+    public void pumpSlowReads() throws IOException {
+
+        BufferedStreamHandler handler = null;
+        byte[] content = null;
+
+        content = createContent("line", 5000);
+        handler = new BufferedStreamHandler(outFile, errFile, 1024, 1);
+        handler.setProcessOutputStream(new TricklingInputStream(content));
+        handler.setProcessErrorStream(new ByteArrayInputStream(new byte[0]));
+        handler.start();
+        handler.stop();
+        handler.close();
+
+        assertEquals(FileUtils.readFileToByteArray(outFile), content, "Output not written completely!");
+        assertTrue(errFile.length() == 0, "Standard error must be empty!");
+    }
+
+    static byte[] createContent(String prefix, int lines) {
+
+        StringBuilder content = null;
+
+        content = new StringBuilder();
+
+        for (int i = 0; i < lines; i++)
+            content.append(prefix).append(" line ").append(i).append('\n');
+
+        return content.toString().getBytes();
+    }
+
+    /**
+     * Returns at most a few bytes per read, like a pipe being written slowly.
+     */
+    private static class TricklingInputStream extends InputStream {
+
+        private ByteArrayInputStream delegate = null;
+
+        TricklingInputStream(byte[] content) {
+
+            super();
+            delegate = new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public int read() {
+
+            return delegate.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+
+            return delegate.read(b, off, Math.min(len, 7));
+        }
+
+        @Override
+        public int available() {
+
+            return delegate.available() % 2;
+        }
+    }
+}
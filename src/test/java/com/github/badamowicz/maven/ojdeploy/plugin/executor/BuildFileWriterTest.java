@@ -0,0 +1,104 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Test cases for {@link BuildFileWriter}.
+ * 
+ * @author bernd
+ *
+ */
+public class BuildFileWriterTest {
+
+    private BuildFileWriter writer = null;
+
+    @BeforeClass
+    public void beforeClass() {
+
+        writer = new BuildFileWriter(new OjdeployExecutor().getProps());
+    }
+
+    @Test
+    public void getName() {
+
+        assertEquals(writer.getName(new MojoParameter("workspaceFile", "/ws.jws", String.class)), "workspace");
+        assertEquals(writer.getName(new MojoParameter("updateWebxmlEJBRefs", Boolean.TRUE, Boolean.class)),
+                "updatewebxmlejbrefs");
+        assertEquals(writer.getName(new MojoParameter("jdevBinPath", "/some/path", String.class)), null);
+    }
+
+    @Test
+    public void write() throws IOException {
+
+        List<List<MojoParameter>> deployments = null;
+        List<MojoParameter> deployment = null;
+        List<MojoParameter> defaults = null;
+        ByteArrayOutputStream os = null;
+        String buildFile = null;
+
+        deployments = new ArrayList<List<MojoParameter>>();
+
+        for (int i = 1; i <= 2; i++) {
+
+            deployment = new ArrayList<MojoParameter>();
+            deployment.add(new MojoParameter("workspaceFile", "/ws/App.jws", String.class));
+            deployment.add(new MojoParameter("profile", "profile" + i, String.class));
+            deployments.add(deployment);
+        }
+
+        deployment.add(new MojoParameter("defines", "a=1&b", String.class));
+
+        defaults = new ArrayList<MojoParameter>();
+        defaults.add(new MojoParameter("baseDir", "/base", String.class));
+        defaults.add(new MojoParameter("nocompile", Boolean.TRUE, Boolean.class));
+        defaults.add(new MojoParameter("clean", Boolean.FALSE, Boolean.class));
+
+        os = new ByteArrayOutputStream();
+        writer.write(os, deployments, defaults);
+        buildFile = os.toString("UTF-8");
+
+        assertTrue(buildFile.contains("<ojdeploy-build basedir=\"/base\">"), "Base directory missing!");
+        assertTrue(buildFile.contains("<parameter name=\"profile\" value=\"profile2\"/>"), "Second profile missing!");
+        assertTrue(buildFile.contains("<parameter name=\"define\" value=\"a=1&amp;b\"/>"), "Defines not escaped!");
+        assertTrue(buildFile.contains("<defaults>"), "Defaults missing!");
+        assertTrue(buildFile.contains("<parameter name=\"nocompile\" value=\"true\"/>"), "Boolean parameter missing!");
+        assertFalse(buildFile.contains("\"clean\""), "Boolean parameter with value false written!");
+        assertEquals(buildFile.split("<deploy>").length, 3, "Wrong number of deployments!");
+    }
+}
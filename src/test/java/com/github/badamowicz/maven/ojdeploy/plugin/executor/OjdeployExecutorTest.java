@@ -29,17 +29,25 @@ package com.github.badamowicz.maven.ojdeploy.plugin.executor;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.commons.exec.CommandLine;
+import org.apache.commons.io.FileUtils;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import com.github.badamowicz.maven.ojdeploy.plugin.cache.Fingerprinter;
+import com.github.badamowicz.maven.ojdeploy.plugin.cache.UpToDateCheck;
+import com.github.badamowicz.maven.ojdeploy.plugin.exceptions.OjdeployExecutionException;
 import com.github.badamowicz.maven.ojdeploy.plugin.helper.AbstractOjdeployHelper;
+import com.github.badamowicz.maven.ojdeploy.plugin.metrics.RegressionGate;
+import com.github.badamowicz.maven.ojdeploy.plugin.metrics.RunHistory;
 
 /**
  * Test cases for {@link OjdeployExecutor}.
@@ -52,7 +60,6 @@ public class OjdeployExecutorTest extends AbstractOjdeployHelper {
     private OjdeployExecutor                 executorSimple      = null;
     private OjdeployExecutor                 executorCmdLineTest = null;
     private static final boolean             DRY_RUN             = true;
-    private CommandLine                      cmdLine             = null;
 
     private static final MojoParameter       BOOL_TEST_PARAM_1   = new MojoParameter("booltrue", Boolean.TRUE, Boolean.class);
     private static final MojoParameter       BOOL_TEST_PARAM_2   = new MojoParameter("boolfalse", Boolean.FALSE, Boolean.class);
@@ -77,11 +84,7 @@ public class OjdeployExecutorTest extends AbstractOjdeployHelper {
 
         prepareDefaultMojo();
 
-        cmdLine = new CommandLine("gedoens.sh");
-
         executorSimple = new OjdeployExecutor();
-        executorSimple.setDryRun(DRY_RUN);
-        executorSimple.setCmdLine(cmdLine);
 
         executorCmdLineTest = new OjdeployExecutor();
     }
@@ -110,8 +113,8 @@ public class OjdeployExecutorTest extends AbstractOjdeployHelper {
     @Test
     public void prepareCommandLine() {
 
-        executorCmdLineTest.prepareCommandLine(MOJO_PARAMS);
-        assertEquals(executorCmdLineTest.getCmdLine().toString(), "/some/path/ojdeploy -verbose -define x=2y,a=3b");
+        assertEquals(executorCmdLineTest.prepareCommandLine(MOJO_PARAMS).toString(),
+                "/some/path/ojdeploy -verbose -define x=2y,a=3b");
     }
 
     @Test
@@ -139,14 +142,139 @@ public class OjdeployExecutorTest extends AbstractOjdeployHelper {
     }
 
     @Test
-    public void isDryRun() {
+    public void prepareCommandLinePerInvocation() {
+
+        assertNotSame(executorCmdLineTest.prepareCommandLine(MOJO_PARAMS), executorCmdLineTest.prepareCommandLine(MOJO_PARAMS),
+                "Command line must not be shared between invocations!");
+    }
+
+    @Test
+    public void executeWithLogFile() {
+
+        ExecutionResult result = null;
+        File logFile = null;
+
+        logFile = new File("target/omp-dryrun.log");
+        result = executorSimple.execute(MOJO_PARAMS, logFile, DRY_RUN);
 
-        assertEquals(executorSimple.isDryRun(), DRY_RUN, "Dry run value set wrong!");
+        assertTrue(result.isDryRun(), "Dry run value set wrong!");
+        assertEquals(result.getLogFile(), logFile, "Log file of the run not set!");
+        assertEquals(executorSimple.getLogFile().getName(), "omp.log", "Default log file must not be changed by a run!");
     }
 
     @Test
-    public void getCmdLine() {
+    public void getEffectiveProcessTimeout() {
+
+        OjdeployExecutor executor = null;
+        ExecutionResult result = null;
+        File historyFile = null;
+
+        historyFile = new File("target/history-test/executor-history.tsv");
+        historyFile.delete();
+        executor = new OjdeployExecutor();
+        executor.setProcessTimeout(3600000);
+        executor.setTimeoutMultiplier(3);
+        executor.setHistory(new RunHistory(historyFile));
+        result = new ExecutionResult("webapp");
+        result.setWorkspace("/ws/a.jws");
+
+        for (int i = 1; i <= 4; i++)
+            executor.getHistory().append(new RunHistory.Run(i, "/ws/a.jws", "webapp", false, 100000, -1));
+
+        assertEquals(executor.getEffectiveProcessTimeout(result), 3600000, "Too few runs must not be used!");
+
+        executor.getHistory().append(new RunHistory.Run(5, "/ws/a.jws", "webapp", false, 200000, -1));
+        assertEquals(executor.getEffectiveProcessTimeout(result), 600000, "Wrong adaptive timeout!");
+
+        result.setNodependents(true);
+        assertEquals(executor.getEffectiveProcessTimeout(result), 3600000, "Runs of other scope must not be used!");
+        result.setNodependents(false);
 
-        assertSame(executorSimple.getCmdLine(), cmdLine, "Wrong command line object returned!");
+        executor.setTimeoutMultiplier(100);
+        assertEquals(executor.getEffectiveProcessTimeout(result), 3600000, "Process timeout must be an upper bound!");
+    }
+
+    @Test
+    public void skipUpToDateDependencies() throws IOException {
+
+        OjdeployExecutor executor = null;
+        File testDir = null;
+        File workspace = null;
+        List<MojoParameter> params = null;
+
+        testDir = new File("target/nodependents-test");
+        FileUtils.deleteQuietly(testDir);
+        FileUtils.copyDirectory(IT_WORKSPACE_FILE.getParentFile(), testDir);
+        workspace = new File(testDir, IT_WORKSPACE_FILE.getName());
+        executor = new OjdeployExecutor();
+        executor.setFingerprinter(new Fingerprinter());
+        executor.setUpToDateCheck(new UpToDateCheck(new File(testDir, "state")));
+        params = new ArrayList<MojoParameter>(MOJO_PARAMS);
+        params.add(new MojoParameter("workspaceFile", workspace.getAbsolutePath(), String.class));
+        params.add(new MojoParameter("profile", IT_EAR_PROFILE, String.class));
+
+        assertSame(executor.skipUpToDateDependencies(params), params, "Dependency without archive must be deployed!");
+
+        FileUtils.write(new File(testDir, "ViewController/deploy/ShuttleDemo_ViewController_webapp1.war"), "archive");
+        executor.recordOutputs(executor.getFingerprinter().fingerprint(workspace, IT_EAR_PROFILE, null, "", true), null,
+                new ExecutionResult(IT_EAR_PROFILE), params);
+        assertEquals(MojoParameters.valueOf(executor.skipUpToDateDependencies(params), "nodependents"), Boolean.TRUE,
+                "Up to date dependencies should result in -nodependents!");
+
+        FileUtils.write(new File(testDir, "Model/src/Changed.java"), "class Changed {}");
+        assertSame(executor.skipUpToDateDependencies(params), params, "Change of project dependency not detected!");
+    }
+
+    @Test(expectedExceptions = OjdeployExecutionException.class)
+    public void recordRunRegressed() {
+
+        OjdeployExecutor executor = null;
+        ExecutionResult result = null;
+        File historyFile = null;
+
+        historyFile = new File("target/history-test/executor-regression.tsv");
+        historyFile.delete();
+        executor = new OjdeployExecutor();
+        executor.setHistory(new RunHistory(historyFile));
+        executor.setRegressionAction(RegressionGate.Action.FAIL);
+        result = new ExecutionResult("ear");
+        result.setWorkspace("/ws/a.jws");
+        result.setProcessDuration(1000);
+
+        for (int i = 0; i < 5; i++)
+            executor.recordRun(result);
+
+        result.setProcessDuration(2000);
+        executor.recordRun(result);
+    }
+
+    @Test
+    public void recordRunThrottled() {
+
+        OjdeployExecutor executor = null;
+        ExecutionResult result = null;
+        File historyFile = null;
+        List<RunHistory.Run> runs = null;
+
+        historyFile = new File("target/history-test/executor-throttled.tsv");
+        historyFile.delete();
+        executor = new OjdeployExecutor();
+        executor.setHistory(new RunHistory(historyFile));
+        executor.setRegressionAction(RegressionGate.Action.FAIL);
+        result = new ExecutionResult("ear");
+        result.setWorkspace("/ws/a.jws");
+        result.setDuration(1000);
+        result.setProcessDuration(1000);
+
+        for (int i = 0; i < 5; i++)
+            executor.recordRun(result);
+
+        // waiting for a throttle slot is no regression
+        result.setDuration(60000);
+        executor.recordRun(result);
+        runs = executor.getHistory().getRuns("/ws/a.jws", "ear", false, 10);
+
+        assertEquals(runs.size(), 6, "Run not recorded!");
+        assertEquals(runs.get(5).getDuration(), 1000, "Time waited for a slot recorded!");
     }
 }
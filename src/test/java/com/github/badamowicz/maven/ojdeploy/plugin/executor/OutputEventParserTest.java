@@ -0,0 +1,129 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Test cases for {@link OutputEventParser}.
+ * 
+ * @author bernd
+ *
+ */
+public class OutputEventParserTest {
+
+    private List<BuildEvent>  events = null;
+    private OutputEventParser parser = null;
+
+    @BeforeMethod
+    public void beforeMethod() {
+
+        List<BuildEventListener> listeners = null;
+
+        events = new ArrayList<BuildEvent>();
+        listeners = new ArrayList<BuildEventListener>();
+        listeners.add(new BuildEventListener() {
+
+            @Override
+            public void onEvent(BuildEvent event) {
+
+                events.add(event);
+            }
+        });
+
+        parser = new OutputEventParser("profileXY", listeners);
+    }
+
+    @Test
+    public void parseDeployment() {
+
+        parse("[10:42:01 AM] ----  Deployment started.  ----  Dec 4, 2014 10:42:01 AM",
+                "[10:42:01 AM] Target platform is Standard Java EE (Weblogic 12.1.3.0.0).",
+                "[10:42:01 AM] Running dependency analysis...", "[10:42:03 AM] Compiling project Model.jpr",
+                "Warning(12,5): deprecated API used", "[10:42:09 AM] Successful compilation: 0 errors, 1 warnings.",
+                "[10:42:10 AM] Wrote Archive Module to file:/work/Model/deploy/Model.jar",
+                "[10:42:10 AM] Elapsed time for deployment:  9 seconds", "[10:42:10 AM] ----  Deployment finished.  ----");
+
+        assertEquals(events.size(), 6, "Wrong number of events: " + events);
+        assertEvent(0, BuildEvent.Type.DEPLOYMENT_STARTED, "started");
+        assertEvent(1, BuildEvent.Type.COMPILE_STARTED, "Model.jpr");
+        assertEvent(2, BuildEvent.Type.WARNING, "Warning(12,5): deprecated API used");
+        assertEvent(3, BuildEvent.Type.COMPILE_FINISHED, "0 errors, 1 warnings");
+        assertEvent(4, BuildEvent.Type.ARCHIVE_WRITTEN, "/work/Model/deploy/Model.jar");
+        assertEvent(5, BuildEvent.Type.DEPLOYMENT_FINISHED, "finished");
+        assertEquals(events.get(0).getName(), "profileXY", "Name of run not handed over!");
+    }
+
+    @Test
+    public void parseErrors() {
+
+        parse("Error: Unable to find profile xyz", "ERROR(3,1): cannot find symbol", "[10:42:09 AM] Compilation complete: 2 errors.",
+                "  ----  Deployment incomplete  ----.", "Errors occurred", "[broken", "");
+
+        assertEquals(events.size(), 4, "Wrong number of events: " + events);
+        assertEvent(0, BuildEvent.Type.ERROR, "Error: Unable to find profile xyz");
+        assertEvent(1, BuildEvent.Type.ERROR, "ERROR(3,1): cannot find symbol");
+        assertEvent(2, BuildEvent.Type.COMPILE_FINISHED, "complete: 2 errors");
+        assertEvent(3, BuildEvent.Type.DEPLOYMENT_FINISHED, "incomplete");
+    }
+
+    @Test
+    public void parseStandardError() {
+
+        parser.line(new StringBuilder("Warning: low memory"), true);
+
+        assertTrue(events.get(0).isError(), "Standard error not flagged!");
+    }
+
+    private void parse(String... lines) {
+
+        StringBuilder buffer = null;
+
+        // the same buffer is reused for all lines like the pump does
+        buffer = new StringBuilder();
+
+        for (String currLine : lines) {
+
+            buffer.setLength(0);
+            buffer.append(currLine);
+            parser.line(buffer, false);
+        }
+    }
+
+    private void assertEvent(int index, BuildEvent.Type type, String detail) {
+
+        assertEquals(events.get(index).getType(), type, "Wrong type of event " + index + "!");
+        assertEquals(events.get(index).getDetail(), detail, "Wrong detail of event " + index + "!");
+    }
+}
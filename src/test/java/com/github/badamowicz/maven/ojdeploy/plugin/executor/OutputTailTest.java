@@ -0,0 +1,105 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import static org.testng.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Test cases for {@link LineSplitter} and {@link OutputTail}.
+ * 
+ * @author bernd
+ *
+ */
+public class OutputTailTest {
+
+    private OutputTail   tail     = null;
+    private LineSplitter splitter = null;
+
+    @BeforeMethod
+    public void beforeMethod() {
+
+        List<OutputListener> listeners = null;
+
+        tail = new OutputTail(3);
+        listeners = new ArrayList<OutputListener>();
+        listeners.add(tail);
+        splitter = new LineSplitter(listeners, false);
+    }
+
+    @Test
+    public void splitChunks() {
+
+        splitter.feed(ByteBuffer.wrap("first\r\nsec".getBytes()));
+        splitter.feed(ByteBuffer.wrap("ond\n\nthird".getBytes()));
+        splitter.finish();
+
+        assertEquals(tail.getLines(), Arrays.asList("second", "", "third"), "Lines not split correctly!");
+        assertEquals(tail.getCount(), 4, "Wrong number of lines!");
+    }
+
+    @Test
+    public void splitLongLine() {
+
+        StringBuilder line = null;
+
+        line = new StringBuilder();
+
+        for (int i = 0; i < LineSplitter.MAX_LINE_LENGTH * 2; i++)
+            line.append('x');
+
+        splitter.feed(ByteBuffer.wrap((line + "\nnext\n").getBytes()));
+        splitter.finish();
+
+        assertEquals(tail.getLines().get(0).length(), LineSplitter.MAX_LINE_LENGTH, "Long line not truncated!");
+        assertEquals(tail.getLines().get(1), "next", "Line after long line lost!");
+    }
+
+    @Test
+    public void tailBeforeWrap() {
+
+        tail.line("only", true);
+
+        assertEquals(tail.getLines(), Arrays.asList("only"), "Wrong tail!");
+    }
+
+    @Test
+    public void tailDisabled() {
+
+        tail = new OutputTail(0);
+        tail.line("ignored", false);
+
+        assertEquals(tail.getLines().size(), 0, "Tail must be empty!");
+    }
+}
@@ -0,0 +1,147 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.exec.ExecuteException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.exceptions.OjdeployExecutionException;
+import com.github.badamowicz.maven.ojdeploy.plugin.helper.AbstractOjdeployHelper;
+
+/**
+ * Test cases for {@link ParallelOjdeployExecutor}.
+ * 
+ * @author bernd
+ *
+ */
+public class ParallelOjdeployExecutorTest extends AbstractOjdeployHelper {
+
+    private static final String              PROFILE_1     = "profile1";
+    private static final String              PROFILE_2     = "profile2";
+    private static final String              PROFILE_3     = "profile3";
+    private static final int                 PARALLELISM   = 2;
+
+    private ParallelOjdeployExecutor         executor      = null;
+    private Map<String, List<MojoParameter>> profileParams = null;
+
+    @BeforeClass
+    public void beforeClass() {
+
+        executor = new ParallelOjdeployExecutor(PARALLELISM);
+        executor.getExecutor().setLogFile(new File("target/omp.log"));
+        profileParams = new LinkedHashMap<String, List<MojoParameter>>();
+        profileParams.put(PROFILE_1, createParams(PROFILE_1));
+        profileParams.put(PROFILE_2, createParams(PROFILE_2));
+        profileParams.put(PROFILE_3, createParams(PROFILE_3));
+    }
+
+    private List<MojoParameter> createParams(String profile) {
+
+        List<MojoParameter> params = null;
+
+        params = new ArrayList<MojoParameter>();
+        params.add(new MojoParameter("jdevBinPath", JDEV_BIN_PATH.getPath(), String.class));
+        params.add(new MojoParameter("workspaceFile", WORKSPACE_FILE.getPath(), String.class));
+        params.add(new MojoParameter("profile", profile, String.class));
+
+        return params;
+    }
+
+    @Test
+    public void executeDryRun() {
+
+        List<ExecutionResult> results = null;
+
+        results = executor.execute(profileParams, true);
+        assertEquals(results.size(), 3, "One result per profile expected!");
+        assertEquals(results.get(0).getName(), PROFILE_1, "Order of results not as expected!");
+        assertEquals(results.get(2).getName(), PROFILE_3, "Order of results not as expected!");
+
+        for (ExecutionResult currResult : results) {
+
+            assertTrue(currResult.isSuccessful(), "Dry run should not fail!");
+            assertTrue(currResult.isDryRun(), "Dry run flag not set!");
+            assertEquals(currResult.getLogFile().getName(), "omp-" + currResult.getName() + ".log",
+                    "Log file not specific to profile!");
+        }
+    }
+
+    /**
+     * The binary path used for testing does not exist, so every process must fail without affecting the others.
+     */
+    @Test
+    public void executeFailing() {
+
+        List<ExecutionResult> results = null;
+
+        results = executor.execute(profileParams, false);
+        assertEquals(results.size(), 3, "One result per profile expected!");
+
+        for (ExecutionResult currResult : results) {
+
+            assertFalse(currResult.isSuccessful(), "Profile " + currResult.getName() + " should have failed!");
+            assertNotNull(currResult.getFailure(), "Failure not available!");
+        }
+    }
+
+    @Test
+    public void createLogFile() {
+
+        assertEquals(executor.createLogFile(new File("omp.log"), PROFILE_1), new File("omp-profile1.log"));
+        assertEquals(executor.createLogFile(new File("logs/omp"), PROFILE_1), new File("logs/omp-profile1"));
+    }
+
+    @Test
+    public void findExitValue() {
+
+        OjdeployExecutionException failure = null;
+
+        failure = new OjdeployExecutionException("failed", new ExecuteException("exit", 42));
+        assertEquals(executor.findExitValue(failure), 42, "Exit value not found in causes!");
+        assertEquals(executor.findExitValue(new OjdeployExecutionException()), -1, "No exit value expected!");
+    }
+
+    @Test
+    public void getParallelism() {
+
+        assertEquals(executor.getParallelism(), PARALLELISM, "Parallelism not set as expected!");
+        assertEquals(new ParallelOjdeployExecutor(0).getParallelism(), Runtime.getRuntime().availableProcessors(),
+                "Parallelism should default to available processors!");
+    }
+}
@@ -0,0 +1,255 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.exceptions.OjdeployExecutionException;
+
+/**
+ * Test cases for {@link ProcessThrottle}.
+ * 
+ * @author bernd
+ *
+ */
+public class ProcessThrottleTest {
+
+    private static final File TEST_DIR = new File("target/throttle-test");
+
+    private ProcessThrottle   throttle = null;
+
+    @BeforeMethod
+    public void beforeMethod() {
+
+        FileUtils.deleteQuietly(TEST_DIR);
+        throttle = new ProcessThrottle(TEST_DIR, 2, 1000);
+    }
+
+    @Test
+    public void tryAcquire() throws IOException {
+
+        ProcessThrottle.Permit first = null;
+        ProcessThrottle.Permit second = null;
+
+        TEST_DIR.mkdirs();
+        first = throttle.tryAcquire();
+        second = throttle.tryAcquire();
+
+        assertNotNull(first, "First slot not acquired!");
+        assertNotNull(second, "Second slot not acquired!");
+        assertTrue(first.getSlot() != second.getSlot(), "Slot acquired twice!");
+        assertNull(throttle.tryAcquire(), "More slots acquired than allowed!");
+
+        first.release();
+        first.release();
+        first = throttle.tryAcquire();
+        assertNotNull(first, "Released slot not acquired again!");
+        first.release();
+        second.release();
+    }
+
+    @Test
+    public void acquireTimeout() {
+
+        ProcessThrottle.Permit first = null;
+        ProcessThrottle.Permit second = null;
+        long start = System.currentTimeMillis();
+
+        first = throttle.acquire("p1");
+        second = throttle.acquire("p2");
+
+        try {
+
+            throttle.acquire("p3");
+            fail("Timeout waiting for a slot not detected!");
+
+        } catch (OjdeployExecutionException e) {
+
+            assertTrue(System.currentTimeMillis() - start >= 1000, "Did not wait for a free slot!");
+
+        } finally {
+
+            first.release();
+            second.release();
+        }
+    }
+
+    @Test
+    public void acquireWaiting() throws Exception {
+
+        ExecutorService pool = null;
+        Future<Integer> waiting = null;
+        ProcessThrottle.Permit first = null;
+        ProcessThrottle.Permit second = null;
+
+        first = throttle.acquire("p1");
+        second = throttle.acquire("p2");
+        pool = Executors.newSingleThreadExecutor();
+
+        try {
+
+            waiting = pool.submit(new Callable<Integer>() {
+
+                @Override
+                public Integer call() {
+
+                    ProcessThrottle.Permit permit = null;
+
+                    permit = new ProcessThrottle(TEST_DIR, 2, 5000).acquire("p3");
+                    permit.release();
+
+                    return Integer.valueOf(permit.getSlot());
+                }
+            });
+
+            Thread.sleep(200);
+            first.release();
+
+            assertEquals(waiting.get().intValue(), first.getSlot(), "Released slot not acquired by waiting run!");
+
+        } finally {
+
+            second.release();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void acquireHeldAgainstOtherJvm() throws Exception {
+
+        ExecutorService pool = null;
+        Future<Integer> waiting = null;
+        ProcessThrottle.Permit first = null;
+
+        first = new ProcessThrottle(TEST_DIR, 1, 1000).acquire("p1");
+        pool = Executors.newSingleThreadExecutor();
+
+        try {
+
+            waiting = pool.submit(new Callable<Integer>() {
+
+                @Override
+                public Integer call() {
+
+                    ProcessThrottle.Permit permit = null;
+
+                    permit = new ProcessThrottle(TEST_DIR, 1, 10000).acquire("p2");
+                    permit.release();
+
+                    return Integer.valueOf(permit.getSlot());
+                }
+            });
+
+            // let the second thread poll the occupied slot a few times
+            Thread.sleep(1200);
+
+            assertEquals(probeSlot(new File(TEST_DIR, "slot-0.lock")), SlotProbe.OCCUPIED,
+                    "Slot held by this JVM was acquired by another JVM!");
+
+            first.release();
+
+            assertEquals(waiting.get().intValue(), 0, "Released slot not acquired by waiting thread!");
+            assertEquals(probeSlot(new File(TEST_DIR, "slot-0.lock")), SlotProbe.FREE, "Released slot still locked!");
+
+        } finally {
+
+            first.release();
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Try to lock a slot from a second JVM.
+     */
+    private static String probeSlot(File slotFile) throws IOException, InterruptedException {
+
+        Process process = null;
+        String output = null;
+        String java = null;
+
+        java = new File(new File(System.getProperty("java.home"), "bin"), "java").getAbsolutePath();
+        process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), SlotProbe.class.getName(),
+                slotFile.getAbsolutePath()).redirectErrorStream(true).start();
+
+        try {
+
+            output = IOUtils.toString(process.getInputStream()).trim();
+            process.waitFor();
+
+        } finally {
+
+            process.destroy();
+        }
+
+        return output;
+    }
+
+    /**
+     * Prints whether the lock file given as the only argument may be locked by this JVM.
+     */
+    public static class SlotProbe {
+
+        static final String FREE     = "free";
+        static final String OCCUPIED = "occupied";
+
+        public static void main(String[] args) throws IOException {
+
+            RandomAccessFile slotFile = null;
+            FileLock lock = null;
+
+            slotFile = new RandomAccessFile(args[0], "rw");
+
+            try {
+
+                lock = slotFile.getChannel().tryLock();
+                System.out.println(lock != null ? FREE : OCCUPIED);
+
+            } finally {
+
+                slotFile.close();
+            }
+        }
+    }
+}
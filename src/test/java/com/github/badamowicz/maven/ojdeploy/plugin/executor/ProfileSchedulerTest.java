@@ -0,0 +1,128 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.helper.AbstractOjdeployHelper;
+
+/**
+ * Test cases for {@link ProfileScheduler}.
+ * 
+ * @author bernd
+ *
+ */
+public class ProfileSchedulerTest extends AbstractOjdeployHelper {
+
+    private WorkspaceModel      model      = null;
+    private ProfileScheduler    scheduler  = null;
+    private List<MojoParameter> baseParams = null;
+
+    @BeforeClass
+    public void beforeClass() {
+
+        ParallelOjdeployExecutor runner = null;
+
+        model = new WorkspaceParser().parse(IT_WORKSPACE_FILE);
+        runner = new ParallelOjdeployExecutor(2);
+        runner.getExecutor().setLogFile(new File("target/omp.log"));
+        scheduler = new ProfileScheduler(model, runner);
+
+        baseParams = new ArrayList<MojoParameter>();
+        baseParams.add(new MojoParameter("jdevBinPath", JDEV_BIN_PATH.getPath(), String.class));
+        baseParams.add(new MojoParameter("workspaceFile", IT_WORKSPACE_FILE.getPath(), String.class));
+        baseParams.add(new MojoParameter("project", PROJECT, String.class));
+    }
+
+    @Test
+    public void createParams() {
+
+        List<MojoParameter> params = null;
+
+        params = ProfileScheduler.createParams(model.getProfile(IT_WAR_PROFILE), baseParams);
+        assertEquals(MojoParameters.valueOf(params, "profile"), IT_WAR_PROFILE, "Profile not set!");
+        assertEquals(MojoParameters.valueOf(params, "project"), "ViewController", "Project not set!");
+        assertEquals(MojoParameters.valueOf(params, "nodependents"), Boolean.TRUE, "Dependents not disabled!");
+
+        params = ProfileScheduler.createParams(model.getProfile(IT_EAR_PROFILE), baseParams);
+        assertNull(MojoParameters.valueOf(params, "project"), "Workspace profile must not have a project!");
+    }
+
+    @Test
+    public void executeDryRun() {
+
+        List<ExecutionResult> results = null;
+
+        results = scheduler.execute(Arrays.asList(model.getProfile(IT_EAR_PROFILE)), baseParams, true);
+        assertEquals(results.size(), 2, "Dependency not deployed!");
+        assertEquals(results.get(0).getName(), IT_WAR_PROFILE, "Dependency must be deployed first!");
+        assertEquals(results.get(1).getName(), IT_EAR_PROFILE, "Target not deployed!");
+        assertTrue(results.get(0).isSuccessful() && results.get(1).isSuccessful(), "Dry run should not fail!");
+    }
+
+    @Test
+    public void executeDuplicateDependency() {
+
+        WorkspaceModel duplicateModel = null;
+        DeploymentProfile ear = null;
+        List<ExecutionResult> results = null;
+
+        duplicateModel = new WorkspaceParser().parse(IT_WORKSPACE_FILE);
+        ear = duplicateModel.getProfile(IT_EAR_PROFILE);
+        ear.addDependency(ear.getDependencies().get(0));
+        assertEquals(duplicateModel.getDependencies(ear).size(), 1, "Duplicate dependency not removed!");
+
+        results = new ProfileScheduler(duplicateModel, scheduler.getRunner()).execute(Arrays.asList(ear), baseParams, true);
+        assertEquals(results.size(), 2, "Profile with duplicate dependency not deployed!");
+    }
+
+    /**
+     * The binary path used for testing does not exist, so the WAR fails and the EAR must be skipped.
+     */
+    @Test
+    public void executeFailing() {
+
+        List<ExecutionResult> results = null;
+
+        results = scheduler.execute(Arrays.asList(model.getProfile(IT_EAR_PROFILE)), baseParams, false);
+        assertEquals(results.size(), 2, "Both profiles expected in results!");
+        assertFalse(results.get(0).isSuccessful(), "WAR should have failed!");
+        assertFalse(results.get(1).isSuccessful(), "EAR should have been skipped!");
+        assertNull(results.get(1).getLogFile(), "Skipped EAR should not have been executed!");
+    }
+}
@@ -0,0 +1,176 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.exec.ExecuteStreamHandler;
+import org.apache.commons.exec.PumpStreamHandler;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Compares the throughput of {@link BufferedStreamHandler} with the PumpStreamHandler of commons-exec previously used for
+ * ojdeploy. The process output is simulated by a stream returning verbose ojdeploy lines in pieces of at most 64 KB, like a pipe
+ * does. Not run by surefire. Start its main method with the test classpath, optionally passing the size in megabytes and the
+ * number of rounds.
+ * 
+ * @author bernd
+ *
+ */
+public class StreamHandlerBenchmark {
+
+    private static final File   TEST_DIR  = new File("target/streamhandler-benchmark");
+    private static final int    PIPE_SIZE = 64 * 1024;
+    private static final String LINE      = "[12:00:00 PM] Copying to @oracle.home@/jdeveloper/mywork/Workspace/Model/classes/"
+                                                  + "com/example/model/entity/SomeEntityImpl.class\n";
+
+    public static void main(String[] args) throws IOException {
+
+        long size = 0;
+        int rounds = 0;
+
+        size = (args.length > 0 ? Long.parseLong(args[0]) : 512) * 1024 * 1024;
+        rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        FileUtils.deleteQuietly(TEST_DIR);
+        TEST_DIR.mkdirs();
+
+        for (int i = 0; i < rounds; i++) {
+
+            report("PumpStreamHandler", size, runPumpStreamHandler(size));
+            report("BufferedStreamHandler", size, runBufferedStreamHandler(size));
+        }
+    }
+
+    private static long runPumpStreamHandler(long size) throws IOException {
+
+        FileOutputStream fos = null;
+
+        fos = new FileOutputStream(new File(TEST_DIR, "pump.log"));
+
+        try {
+
+            return run(new PumpStreamHandler(fos), size);
+
+        } finally {
+
+            IOUtils.closeQuietly(fos);
+        }
+    }
+
+    private static long runBufferedStreamHandler(long size) throws IOException {
+
+        BufferedStreamHandler handler = null;
+
+        handler = new BufferedStreamHandler(new File(TEST_DIR, "buffered.log"), new File(TEST_DIR, "buffered-stderr.log"));
+
+        try {
+
+            return run(handler, size);
+
+        } finally {
+
+            handler.close();
+        }
+    }
+
+    private static long run(ExecuteStreamHandler handler, long size) throws IOException {
+
+        long start = System.nanoTime();
+
+        handler.setProcessOutputStream(new VerboseOutputStream(size));
+        handler.setProcessErrorStream(new ByteArrayInputStream(new byte[0]));
+        handler.start();
+        handler.stop();
+
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String name, long size, long nanos) {
+
+        System.out.println(String.format("%-22s %6d MB in %6d ms = %7.1f MB/s", name, size / 1024 / 1024, nanos / 1000000,
+                (size / 1024.0 / 1024.0) / (nanos / 1000000000.0)));
+    }
+
+    /**
+     * Endless repetition of a verbose ojdeploy line, returned in pieces not larger than a pipe buffer.
+     */
+    private static class VerboseOutputStream extends InputStream {
+
+        private byte[] line      = LINE.getBytes();
+        private long   remaining = 0;
+        private int    offset    = 0;
+
+        VerboseOutputStream(long size) {
+
+            super();
+            remaining = size;
+        }
+
+        @Override
+        public int read() {
+
+            byte[] single = new byte[1];
+
+            return read(single, 0, 1) < 0 ? -1 : single[0];
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+
+            int count = 0;
+            int piece = 0;
+
+            if (remaining == 0)
+                return -1;
+
+            len = (int) Math.min(Math.min(len, PIPE_SIZE), remaining);
+
+            while (count < len) {
+
+                piece = Math.min(len - count, line.length - offset);
+                System.arraycopy(line, offset, b, off + count, piece);
+                count += piece;
+                offset = (offset + piece) % line.length;
+            }
+
+            remaining -= count;
+
+            return count;
+        }
+
+        @Override
+        public int available() {
+
+            return (int) Math.min(remaining, PIPE_SIZE);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.exceptions.OjdeployExecutionException;
+import com.github.badamowicz.maven.ojdeploy.plugin.helper.AbstractOjdeployHelper;
+
+/**
+ * Test cases for {@link WorkspaceIndex}. All tests work on a copy of the integration test's workspace.
+ * 
+ * @author bernd
+ *
+ */
+public class WorkspaceIndexTest extends AbstractOjdeployHelper {
+
+    private static final File TEST_DIR      = new File("target/workspaceindex-test");
+    private static final File INDEX_FILE    = new File(TEST_DIR, "workspace-model.idx");
+    private static final long OLD           = System.currentTimeMillis() - 60000;
+
+    private File              workspaceFile = null;
+
+    @BeforeClass
+    public void beforeClass() throws IOException {
+
+        FileUtils.deleteQuietly(TEST_DIR);
+        FileUtils.copyDirectory(IT_WORKSPACE_FILE.getParentFile(), new File(TEST_DIR, "ShuttleDemo"));
+        workspaceFile = new File(TEST_DIR, "ShuttleDemo/" + IT_WORKSPACE_FILE.getName());
+
+        for (File currFile : FileUtils.listFiles(workspaceFile.getParentFile(), new String[] { "jws", "jpr" }, true))
+            currFile.setLastModified(OLD);
+    }
+
+    @Test
+    public void parseFromIndex() {
+
+        WorkspaceModel parsed = null;
+        WorkspaceModel restored = null;
+        DeploymentProfile war = null;
+
+        parsed = new WorkspaceParser(new WorkspaceIndex(INDEX_FILE)).parse(workspaceFile);
+        restored = new WorkspaceParser(new WorkspaceIndex(INDEX_FILE)).parse(workspaceFile);
+
+        assertEquals(restored.getProjectFiles(), parsed.getProjectFiles(), "Projects not restored!");
+        assertEquals(restored.getOutputDirectories(), parsed.getOutputDirectories(), "Output directories not restored!");
+        assertEquals(restored.getProjectDependencies(), parsed.getProjectDependencies(), "Project dependencies not restored!");
+        assertEquals(restored.getProfiles().size(), parsed.getProfiles().size(), "Profiles not restored!");
+
+        war = restored.getProfile(IT_WAR_PROFILE);
+        assertEquals(war.getArchiveFile(), parsed.getProfile(IT_WAR_PROFILE).getArchiveFile(), "Archive not restored!");
+        assertEquals(war.getProfileClass(), parsed.getProfile(IT_WAR_PROFILE).getProfileClass(), "Class not restored!");
+        assertEquals(war.getContributors(), parsed.getProfile(IT_WAR_PROFILE).getContributors(), "Contributors not restored!");
+        assertEquals(restored.getDependencyClosure(Arrays.asList(restored.getProfile(IT_EAR_PROFILE))).size(), 2,
+                "Dependencies not restored!");
+    }
+
+    @Test(dependsOnMethods = "parseFromIndex")
+    public void unchangedFileIsNotParsed() throws IOException {
+
+        File project = null;
+        long size = 0;
+
+        project = new File(workspaceFile.getParentFile(), "Model/Model.jpr");
+        size = project.length();
+        FileUtils.write(project, FileUtils.readFileToString(project).replace('<', '{'));
+        project.setLastModified(OLD);
+        assertEquals(project.length(), size, "Size of project file must not change!");
+
+        assertEquals(new WorkspaceParser(new WorkspaceIndex(INDEX_FILE)).parse(workspaceFile).getProfiles().size(), 3,
+                "Profiles should be taken from the index!");
+    }
+
+    @Test(dependsOnMethods = "unchangedFileIsNotParsed", expectedExceptions = OjdeployExecutionException.class)
+    public void changedFileIsParsed() {
+
+        new File(workspaceFile.getParentFile(), "Model/Model.jpr").setLastModified(OLD + 1000);
+        new WorkspaceParser(new WorkspaceIndex(INDEX_FILE)).parse(workspaceFile);
+    }
+}
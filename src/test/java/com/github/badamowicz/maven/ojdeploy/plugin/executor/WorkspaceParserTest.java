@@ -0,0 +1,147 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.executor;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.exceptions.OjdeployExecutionException;
+import com.github.badamowicz.maven.ojdeploy.plugin.helper.AbstractOjdeployHelper;
+
+/**
+ * Test cases for {@link WorkspaceParser} and {@link WorkspaceModel} based on the workspace of the integration test.
+ * 
+ * @author bernd
+ *
+ */
+public class WorkspaceParserTest extends AbstractOjdeployHelper {
+
+    private WorkspaceModel model = null;
+
+    @BeforeClass
+    public void beforeClass() {
+
+        model = new WorkspaceParser().parse(IT_WORKSPACE_FILE);
+    }
+
+    @Test
+    public void getProjectFiles() {
+
+        assertEquals(model.getProjectFiles().size(), 2, "Amount of projects not as expected!");
+        assertEquals(model.getProjectFiles().get(0).getName(), "Model.jpr", "First project not as expected!");
+        assertTrue(model.getProjectFiles().get(1).isAbsolute(), "Project file should be resolved!");
+    }
+
+    @Test
+    public void getProfiles() {
+
+        DeploymentProfile ear = null;
+        DeploymentProfile war = null;
+
+        assertEquals(model.getProfiles().size(), 3, "Amount of profiles not as expected!");
+
+        ear = model.getProfile(IT_EAR_PROFILE);
+        assertNotNull(ear, "EAR profile not found!");
+        assertNull(ear.getProjectName(), "EAR profile is defined on workspace level!");
+        assertEquals(ear.getProfileClass(), "oracle.jdeveloper.deploy.ear.EarProfile", "Profile class not as expected!");
+        assertEquals(ear.getArchiveFile(), WorkspaceParser.normalize(new File(IT_WORKSPACE_FILE.getParentFile(),
+                "deploy/ShuttleDemo_application1.ear")), "Archive not as expected!");
+
+        war = model.getProfile(IT_WAR_PROFILE);
+        assertNotNull(war, "WAR profile not found!");
+        assertEquals(war.getProjectName(), "ViewController", "Project of WAR profile not as expected!");
+        assertEquals(war.getArchiveFile().getName(), "ShuttleDemo_ViewController_webapp1.war", "Archive not as expected!");
+    }
+
+    @Test
+    public void getDependencies() {
+
+        DeploymentProfile ear = null;
+        DeploymentProfile war = null;
+
+        ear = model.getProfile(IT_EAR_PROFILE);
+        war = model.getProfile(IT_WAR_PROFILE);
+        assertEquals(model.getDependencies(ear), Arrays.asList(war), "EAR should depend on WAR!");
+        assertTrue(model.getDependencies(war).isEmpty(), "WAR should not have any dependencies!");
+    }
+
+    @Test
+    public void getDependencyClosure() {
+
+        List<DeploymentProfile> closure = null;
+
+        closure = model.getDependencyClosure(Arrays.asList(model.getProfile(IT_EAR_PROFILE)));
+        assertEquals(closure, Arrays.asList(model.getProfile(IT_WAR_PROFILE), model.getProfile(IT_EAR_PROFILE)),
+                "Dependencies must come first!");
+    }
+
+    @Test
+    public void getProjectClosure() {
+
+        File viewController = null;
+        File modelProject = null;
+
+        viewController = model.getProjectFiles().get(1);
+        modelProject = model.getProjectFiles().get(0);
+        assertEquals(model.getProjectClosure(viewController), Arrays.asList(viewController, modelProject),
+                "ViewController should depend on Model!");
+        assertEquals(model.getProjectClosure(modelProject), Arrays.asList(modelProject),
+                "Model should not have any dependencies!");
+    }
+
+    @Test(expectedExceptions = OjdeployExecutionException.class)
+    public void getDependencyClosureCyclic() {
+
+        WorkspaceModel cyclic = null;
+        DeploymentProfile a = null;
+        DeploymentProfile b = null;
+
+        cyclic = new WorkspaceModel(WORKSPACE_FILE);
+        a = new DeploymentProfile("a", WORKSPACE_FILE);
+        b = new DeploymentProfile("b", WORKSPACE_FILE);
+        a.addDependency(new ProfileDependency(WORKSPACE_FILE, "b"));
+        b.addDependency(new ProfileDependency(WORKSPACE_FILE, "a"));
+        cyclic.getProfiles().add(a);
+        cyclic.getProfiles().add(b);
+        cyclic.getDependencyClosure(Arrays.asList(a));
+    }
+
+    @Test(expectedExceptions = OjdeployExecutionException.class)
+    public void parseMissingFile() {
+
+        new WorkspaceParser().parse(WORKSPACE_FILE);
+    }
+}
@@ -65,6 +65,10 @@ public abstract class AbstractOjdeployHelper {
     protected static final Long              TIMEOUT           = 300l;
     protected static final Boolean           BUILD_FILE_SCHEMA = Boolean.TRUE;
     protected static final Boolean           DRY_RUN           = Boolean.TRUE;
+    protected static final File              IT_WORKSPACE_FILE = new File("src/it/Ojdeploy-Profile-IT/ShuttleDemo/ShuttleDemo.jws");
+    protected static final String            IT_EAR_PROFILE    = "ShuttleDemo_application1";
+    protected static final String            IT_WAR_PROFILE    = "ShuttleDemo_ViewController_webapp1";
+    protected static final String            IT_JAR_PROFILE    = "ShuttleDemo_Model_adflibShuttleDemo1";
     protected OjdeployMojo                   mojo              = null;
 
     protected void prepareDefaultMojo() {
@@ -0,0 +1,162 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.metrics;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.BuildEvent;
+
+/**
+ * Test cases for {@link BuildMetrics} and {@link MetricsWriter}.
+ * 
+ * @author bernd
+ *
+ */
+public class BuildMetricsTest {
+
+    private static final File TEST_DIR = new File("target/metrics-test");
+
+    private BuildMetrics      metrics  = null;
+
+    @BeforeMethod
+    public void beforeMethod() {
+
+        FileUtils.deleteQuietly(TEST_DIR);
+        metrics = new BuildMetrics();
+    }
+
+    @Test
+    public void onEvent() {
+
+        List<Span> spans = null;
+
+        fire(BuildEvent.Type.DEPLOYMENT_STARTED, "p1", "started");
+        fire(BuildEvent.Type.COMPILE_STARTED, "p1", "Model.jpr");
+        fire(BuildEvent.Type.COMPILE_STARTED, "p2", "");
+        fire(BuildEvent.Type.COMPILE_STARTED, "p1", "ViewController.jpr");
+        fire(BuildEvent.Type.COMPILE_FINISHED, "p1", "0 errors");
+        fire(BuildEvent.Type.WARNING, "p1", "Warning: something");
+        fire(BuildEvent.Type.DEPLOYMENT_FINISHED, "p1", "finished");
+
+        spans = metrics.getSpans();
+
+        assertEquals(spans.size(), 4, "Wrong number of spans: " + spans);
+        assertSpan(spans.get(0), "Model.jpr", BuildMetrics.COMPILE, "p1");
+        assertSpan(spans.get(1), "ViewController.jpr", BuildMetrics.COMPILE, "p1");
+        assertSpan(spans.get(2), "p1", BuildMetrics.PACKAGE, "p1");
+        assertSpan(spans.get(3), "p1", BuildMetrics.DEPLOY, "p1");
+        assertTrue(spans.get(1).getStart() >= spans.get(0).getStart(), "Spans not ordered!");
+    }
+
+    @Test
+    public void writeJson() throws IOException {
+
+        File file = null;
+        String json = null;
+
+        file = new File(TEST_DIR, "ojdeploy-metrics.json");
+        TEST_DIR.mkdirs();
+        metrics.record("getParameterList", BuildMetrics.SETUP, null, metrics.now());
+        fire(BuildEvent.Type.COMPILE_STARTED, "p1", "Model.jpr");
+        fire(BuildEvent.Type.COMPILE_FINISHED, "p1", "0 errors");
+        metrics.record("ojdeploy", BuildMetrics.PROCESS, "p1", metrics.now());
+
+        new MetricsWriter("module\"1").writeJson(metrics, file);
+        json = FileUtils.readFileToString(file);
+
+        assertTrue(json.contains("\"module\": \"module\\\"1\""), "Module not quoted: " + json);
+        assertTrue(json.contains("\"phases\": {\n    \"setup\": "), "Phases missing: " + json);
+        assertTrue(json.contains("\"p1\": {\n      \"process\": "), "Profiles missing: " + json);
+        assertTrue(json.contains("\"projects\": {\n    \"Model.jpr\": "), "Projects missing: " + json);
+        assertTrue(json.contains("{\"name\": \"getParameterList\", \"category\": \"setup\", \"track\": \"main\""),
+                "Spans missing: " + json);
+    }
+
+    @Test
+    public void writePrometheus() throws IOException {
+
+        File file = null;
+        String text = null;
+
+        file = new File(TEST_DIR, "ojdeploy.prom");
+        TEST_DIR.mkdirs();
+        metrics.record("getParameterList", BuildMetrics.SETUP, null, metrics.now());
+        metrics.record("getParameterList", BuildMetrics.SETUP, null, metrics.now());
+
+        new MetricsWriter("module1").writePrometheus(metrics, file);
+        text = FileUtils.readFileToString(file);
+
+        assertTrue(text.contains("# TYPE ojdeploy_phase_duration_seconds gauge\n"), "Type missing: " + text);
+        assertEquals(text.split("phase=\"setup\"").length, 2, "Durations of same labels not summed up: " + text);
+        assertTrue(text.contains("ojdeploy_last_build_timestamp_seconds{module=\"module1\"} "), "Timestamp missing: " + text);
+        assertEquals(TEST_DIR.list().length, 1, "Temporary file not renamed!");
+    }
+
+    @Test
+    public void writeTrace() throws IOException {
+
+        File file = null;
+        String json = null;
+
+        file = new File(TEST_DIR, "ojdeploy-trace.json");
+        TEST_DIR.mkdirs();
+        metrics.record("profile", BuildMetrics.PARAMETER, null, metrics.now());
+        metrics.record("ojdeploy", BuildMetrics.PROCESS, "p1", metrics.now());
+        metrics.record("ojdeploy", BuildMetrics.PROCESS, "p2", metrics.now());
+
+        new MetricsWriter("module1").writeTrace(metrics, file);
+        json = FileUtils.readFileToString(file);
+
+        assertTrue(json.startsWith("{\"displayTimeUnit\": \"ms\", \"traceEvents\": ["), "No trace event format: " + json);
+        assertTrue(json.contains("\"tid\": 2, \"args\": {\"name\": \"p2\"}"), "Track of parallel profile missing: " + json);
+        assertTrue(json.contains("{\"name\": \"profile\", \"cat\": \"parameter\", \"ph\": \"X\", \"ts\": "),
+                "Span missing: " + json);
+        assertTrue(json.contains("\"pid\": 1, \"tid\": 1}"), "Span not assigned to its track: " + json);
+        assertTrue(json.endsWith("\n]}\n"), "Trace not terminated: " + json);
+    }
+
+    private void fire(BuildEvent.Type type, String name, String detail) {
+
+        metrics.onEvent(new BuildEvent(type, name, detail, false));
+    }
+
+    private void assertSpan(Span span, String name, String category, String track) {
+
+        assertEquals(span.getName(), name, "Wrong name!");
+        assertEquals(span.getCategory(), category, "Wrong category!");
+        assertEquals(span.getTrack(), track, "Wrong track!");
+    }
+}
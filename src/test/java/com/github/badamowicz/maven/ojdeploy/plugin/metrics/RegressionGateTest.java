@@ -0,0 +1,98 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.metrics;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.exceptions.OjdeployExecutionException;
+
+/**
+ * Test cases for {@link RegressionGate}.
+ * 
+ * @author bernd
+ *
+ */
+public class RegressionGateTest {
+
+    private static final File   HISTORY_FILE = new File("target/history-test/regression.tsv");
+    private static final String WORKSPACE    = "/ws/a.jws";
+    private static final long   GB           = 1024L * 1024 * 1024;
+
+    private RunHistory          history      = null;
+    private RegressionGate      gate         = null;
+
+    @BeforeMethod
+    public void beforeMethod() {
+
+        FileUtils.deleteQuietly(HISTORY_FILE);
+        history = new RunHistory(HISTORY_FILE);
+        gate = new RegressionGate(history, 50);
+    }
+
+    @Test
+    public void checkWithoutBaseline() {
+
+        for (int i = 1; i < RegressionGate.MIN_BASELINE_RUNS; i++)
+            history.append(new RunHistory.Run(i, WORKSPACE, "ear", false, 100000, GB));
+
+        assertTrue(gate.check(WORKSPACE, "ear", false, 1000000, 10 * GB).isEmpty(), "Too few runs must not form a baseline!");
+    }
+
+    @Test
+    public void check() {
+
+        List<String> regressions = null;
+
+        for (int i = 1; i <= RegressionGate.MIN_BASELINE_RUNS; i++)
+            history.append(new RunHistory.Run(i, WORKSPACE, "ear", false, i == 1 ? 900000 : 100000, i == 1 ? -1 : GB));
+
+        assertTrue(gate.check(WORKSPACE, "ear", false, 150000, GB).isEmpty(), "Run within threshold must pass!");
+        assertTrue(gate.check(WORKSPACE, "ear", false, 200000, GB).get(0).contains("by 100%"),
+                "Duration regression not detected!");
+
+        history.append(new RunHistory.Run(6, WORKSPACE, "ear", false, 100000, GB));
+        regressions = gate.check(WORKSPACE, "ear", false, 100000, 2 * GB);
+
+        assertEquals(regressions.size(), 1, "Memory regression not detected!");
+        assertTrue(regressions.get(0).startsWith("Peak memory"), "Wrong regression!");
+    }
+
+    @Test(expectedExceptions = OjdeployExecutionException.class)
+    public void parseUnknownAction() {
+
+        assertEquals(RegressionGate.Action.parse(" Fail "), RegressionGate.Action.FAIL, "Action not parsed!");
+        RegressionGate.Action.parse("explode");
+    }
+}
@@ -0,0 +1,126 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.metrics;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Test cases for {@link RunHistory}.
+ * 
+ * @author bernd
+ *
+ */
+public class RunHistoryTest {
+
+    private static final File HISTORY_FILE = new File("target/history-test/history.tsv");
+
+    private RunHistory        history      = null;
+
+    @BeforeMethod
+    public void beforeMethod() {
+
+        FileUtils.deleteQuietly(HISTORY_FILE);
+        history = new RunHistory(HISTORY_FILE);
+    }
+
+    @Test
+    public void getRuns() throws IOException {
+
+        List<RunHistory.Run> runs = null;
+
+        for (int i = 1; i <= 5; i++) {
+
+            history.append(new RunHistory.Run(i, "/ws/a.jws", "webapp", false, i * 1000, -1));
+            history.append(new RunHistory.Run(i, "/ws/a.jws", "ear", false, 42, -1));
+            history.append(new RunHistory.Run(i, "/ws/a.jws", "webapp", true, 7, -1));
+        }
+
+        FileUtils.write(HISTORY_FILE, "123\t/ws/a.jws\twebapp\tfull\t9", true);
+        runs = history.getRuns("/ws/a.jws", "webapp", false, 3);
+
+        assertEquals(runs.size(), 3, "Window not applied!");
+        assertEquals(runs.get(0).getDuration(), 3000, "Oldest run of the window must come first!");
+        assertEquals(runs.get(2).getDuration(), 5000, "Latest run must come last!");
+        assertTrue(history.getRuns("/ws/b.jws", "webapp", false, 3).isEmpty(), "Runs of other workspace returned!");
+        assertEquals(history.getRuns("/ws/a.jws", "webapp", true, 3).get(0).getDuration(), 7, "Runs of other scope returned!");
+    }
+
+    @Test
+    public void compact() {
+
+        List<RunHistory.Run> runs = null;
+        RunHistory.Run ear = null;
+
+        ear = new RunHistory.Run(0, "/ws/a.jws", "ear", false, 42, -1);
+        history = new RunHistory(HISTORY_FILE, RunHistory.format(ear).length() * 10, 3);
+        history.append(ear);
+
+        for (int i = 1; i <= 20; i++)
+            history.append(new RunHistory.Run(i, "/ws/a.jws", "webapp", false, i * 1000, -1));
+
+        runs = history.getRuns("/ws/a.jws", "webapp", false, 20);
+
+        assertTrue(HISTORY_FILE.length() <= RunHistory.format(ear).length() * 10, "History not compacted!");
+        assertTrue(runs.size() >= 3 && runs.size() < 20, "Wrong number of runs kept!");
+        assertEquals(runs.get(runs.size() - 1).getDuration(), 20000, "Latest run not kept!");
+        assertEquals(runs.get(0).getDuration(), (21 - runs.size()) * 1000, "Not the latest runs kept!");
+        assertEquals(history.getRuns("/ws/a.jws", "ear", false, 20).size(), 1, "Runs of other profile dropped!");
+    }
+
+    @Test
+    public void parse() {
+
+        assertEquals(RunHistory.parse("1\t/ws/a.jws\tear\tfull\t2\t3").getPeakRssBytes(), 3, "Line not parsed!");
+        assertTrue(RunHistory.parse("1\t/ws/a.jws\tear\tnodependents\t2\t3").isNodependents(), "Scope not parsed!");
+        assertNull(RunHistory.parse("1\t/ws/a.jws\tear\tfull\t2"), "Torn line not detected!");
+        assertNull(RunHistory.parse("1\t/ws/a.jws\tear\tfull\tx\t3"), "Malformed number not detected!");
+        assertNull(RunHistory.parse("1\t/ws/a.jws\tear\tother\t2\t3"), "Unknown scope not detected!");
+    }
+
+    @Test
+    public void percentile() {
+
+        List<Long> values = null;
+
+        values = Arrays.asList(new Long[] { 5L, 1L, 4L, 2L, 3L, 10L, 6L, 8L, 7L, 9L });
+
+        assertEquals(RunHistory.percentile(values, 50), 5, "Wrong median!");
+        assertEquals(RunHistory.percentile(values, 95), 10, "Wrong 95th percentile!");
+        assertEquals(RunHistory.percentile(values, 1), 1, "Wrong minimum!");
+    }
+}
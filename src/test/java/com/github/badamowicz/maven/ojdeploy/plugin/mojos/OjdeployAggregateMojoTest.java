@@ -0,0 +1,273 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.mojos;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugin.descriptor.PluginDescriptorBuilder;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.codehaus.plexus.util.xml.Xpp3DomBuilder;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.exceptions.OjdeployExecutionException;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.ExecutionResult;
+import com.github.badamowicz.maven.ojdeploy.plugin.helper.AbstractOjdeployHelper;
+import com.github.badamowicz.maven.ojdeploy.plugin.mojos.OjdeployAggregateMojo.ModuleDeployment;
+
+/**
+ * Test cases for {@link OjdeployAggregateMojo} and {@link MojoConfigurator}.
+ * 
+ * @author bernd
+ *
+ */
+public class OjdeployAggregateMojoTest extends AbstractOjdeployHelper {
+
+    private static final File             TEST_DIR   = new File("target/aggregate-test");
+
+    /** The descriptor generated for this plugin by the build. */
+    private static final PluginDescriptor DESCRIPTOR = loadDescriptor();
+
+    private OjdeployAggregateMojo         aggregate  = null;
+    private MavenProject                  module1    = null;
+    private MavenProject                  module2    = null;
+    private MavenProject                  module3    = null;
+
+    @BeforeMethod
+    public void beforeMethod() {
+
+        module1 = createModule("module1", "<profile>p1</profile>");
+        module2 = createModule("module2", "<profiles><profile>p2</profile><profile>p3</profile></profiles>");
+        module3 = createModule("module3", "<profile>p4</profile><clean>true</clean>");
+
+        aggregate = new OjdeployAggregateMojo();
+        aggregate.setReactorProjects(Arrays.asList(module1, module2, module3, new MavenProject(new Model())));
+        aggregate.setBuildDirectory(new File(TEST_DIR, "target"));
+        aggregate.setDryRun(Boolean.TRUE);
+        aggregate.setPluginDescriptor(DESCRIPTOR);
+    }
+
+    @Test
+    public void configure() {
+
+        OjdeployMojo mojo = null;
+
+        mojo = new MojoConfigurator(DESCRIPTOR).configure(module2).get(0);
+
+        assertEquals(mojo.getEffectiveProfiles(), Arrays.asList("p2", "p3"), "Profiles not configured!");
+        assertEquals(mojo.getWorkspaceFile(), new File(TEST_DIR, "module2/App.jws").getAbsoluteFile(),
+                "Relative path not resolved!");
+        assertEquals(mojo.getJdevBinPath(), JDEV_BIN_PATH, "Plugin configuration not merged!");
+        assertEquals(mojo.getNocompile(), Boolean.TRUE, "Boolean not converted!");
+    }
+
+    @Test
+    public void configureDefaults() {
+
+        OjdeployMojo mojo = null;
+
+        module1.getProperties().setProperty("outputTailLines", "10");
+        mojo = new MojoConfigurator(DESCRIPTOR).configure(module1).get(0);
+
+        assertEquals(mojo.getTimeout(), Long.valueOf(30000), "Default value not applied!");
+        assertEquals(mojo.getOutputTailLines(), Integer.valueOf(10), "Property not applied!");
+        assertEquals(mojo.getMetricsFile(), new File(TEST_DIR, "module1/target/ojdeploy-metrics.json").getAbsoluteFile(),
+                "Expression of default value not resolved against module!");
+        assertEquals(mojo.getThrottleDirectory(), new File(System.getProperty("user.home"), ".ojdeploy/slots"),
+                "System property not resolved!");
+        assertSame(mojo.getMavenProject(), module1, "Module not set!");
+        assertNull(mojo.getProject(), "Module assigned to parameter of another type!");
+        assertEquals(mojo.getNocompile(), Boolean.TRUE, "Explicit value overridden by default!");
+    }
+
+    @Test
+    public void configureNumbers() {
+
+        OjdeployMojo mojo = null;
+
+        mojo = new MojoConfigurator(DESCRIPTOR).createMojo(module1, parse("<configuration>"
+                + "<timeoutMultiplier>2.5</timeoutMultiplier><timeoutPercentile>90</timeoutPercentile>"
+                + "<processTimeout>600</processTimeout></configuration>"));
+
+        assertEquals(mojo.getTimeoutMultiplier(), Double.valueOf(2.5), "Double not converted!");
+        assertEquals(mojo.getTimeoutPercentile(), Integer.valueOf(90), "Integer not converted!");
+        assertEquals(mojo.getProcessTimeout(), Long.valueOf(600), "Long not converted!");
+    }
+
+    @Test(expectedExceptions = OjdeployExecutionException.class)
+    public void configureUnsupported() {
+
+        new MojoConfigurator(DESCRIPTOR).configure(new UnsupportedBean(),
+                parse("<configuration><date>today</date></configuration>"), null);
+    }
+
+    @Test
+    public void groupDeployments() {
+
+        Map<String, List<ModuleDeployment>> groups = null;
+
+        groups = aggregate.groupDeployments(aggregate.collectDeployments());
+
+        assertEquals(groups.size(), 2, "Modules with different parameters must not be merged!");
+        assertEquals(groups.values().iterator().next().size(), 2, "Compatible modules not merged!");
+        assertEquals(groups.values().iterator().next().get(1).getDeployments().size(), 2, "Profiles of module2 missing!");
+    }
+
+    @Test
+    public void execute() throws MojoExecutionException {
+
+        aggregate.execute();
+
+        assertNull(module1.getProperties().getProperty(OjdeployMojo.AGGREGATED_PROPERTY), "Module of dry run marked!");
+        assertEquals(module3.getProperties().getProperty(OjdeployAggregateMojo.EXIT_VALUE_PROPERTY), "-1",
+                "Exit value not mapped back!");
+        assertTrue(new File(TEST_DIR, "target/ojdeploy/ojdeploy-build-1.xml").isFile(), "Build file of group 1 missing!");
+        assertTrue(new File(TEST_DIR, "target/ojdeploy/ojdeploy-build-2.xml").isFile(), "Build file of group 2 missing!");
+        assertFalse(new MojoConfigurator(DESCRIPTOR).configure(module1).get(0).isAggregated(), "Module's execution skipped!");
+    }
+
+    @Test
+    public void mapResult() {
+
+        ExecutionResult groupResult = null;
+
+        groupResult = new ExecutionResult("aggregate-1");
+        groupResult.setExitValue(0);
+        aggregate.mapResult(aggregate.collectDeployments().get(0), groupResult);
+
+        assertTrue(new MojoConfigurator(DESCRIPTOR).configure(module1).get(0).isAggregated(), "Module's execution not skipped!");
+    }
+
+    @Test
+    public void mapResultFailed() {
+
+        ExecutionResult groupResult = null;
+
+        groupResult = new ExecutionResult("aggregate-1");
+        groupResult.setExitValue(1);
+        groupResult.setFailure(new OjdeployExecutionException("failed"));
+        aggregate.mapResult(aggregate.collectDeployments().get(0), groupResult);
+
+        assertNull(module1.getProperties().getProperty(OjdeployMojo.AGGREGATED_PROPERTY), "Module of failed group marked!");
+        assertEquals(module1.getProperties().getProperty(OjdeployAggregateMojo.EXIT_VALUE_PROPERTY), "1",
+                "Exit value not mapped back!");
+    }
+
+    private MavenProject createModule(String name, String executionConfig) {
+
+        Model model = null;
+        Plugin plugin = null;
+        PluginExecution execution = null;
+        MavenProject project = null;
+
+        execution = new PluginExecution();
+        execution.setId("deploy");
+        execution.addGoal("ojdeploy");
+        execution.setConfiguration(parse("<configuration><workspaceFile>App.jws</workspaceFile><nocompile>true</nocompile>"
+                + executionConfig + "</configuration>"));
+
+        plugin = new Plugin();
+        plugin.setGroupId("com.github.badamowicz");
+        plugin.setArtifactId("ojdeploy-maven-plugin");
+        plugin.setConfiguration(parse("<configuration><jdevBinPath>" + JDEV_BIN_PATH.getPath()
+                + "</jdevBinPath></configuration>"));
+        plugin.addExecution(execution);
+
+        model = new Model();
+        model.setArtifactId(name);
+        model.setBuild(new Build());
+        model.getBuild().setDirectory(new File(TEST_DIR, name + "/target").getAbsolutePath());
+        model.getBuild().addPlugin(plugin);
+
+        project = new MavenProject(model);
+        project.setFile(new File(TEST_DIR, name + "/pom.xml").getAbsoluteFile());
+
+        return project;
+    }
+
+    private static PluginDescriptor loadDescriptor() {
+
+        Reader reader = null;
+
+        try {
+
+            reader = new InputStreamReader(new FileInputStream("target/classes/META-INF/maven/plugin.xml"), "UTF-8");
+            return new PluginDescriptorBuilder().build(reader);
+
+        } catch (Exception e) {
+
+            throw new IllegalStateException("Plugin descriptor not generated!", e);
+
+        } finally {
+
+            IOUtils.closeQuietly(reader);
+        }
+    }
+
+    private Xpp3Dom parse(String xml) {
+
+        try {
+
+            return Xpp3DomBuilder.build(new StringReader(xml));
+
+        } catch (Exception e) {
+
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * Bean having a field of a type which can't be converted from a string.
+     */
+    static class UnsupportedBean {
+
+        @SuppressWarnings("unused")
+        private Date date = null;
+    }
+}
@@ -29,13 +29,22 @@ package com.github.badamowicz.maven.ojdeploy.plugin.mojos;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.plugin.MojoExecutionException;
 
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.ExecutionResult;
 import com.github.badamowicz.maven.ojdeploy.plugin.executor.MojoParameter;
 import com.github.badamowicz.maven.ojdeploy.plugin.helper.AbstractOjdeployHelper;
 
@@ -78,6 +87,154 @@ public class OjdeployMojoTest extends AbstractOjdeployHelper {
         assertEquals(params.size(), 0, "No parameters expected in list!");
     }
 
+    @Test
+    public void getParameterListWithProfile() {
+
+        List<MojoParameter> params = null;
+
+        params = mojo.getParameterList("otherProfile");
+        assertEquals(params.size(), 18, "Not all available parameters in list!");
+        assertEquals(params.get(5).getParameterName(), "profile", "Profile not at expected position!");
+        assertEquals(params.get(5).getParameterValue(), "otherProfile", "Profile not overridden!");
+    }
+
+    @Test
+    public void getEffectiveProfiles() {
+
+        OjdeployMojo profilesMojo = null;
+
+        assertEquals(mojo.getEffectiveProfiles(), Arrays.asList(PROFILE), "Only the single profile expected!");
+        assertTrue(emptyListMojo.getEffectiveProfiles().isEmpty(), "No profiles expected!");
+
+        profilesMojo = new OjdeployMojo();
+        profilesMojo.setProfile("a");
+        profilesMojo.setProfiles(Arrays.asList("b", "a", "c"));
+        assertEquals(profilesMojo.getEffectiveProfiles(), Arrays.asList("a", "b", "c"), "Profiles not merged as expected!");
+    }
+
+    @Test
+    public void getDeploymentParameters() {
+
+        Deployment deployment = null;
+        List<MojoParameter> params = null;
+
+        deployment = new Deployment();
+        deployment.setProfile("a");
+        deployment.setDefines(Arrays.asList("x=1", "y=2"));
+        params = mojo.getDeploymentParameters(deployment);
+
+        assertEquals(params.size(), 3, "Wrong number of parameters!");
+        assertEquals(params.get(0).getParameterValue(), WORKSPACE_FILE.getAbsolutePath(), "Mojo's workspace expected!");
+        assertEquals(params.get(1).getParameterValue(), "a", "Wrong profile!");
+        assertEquals(params.get(2).getParameterValue(), "x=1,y=2", "Wrong defines!");
+    }
+
+    @Test
+    public void executeBatch() throws MojoExecutionException {
+
+        OjdeployMojo batchMojo = null;
+        Deployment deployment = null;
+
+        deployment = new Deployment();
+        deployment.setWorkspaceFile(WORKSPACE_FILE);
+        deployment.setProfile("a");
+
+        batchMojo = new OjdeployMojo();
+        batchMojo.setJdevBinPath(JDEV_BIN_PATH);
+        batchMojo.setDryRun(DRY_RUN);
+        batchMojo.setBuildDirectory(new File("target/batch-test"));
+        batchMojo.setDeployments(Arrays.asList(deployment, deployment));
+        batchMojo.execute();
+
+        assertTrue(new File("target/batch-test/ojdeploy/ojdeploy-build.xml").isFile(), "Build file not generated!");
+    }
+
+    @Test
+    public void startAndAwait() throws MojoExecutionException {
+
+        OjdeployStartMojo startMojo = null;
+        OjdeployAwaitMojo awaitMojo = null;
+        Map<Object, Object> pluginContext = null;
+
+        pluginContext = new HashMap<Object, Object>();
+
+        startMojo = new OjdeployStartMojo();
+        startMojo.setPluginContext(pluginContext);
+        startMojo.setJdevBinPath(JDEV_BIN_PATH);
+        startMojo.setProfile(PROFILE);
+        startMojo.setDryRun(DRY_RUN);
+        startMojo.setAsyncId("test");
+        startMojo.execute();
+        assertTrue(pluginContext.containsKey(OjdeployStartMojo.CONTEXT_KEY + "test"), "Execution not registered!");
+
+        awaitMojo = new OjdeployAwaitMojo();
+        awaitMojo.setPluginContext(pluginContext);
+        awaitMojo.setAsyncId("test");
+        awaitMojo.execute();
+        assertTrue(pluginContext.isEmpty(), "Execution not removed!");
+    }
+
+    @Test(expectedExceptions = MojoExecutionException.class)
+    public void awaitWithoutStart() throws MojoExecutionException {
+
+        OjdeployAwaitMojo awaitMojo = null;
+
+        awaitMojo = new OjdeployAwaitMojo();
+        awaitMojo.setPluginContext(new HashMap<Object, Object>());
+        awaitMojo.setAsyncId("unknown");
+        awaitMojo.execute();
+    }
+
+    @Test(expectedExceptions = MojoExecutionException.class)
+    public void executeBatchWithProfile() throws MojoExecutionException {
+
+        OjdeployMojo batchMojo = null;
+
+        batchMojo = new OjdeployMojo();
+        batchMojo.setProfile(PROFILE);
+        batchMojo.setDeployments(Arrays.asList(new Deployment()));
+        batchMojo.execute();
+    }
+
+    @Test(expectedExceptions = MojoExecutionException.class)
+    public void checkResultsFailing() throws MojoExecutionException {
+
+        ExecutionResult success = null;
+        ExecutionResult failure = null;
+
+        success = new ExecutionResult("a");
+        failure = new ExecutionResult("b");
+        failure.setLogFile(new File("omp-b.log"));
+        failure.setFailure(new IllegalStateException());
+        OjdeployMojo.checkResults(Arrays.asList(success, failure));
+    }
+
+    @Test
+    public void checkResultsMessage() {
+
+        ExecutionResult failure = null;
+
+        failure = new ExecutionResult("b");
+        failure.setLogFile(new File("omp-b.log"));
+        failure.setFailure(new IllegalStateException("not launched"));
+
+        try {
+
+            OjdeployMojo.checkResults(Arrays.asList(failure));
+            fail("Failure not reported!");
+
+        } catch (MojoExecutionException e) {
+
+            assertTrue(e.getMessage().endsWith("omp-b.log"), "Log file not reported as expected: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void checkResults() throws MojoExecutionException {
+
+        OjdeployMojo.checkResults(Arrays.asList(new ExecutionResult("a"), new ExecutionResult("b")));
+    }
+
     @Test
     private void testVerbose() {
 
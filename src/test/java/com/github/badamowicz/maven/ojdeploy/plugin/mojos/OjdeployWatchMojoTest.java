@@ -0,0 +1,164 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.mojos;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.cache.DirectoryWatcher;
+import com.github.badamowicz.maven.ojdeploy.plugin.cache.Fingerprinter;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.WorkspaceModel;
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.WorkspaceParser;
+import com.github.badamowicz.maven.ojdeploy.plugin.helper.AbstractOjdeployHelper;
+
+/**
+ * Test cases for {@link OjdeployWatchMojo}. The mojo runs in dry run mode on a copy of the integration test's workspace.
+ * 
+ * @author bernd
+ *
+ */
+public class OjdeployWatchMojoTest extends AbstractOjdeployHelper {
+
+    private static final File TEST_DIR      = new File("target/watch-test");
+    private static final long TIMEOUT       = 10000;
+    private static final long QUIET_PERIOD  = 200;
+
+    private File              workspaceFile = null;
+    private OjdeployWatchMojo watchMojo     = null;
+    private Thread            thread        = null;
+
+    @BeforeClass
+    public void beforeClass() throws IOException {
+
+        FileUtils.deleteQuietly(TEST_DIR);
+        FileUtils.copyDirectory(IT_WORKSPACE_FILE.getParentFile(), new File(TEST_DIR, "ShuttleDemo"));
+        workspaceFile = new File(TEST_DIR, "ShuttleDemo/" + IT_WORKSPACE_FILE.getName()).getAbsoluteFile();
+
+        try {
+
+            new DirectoryWatcher().close();
+
+        } catch (IOException e) {
+
+            throw new SkipException("File system does not notify about changes.", e);
+        }
+
+        watchMojo = new OjdeployWatchMojo();
+        watchMojo.setBaseDir(TEST_DIR);
+        watchMojo.setJdevBinPath(JDEV_BIN_PATH);
+        watchMojo.setWorkspaceFile(workspaceFile);
+        watchMojo.setProfile(IT_WAR_PROFILE);
+        watchMojo.setDryRun(DRY_RUN);
+        watchMojo.setWatchQuietPeriod(QUIET_PERIOD);
+    }
+
+    @AfterClass
+    public void afterClass() throws InterruptedException {
+
+        if (thread != null) {
+
+            watchMojo.stop();
+            thread.join(TIMEOUT);
+        }
+    }
+
+    @Test
+    public void isIgnored() {
+
+        WorkspaceModel model = null;
+        Fingerprinter fingerprinter = null;
+
+        model = new WorkspaceParser().parse(workspaceFile);
+        fingerprinter = new Fingerprinter();
+        assertTrue(fingerprinter.isIgnored(model, new File(TEST_DIR, "ShuttleDemo/ViewController/classes/Generated.class")),
+                "Output directory not ignored!");
+        assertTrue(fingerprinter.isIgnored(model, new File(TEST_DIR, "ShuttleDemo/.svn/entries")),
+                "Version control metadata not ignored!");
+        assertFalse(fingerprinter.isIgnored(model, new File(TEST_DIR, "ShuttleDemo/ViewController/src/New.java")),
+                "Source file ignored!");
+
+        model.getProfile(IT_EAR_PROFILE).setArchiveFile(new File(TEST_DIR, "ShuttleDemo/ShuttleDemo.ear").getAbsoluteFile());
+        assertTrue(fingerprinter.isIgnored(model, new File(TEST_DIR, "ShuttleDemo/ShuttleDemo.ear")),
+                "Archive inside the workspace directory not ignored!");
+        assertFalse(fingerprinter.isIgnored(model, new File(TEST_DIR, "ShuttleDemo/build.properties")),
+                "File next to archive ignored!");
+    }
+
+    @Test
+    public void deployOnChanges() throws Exception {
+
+        thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+
+                try {
+
+                    watchMojo.execute();
+
+                } catch (Exception e) {
+
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        thread.start();
+        awaitRounds(1);
+
+        FileUtils.write(new File(TEST_DIR, "ShuttleDemo/ViewController/src/New.java"), "class New {}");
+        awaitRounds(2);
+
+        FileUtils.deleteDirectory(new File(TEST_DIR, "ShuttleDemo/ViewController/classes"));
+        new File(TEST_DIR, "ShuttleDemo/ViewController/classes").mkdirs();
+        Thread.sleep(QUIET_PERIOD * 5);
+        assertEquals(watchMojo.getRounds(), 2, "Changes of the output directory not ignored!");
+
+        watchMojo.stop();
+        thread.join(TIMEOUT);
+        assertFalse(thread.isAlive(), "Watching not stopped!");
+    }
+
+    private void awaitRounds(int rounds) throws InterruptedException {
+
+        long start = System.currentTimeMillis();
+
+        while (watchMojo.getRounds() < rounds && System.currentTimeMillis() - start < TIMEOUT)
+            Thread.sleep(50);
+
+        assertEquals(watchMojo.getRounds(), rounds, "Profiles not deployed as expected!");
+    }
+}
@@ -0,0 +1,101 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.process;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import com.github.badamowicz.maven.ojdeploy.plugin.executor.ExecutionResult;
+
+/**
+ * Test cases for {@link ProcessSampler} and {@link ProcessTree}. Sampling is only tested on systems providing /proc.
+ * 
+ * @author bernd
+ *
+ */
+public class ProcessSamplerTest {
+
+    private static final File TEST_DIR = new File("target/sampler-test");
+
+    @Test
+    public void readField() {
+
+        String status = "Name:\tjava\nVmPeak:\t  123 kB\nVmHWM:\t   4711 kB\nThreads:\t12\n";
+
+        assertEquals(ProcessSampler.readField(status, "VmHWM:"), 4711, "Wrong value of field!");
+        assertEquals(ProcessSampler.readField(status, "Threads:"), 12, "Wrong value of last field!");
+        assertEquals(ProcessSampler.readField(status, "VmRSS:"), -1, "Missing field not detected!");
+        assertEquals(ProcessSampler.readField(null, "VmHWM:"), -1, "Missing file not detected!");
+    }
+
+    @Test
+    public void sample() throws IOException, InterruptedException {
+
+        Process process = null;
+        ProcessSampler sampler = null;
+        ExecutionResult result = null;
+        File statsFile = null;
+        long pid = 0;
+
+        if (!ProcessTree.isSupported())
+            throw new SkipException("No /proc file system available.");
+
+        statsFile = new File(TEST_DIR, "sample-process.properties");
+        result = new ExecutionResult("sample");
+        process = new ProcessBuilder("/bin/sh", "-c", "sleep 2 & wait").start();
+
+        try {
+
+            pid = ProcessTree.getPid(process);
+            assertTrue(pid > 0, "Process ID not found!");
+            Thread.sleep(300);
+            assertEquals(ProcessTree.getTree(pid).size(), 2, "Child process not found!");
+
+            sampler = new ProcessSampler(result, 50, statsFile);
+            sampler.processStarted(pid);
+            Thread.sleep(300);
+            sampler.processFinished();
+
+        } finally {
+
+            process.destroy();
+        }
+
+        assertEquals(result.getProcessStats().getProcesses(), 2, "Wrong number of processes!");
+        assertTrue(result.getProcessStats().getSamples() > 1, "Process not sampled periodically!");
+        assertTrue(result.getProcessStats().getPeakRssBytes() > 0, "Peak memory not sampled!");
+        assertTrue(result.getProcessStats().getPeakThreads() >= 2, "Threads not sampled!");
+        assertTrue(FileUtils.readFileToString(statsFile).contains("rss.peak.bytes="), "Statistics not stored!");
+    }
+}
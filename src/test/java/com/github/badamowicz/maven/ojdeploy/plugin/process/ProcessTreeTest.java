@@ -0,0 +1,121 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.process;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import org.testng.SkipException;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Test cases for {@link ProcessTree} and {@link ThreadDumper}. Only run on systems providing /proc.
+ * 
+ * @author bernd
+ *
+ */
+public class ProcessTreeTest {
+
+    @BeforeMethod
+    public void beforeMethod() {
+
+        if (!ProcessTree.isSupported())
+            throw new SkipException("No /proc file system available.");
+    }
+
+    @Test
+    public void destroy() throws IOException, InterruptedException {
+
+        Process process = null;
+        List<Long> tree = null;
+
+        process = new ProcessBuilder("/bin/sh", "-c", "sleep 30 & wait").start();
+        Thread.sleep(300);
+        tree = ProcessTree.getTree(ProcessTree.getPid(process));
+        assertEquals(tree.size(), 2, "Child process not found!");
+
+        ProcessTree.destroy(tree, 2000);
+        process.waitFor();
+
+        assertFalse(ProcessTree.isAlive(tree.get(1).longValue()), "Child process not destroyed!");
+    }
+
+    @Test
+    public void stopTree() throws IOException, InterruptedException {
+
+        Process process = null;
+        List<Long> tree = null;
+
+        process = new ProcessBuilder("/bin/sh", "-c", "sleep 30 & sleep 31 & wait").start();
+        Thread.sleep(300);
+        tree = ProcessTree.stopTree(ProcessTree.getPid(process));
+        assertEquals(tree.size(), 3, "Child processes not found!");
+
+        for (Long currPid : tree)
+            assertEquals(ProcessTree.readStat(currPid.longValue())[0], "T", "Process " + currPid + " not stopped!");
+
+        ProcessTree.destroy(tree, 2000);
+        process.waitFor();
+
+        for (Long currPid : tree)
+            assertFalse(ProcessTree.isAlive(currPid.longValue()), "Process " + currPid + " not destroyed!");
+    }
+
+    @Test
+    public void getJvms() {
+
+        List<Long> jvms = null;
+
+        jvms = ProcessTree.getJvms(ProcessTree.getTree(getOwnPid()));
+
+        assertTrue(jvms.contains(Long.valueOf(getOwnPid())), "Own JVM not found!");
+    }
+
+    @Test
+    public void dumpThreads() {
+
+        String dump = null;
+
+        dump = ThreadDumper.dump(getOwnPid());
+
+        if (dump == null)
+            throw new SkipException("Neither jcmd nor jstack available.");
+
+        assertTrue(dump.contains(Thread.currentThread().getName()), "Current thread not part of dump!");
+    }
+
+    private long getOwnPid() {
+
+        return Long.parseLong(ManagementFactory.getRuntimeMXBean().getName().split("@")[0]);
+    }
+}
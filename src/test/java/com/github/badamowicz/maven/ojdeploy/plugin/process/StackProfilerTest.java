@@ -0,0 +1,115 @@
+/*  _______________________________________
+ * < Maven OJDeploy Plugin                 >
+ * < Copyright 2014 Bernd Adamowicz        >
+ * < mailto:info AT bernd-adamowicz DOT de >
+ *  ---------------------------------------
+ *  \
+ *   \   \_\_    _/_/
+ *    \      \__/
+ *           (oo)\_______
+ *           (__)\       )\/\
+ *               ||----w |
+ *               ||     ||
+ *
+ * Maven OJDeploy Plugin is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.github.badamowicz.maven.ojdeploy.plugin.process;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+/**
+ * Test cases for {@link StackProfiler}.
+ * 
+ * @author bernd
+ *
+ */
+public class StackProfilerTest {
+
+    private static final File   TEST_DIR = new File("target/profiler-test");
+
+    private static final String DUMP     = "2014-07-01 12:00:00\nFull thread dump Java HotSpot(TM) 64-Bit Server VM:\n\n"
+                                                 + "\"main\" #1 prio=5 os_prio=0 tid=0x1 nid=0x2 runnable [0x3]\n"
+                                                 + "   java.lang.Thread.State: RUNNABLE\n"
+                                                 + "\tat java.io.FileOutputStream.writeBytes(Native Method)\n"
+                                                 + "\tat java.util.jar.JarOutputStream.write(JarOutputStream.java:12)\n"
+                                                 + "\t- locked <0x4> (a java.util.jar.JarOutputStream)\n"
+                                                 + "\tat oracle.jdeveloper.deploy.Archiver.run(Archiver.java:42)\n\n"
+                                                 + "\"Finalizer\" #3 daemon prio=8 tid=0x5 nid=0x6 in Object.wait() [0x7]\n"
+                                                 + "   java.lang.Thread.State: WAITING (on object monitor)\n"
+                                                 + "\tat java.lang.Object.wait(Native Method)\n\n"
+                                                 + "\"VM Thread\" os_prio=0 tid=0x8 nid=0x9 runnable\n";
+
+    @Test
+    public void collapse() {
+
+        Map<String, Integer> stacks = null;
+
+        stacks = new TreeMap<String, Integer>();
+        StackProfiler.collapse(DUMP, stacks);
+        StackProfiler.collapse(DUMP, stacks);
+
+        assertEquals(stacks.size(), 1, "Only the runnable thread with frames must be counted!");
+        assertEquals(stacks.get("oracle.jdeveloper.deploy.Archiver.run;java.util.jar.JarOutputStream.write;"
+                + "java.io.FileOutputStream.writeBytes"), Integer.valueOf(2), "Wrong collapsed stack!");
+    }
+
+    @Test
+    public void profile() throws IOException {
+
+        StackProfiler profiler = null;
+        File stacksFile = null;
+        String pid = null;
+
+        if (!ProcessTree.isSupported())
+            throw new SkipException("No /proc file system available.");
+
+        pid = ManagementFactory.getRuntimeMXBean().getName().split("@")[0];
+        stacksFile = new File(TEST_DIR, "own-stacks.collapsed");
+        FileUtils.deleteQuietly(stacksFile);
+        profiler = new StackProfiler(100, stacksFile);
+        profiler.processStarted(Long.parseLong(pid));
+        spin(profiler, 10000);
+        profiler.processFinished();
+
+        if (profiler.getSamples() == 0)
+            throw new SkipException("Neither jcmd nor jstack available.");
+
+        assertTrue(FileUtils.readFileToString(stacksFile).contains("StackProfilerTest.spin"), "Own stack not sampled!");
+    }
+
+    /**
+     * Keep the current thread runnable until two samples have been taken, since waiting threads are not sampled.
+     */
+    private double spin(StackProfiler profiler, long timeout) {
+
+        long end = System.currentTimeMillis() + timeout;
+        double result = 0;
+
+        while (profiler.getSamples() < 2 && System.currentTimeMillis() < end)
+            result += Math.sqrt(result + 1);
+
+        return result;
+    }
+}